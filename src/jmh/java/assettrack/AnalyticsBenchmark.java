@@ -0,0 +1,74 @@
+package assettrack;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The top-20 most expensive assets of a year from the incremental aggregates, against the scan over every history
+// that it replaces.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class AnalyticsBenchmark {
+    @Param({"1000000"})
+    int size;
+
+    private Path dir;
+    private DataManager dataManager;
+    private MaintenanceAnalytics analytics;
+    private int year;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("assettrack-analytics");
+        dataManager = new DataManager(dir);
+        Inventories.populate(dataManager, size);
+        analytics = dataManager.getAnalytics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataManager.deleteTree(dir);
+    }
+
+    @Benchmark
+    public List<MaintenanceAnalytics.Ranked> topAssets() {
+        year = year % 6 + 1;
+        return analytics.topAssets(2019 + year, 20);
+    }
+
+    @Benchmark
+    public List<String> fullScanTopAssets() {
+        Map<String, Long> totals = new HashMap<>();
+        for (Asset asset : dataManager.getAssets()) {
+            for (MaintenanceRecord record : dataManager.getMaintenanceHistory(asset.getAssetId())) {
+                if (record.getDate().getYear() == 2023) {
+                    totals.merge(asset.getAssetId(), MaintenanceAnalytics.toCents(record.getCost()), Long::sum);
+                }
+            }
+        }
+        return totals.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed()).limit(20)
+            .map(Map.Entry::getKey).collect(Collectors.toList());
+    }
+}
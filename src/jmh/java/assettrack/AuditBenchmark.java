@@ -0,0 +1,92 @@
+package assettrack;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Queries over years of assignment and status changes for the given number of assets: the first query on a freshly
+// opened log (which builds the index from the checkpoint), point-in-time state, and custody at a time and over all time.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class AuditBenchmark {
+    @Param({"10000"})
+    int size;
+
+    @Param({"5"})
+    int years;
+
+    private Path dir;
+    private Path log;
+    private AuditLog audit;
+    private int employees;
+    private long begin;
+    private long end;
+    private final Random random = new Random(11);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("assettrack-audit");
+        log = dir.resolve("audit.log");
+        employees = Math.max(1, size / 10);
+        end = LocalDateTime.of(2025, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+        begin = end - years * 365L * 86_400_000L;
+        Inventories.writeAuditEvents(log, size, employees, begin, end);
+        audit = openAudit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataManager.deleteTree(dir);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public AuditLog firstQuery() {
+        return openAudit();
+    }
+
+    @Benchmark
+    public AuditLog.State stateAt() {
+        return audit.stateAt(Inventories.assetId(random.nextInt(size)), begin + (long) (random.nextDouble() * (end - begin)));
+    }
+
+    @Benchmark
+    public List<AuditLog.Custody> custodyAt() {
+        long at = begin + (long) (random.nextDouble() * (end - begin));
+        return audit.custodyOf(Inventories.employeeId(random.nextInt(employees)), at, at);
+    }
+
+    @Benchmark
+    public List<AuditLog.Custody> custodyTimeline() {
+        return audit.custodyOf(Inventories.employeeId(random.nextInt(employees)), Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    // Opens the log afresh and queries it once, which builds the index.
+    private AuditLog openAudit() {
+        AuditLog opened = new AuditLog(log);
+        opened.stateAt(Inventories.assetId(0), Long.MAX_VALUE);
+        return opened;
+    }
+}
@@ -0,0 +1,76 @@
+package assettrack;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Startup and history lookups with full and with lazy history, on a synthetic inventory of the given number of lines
+// saved as segments. Lookups pick from 5,000 assets, more than the lazy history cache holds, so some read from disk.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class HistoryBenchmark {
+    @Param({"2000000"})
+    int lines;
+
+    @Param({"false", "true"})
+    boolean lazy;
+
+    private Path dir;
+    private DataManager dataManager;
+    private String[] sample;
+    private final Random lookups = new Random(9);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("assettrack-history");
+        Inventories.writeSyntheticInventory(dir.resolve("inventory.txt"), lines);
+        DataManager seed = new DataManager(dir);
+        seed.loadData();
+        seed.saveData();
+        dataManager = loadData();
+        int assetCount = dataManager.getAssetCount();
+        sample = new String[Math.min(assetCount, 5_000)];
+        Random random = new Random(5);
+        Arrays.setAll(sample, i -> Inventories.assetId(random.nextInt(assetCount)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataManager.deleteTree(dir);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DataManager loadData() {
+        DataManager loaded = new DataManager(dir);
+        loaded.setLazyHistory(lazy);
+        loaded.loadData();
+        return loaded;
+    }
+
+    @Benchmark
+    public List<MaintenanceRecord> lookup() {
+        return dataManager.getMaintenanceHistory(sample[lookups.nextInt(sample.length)]);
+    }
+}
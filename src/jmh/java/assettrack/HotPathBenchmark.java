@@ -0,0 +1,136 @@
+package assettrack;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// The hot paths on seeded synthetic inventories: a size N means N assets, N/10 employees and N maintenance records,
+// so runs are reproducible. The 1M inventory needs about 3 GB of heap, which the fork is given.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class HotPathBenchmark {
+    private static final int LOOKUPS = 1_000;
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private Path dir;
+    private DataManager dataManager;
+    private AssetManager assetManager;
+    private EmployeeManager employeeManager;
+    private MaintenanceManager maintenanceManager;
+    private Asset changed;
+    private String[] assetIds;
+    private String[] findLookups;
+    private String employeeLookups;
+    private String assetLookups;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("assettrack-bench");
+        dataManager = new DataManager(dir);
+        Inventories.populate(dataManager, size);
+        dataManager.saveData();
+        assetManager = new AssetManager(dataManager);
+        employeeManager = new EmployeeManager(dataManager);
+        maintenanceManager = new MaintenanceManager(dataManager);
+        assetIds = new String[size];
+        Arrays.setAll(assetIds, Inventories::assetId);
+        changed = dataManager.findAsset(assetIds[0]);
+        int employees = Math.max(1, size / 10);
+        Random random = new Random(7);
+        findLookups = new String[LOOKUPS];
+        Arrays.setAll(findLookups, i -> assetIds[random.nextInt(size)]);
+        StringBuilder employeeLines = new StringBuilder();
+        StringBuilder assetLines = new StringBuilder();
+        for (int i = 0; i < LOOKUPS; i++) {
+            employeeLines.append(Inventories.employeeId(random.nextInt(employees))).append('\n');
+            assetLines.append(assetIds[random.nextInt(size)]).append('\n');
+        }
+        employeeLookups = employeeLines.toString();
+        assetLookups = assetLines.toString();
+        // The report views print; only JMH's own output is wanted.
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setOut(console);
+        DataManager.deleteTree(dir);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void saveData() {
+        dataManager.markAllDirty();
+        dataManager.saveData();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void saveDataOneChange() {
+        dataManager.journalAsset(changed);
+        dataManager.saveData();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DataManager loadData() {
+        DataManager loaded = new DataManager(dir);
+        loaded.loadData();
+        return loaded;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void findAssetById(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(assetManager.findAssetById(findLookups[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void viewEmployeeAssets() {
+        Scanner input = new Scanner(employeeLookups);
+        for (int i = 0; i < LOOKUPS; i++) {
+            employeeManager.viewEmployeeAssets(input, assetManager);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void viewAssetHistory() {
+        Scanner input = new Scanner(assetLookups);
+        for (int i = 0; i < LOOKUPS; i++) {
+            maintenanceManager.viewAssetHistory(input);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package assettrack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Checksum verification of every saved segment file, timed against reading the same files and fully loading them.
+// Run with -jvmArgsAppend -Dassettrack.format=binary for the binary segment format.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class IntegrityBenchmark {
+    @Param({"100000"})
+    int size;
+
+    private Path dir;
+    private List<Path> segments;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("assettrack-integrity");
+        DataManager dataManager = new DataManager(dir, 0);
+        Inventories.populate(dataManager, size);
+        dataManager.saveData();
+        try (Stream<Path> files = Files.walk(dir)) {
+            segments = files.filter(file -> file.getFileName().toString().startsWith("inventory-")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataManager.deleteTree(dir);
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) throws IOException {
+        for (Path segment : segments) {
+            blackhole.consume(Files.readAllBytes(segment));
+        }
+    }
+
+    @Benchmark
+    public void verify(Blackhole blackhole) throws IOException {
+        for (Path segment : segments) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                blackhole.consume(DataManager.BINARY_FORMAT ? BlockFormat.unframe(mapped, 28, new long[1]) : BlockFormat.scan(mapped));
+            }
+        }
+    }
+
+    @Benchmark
+    public void fullLoad(Blackhole blackhole) throws IOException {
+        for (Path segment : segments) {
+            blackhole.consume(DataManager.readSnapshot(segment));
+        }
+    }
+}
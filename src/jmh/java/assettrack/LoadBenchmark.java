@@ -0,0 +1,95 @@
+package assettrack;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Reading a synthetic inventory of the given number of lines (5% assets, 0.5% employees, the rest maintenance
+// records): the old BufferedReader/split/DateTimeFormatter path against InventoryLoader, and the text snapshot against
+// the binary one. Run with '-prof gc' for the allocation per load.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class LoadBenchmark {
+    @Param({"1000000"})
+    int lines;
+
+    private Path dir;
+    private Path text;
+    private Path binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("assettrack-bench");
+        text = dir.resolve("inventory.txt");
+        binary = dir.resolve("inventory.bin");
+        Inventories.writeSyntheticInventory(text, lines);
+        BinarySnapshot.convert(text, binary);
+        System.out.printf("%n[BENCH] %,d lines: text %,d bytes, binary %,d bytes%n", lines, Files.size(text), Files.size(binary));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataManager.deleteTree(dir);
+    }
+
+    @Benchmark
+    public int legacyReader() throws IOException {
+        List<Asset> assets = new ArrayList<>();
+        List<Employee> employees = new ArrayList<>();
+        List<MaintenanceRecord> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(text.toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.startsWith("A,")) {
+                    assets.add(Asset.fromString(line));
+                } else if (line.startsWith("E,")) {
+                    employees.add(Employee.fromString(line));
+                } else if (line.startsWith("M,")) {
+                    records.add(MaintenanceRecord.fromString(line));
+                }
+            }
+        }
+        return assets.size() + employees.size() + records.size();
+    }
+
+    @Benchmark
+    public long inventoryLoader() throws IOException {
+        return InventoryLoader.load(text, false).lines;
+    }
+
+    @Benchmark
+    public long inventoryLoaderParallel() throws IOException {
+        return InventoryLoader.load(text, true).lines;
+    }
+
+    @Benchmark
+    public long binarySnapshot() throws IOException {
+        return BinarySnapshot.read(binary).lines;
+    }
+}
@@ -0,0 +1,86 @@
+package assettrack;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Mutation throughput with journaling on: an fsync per mutation (the old behaviour, delayMs = -1) against group commit
+// at several maximum delays. The journal statistics printed after each run show how many mutations a write absorbed.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(8)
+public class PersistBenchmark {
+    private static final int ASSETS = 10_000;
+
+    @Param({"-1", "0", "10", "200"})
+    long delayMs;
+
+    private Path dir;
+    private DataManager dataManager;
+    private AssetManager assetManager;
+    private EmployeeManager employeeManager;
+
+    @State(Scope.Thread)
+    public static class Mutator {
+        private final Random random = new Random(Thread.currentThread().getId());
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("assettrack-persist");
+        dataManager = new DataManager(dir, Math.max(0, delayMs));
+        Inventories.populate(dataManager, ASSETS);
+        dataManager.saveData();
+        assetManager = new AssetManager(dataManager);
+        employeeManager = new EmployeeManager(dataManager);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataManager.flush();
+        System.out.println("\n[BENCH] delayMs=" + delayMs + ": " + dataManager.getPersistenceStats());
+        dataManager.saveData();
+        DataManager.deleteTree(dir);
+    }
+
+    // Assigns a random asset if it is free and returns it otherwise; collisions between threads are retried.
+    @Benchmark
+    public void mutate(Mutator mutator) {
+        while (true) {
+            String assetId = Inventories.assetId(mutator.random.nextInt(ASSETS));
+            try {
+                if (assetManager.findAssetById(assetId).getAssignedTo() == null) {
+                    assetManager.assignAsset(assetId, Inventories.employeeId(mutator.random.nextInt(ASSETS / 10)), employeeManager);
+                } else {
+                    assetManager.deassignAsset(assetId);
+                }
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (delayMs < 0) {
+                dataManager.flush();
+            }
+            return;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package assettrack;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Help-desk traffic: views of a hot set of employees and assets, with an assignment or a maintenance record on a hot
+// employee or asset after every tenth view, with the report cache as it is and cleared before each view.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class ReportBenchmark {
+    private static final int VIEWS = 2_000;
+
+    @Param({"100000"})
+    int size;
+
+    @Param({"true", "false"})
+    boolean cached;
+
+    private Path dir;
+    private PrintStream console;
+    private DataManager dataManager;
+    private AssetManager assetManager;
+    private EmployeeManager employeeManager;
+    private MaintenanceManager maintenanceManager;
+    private String[] hotEmployees;
+    private String[] hotAssets;
+    private String views;
+    private final Random random = new Random(11);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("assettrack-reports");
+        dataManager = new DataManager(dir);
+        Inventories.populate(dataManager, size);
+        dataManager.beginBatch();
+        assetManager = new AssetManager(dataManager);
+        employeeManager = new EmployeeManager(dataManager);
+        maintenanceManager = new MaintenanceManager(dataManager);
+        int employees = Math.max(1, size / 10);
+        int hot = Math.min(200, employees);
+        hotEmployees = new String[hot];
+        hotAssets = new String[hot];
+        for (int i = 0; i < hot; i++) {
+            hotEmployees[i] = Inventories.employeeId(i * (employees / hot));
+            hotAssets[i] = Inventories.assetId(i * (size / hot));
+        }
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (String asset : hotAssets) {
+            for (int j = 0; j < 40; j++) {
+                maintenanceManager.recordMaintenance(asset, "Intermittent fault " + j, 25 + j, base.plusDays(j), assetManager);
+            }
+        }
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < VIEWS; i++) {
+            lines.append(i % 2 == 0 ? hotEmployees[random.nextInt(hot)] : hotAssets[random.nextInt(hot)]).append('\n');
+        }
+        views = lines.toString();
+        // The report views print; only JMH's own output is wanted.
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setOut(console);
+        DataManager.deleteTree(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VIEWS)
+    public void hotSetViews() {
+        ReportCache employeeReports = dataManager.getEmployeeReports();
+        ReportCache historyReports = dataManager.getHistoryReports();
+        Scanner input = new Scanner(views);
+        for (int i = 0; i < VIEWS; i++) {
+            if (!cached) {
+                employeeReports.clear();
+                historyReports.clear();
+            }
+            if (i % 2 == 0) {
+                employeeManager.viewEmployeeAssets(input, assetManager);
+            } else {
+                maintenanceManager.viewAssetHistory(input);
+            }
+            if (i % 20 == 9) {
+                assetManager.assignAsset(Inventories.assetId(random.nextInt(size)), hotEmployees[random.nextInt(hotEmployees.length)], employeeManager);
+            } else if (i % 20 == 19) {
+                maintenanceManager.recordMaintenance(hotAssets[random.nextInt(hotAssets.length)], "Reported again", 19.99, LocalDateTime.now(), assetManager);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package assettrack;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The same mix of assign, status, maintenance, de-assign and lookup commands through the menu loop (menu keystrokes,
+// printing through a stream set up like the JVM's own System.out: a 128-byte buffer flushed at every line) and through
+// script mode (one-line commands, buffered output), both writing to a file. Divide the command count by the score for
+// commands per second.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class ScriptBenchmark {
+    @Param({"20000"})
+    int commands;
+
+    @Param({"10000"})
+    int size;
+
+    private Path dir;
+    private Path output;
+    private DataManager dataManager;
+    private byte[] menuInput;
+    private byte[] scriptInput;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("assettrack-script");
+        output = dir.resolve("output.txt");
+        dataManager = new DataManager(dir);
+        Inventories.populate(dataManager, size);
+        int employees = Math.max(1, size / 10);
+        StringBuilder menu = new StringBuilder();
+        StringBuilder script = new StringBuilder();
+        Random random = new Random(5);
+        for (int i = 0; i < commands; i++) {
+            String asset = Inventories.assetId(random.nextInt(size));
+            String employee = Inventories.employeeId(random.nextInt(employees));
+            switch (i % 5) {
+                case 0:
+                    menu.append("1\n3\n1\n").append(asset).append('\n').append(employee).append("\n4\n5\n");
+                    script.append("assign ").append(asset).append(' ').append(employee).append('\n');
+                    break;
+                case 1:
+                    menu.append("1\n3\n3\n").append(asset).append("\nIn Maintenance\n4\n5\n");
+                    script.append("status ").append(asset).append(" \"In Maintenance\"\n");
+                    break;
+                case 2:
+                    menu.append("3\n1\n").append(asset).append("\nBattery replaced\n49.90\n7\n");
+                    script.append("maintenance ").append(asset).append(" 49.90 \"Battery replaced\"\n");
+                    break;
+                case 3:
+                    menu.append("1\n3\n2\n").append(asset).append("\n4\n5\n");
+                    script.append("deassign ").append(asset).append('\n');
+                    break;
+                default:
+                    menu.append("6\nid:").append(asset).append('\n');
+                    script.append("search id:").append(asset).append('\n');
+            }
+        }
+        menu.append("4\n");
+        menuInput = menu.toString().getBytes(StandardCharsets.UTF_8);
+        scriptInput = script.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataManager.flush();
+        DataManager.deleteTree(dir);
+    }
+
+    @Benchmark
+    public void menuLoop() throws IOException {
+        PrintStream console = System.out;
+        try (PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(output.toFile()), 128), true)) {
+            System.setOut(out);
+            new AssetTrack(dataManager, new ByteArrayInputStream(menuInput)).start();
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    @Benchmark
+    public void scriptMode() throws IOException {
+        try (PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(output.toFile()), 1 << 16), false)) {
+            new CommandScript(dataManager, new AssetManager(dataManager), new EmployeeManager(dataManager), new MaintenanceManager(dataManager))
+                .run(new BufferedReader(new InputStreamReader(new ByteArrayInputStream(scriptInput), StandardCharsets.UTF_8)), out);
+        }
+    }
+}
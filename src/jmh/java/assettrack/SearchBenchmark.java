@@ -0,0 +1,80 @@
+package assettrack;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Each query type, answered from the index (words, prefixes, serials, IDs) or by the parallel scan (filters and
+// substrings only). $SERIAL and $ID stand for the serial of the middle asset and the ID of the one a third in.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class SearchBenchmark {
+    @State(Scope.Benchmark)
+    public static class Inventory {
+        @Param({"1000000"})
+        int size;
+
+        Path dir;
+        DataManager dataManager;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("assettrack-search");
+            dataManager = new DataManager(dir);
+            Inventories.populate(dataManager, size);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            DataManager.deleteTree(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Query {
+        @Param({"model 42", "model 4*", "serial:$SERIAL", "serial:$SERIAL6*", "id:$ID", "employee 7*", "model 42 status:assigned",
+            "category:av name~model", "name~zzz"})
+        String query;
+
+        SearchIndex index;
+        String term;
+
+        @Setup(Level.Trial)
+        public void setUp(Inventory inventory) {
+            index = inventory.dataManager.getSearchIndex();
+            String serial = inventory.dataManager.findAsset(Inventories.assetId(inventory.size / 2)).getSerialNumber();
+            term = query.replace("$SERIAL6", serial.substring(0, 6)).replace("$SERIAL", serial)
+                .replace("$ID", Inventories.assetId(inventory.size / 3));
+        }
+    }
+
+    @Benchmark
+    public SearchIndex.Results search(Inventory inventory, Query query) {
+        return query.index.search(inventory.dataManager, query.term, SearchIndex.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SearchIndex buildIndex(Inventory inventory) {
+        SearchIndex built = new SearchIndex();
+        built.build(inventory.dataManager.getAssets(), inventory.dataManager.getEmployees());
+        return built;
+    }
+}
@@ -0,0 +1,6624 @@
+package assettrack;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.BufferUnderflowException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+
+public class AssetTrack {
+
+private final DataManager dataManager;
+private final AssetManager assetManager;
+private final EmployeeManager employeeManager;
+private final MaintenanceManager maintenanceManager;
+private final Scanner scanner;
+private String userRole = "Admin";
+private Metrics.Reporter reporter;
+
+public AssetTrack() {
+    this(System.in);
+}
+public AssetTrack(InputStream in) {
+    this(new DataManager(), in);
+    dataManager.loadData();
+    Metrics.gauge("entities.assets", () -> (long) dataManager.getAssetCount());
+    Metrics.gauge("entities.employees", () -> (long) dataManager.getEmployeeCount());
+    Metrics.gauge("entities.maintenanceRecords", () -> (long) dataManager.getMaintenanceRecordCount());
+    Metrics.gauge("entities.shards", () -> (long) dataManager.getShardCount());
+    reporter = Metrics.startReporter(dataManager.getDataDir().resolve("metrics.txt"), Metrics.REPORT_INTERVAL_MS);
+}
+// Runs the menus over an already loaded inventory, for tests and benchmarks.
+AssetTrack(DataManager dataManager, InputStream in) {
+    this.dataManager = dataManager;
+    this.assetManager = new AssetManager(dataManager);
+    this.employeeManager = new EmployeeManager(dataManager);
+    this.maintenanceManager = new MaintenanceManager(dataManager);
+    this.scanner = new Scanner(in);
+}
+public void start() {
+    dataManager.watch();
+    System.out.println("--- AssetTrack: Small Office Inventory System ---");
+    System.out.println("Current Role: " + userRole + " (Change via option 5)");
+    while (true) {
+        displayMainMenu();
+        String choice = dataManager.getValidInput(scanner, "Enter your choice (1-7): ",
+        s -> DataManager.isMenuChoice(s, 7), "Invalid choice. Please enter a number from 1 to 7.");
+        try {
+            switch (choice) {
+                case "1":
+                    handleAssetManagement();
+                    break;
+                case "2":
+                    handleEmployeeManagement();
+                    break;
+                case "3":
+                    handleMaintenanceTracking();
+                    break;
+                case "4":
+                    dataManager.flush();
+                    dataManager.saveData();
+                    if (reporter != null) {
+                        reporter.close();
+                    }
+                    System.out.println("\n[INFO] Data saved successfully. Exiting AssetTrack. Goodbye!");
+                    System.out.println("[INFO] Persistence: " + dataManager.getPersistenceStats() + ".");
+                    return;
+                case "5":
+                    toggleUserRole();
+                    break;
+                case "6":
+                    searchInventory();
+                    break;
+                case "7":
+                    System.out.print("\n" + Metrics.report());
+                    break;
+                }
+            } 
+            catch (Exception e) {
+                System.out.flush();
+                System.err.println("[ERROR] An unexpected error occurred: " + e.getMessage());
+            }
+        }
+    }
+    private void displayMainMenu() {
+        System.out.println("\n--- MAIN MENU ---");
+        System.out.println("1) Manage Assets");
+        System.out.println("2) Manage Employees");
+        System.out.println("3) Maintenance Tracking & Reports");
+        System.out.println("4) Exit & Save Data");
+        System.out.println("5) Toggle User Role (Admin/Staff)");
+        System.out.println("6) Search Assets & Employees");
+        System.out.println("7) View Statistics");
+        System.out.print(">");
+    }
+    private void toggleUserRole() {
+        userRole = userRole.equals("Admin") ? "Staff" : "Admin";
+        System.out.println("\n[INFO] Role switched to: " + userRole);
+    }
+
+private void handleAssetManagement() {
+    String choice;
+    do {
+        System.out.println("\n--- ASSET MANAGEMENT ---");
+        System.out.println("1) Add New Asset");
+        System.out.println("2) View All Assets");
+        System.out.println("3) Update Asset Status");
+        System.out.println("4) Delete Asset (Admin Only)");
+        System.out.println("5) Back to Main Menu");
+        System.out.print(">");
+        choice = dataManager.getValidInput(scanner, "Enter your choice (1-5): ",
+        s -> DataManager.isMenuChoice(s, 5), "Invalid choice. Enter 1-5.");
+        try {switch (choice) {
+            case "1": assetManager.addAsset(scanner); break;
+            case "2": assetManager.viewAllAssets(scanner); break;
+            case "3": handleAssetUpdateSubmenu(); break;
+            case "4":
+                if (userRole.equals("Admin")) {
+                    assetManager.deleteAsset(scanner);
+                } else {
+                    System.out.println("[ACCESS DENIED] Only Admin can delete assets.");
+                }
+                break;
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("[FAILURE] Operation failed: " + e.getMessage());
+        }
+    } while (!choice.equals("5"));
+}
+
+private void handleAssetUpdateSubmenu() {
+    String subChoice;
+    do {
+        System.out.println("\n--- UPDATE ASSET STATUS ---");
+        System.out.println("1) Assign to Employee");
+        System.out.println("2) De-assign (Return to Stock)");
+        System.out.println("3) Change Maintenance/Retirement Status");
+        System.out.println("4) Back to Asset Management Menu");
+        System.out.print(">");
+        subChoice = dataManager.getValidInput(scanner, "Enter your choice (1-4): ",
+            s -> DataManager.isMenuChoice(s, 4), "Invalid choice. Enter 1-4.");
+            try {
+                switch (subChoice) {
+                    case "1": assetManager.assignAsset(scanner, employeeManager); break;
+                    case "2": assetManager.deassignAsset(scanner); break;
+                    case "3": assetManager.updateAssetStatus(scanner); break;
+                }
+            } catch (IllegalArgumentException e) {
+                System.out.println("[FAILURE] Operation failed: " + e.getMessage());
+            }
+        } while (!subChoice.equals("4"));
+    }
+    private void handleEmployeeManagement() {
+        String choice;
+        do {
+            System.out.println("\n--- EMPLOYEE MANAGEMENT ---");
+            System.out.println("1) Add New Employee");
+            System.out.println("2) View All Employees");
+            System.out.println("3) Delete Employee (Admin Only)");
+            System.out.println("4) View Assets Assigned to Employee (Report)");
+            System.out.println("5) Back to Main Menu");
+            System.out.print(">");
+            choice = dataManager.getValidInput(scanner, "Enter your choice (1-5): ",
+            s -> DataManager.isMenuChoice(s, 5), "Invalid choice. Enter 1-5.");
+            try { switch (choice) {
+                case "1": employeeManager.addEmployee(scanner); break;
+                case "2": employeeManager.viewAllEmployees(scanner); break;
+                case "3":
+                    if (userRole.equals("Admin")) {
+                        employeeManager.deleteEmployee(scanner, assetManager);
+                    } else {
+                            System.out.println("[ACCESS DENIED] Only Admin can delete employees.");
+                        }
+                        break;
+                case "4": employeeManager.viewEmployeeAssets(scanner, assetManager); break;
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("[FAILURE] Operation failed: " + e.getMessage());
+        }
+    } while (!choice.equals("5"));
+}
+
+private void handleMaintenanceTracking() {
+    String choice;
+    do {
+        System.out.println("\n--- MAINTENANCE & REPORTS ---");
+        System.out.println("1) Record Maintenance Event");
+        System.out.println("2) View Maintenance History for Asset (Report)");
+        System.out.println("3) Export Assets or Employees (CSV/JSON)");
+        System.out.println("4) Maintenance Cost Analytics (Report)");
+        System.out.println("5) Asset Audit Trail (Report)");
+        System.out.println("6) Employee Custody Timeline (Report)");
+        System.out.println("7) Back to Main Menu");
+        System.out.print(">");
+        choice = dataManager.getValidInput(scanner, "Enter your choice (1-7): ",
+        s -> DataManager.isMenuChoice(s, 7), "Invalid choice. Enter 1-7.");
+        try { switch (choice) {
+            case "1": maintenanceManager.recordMaintenance(scanner, assetManager); break;
+            case "2": maintenanceManager.viewAssetHistory(scanner); break;
+            case "3": exportReport(); break;
+            case "4": maintenanceManager.viewCostAnalytics(scanner); break;
+            case "5": assetManager.viewAuditTrail(scanner); break;
+            case "6": employeeManager.viewCustodyTimeline(scanner); break;
+        }
+    } catch (IllegalArgumentException e) {
+        System.out.println("[FAILURE] Operation failed: " + e.getMessage());
+    } catch (IOException e) {
+        System.out.println("[FAILURE] Export failed: " + e.getMessage());
+    }
+} while (!choice.equals("7"));
+}
+private void searchInventory() {
+    System.out.println("\n--- SEARCH ---");
+    String query = dataManager.getValidInput(scanner, "Search (words, word*, serial:, id:, status:, category:, assignee:, department:, name~, email~): ",
+        s -> !s.isEmpty(), "Enter at least one search term.");
+    long start = System.nanoTime();
+    SearchIndex.Results results;
+    try {
+        results = dataManager.getSearchIndex().search(dataManager, query, SearchIndex.DEFAULT_LIMIT);
+    } catch (IllegalArgumentException e) {
+        System.out.println("[FAILURE] Operation failed: " + e.getMessage());
+        return;
+    }
+    long elapsed = System.nanoTime() - start;
+    if (results.assets.isEmpty() && results.employees.isEmpty()) {
+        System.out.println("\n[INFO] Nothing matches '" + query + "'.");
+    }
+    if (!results.assets.isEmpty()) {
+        System.out.println("\nAssets:");
+        System.out.printf("%-10s | %-25s | %-15s | %-15s | %-18s | %-10s%n", "ID", "Name", "Category", "Status", "Serial", "Assigned To");
+        System.out.println("--------------------------------------------------------------------------------------------------------");
+        for (Asset asset : results.assets) {
+            System.out.printf("%-10s | %-25s | %-15s | %-15s | %-18s | %-10s%n", asset.getAssetId(), asset.getName(), asset.getCategory(),
+                asset.getStatus(), asset.getSerialNumber(), asset.getAssignedTo() != null ? asset.getAssignedTo() : "N/A");
+        }
+        if (results.moreAssets) {
+            System.out.println("[INFO] Showing the first " + SearchIndex.DEFAULT_LIMIT + " assets; refine the search to see the rest.");
+        }
+    }
+    if (!results.employees.isEmpty()) {
+        System.out.println("\nEmployees:");
+        System.out.printf("%-10s | %-20s | %-15s | %-30s%n", "ID", "Name", "Department", "Email");
+        System.out.println("----------------------------------------------------------------------");
+        for (Employee employee : results.employees) {
+            System.out.printf("%-10s | %-20s | %-15s | %-30s%n", employee.getEmployeeId(), employee.getName(), employee.getDepartment(), employee.getEmail());
+        }
+        if (results.moreEmployees) {
+            System.out.println("[INFO] Showing the first " + SearchIndex.DEFAULT_LIMIT + " employees; refine the search to see the rest.");
+        }
+    }
+    System.out.printf("%n[INFO] Search took %.3f ms (%s).%n", elapsed / 1e6, results.scanned ? "full scan" : "index");
+}
+private void exportReport() throws IOException {
+    System.out.println("\n--- EXPORT REPORT ---");
+    String kind = dataManager.getValidInput(scanner, "Export assets or employees? ",
+        s -> s.equalsIgnoreCase("assets") || s.equalsIgnoreCase("employees"), "Enter assets or employees.");
+    String file = dataManager.getValidInput(scanner, "Output file (.csv or .json): ",
+        InventoryReports::isExportFile, "File name must end in .csv or .json.");
+    System.out.print("Filter (blank for all): ");
+    String filter = scanner.nextLine();
+    long start = System.nanoTime();
+    int rows = InventoryReports.export(dataManager, kind, Paths.get(file), filter);
+    System.out.printf("%n[SUCCESS] Exported %d %s to %s in %.2f s.%n", rows, kind.toLowerCase(Locale.ROOT), file, (System.nanoTime() - start) / 1e9);
+}
+
+public static void main(String[] args) throws IOException {
+    if (args.length > 0 && args[0].equalsIgnoreCase("serve")) {
+        AssetTrack app = new AssetTrack();
+        app.dataManager.watch();
+        try {
+            new ApiServer(app.dataManager, app.assetManager, app.employeeManager, app.maintenanceManager)
+                .start(args.length > 1 ? Integer.parseInt(args[1]) : 8080);
+        } catch (IllegalArgumentException e) {
+            System.err.println("[ERROR] " + e.getMessage());
+            System.exit(2);
+        }
+        return;
+    }
+    if (args.length > 0 && args[0].equalsIgnoreCase("loadgen")) {
+        if (args.length < 2) {
+            System.err.println("Usage: java -jar AssetTrack.jar loadgen <http://host:port> [threads] [seconds]");
+            System.exit(2);
+        }
+        LoadGenerator.run(args[1], args.length > 2 ? Integer.parseInt(args[2]) : 16, args.length > 3 ? Integer.parseInt(args[3]) : 10);
+        return;
+    }
+    if (args.length > 0 && args[0].equalsIgnoreCase("convert")) {
+        if (args.length != 3) {
+            System.err.println("Usage: java -jar AssetTrack.jar convert <from.txt|from.bin> <to.bin|to.txt>");
+            System.exit(2);
+        }
+        BinarySnapshot.convert(Paths.get(args[1]), Paths.get(args[2]));
+        return;
+    }
+    if (args.length > 0 && args[0].equalsIgnoreCase("export")) {
+        if (args.length < 3 || !InventoryReports.isExportFile(args[2])) {
+            System.err.println("Usage: java -jar AssetTrack.jar export <assets|employees> <file.csv|file.json> [field=value,...]");
+            System.exit(2);
+        }
+        AssetTrack app = new AssetTrack();
+        long start = System.nanoTime();
+        int rows = InventoryReports.export(app.dataManager, args[1], Paths.get(args[2]), args.length > 3 ? args[3] : "");
+        System.out.printf("[SUCCESS] Exported %d %s to %s in %.2f s.%n", rows, args[1].toLowerCase(Locale.ROOT), args[2], (System.nanoTime() - start) / 1e9);
+        return;
+    }
+    if (args.length > 0 && args[0].equalsIgnoreCase("import")) {
+        if (args.length < 2) {
+            System.err.println("Usage: java -jar AssetTrack.jar import <file.csv> [<file.csv> ...]");
+            System.exit(2);
+        }
+        AssetTrack app = new AssetTrack();
+        boolean ok = new BatchImporter(app.dataManager, app.assetManager, app.employeeManager, app.maintenanceManager)
+            .importFiles(Arrays.copyOfRange(args, 1, args.length));
+        System.exit(ok ? 0 : 1);
+    }
+    if (args.length > 0 && args[0].equalsIgnoreCase("script")) {
+        if (args.length > 2) {
+            System.err.println("Usage: java -jar AssetTrack.jar script [commands.txt]   (reads stdin without a file; 'help' lists the commands)");
+            System.exit(2);
+        }
+        PrintStream out = PromptFlushingInput.bufferedStdout();
+        System.setOut(out);
+        boolean ok;
+        try {
+            AssetTrack app = new AssetTrack(InputStream.nullInputStream());
+            try (BufferedReader in = args.length > 1 ? Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)
+                    : new BufferedReader(new InputStreamReader(new PromptFlushingInput(System.in, out)))) {
+                ok = new CommandScript(app.dataManager, app.assetManager, app.employeeManager, app.maintenanceManager).run(in, out);
+            }
+        } finally {
+            out.flush();
+        }
+        System.exit(ok ? 0 : 1);
+    }
+    PrintStream out = PromptFlushingInput.bufferedStdout();
+    System.setOut(out);
+    new AssetTrack(new PromptFlushingInput(System.in, out)).start();
+    out.flush();
+}
+}
+
+// Categories are shared through StringPool and the status is a one-byte code, so a million assets hold a handful
+// of category and status strings between them instead of two copies each.
+class Asset {
+    private static final StringPool.Codes STATUSES = new StringPool.Codes();
+    private String assetId;
+    private String name;
+    private String category;
+    private String serialNumber;
+    private volatile byte status;
+    private volatile String assignedTo;
+    private volatile long version;
+    public Asset(String assetId, String name, String category, String serialNumber, String status, String assignedTo) {
+        this.assetId = assetId;
+        this.name = name;
+        this.category = StringPool.shared(category);
+        this.serialNumber = serialNumber;
+        this.status = STATUSES.encode(status);
+        this.assignedTo = assignedTo;
+    }
+    public String getAssetId() { return assetId; }
+    public String getName() { return name; }
+    public String getCategory() { return category; }
+    public String getSerialNumber() { return serialNumber; }
+    public String getStatus() { return STATUSES.decode(status); }
+    public void setStatus(String status) { this.status = STATUSES.encode(status); }
+    public String getAssignedTo() { return assignedTo; }
+    public void setAssignedTo(String assignedTo) { this.assignedTo = assignedTo; }
+    // The change version (see ChangeTracker); 0 for an asset unchanged since the inventory was loaded.
+    long getVersion() { return version; }
+    void setVersion(long version) { this.version = version; }
+
+    @Override
+    public String toString() {
+    return String.format("A,%s,%s,%s,%s,%s,%s", assetId, name, category, serialNumber, getStatus(), assignedTo);
+    }
+
+    public static Asset fromString(String line) {
+        String[] parts = line.split(",", 7);
+        if (parts.length != 7 || !parts[0].equals("A")) 
+            throw new IllegalArgumentException("Invalid Asset data format.");
+        return new Asset(parts[1], parts[2], parts[3], parts[4], parts[5], parts[6].equals("null") ? null : parts[6]);
+    }
+}
+
+class Employee {
+    private String employeeId;
+    private String name;
+    private String department;
+    private String email;
+    private volatile long version;
+    public Employee(String employeeId, String name, String department, String email) {
+        this.employeeId = employeeId;
+        this.name = name;
+        this.department = StringPool.shared(department);
+        this.email = email;
+    }
+    public String getEmployeeId() { return employeeId; }
+    public String getName() { return name; }
+    public String getDepartment() { return department; }
+    public String getEmail() { return email; }
+    long getVersion() { return version; }
+    void setVersion(long version) { this.version = version; }
+
+    @Override
+    public String toString() {
+        return String.format("E,%s,%s,%s,%s", employeeId, name, department, email);
+    }
+
+    public static Employee fromString(String line) {
+        String[] parts = line.split(",", 5);
+        if (parts.length != 5 || !parts[0].equals("E")) throw new IllegalArgumentException("Invalid Employee data format.");
+        return new Employee(parts[1], parts[2], parts[3], parts[4]);
+    }
+}
+
+class MaintenanceRecord {
+    private String recordId;
+    private String assetId;
+    private LocalDateTime date;
+    private String description;
+    private double cost;
+    public MaintenanceRecord(String assetId, String description, double cost) {
+        this(assetId, LocalDateTime.now(), description, cost);
+    }
+    public MaintenanceRecord(String assetId, LocalDateTime date, String description, double cost) {
+        this.recordId = UUID.randomUUID().toString();
+        this.assetId = assetId;
+        this.date = date.withNano(0);
+        this.description = description;
+        this.cost = cost;
+    }
+    public MaintenanceRecord(String recordId, String assetId, String dateStr, String description, double cost) {
+        this(recordId, assetId, LocalDateTime.parse(dateStr, DataManager.DATE_FORMATTER), description, cost);
+    }
+    public MaintenanceRecord(String recordId, String assetId, LocalDateTime date, String description, double cost) {
+        this.recordId = recordId;
+        this.assetId = assetId;
+        this.date = date;
+        this.description = description;
+        this.cost = cost;
+    }
+    public String getRecordId() { return recordId; }
+    public String getAssetId() { return assetId; }
+    public LocalDateTime getDate() { return date; }
+    public String getDateFormatted() { return date.format(DataManager.DATE_FORMATTER); }
+    public String getDescription() { return description; }
+    public double getCost() { return cost; }
+
+    // A cost that rounds to zero is written 0.00, never -0.00, which the binary format's whole cents could not keep.
+    @Override
+    public String toString() {
+        return String.format("M,%s,%s,%s,%s,%.2f", recordId, assetId, date.format(DataManager.DATE_FORMATTER), description,
+            Math.abs(cost) < 0.005 ? 0.0 : cost);
+    }
+    public static MaintenanceRecord fromString(String line) {
+        String[] parts = line.split(",", 6);
+        if (parts.length != 6 || !parts[0].equals("M")) throw new IllegalArgumentException("Invalid Maintenance data format.");
+        return new MaintenanceRecord(parts[1], parts[2], parts[3], parts[4], Double.parseDouble(parts[5]));
+    }
+    // The UUID an ID spells, or null if it is not a UUID in its canonical lowercase form (and so would not survive a
+    // round trip through two longs).
+    static UUID canonicalUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
+
+// One asset's maintenance records, stored column by column in date order: UUID record IDs as two longs, dates as
+// epoch seconds, costs as doubles and descriptions as references to shared strings. That is about 36 bytes a record
+// against roughly 250 for a MaintenanceRecord with its UUID string and LocalDateTime. MaintenanceRecord objects
+// are made on the way out. Not thread-safe; DataManager guards each history with its asset's lock.
+class MaintenanceHistory {
+    private final String assetId;
+    private long[] idHigh = new long[2];
+    private long[] idLow = new long[2];
+    private String[] otherIds;
+    private long[] epochSeconds = new long[2];
+    private double[] costs = new double[2];
+    private String[] descriptions = new String[2];
+    private int size;
+
+    MaintenanceHistory(String assetId) {
+        this.assetId = assetId;
+    }
+    String getAssetId() { return assetId; }
+    int size() { return size; }
+    boolean contains(String recordId) {
+        UUID uuid = MaintenanceRecord.canonicalUuid(recordId);
+        for (int i = 0; i < size; i++) {
+            if (uuid != null ? (otherIds == null || otherIds[i] == null) && idHigh[i] == uuid.getMostSignificantBits() && idLow[i] == uuid.getLeastSignificantBits()
+                : otherIds != null && recordId.equals(otherIds[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+    // Inserted after any records with the same or an earlier date, so equal dates keep their arrival order.
+    void add(MaintenanceRecord record) {
+        long seconds = record.getDate().toEpochSecond(ZoneOffset.UTC);
+        int index = size;
+        if (index > 0 && epochSeconds[index - 1] > seconds) {
+            int low = 0;
+            int high = index;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (epochSeconds[mid] > seconds) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            index = low;
+        }
+        if (size == costs.length) {
+            int capacity = size + (size >> 1) + 1;
+            idHigh = Arrays.copyOf(idHigh, capacity);
+            idLow = Arrays.copyOf(idLow, capacity);
+            otherIds = otherIds == null ? null : Arrays.copyOf(otherIds, capacity);
+            epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+        }
+        int moved = size - index;
+        System.arraycopy(idHigh, index, idHigh, index + 1, moved);
+        System.arraycopy(idLow, index, idLow, index + 1, moved);
+        if (otherIds != null) {
+            System.arraycopy(otherIds, index, otherIds, index + 1, moved);
+        }
+        System.arraycopy(epochSeconds, index, epochSeconds, index + 1, moved);
+        System.arraycopy(costs, index, costs, index + 1, moved);
+        System.arraycopy(descriptions, index, descriptions, index + 1, moved);
+        UUID uuid = MaintenanceRecord.canonicalUuid(record.getRecordId());
+        if (uuid == null && otherIds == null) {
+            otherIds = new String[costs.length];
+        }
+        idHigh[index] = uuid == null ? 0 : uuid.getMostSignificantBits();
+        idLow[index] = uuid == null ? 0 : uuid.getLeastSignificantBits();
+        if (otherIds != null) {
+            otherIds[index] = uuid == null ? record.getRecordId() : null;
+        }
+        epochSeconds[index] = seconds;
+        costs[index] = record.getCost();
+        descriptions[index] = record.getDescription();
+        size++;
+    }
+    MaintenanceRecord get(int index) {
+        String recordId = otherIds != null && otherIds[index] != null ? otherIds[index] : new UUID(idHigh[index], idLow[index]).toString();
+        return new MaintenanceRecord(recordId, assetId, LocalDateTime.ofEpochSecond(epochSeconds[index], 0, ZoneOffset.UTC),
+            descriptions[index], costs[index]);
+    }
+    List<MaintenanceRecord> toList() {
+        List<MaintenanceRecord> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            records.add(get(i));
+        }
+        return records;
+    }
+    // A trimmed copy that checkpoints can read after the asset's lock is released.
+    MaintenanceHistory copy() {
+        MaintenanceHistory copy = new MaintenanceHistory(assetId);
+        copy.idHigh = Arrays.copyOf(idHigh, size);
+        copy.idLow = Arrays.copyOf(idLow, size);
+        copy.otherIds = otherIds == null ? null : Arrays.copyOf(otherIds, size);
+        copy.epochSeconds = Arrays.copyOf(epochSeconds, size);
+        copy.costs = Arrays.copyOf(costs, size);
+        copy.descriptions = Arrays.copyOf(descriptions, size);
+        copy.size = size;
+        return copy;
+    }
+    static Iterable<MaintenanceRecord> records(Collection<MaintenanceHistory> histories) {
+        return () -> histories.stream().flatMap(history -> java.util.stream.IntStream.range(0, history.size).mapToObj(history::get)).iterator();
+    }
+}
+
+// Maintenance histories left on disk when running with -Dassettrack.lazyHistory=true. Text segments end with an index
+// of where each asset's records sit (see DataManager.writeTextSegment); a lazy load keeps only that index, and a history
+// is read with one positioned read the first time it is looked at, then kept in an LRU cache of CACHE_SIZE histories.
+// A history that changes is taken out of the store and stays in memory from then on, so every history is either stored
+// here or resident in DataManager, never both.
+class HistoryStore {
+    static final boolean LAZY = Boolean.getBoolean("assettrack.lazyHistory");
+    static final int CACHE_SIZE = Integer.getInteger("assettrack.historyCacheSize", 1024);
+    static final int MAX_LENGTH = (1 << 24) - 1;
+    private static final Metrics.Counter CACHE_HITS = Metrics.counter("history.cacheHits");
+    private static final Metrics.Counter CACHE_MISSES = Metrics.counter("history.cacheMisses");
+    private static final Metrics.Counter BYTES_READ = Metrics.counter("history.bytesRead");
+
+    // One segment's stored histories: keys in order, locations packed as offset << 24 | length, or -1 once taken, and
+    // the number of records in each. The maintenance section of the file runs from historyStart to historyEnd.
+    static final class Stored {
+        final FileChannel channel;
+        final String[] keys;
+        final long[] locations;
+        final int[] counts;
+        final long historyStart;
+        final long historyEnd;
+        Stored(FileChannel channel, String[] keys, long[] locations, int[] counts, long historyStart, long historyEnd) {
+            this.channel = channel;
+            this.keys = keys;
+            this.locations = locations;
+            this.counts = counts;
+            this.historyStart = historyStart;
+            this.historyEnd = historyEnd;
+        }
+        int find(String key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 && locations[index] >= 0 ? index : -1;
+        }
+        static final Stored NONE = new Stored(null, new String[0], new long[0], new int[0], 0, 0);
+        static long location(long offset, int length) { return offset << 24 | length; }
+        static long offset(long location) { return location >>> 24; }
+        static int length(long location) { return (int) (location & MAX_LENGTH); }
+    }
+    private final Stored[] segments = new Stored[DataManager.SEGMENTS];
+    private volatile boolean active;
+    // Readers and takers share the lock; replacing a segment's file takes it exclusively, so no read sees a closed channel.
+    private final ReentrantReadWriteLock files = new ReentrantReadWriteLock();
+    private final Map<String, MaintenanceHistory> cache = new LinkedHashMap<String, MaintenanceHistory>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MaintenanceHistory> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    // A stored history to read, or null when the asset has none on disk. Callers hold the asset's lock.
+    MaintenanceHistory get(String assetKey) {
+        if (!active) {
+            return null;
+        }
+        synchronized (cache) {
+            MaintenanceHistory cached = cache.get(assetKey);
+            if (cached != null) {
+                CACHE_HITS.increment();
+                return cached;
+            }
+        }
+        MaintenanceHistory history;
+        files.readLock().lock();
+        try {
+            Stored stored = segments[DataManager.segmentOf(assetKey)];
+            int index = stored == null ? -1 : stored.find(assetKey);
+            if (index < 0) {
+                return null;
+            }
+            history = read(stored, index);
+        } finally {
+            files.readLock().unlock();
+        }
+        CACHE_MISSES.increment();
+        synchronized (cache) {
+            cache.put(assetKey, history);
+        }
+        return history;
+    }
+    // Removes a history from the store and hands it over, to be changed in memory or dropped. Callers hold the
+    // asset's lock.
+    MaintenanceHistory take(String assetKey) {
+        if (!active) {
+            return null;
+        }
+        files.readLock().lock();
+        try {
+            Stored stored = segments[DataManager.segmentOf(assetKey)];
+            int index = stored == null ? -1 : stored.find(assetKey);
+            if (index < 0) {
+                return null;
+            }
+            MaintenanceHistory history;
+            synchronized (cache) {
+                history = cache.remove(assetKey);
+            }
+            if (history == null) {
+                history = read(stored, index);
+            }
+            stored.locations[index] = -1;
+            return history;
+        } finally {
+            files.readLock().unlock();
+        }
+    }
+    private static MaintenanceHistory read(Stored stored, int index) {
+        long location = stored.locations[index];
+        try {
+            ByteBuffer buffer = readFully(stored.channel, Stored.offset(location), Stored.length(location));
+            return toHistory(stored.keys[index], InventoryLoader.parseRange(buffer, 0, buffer.capacity()).records);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the maintenance history of " + stored.keys[index] + ": " + e.getMessage(), e);
+        }
+    }
+    private static MaintenanceHistory toHistory(String assetKey, List<MaintenanceRecord> records) {
+        MaintenanceHistory history = new MaintenanceHistory(records.isEmpty() ? assetKey : records.get(0).getAssetId());
+        records.forEach(history::add);
+        return history;
+    }
+    static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Segment file ends before the indexed maintenance records.");
+            }
+        }
+        BYTES_READ.add(length);
+        return buffer;
+    }
+
+    // Calls the action with every stored history, reading each segment's maintenance section in one go. Runs under
+    // DataManager's exclusive lock.
+    void forEach(java.util.function.BiConsumer<String, List<MaintenanceRecord>> action) {
+        for (Stored stored : segments) {
+            if (stored == null) {
+                continue;
+            }
+            ByteBuffer section;
+            try {
+                section = readFully(stored.channel, stored.historyStart, (int) (stored.historyEnd - stored.historyStart));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read stored maintenance records: " + e.getMessage(), e);
+            }
+            for (int i = 0; i < stored.keys.length; i++) {
+                long location = stored.locations[i];
+                if (location >= 0) {
+                    int from = (int) (Stored.offset(location) - stored.historyStart);
+                    action.accept(stored.keys[i], InventoryLoader.parseRange(section, from, from + Stored.length(location)).records);
+                }
+            }
+        }
+    }
+    // The keys of the histories a segment still has stored.
+    List<String> keys(int segment) {
+        files.readLock().lock();
+        try {
+            Stored stored = segments[segment];
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; stored != null && i < stored.keys.length; i++) {
+                if (stored.locations[i] >= 0) {
+                    keys.add(stored.keys[i]);
+                }
+            }
+            return keys;
+        } finally {
+            files.readLock().unlock();
+        }
+    }
+    // The segment's stored histories as of now, for a save to copy across after the exclusive lock is released.
+    Stored snapshot(int segment) {
+        Stored stored = segments[segment];
+        return stored == null ? null : new Stored(stored.channel, stored.keys, stored.locations.clone(), stored.counts, stored.historyStart, stored.historyEnd);
+    }
+
+    // Opens a text segment written with an index. The whole file is verified against its checksums and the counts in
+    // its header; then the assets and employees are parsed into the result and the histories stay on disk. Returns the
+    // number of stored records, or -1 when the file has no usable index, is not checksummed or is damaged (the caller
+    // then loads it whole, recovering what it can).
+    long open(int segment, Path path, InventoryLoader.Result into) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                channel.close();
+                return -1;
+            }
+            ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            long[] expected = BlockFormat.isFramed(file) ? BlockFormat.counts(file, BlockFormat.HEADER_LENGTH) : null;
+            if (expected == null || !BlockFormat.scan(file).intact()) {
+                channel.close();
+                return -1;
+            }
+            int tail = (int) Math.min(size, 128);
+            String last = new String(readFully(channel, size - tail, tail).array(), StandardCharsets.UTF_8).trim();
+            last = last.substring(last.lastIndexOf('\n') + 1);
+            if (!last.startsWith(DataManager.INDEX_TRAILER)) {
+                channel.close();
+                return -1;
+            }
+            String[] bounds = last.substring(DataManager.INDEX_TRAILER.length()).split(" index=");
+            long historyStart = Long.parseLong(bounds[0]);
+            long historyEnd = Long.parseLong(bounds[1]);
+            if (historyStart > historyEnd || historyEnd > size || historyStart > Integer.MAX_VALUE) {
+                channel.close();
+                return -1;
+            }
+            List<String> keys = new ArrayList<>();
+            long[] locations = new long[16];
+            int[] counts = new int[16];
+            long records = 0;
+            String index = new String(readFully(channel, historyEnd, (int) (size - historyEnd)).array(), StandardCharsets.UTF_8);
+            for (String line : index.split("\r?\n")) {
+                if (!line.startsWith(DataManager.INDEX_ENTRY)) {
+                    continue;
+                }
+                String[] fields = line.substring(DataManager.INDEX_ENTRY.length()).split(",", 4);
+                long offset = Long.parseLong(fields[0]);
+                int length = Integer.parseInt(fields[1]);
+                if (offset < historyStart || length > MAX_LENGTH || offset + length > historyEnd
+                    || !keys.isEmpty() && keys.get(keys.size() - 1).compareTo(fields[3]) >= 0) {
+                    channel.close();
+                    return -1;
+                }
+                if (keys.size() == locations.length) {
+                    locations = Arrays.copyOf(locations, locations.length * 2);
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                }
+                locations[keys.size()] = Stored.location(offset, length);
+                counts[keys.size()] = Integer.parseInt(fields[2]);
+                keys.add(fields[3]);
+                records += counts[keys.size() - 1];
+            }
+            InventoryLoader.Result parsed = InventoryLoader.parseRange(file, 0, (int) historyStart);
+            if (parsed.assets.size() != expected[0] || parsed.employees.size() != expected[1] || records != expected[2]) {
+                channel.close();
+                return -1;
+            }
+            into.append(parsed);
+            install(segment, new Stored(channel, keys.toArray(new String[0]), Arrays.copyOf(locations, keys.size()),
+                Arrays.copyOf(counts, keys.size()), historyStart, historyEnd));
+            return records;
+        } catch (RuntimeException e) {
+            channel.close();
+            return -1;
+        }
+    }
+    // Swaps in a rewritten segment file, with the histories that were copied into it as raw bytes. Any of those taken
+    // while the file was being written are resident now and dropped from the new index.
+    void replace(int segment, Path path, Stored written) throws IOException {
+        FileChannel channel = written.keys.length == 0 ? null : FileChannel.open(path, StandardOpenOption.READ);
+        files.writeLock().lock();
+        try {
+            Stored current = segments[segment];
+            for (int i = 0; i < written.keys.length; i++) {
+                if (current == null || current.find(written.keys[i]) < 0) {
+                    written.locations[i] = -1;
+                }
+            }
+            segments[segment] = channel == null ? null
+                : new Stored(channel, written.keys, written.locations, written.counts, written.historyStart, written.historyEnd);
+            if (current != null) {
+                current.channel.close();
+            }
+        } finally {
+            files.writeLock().unlock();
+        }
+    }
+    private void install(int segment, Stored stored) throws IOException {
+        files.writeLock().lock();
+        try {
+            if (segments[segment] != null) {
+                segments[segment].channel.close();
+            }
+            segments[segment] = stored;
+            active = true;
+        } finally {
+            files.writeLock().unlock();
+        }
+    }
+    void clear() {
+        files.writeLock().lock();
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i] != null) {
+                    try {
+                        segments[i].channel.close();
+                    } catch (IOException e) {
+                        System.err.println("[WARNING] Failed to close segment file: " + e.getMessage());
+                    }
+                    segments[i] = null;
+                }
+            }
+            active = false;
+        } finally {
+            files.writeLock().unlock();
+        }
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
+
+// Rendered employee asset and asset history reports, kept for repeat views and keyed by the normalized ID they are
+// about. The LRU is bounded by entry count and by total characters (-Dassettrack.reportCacheSize, reportCacheChars);
+// a report larger than the character budget is never kept. DataManager invalidates the keys of the employees and assets
+// a change touches, after making it. A report rendered while any invalidation ran is returned but not kept, since it
+// may have been read before that change.
+class ReportCache {
+    static final int MAX_ENTRIES = Integer.getInteger("assettrack.reportCacheSize", 1024);
+    static final long MAX_CHARS = Long.getLong("assettrack.reportCacheChars", 4_000_000L);
+    private final Metrics.Counter hits;
+    private final Metrics.Counter misses;
+    private final Metrics.Counter evictions;
+    private final Metrics.Counter invalidations;
+    private final int maxEntries;
+    private final long maxChars;
+    private final LinkedHashMap<String, String> reports = new LinkedHashMap<>(64, 0.75f, true);
+    private long chars;
+    private long generation;
+
+    ReportCache(String name) {
+        this(name, MAX_ENTRIES, MAX_CHARS);
+    }
+    ReportCache(String name, int maxEntries, long maxChars) {
+        this.hits = Metrics.counter("reportCache." + name + ".hits");
+        this.misses = Metrics.counter("reportCache." + name + ".misses");
+        this.evictions = Metrics.counter("reportCache." + name + ".evictions");
+        this.invalidations = Metrics.counter("reportCache." + name + ".invalidations");
+        this.maxEntries = maxEntries;
+        this.maxChars = maxChars;
+    }
+
+    String get(String key, Supplier<String> render) {
+        long rendering;
+        synchronized (this) {
+            String cached = reports.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            rendering = generation;
+        }
+        misses.increment();
+        String report = render.get();
+        synchronized (this) {
+            if (generation == rendering && maxEntries > 0 && report.length() <= maxChars) {
+                String previous = reports.put(key, report);
+                chars += report.length() - (previous == null ? 0 : previous.length());
+                Iterator<String> eldest = reports.values().iterator();
+                while (reports.size() > maxEntries || chars > maxChars) {
+                    chars -= eldest.next().length();
+                    eldest.remove();
+                    evictions.increment();
+                }
+            }
+        }
+        return report;
+    }
+    synchronized void invalidate(String key) {
+        generation++;
+        String removed = reports.remove(key);
+        if (removed != null) {
+            chars -= removed.length();
+            invalidations.increment();
+        }
+    }
+    synchronized void clear() {
+        generation++;
+        reports.clear();
+        chars = 0;
+    }
+    // The kept report, if any, without counting a hit or a miss.
+    synchronized String peek(String key) { return reports.get(key); }
+    synchronized int size() { return reports.size(); }
+    synchronized long chars() { return chars; }
+    long hits() { return hits.get(); }
+    long misses() { return misses.get(); }
+}
+
+// Shared copies of low-cardinality strings (categories, departments), so equal values loaded from different lines
+// are one object. Codes maps such values to small numbers for fields that store a byte instead of a reference.
+class StringPool {
+    private static final Map<String, String> POOL = new ConcurrentHashMap<>();
+    static String shared(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = POOL.putIfAbsent(value, value);
+        return shared == null ? value : shared;
+    }
+
+    static final class Codes {
+        private final Map<String, Byte> codes = new ConcurrentHashMap<>();
+        private volatile String[] values = new String[0];
+        byte encode(String value) {
+            Byte code = codes.get(value);
+            return code != null ? code : register(value);
+        }
+        String decode(byte code) {
+            return values[code & 0xFF];
+        }
+        int size() {
+            return values.length;
+        }
+        private synchronized byte register(String value) {
+            Byte code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (value == null || values.length == 256) {
+                throw new IllegalArgumentException(value == null ? "Value cannot be empty." : "Too many distinct values (limit 256).");
+            }
+            byte next = (byte) values.length;
+            String[] grown = Arrays.copyOf(values, values.length + 1);
+            grown[values.length] = StringPool.shared(value);
+            values = grown;
+            codes.put(value, next);
+            return next;
+        }
+    }
+}
+class DataManager {
+    private static final String DATA_DIR = "data";
+    static final boolean BINARY_FORMAT = "binary".equalsIgnoreCase(System.getProperty("assettrack.format"));
+    static final int COMPACTION_THRESHOLD = 5000;
+    static final int REPLAY_WINDOW = 64 << 20;
+    static final int MAX_REPLAY_WINDOW = Integer.MAX_VALUE - 8;
+    public static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Metrics.Timer LOAD = Metrics.timer("data.load");
+    private static final Metrics.Timer SAVE = Metrics.timer("data.save");
+    private static final Metrics.Timer CHECKPOINT = Metrics.timer("data.checkpoint");
+    private static final Metrics.Timer HISTORY = Metrics.timer("lookup.maintenanceHistory");
+    private static final Metrics.Timer PAGE = Metrics.timer("report.page");
+    private static final Metrics.Counter SKIPPED_LINES = Metrics.counter("load.skippedLines");
+    private static final Metrics.Counter REPLAYED = Metrics.counter("load.journalEntriesReplayed");
+    private static final Metrics.Counter SNAPSHOT_BYTES = Metrics.counter("snapshot.bytesWritten");
+    private static final Metrics.Counter SEGMENTS_WRITTEN = Metrics.counter("snapshot.segmentsWritten");
+    private static final Metrics.Counter SYNC_UNSUPPORTED = Metrics.counter("snapshot.directorySyncUnsupported");
+    private static final Metrics.Counter DAMAGED_FILES = Metrics.counter("integrity.damagedFiles");
+    private static final Metrics.Timer CATCH_UP = Metrics.timer("store.catchUp");
+    private static final Metrics.Counter FOREIGN_ENTRIES = Metrics.counter("store.entriesFromOtherProcesses");
+    private static final Metrics.Counter SEGMENTS_RELOADED = Metrics.counter("store.segmentsReloaded");
+    private static final Metrics.Counter FULL_RELOADS = Metrics.counter("store.fullReloads");
+    private static final Metrics.Counter CONFLICTS = Metrics.counter("store.conflicts");
+    static final long WATCH_SETTLE_MS = Long.getLong("assettrack.watchSettleMs", 20);
+    static final int SEGMENTS = 64;
+    static final boolean SHARDED = "prefix".equalsIgnoreCase(System.getProperty("assettrack.shardBy"));
+    static final String DEFAULT_SHARD = "_";
+    static final String INDEX_ENTRY = "# H,";
+    static final String INDEX_TRAILER = "# Index: history=";
+    private final Map<String, Asset> assets;
+    private final Map<String, Employee> employees;
+    private final NavigableMap<String, Asset> assetsById;
+    private final NavigableMap<String, Employee> employeesById;
+    private final Map<String, Set<Asset>> assetsByAssignee;
+    private final Map<String, MaintenanceHistory> maintenanceByAsset;
+    private final AtomicInteger maintenanceRecordCount = new AtomicInteger();
+    private static final int LOCK_STRIPES = 64;
+    private final ReentrantLock[] assetLocks = newStripes();
+    private final ReentrantLock[] employeeLocks = newStripes();
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final MaintenanceAnalytics analytics = new MaintenanceAnalytics();
+    private volatile boolean analyticsReady = true;
+    private boolean lazyHistory = HistoryStore.LAZY;
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final PersistenceScheduler persistence;
+    private final AuditLog audit;
+    private final ReportCache employeeReports = new ReportCache("employeeAssets");
+    private final ReportCache historyReports = new ReportCache("assetHistory");
+    private volatile boolean batchMode;
+    private final ChangeTracker changes = new ChangeTracker();
+    private final Map<String, Shard> shards = new ConcurrentHashMap<>();
+    private boolean sharded = SHARDED;
+    private final Path textPath;
+    private final Path binaryPath;
+    private final Path segmentDir;
+    private final Path shardDir;
+    private final Path journalPath;
+    private final StoreLock store;
+    // How far this process has read the store: the generation, the journal and the length of it read, and the version
+    // of the manifest and of every segment file. Guarded by the store lock.
+    private long storeGeneration;
+    private String journalIdentity;
+    private long journalOffset;
+    private long supersededSeen;
+    private List<String> committing = new ArrayList<>();
+    private final Map<String, Employee> uncommittedDeletes = new ConcurrentHashMap<>();
+    private String manifestVersion;
+    private Map<Path, String> segmentVersions = new HashMap<>();
+    public DataManager() {
+        this(Paths.get(DATA_DIR));
+    }
+    public DataManager(Path dataDir) {
+        this(dataDir, PersistenceScheduler.MAX_DELAY_MS);
+    }
+    public DataManager(Path dataDir, long flushDelayMs) {
+        this.textPath = dataDir.resolve("inventory.txt");
+        this.binaryPath = dataDir.resolve("inventory.bin");
+        this.segmentDir = dataDir.resolve("segments");
+        this.shardDir = dataDir.resolve("shards");
+        this.journalPath = dataDir.resolve("inventory.journal");
+        this.store = StoreLock.of(dataDir.resolve("inventory.lock"));
+        this.persistence = new PersistenceScheduler(journalPath, flushDelayMs, this::checkpoint, true, store, new PersistenceScheduler.Commit() {
+            @Override
+            public String prepare(Supplier<String> take, boolean sync) throws IOException {
+                return prepareJournalWrite(take, sync);
+            }
+            @Override
+            public void written(String journal, long length) {
+                journalIdentity = journal;
+                journalOffset = length;
+                audit.append(committing);
+                committing = new ArrayList<>();
+            }
+        });
+        this.audit = new AuditLog(dataDir.resolve("audit.log"), store);
+        this.assets = new ConcurrentHashMap<>();
+        this.employees = new ConcurrentHashMap<>();
+        this.assetsById = new ConcurrentSkipListMap<>();
+        this.employeesById = new ConcurrentSkipListMap<>();
+        this.assetsByAssignee = new ConcurrentHashMap<>();
+        this.maintenanceByAsset = new ConcurrentHashMap<>();
+    }
+    // Views are in ID order and weakly consistent: safe to iterate while other threads mutate, never a
+    // ConcurrentModificationException.
+    public Collection<Asset> getAssets() { return Collections.unmodifiableCollection(assetsById.values()); }
+    public Collection<Employee> getEmployees() { return Collections.unmodifiableCollection(employeesById.values()); }
+    public int getAssetCount() { return assets.size(); }
+    public int getEmployeeCount() { return employees.size(); }
+    public int getMaintenanceRecordCount() { return maintenanceRecordCount.get(); }
+    public int getShardCount() { return shards.size(); }
+    public AuditLog getAuditLog() { return audit; }
+    Path getDataDir() { return textPath.getParent(); }
+    // With lazy history the aggregates are not built at load, which would read every record, but on first use, under
+    // the exclusive lock; from then on they are kept up to date like in a full load.
+    public MaintenanceAnalytics getAnalytics() {
+        if (!analyticsReady) {
+            exclusive(() -> {
+                if (!analyticsReady) {
+                    maintenanceByAsset.values().forEach(history -> history.toList().forEach(this::recordAnalytics));
+                    shards.values().forEach(shard -> shard.histories.forEach((assetKey, records) -> records.forEach(this::recordAnalytics)));
+                    analyticsReady = true;
+                }
+                return null;
+            });
+        }
+        return analytics;
+    }
+    // Only for tests and benchmarks comparing modes in one process; these take effect at the next load.
+    void setLazyHistory(boolean lazy) {
+        lazyHistory = lazy;
+    }
+    void setSharded(boolean sharded) {
+        this.sharded = sharded;
+    }
+    // The search index is built on first use, so sessions that never search don't pay for it at load. It is built
+    // under the exclusive lock; from then on every add and remove below keeps it in step.
+    public SearchIndex getSearchIndex() {
+        if (!searchIndex.isBuilt()) {
+            exclusive(() -> {
+                if (!searchIndex.isBuilt()) {
+                    searchIndex.build(assetsById.values(), employeesById.values());
+                }
+                return null;
+            });
+        }
+        return searchIndex;
+    }
+    NavigableMap<String, Asset> assetsWithIdPrefix(String prefix) {
+        return Collections.unmodifiableNavigableMap(assetsById.subMap(key(prefix), true, key(prefix) + Character.MAX_VALUE, true));
+    }
+    NavigableMap<String, Employee> employeesWithIdPrefix(String prefix) {
+        return Collections.unmodifiableNavigableMap(employeesById.subMap(key(prefix), true, key(prefix) + Character.MAX_VALUE, true));
+    }
+
+    // Keyset pagination: a page starts strictly after the last ID of the previous one (null for the first page), so
+    // each page costs a seek plus the rows it scans, and pages stay stable while rows are added or removed elsewhere.
+    public List<Asset> assetPage(String afterId, int limit, Predicate<Asset> filter) {
+        return page(afterId == null ? assetsById : assetsById.tailMap(key(afterId), false), limit, filter);
+    }
+    public List<Employee> employeePage(String afterId, int limit, Predicate<Employee> filter) {
+        return page(afterId == null ? employeesById : employeesById.tailMap(key(afterId), false), limit, filter);
+    }
+    private static <T> List<T> page(NavigableMap<String, T> from, int limit, Predicate<T> filter) {
+        long start = PAGE.start();
+        List<T> page = new ArrayList<>(Math.min(limit, 1024));
+        for (T row : from.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (filter.test(row)) {
+                page.add(row);
+            }
+        }
+        PAGE.stop(start);
+        return page;
+    }
+
+    // Mutations lock only the stripes of the entities they touch, so changes to unrelated assets run in parallel.
+    // Locks are always taken asset before employee. Snapshots take the structure lock exclusively for a consistent cut.
+    public <T> T withAssetLock(String assetId, Supplier<T> action) {
+        return locked(action, stripe(assetLocks, assetId));
+    }
+    public <T> T withEmployeeLock(String employeeId, Supplier<T> action) {
+        return locked(action, stripe(employeeLocks, employeeId));
+    }
+    public <T> T withAssetAndEmployeeLock(String assetId, String employeeId, Supplier<T> action) {
+        return locked(action, stripe(assetLocks, assetId), stripe(employeeLocks, employeeId));
+    }
+    private <T> T locked(Supplier<T> action, Lock... locks) {
+        structureLock.readLock().lock();
+        try {
+            for (Lock lock : locks) {
+                lock.lock();
+            }
+            try {
+                return action.get();
+            } finally {
+                for (int i = locks.length - 1; i >= 0; i--) {
+                    locks[i].unlock();
+                }
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+    private static ReentrantLock[] newStripes() {
+        ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+        Arrays.setAll(stripes, i -> new ReentrantLock());
+        return stripes;
+    }
+    private static Lock stripe(ReentrantLock[] stripes, String id) {
+        return stripes[key(id).hashCode() & (LOCK_STRIPES - 1)];
+    }
+
+    // Assets and employees are keyed by their case-normalized ID, so lookups and uniqueness checks are O(1). The
+    // ID-sorted skip lists are kept alongside for ordered views and pagination.
+    static String key(String id) { return id.toUpperCase(Locale.ROOT); }
+    public Asset findAsset(String id) { return id == null ? null : assets.get(key(id)); }
+    public boolean containsAsset(String id) { return findAsset(id) != null; }
+    public void addAsset(Asset asset) {
+        Asset previous = assets.put(key(asset.getAssetId()), asset);
+        assetsById.put(key(asset.getAssetId()), asset);
+        if (previous != null) {
+            unindexAssignee(previous);
+            holderChanged(previous.getAssignedTo());
+        }
+        indexAssignee(asset);
+        holderChanged(asset.getAssignedTo());
+        if (searchIndex.isBuilt()) {
+            searchIndex.assetChanged(previous, asset);
+        }
+        if (analyticsReady) {
+            analytics.departmentChanged(key(asset.getAssetId()), departmentOf(asset));
+        }
+    }
+    public Asset removeAsset(String id) {
+        Asset removed = assets.remove(key(id));
+        assetsById.remove(key(id));
+        if (removed != null) {
+            changes.assetDeleted(removed);
+            unindexAssignee(removed);
+            holderChanged(removed.getAssignedTo());
+            if (searchIndex.isBuilt()) {
+                searchIndex.assetChanged(removed, null);
+            }
+        }
+        return removed;
+    }
+    public Employee findEmployee(String id) { return id == null ? null : employees.get(key(id)); }
+    public boolean containsEmployee(String id) { return findEmployee(id) != null; }
+    public void addEmployee(Employee employee) {
+        Employee previous = employees.put(key(employee.getEmployeeId()), employee);
+        employeesById.put(key(employee.getEmployeeId()), employee);
+        holderChanged(employee.getEmployeeId());
+        holderDepartmentChanged(employee.getEmployeeId());
+        if (searchIndex.isBuilt()) {
+            searchIndex.employeeChanged(previous, employee);
+        }
+    }
+    public Employee removeEmployee(String id) {
+        employeesById.remove(key(id));
+        Employee removed = employees.remove(key(id));
+        if (removed != null) {
+            changes.employeeDeleted(removed);
+            holderChanged(id);
+            holderDepartmentChanged(id);
+            if (searchIndex.isBuilt()) {
+                searchIndex.employeeChanged(removed, null);
+            }
+        }
+        return removed;
+    }
+
+    // Secondary indexes: assignee -> assets, and asset -> maintenance records in ascending date order.
+    // Assignment changes must go through setAssignee, under the asset's lock, so the assignee index stays in sync.
+    public void setAssignee(Asset asset, String employeeId) {
+        String previous = asset.getAssignedTo();
+        unindexAssignee(asset);
+        asset.setAssignedTo(employeeId);
+        indexAssignee(asset);
+        holderChanged(previous);
+        holderChanged(employeeId);
+        if (analyticsReady) {
+            analytics.departmentChanged(key(asset.getAssetId()), departmentOf(asset));
+        }
+    }
+    // Maintenance costs roll up to the department of the asset's current holder.
+    String departmentOf(Asset asset) {
+        Employee holder = findEmployee(asset.getAssignedTo());
+        return holder == null ? MaintenanceAnalytics.UNASSIGNED : holder.getDepartment();
+    }
+    // An employee added, replaced (with another department, as a journal upsert may) or removed moves the costs of
+    // the assets they hold.
+    private void holderDepartmentChanged(String employeeId) {
+        if (analyticsReady) {
+            for (Asset asset : assetsByAssignee.getOrDefault(key(employeeId), Collections.emptySet())) {
+                analytics.departmentChanged(key(asset.getAssetId()), departmentOf(asset));
+            }
+        }
+    }
+    // Cached reports are invalidated here, after the change, for every employee and asset it touches.
+    ReportCache getEmployeeReports() { return employeeReports; }
+    ReportCache getHistoryReports() { return historyReports; }
+    private void holderChanged(String employeeId) {
+        if (employeeId != null) {
+            employeeReports.invalidate(key(employeeId));
+        }
+    }
+    public Collection<Asset> getAssetsAssignedTo(String employeeId) {
+        Set<Asset> assigned = assetsByAssignee.get(key(employeeId));
+        return assigned == null ? Collections.emptySet() : Collections.unmodifiableSet(assigned);
+    }
+    // Index sets are created and dropped inside compute so a concurrent add never lands in a set being removed.
+    private void indexAssignee(Asset asset) {
+        if (asset.getAssignedTo() != null) {
+            assetsByAssignee.compute(key(asset.getAssignedTo()), (k, assigned) -> {
+                Set<Asset> set = assigned != null ? assigned : new ConcurrentSkipListSet<>(Comparator.comparing(Asset::getAssetId));
+                set.add(asset);
+                return set;
+            });
+        }
+    }
+    private void unindexAssignee(Asset asset) {
+        if (asset.getAssignedTo() != null) {
+            assetsByAssignee.computeIfPresent(key(asset.getAssignedTo()), (k, assigned) -> {
+                assigned.remove(asset);
+                return assigned.isEmpty() ? null : assigned;
+            });
+        }
+    }
+    // Histories are columnar and guarded by the asset's lock, so readers get records materialized under that lock.
+    // A history not in memory may still be stored on disk (lazy history).
+    public List<MaintenanceRecord> getMaintenanceHistory(String assetId) {
+        return HISTORY.time(() -> withAssetLock(assetId, () -> {
+            MaintenanceHistory history = maintenanceByAsset.get(key(assetId));
+            if (history == null) {
+                history = storedHistory(assetId, false);
+            }
+            return history == null ? Collections.<MaintenanceRecord>emptyList() : history.toList();
+        }));
+    }
+    public void addMaintenanceRecord(MaintenanceRecord record) {
+        maintenanceByAsset.computeIfAbsent(key(record.getAssetId()), k -> {
+            MaintenanceHistory stored = storedHistory(record.getAssetId(), true);
+            return stored != null ? stored : new MaintenanceHistory(record.getAssetId());
+        }).add(record);
+        maintenanceRecordCount.incrementAndGet();
+        historyReports.invalidate(key(record.getAssetId()));
+        if (analyticsReady) {
+            recordAnalytics(record);
+        }
+    }
+    // The history left on disk by a lazy load, if any; taking it hands it over to be kept in memory.
+    private MaintenanceHistory storedHistory(String assetId, boolean take) {
+        Shard shard = shards.get(sharded ? shardKey(assetId) : "");
+        if (shard == null) {
+            return null;
+        }
+        return take ? shard.histories.take(key(assetId)) : shard.histories.get(key(assetId));
+    }
+    private void recordAnalytics(MaintenanceRecord record) {
+        Asset asset = assets.get(key(record.getAssetId()));
+        analytics.recordAdded(key(record.getAssetId()), record, asset == null ? MaintenanceAnalytics.UNKNOWN : asset.getCategory(),
+            asset == null ? MaintenanceAnalytics.UNASSIGNED : departmentOf(asset));
+    }
+    private boolean hasMaintenanceRecord(MaintenanceRecord record) {
+        MaintenanceHistory history = maintenanceByAsset.get(key(record.getAssetId()));
+        if (history == null) {
+            history = storedHistory(record.getAssetId(), false);
+        }
+        return history != null && history.contains(record.getRecordId());
+    }
+    public List<MaintenanceRecord> removeMaintenanceHistory(String assetId) {
+        MaintenanceHistory history = maintenanceByAsset.remove(key(assetId));
+        if (history == null) {
+            history = storedHistory(assetId, true);
+        }
+        if (history == null) {
+            return Collections.emptyList();
+        }
+        historyReports.invalidate(key(assetId));
+        List<MaintenanceRecord> removed = history.toList();
+        maintenanceRecordCount.addAndGet(-removed.size());
+        if (analyticsReady) {
+            analytics.historyRemoved(key(assetId), removed);
+        }
+        return removed;
+    }
+
+    // The inventory is stored as segment files. Unsharded, those are SEGMENTS files under data/segments. Sharded
+    // (-Dassettrack.shardBy=prefix), each shard - the ID prefix before the first '-', such as a site code - has a
+    // directory of its own under data/shards, so every site's data lives apart and is loaded on a thread of its own.
+    // Within a shard every asset (with its maintenance records) and every employee belongs to the segment picked by a
+    // hash of its ID. Each journaled change marks its shard's segment dirty, and a save rewrites only the dirty
+    // segments, each to a temp file that is synced and renamed into place, so a crash never leaves one truncated.
+    // The layout's manifest is written after its first complete set of segments; until it exists the previous layout
+    // (the other sharding mode, or the single-file inventory.txt/inventory.bin) is loaded instead, and it is removed
+    // once the manifest is in place.
+    static final class Shard {
+        final String key;
+        final Path dir;
+        final AtomicLong dirty = new AtomicLong();
+        final HistoryStore histories = new HistoryStore();
+        Shard(String key, Path dir) {
+            this.key = key;
+            this.dir = dir;
+        }
+        void markDirty(long segments) {
+            dirty.accumulateAndGet(segments, (mask, add) -> mask | add);
+        }
+        Path segmentPath(int segment, boolean binary) {
+            return dir.resolve(String.format("inventory-%02d.%s", segment, binary ? "bin" : "txt"));
+        }
+    }
+    // A site code or category prefix such as NYC-... or LAP-...; IDs without a short prefix share DEFAULT_SHARD.
+    static String shardKey(String id) {
+        int dash = id.indexOf('-');
+        if (dash < 1 || dash > 16) {
+            return DEFAULT_SHARD;
+        }
+        char[] key = new char[dash];
+        for (int i = 0; i < dash; i++) {
+            char c = Character.toUpperCase(id.charAt(i));
+            key[i] = c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' ? c : '_';
+        }
+        return new String(key);
+    }
+    private Shard shardOf(String id) {
+        String key = sharded ? shardKey(id) : "";
+        Shard shard = shards.get(key);
+        return shard != null ? shard : shards.computeIfAbsent(key, k -> new Shard(k, k.isEmpty() ? segmentDir : shardDir.resolve(k)));
+    }
+    static int segmentOf(String id) {
+        return Math.floorMod(key(id).hashCode(), SEGMENTS);
+    }
+    private void markDirty(String id) {
+        shardOf(id).markDirty(1L << segmentOf(id));
+    }
+    void markAllDirty() {
+        shards.values().forEach(shard -> shard.dirty.set(-1L));
+    }
+    private Path manifest(boolean shardedLayout) {
+        return (shardedLayout ? shardDir : segmentDir).resolve("manifest");
+    }
+    // The dirty segments of each shard, or null when the layout has no manifest yet and the save must be a full one,
+    // so the manifest never vouches for a partial set.
+    private Map<Shard, Long> takeDirtySegments() {
+        Map<Shard, Long> dirty = new HashMap<>();
+        for (Shard shard : shards.values()) {
+            long mask = shard.dirty.getAndSet(0);
+            if (mask != 0) {
+                dirty.put(shard, mask);
+            }
+        }
+        return Files.exists(manifest(sharded)) ? dirty : null;
+    }
+    private static void restoreDirty(Map<Shard, Long> dirty) {
+        if (dirty != null) {
+            dirty.forEach(Shard::markDirty);
+        }
+    }
+    public void saveData() {
+        long started = SAVE.start();
+        snapshotLock.lock();
+        try {
+            store.locked(() -> {
+                // the queue goes through the journal, where other processes can tell what it changed, not the segments alone
+                persistence.flush();
+                persistence.sync();
+                exclusive(() -> {
+                    Map<Shard, Long> dirty = takeDirtySegments();
+                    try {
+                        writeSegments(cut(dirty, false), dirty == null);
+                        persistence.reset();
+                        committed();
+                        audit.commit();
+                        uncommittedDeletes.clear();
+                    } catch (IOException e) {
+                        restoreDirty(dirty);
+                        System.err.println("[ERROR] Failed to save data to file: " + e.getMessage());
+                    }
+                    return null;
+                });
+            });
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to save data to file: " + e.getMessage());
+        } finally {
+            snapshotLock.unlock();
+            SAVE.stop(started);
+        }
+    }
+    // Background compaction takes a fuzzy checkpoint: the dirty segments are copied and the journal rotated under the
+    // exclusive lock, but the segments are written after it is released. Anything changed meanwhile is in the new
+    // journal, which replays over the segments on load, and marks its segment dirty again for the next save. Other
+    // processes wait on the store lock until the segments are in place.
+    void checkpoint() {
+        long started = CHECKPOINT.start();
+        snapshotLock.lock();
+        List<Map<Shard, Long>> dirty = new ArrayList<>(1);
+        try {
+            store.locked(() -> {
+                persistence.sync();
+                Map<Shard, Segment[]> cut = exclusive(() -> {
+                    dirty.add(takeDirtySegments());
+                    Map<Shard, Segment[]> copy = cut(dirty.get(0), true);
+                    persistence.rotate();
+                    return copy;
+                });
+                writeSegments(cut, dirty.get(0) == null);
+                persistence.dropRotated();
+                committed();
+            });
+        } catch (IOException e) {
+            if (!dirty.isEmpty()) {
+                restoreDirty(dirty.get(0));
+            }
+            System.err.println("[ERROR] Failed to save data to file: " + e.getMessage());
+        } finally {
+            snapshotLock.unlock();
+            CHECKPOINT.stop(started);
+        }
+    }
+    static final class Segment {
+        final List<Asset> assets = new ArrayList<>();
+        final List<Employee> employees = new ArrayList<>();
+        final List<MaintenanceHistory> histories = new ArrayList<>();
+        HistoryStore.Stored stored;
+        boolean isEmpty() {
+            return assets.isEmpty() && employees.isEmpty() && histories.isEmpty()
+                && (stored == null || Arrays.stream(stored.locations).allMatch(location -> location < 0));
+        }
+    }
+    // The contents of the dirty segments (all segments when dirty is null), in one pass over the model. Must run under
+    // the exclusive lock; histories are copied when the cut is written after the lock is released.
+    private Map<Shard, Segment[]> cut(Map<Shard, Long> dirty, boolean copyHistories) {
+        Map<Shard, Segment[]> cut = new HashMap<>();
+        Function<Shard, Segment[]> segments = shard -> cut.computeIfAbsent(shard, s -> {
+            long mask = dirty == null ? -1L : dirty.getOrDefault(s, 0L);
+            Segment[] created = new Segment[SEGMENTS];
+            for (int i = 0; i < SEGMENTS; i++) {
+                if ((mask & 1L << i) != 0) {
+                    created[i] = new Segment();
+                    created[i].stored = s.histories.snapshot(i);
+                }
+            }
+            return created;
+        });
+        if (dirty != null) {
+            if (dirty.isEmpty()) {
+                return cut;
+            }
+            dirty.keySet().forEach(segments::apply);
+        }
+        for (Asset asset : assetsById.values()) {
+            Segment segment = segments.apply(shardOf(asset.getAssetId()))[segmentOf(asset.getAssetId())];
+            if (segment != null) {
+                segment.assets.add(asset);
+            }
+        }
+        for (Employee employee : employeesById.values()) {
+            Segment segment = segments.apply(shardOf(employee.getEmployeeId()))[segmentOf(employee.getEmployeeId())];
+            if (segment != null) {
+                segment.employees.add(employee);
+            }
+        }
+        maintenanceByAsset.forEach((assetKey, history) -> {
+            Segment segment = segments.apply(shardOf(assetKey))[segmentOf(assetKey)];
+            if (segment != null) {
+                segment.histories.add(copyHistories ? history.copy() : history);
+            }
+        });
+        return cut;
+    }
+    // A full write starts the layout afresh, so files left by an interrupted earlier attempt cannot come back.
+    private void writeSegments(Map<Shard, Segment[]> cut, boolean full) throws IOException {
+        Path layout = sharded ? shardDir : segmentDir;
+        if (full && Files.exists(layout)) {
+            deleteTree(layout);
+        }
+        for (Map.Entry<Shard, Segment[]> entry : cut.entrySet()) {
+            writeShard(entry.getKey(), entry.getValue());
+        }
+        if (full) {
+            writeAtomically(manifest(sharded), out -> out.write(("AssetTrack segments\nsegments=" + SEGMENTS + "\nsharded=" + sharded + "\n")
+                .getBytes(StandardCharsets.UTF_8)));
+            syncDirectory(layout);
+            Files.deleteIfExists(textPath);
+            Files.deleteIfExists(binaryPath);
+            Path previous = sharded ? segmentDir : shardDir;
+            if (Files.exists(previous)) {
+                deleteTree(previous);
+            }
+        }
+    }
+    // Segments left with nothing in them are deleted rather than written, so small shards stay a few files.
+    private static void writeShard(Shard shard, Segment[] segments) throws IOException {
+        for (int i = 0; i < SEGMENTS; i++) {
+            Segment segment = segments[i];
+            if (segment == null) {
+                continue;
+            }
+            Path path = shard.segmentPath(i, BINARY_FORMAT);
+            if (segment.isEmpty()) {
+                shard.histories.replace(i, path, HistoryStore.Stored.NONE);
+                Files.deleteIfExists(path);
+            } else if (BINARY_FORMAT) {
+                BinarySnapshot.write(path, segment.assets, segment.employees, MaintenanceHistory.records(segment.histories),
+                    segment.histories.stream().mapToLong(MaintenanceHistory::size).sum());
+                SNAPSHOT_BYTES.add(Files.size(path));
+            } else {
+                shard.histories.replace(i, path, writeTextSegment(path, segment));
+                SNAPSHOT_BYTES.add(Files.size(path));
+            }
+            Files.deleteIfExists(shard.segmentPath(i, !BINARY_FORMAT));
+            SEGMENTS_WRITTEN.increment();
+        }
+        syncDirectory(shard.dir);
+    }
+    static void deleteTree(Path dir) throws IOException {
+        try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isDirectory(file)) {
+                    deleteTree(file);
+                } else {
+                    Files.delete(file);
+                }
+            }
+        }
+        Files.delete(dir);
+    }
+    // A text segment is a checksummed text snapshot (see BlockFormat) with each asset's records together, followed by
+    // an index of them as comment lines the loaders skip: "# H,<offset>,<length>,<records>,<asset key>" per history in
+    // key order, and finally "# Index: history=<offset> index=<offset>" giving where the maintenance section and the
+    // index start. Blocks end only between histories, so a history is never split by a block header. Histories still
+    // stored in the old file are copied across as raw bytes; returns where those landed in the new file.
+    private static HistoryStore.Stored writeTextSegment(Path path, Segment segment) throws IOException {
+        String newline = System.lineSeparator();
+        TreeMap<String, long[]> index = new TreeMap<>();
+        TreeMap<String, long[]> copied = new TreeMap<>();
+        long[] bounds = new long[2];
+        HistoryStore.Stored stored = segment.stored;
+        long records = segment.histories.stream().mapToLong(MaintenanceHistory::size).sum();
+        for (int i = 0; stored != null && i < stored.keys.length; i++) {
+            records += stored.locations[i] < 0 ? 0 : stored.counts[i];
+        }
+        String header = BlockFormat.fileHeader(segment.assets.size(), segment.employees.size(), records);
+        writeAtomically(path, out -> {
+            BlockFormat.TextWriter blocks = new BlockFormat.TextWriter(out);
+            Consumer<String> line = text -> blocks.write((text + newline).getBytes(StandardCharsets.UTF_8));
+            line.accept(header);
+            line.accept("# Assets:");
+            for (Asset asset : segment.assets) {
+                line.accept(asset.toString());
+                blocks.boundary();
+            }
+            line.accept(newline + "# Employees:");
+            for (Employee employee : segment.employees) {
+                line.accept(employee.toString());
+                blocks.boundary();
+            }
+            line.accept(newline + "# Maintenance Records:");
+            bounds[0] = blocks.position();
+            for (MaintenanceHistory history : segment.histories) {
+                long start = blocks.position();
+                for (int i = 0; i < history.size(); i++) {
+                    line.accept(history.get(i).toString());
+                }
+                if (history.size() > 0) {
+                    index.put(key(history.getAssetId()), new long[] {start, blocks.position() - start, history.size()});
+                }
+                blocks.boundary();
+            }
+            for (int i = 0; stored != null && i < stored.keys.length; i++) {
+                long location = stored.locations[i];
+                if (location < 0) {
+                    continue;
+                }
+                byte[] bytes = HistoryStore.readFully(stored.channel, HistoryStore.Stored.offset(location), HistoryStore.Stored.length(location)).array();
+                long start = blocks.position();
+                blocks.write(bytes);
+                index.put(stored.keys[i], new long[] {start, bytes.length, stored.counts[i]});
+                copied.put(stored.keys[i], new long[] {HistoryStore.Stored.location(start, bytes.length), stored.counts[i]});
+                blocks.boundary();
+            }
+            bounds[1] = blocks.position();
+            line.accept(newline + "# History index:");
+            index.forEach((assetKey, entry) -> line.accept(INDEX_ENTRY + entry[0] + "," + entry[1] + "," + entry[2] + "," + assetKey));
+            line.accept(INDEX_TRAILER + bounds[0] + " index=" + bounds[1]);
+            blocks.finish();
+        });
+        return new HistoryStore.Stored(null, copied.keySet().toArray(new String[0]), copied.values().stream().mapToLong(entry -> entry[0]).toArray(),
+            copied.values().stream().mapToInt(entry -> (int) entry[1]).toArray(), bounds[0], bounds[1]);
+    }
+    // Catches up with what other processes sharing the data directory wrote, and writes anything queued here.
+    public void refresh() {
+        persistence.sync();
+    }
+    // Blocks until every queued journal entry, and with it its audit event, is durable.
+    public void flush() {
+        persistence.flush();
+    }
+    // Flushes and stops the journal writer, for a DataManager done with before the JVM exits. Further changes start it again.
+    public void close() {
+        persistence.close();
+    }
+    public String getPersistenceStats() {
+        return persistence.describe();
+    }
+    // Runs with every mutation drained and blocked, so the action sees a consistent cut of the whole model.
+    public <T> T exclusive(Supplier<T> action) {
+        structureLock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+    private Iterable<MaintenanceRecord> allMaintenanceRecords() {
+        return MaintenanceHistory.records(maintenanceByAsset.values());
+    }
+    static void writeTextSnapshot(Path path, Collection<Asset> assets, Collection<Employee> employees, Collection<MaintenanceRecord> records) throws IOException {
+        String newline = System.lineSeparator();
+        writeAtomically(path, out -> {
+            BlockFormat.TextWriter blocks = new BlockFormat.TextWriter(out);
+            Consumer<String> line = text -> blocks.write((text + newline).getBytes(StandardCharsets.UTF_8));
+            line.accept(BlockFormat.fileHeader(assets.size(), employees.size(), records.size()));
+            line.accept("# Assets:");
+            for (Asset asset : assets) {
+                line.accept(asset.toString());
+                blocks.boundary();
+            }
+            line.accept(newline + "# Employees:");
+            for (Employee employee : employees) {
+                line.accept(employee.toString());
+                blocks.boundary();
+            }
+            line.accept(newline + "# Maintenance Records:");
+            for (MaintenanceRecord record : records) {
+                line.accept(record.toString());
+                blocks.boundary();
+            }
+            blocks.finish();
+        });
+    }
+    interface SnapshotBody {
+        void writeTo(OutputStream out) throws IOException;
+    }
+    // Snapshots are written to a temp file, synced and renamed over the target so a crash never leaves it truncated.
+    // The temp file is named for the process, so two processes sharing the data directory never write the same one.
+    static void writeAtomically(Path path, SnapshotBody body) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+            body.writeTo(out);
+            out.getFD().sync();
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    // Makes the renames in a directory durable, so a power loss after a save cannot bring back the old files. Not every
+    // platform can open a directory for this; there it is left to the OS.
+    static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            SYNC_UNSUPPORTED.increment();
+        }
+    }
+    // A damaged file is copied to data/corrupt before anything rewrites it, so what its checksums rejected can still
+    // be examined.
+    private void quarantine(Path path, List<String> warnings) {
+        Path dataDir = textPath.getParent();
+        Path copy = dataDir.resolve("corrupt").resolve(dataDir.relativize(path).toString().replace(File.separatorChar, '-'));
+        DAMAGED_FILES.increment();
+        try {
+            Files.createDirectories(copy.getParent());
+            Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING);
+            warnings.add("[WARNING] Damaged file " + path + " was copied to " + copy + "; it is rewritten from what was recovered at the next save.");
+        } catch (IOException e) {
+            warnings.add("[ERROR] Failed to keep a copy of damaged file " + path + ": " + e.getMessage());
+        }
+    }
+    private File snapshotFile() {
+        File preferred = (BINARY_FORMAT ? binaryPath : textPath).toFile();
+        File other = (BINARY_FORMAT ? textPath : binaryPath).toFile();
+        return preferred.exists() || !other.exists() ? preferred : other;
+    }
+    static InventoryLoader.Result readSnapshot(Path path) throws IOException {
+        return path.getFileName().toString().endsWith(".bin") ? BinarySnapshot.read(path) : InventoryLoader.load(path, InventoryLoader.PARALLEL);
+    }
+    public void loadData() {
+        long started = LOAD.start();
+        try {
+            store.locked(() -> {
+                exclusive(() -> {
+                    loadSnapshotAndJournal();
+                    return null;
+                });
+                remember(store.generation());
+            });
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load data from file: " + e.getMessage());
+        } finally {
+            LOAD.stop(started);
+        }
+    }
+    // Reads every shard of a layout, one thread per shard. Within a shard every segment file that exists is read,
+    // preferring the configured format; segments only found in the other format are marked dirty, so the next save
+    // converts them. With lazy history, text segments leave their maintenance records on disk; one without an index
+    // is read whole and rewritten with one at the next save. A layout being migrated from is read whole. Segments
+    // without checksums, or damaged ones (recovered from their intact blocks), are rewritten at the next save too.
+    private InventoryLoader.Result readLayout(boolean shardedLayout) throws IOException {
+        List<Path> dirs = new ArrayList<>();
+        if (shardedLayout) {
+            try (java.util.stream.Stream<Path> listed = Files.list(shardDir)) {
+                listed.filter(Files::isDirectory).sorted().forEach(dirs::add);
+            }
+        } else {
+            dirs.add(segmentDir);
+        }
+        boolean current = shardedLayout == sharded;
+        List<Future<InventoryLoader.Result>> parts = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, dirs.size()));
+        try {
+            for (Path dir : dirs) {
+                Shard shard = !current ? null : shards.computeIfAbsent(shardedLayout ? dir.getFileName().toString() : "", k -> new Shard(k, dir));
+                parts.add(pool.submit(() -> readShard(dir, shard)));
+            }
+            InventoryLoader.Result result = new InventoryLoader.Result();
+            for (Future<InventoryLoader.Result> part : parts) {
+                result.append(part.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading shards.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to load shard: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+    private InventoryLoader.Result readShard(Path dir, Shard shard) throws IOException {
+        InventoryLoader.Result result = new InventoryLoader.Result();
+        for (int i = 0; i < SEGMENTS; i++) {
+            Path path = dir.resolve(String.format("inventory-%02d.%s", i, BINARY_FORMAT ? "bin" : "txt"));
+            if (!Files.exists(path)) {
+                path = dir.resolve(String.format("inventory-%02d.%s", i, BINARY_FORMAT ? "txt" : "bin"));
+                if (!Files.exists(path)) {
+                    continue;
+                }
+                if (shard != null) {
+                    shard.markDirty(1L << i);
+                }
+            }
+            if (shard != null && lazyHistory && !BINARY_FORMAT) {
+                long stored = shard.histories.open(i, path, result);
+                if (stored >= 0) {
+                    maintenanceRecordCount.addAndGet((int) stored);
+                    continue;
+                }
+                shard.markDirty(1L << i);
+            }
+            InventoryLoader.Result read = readSnapshot(path);
+            if (shard != null && !read.verified) {
+                shard.markDirty(1L << i);
+            }
+            if (read.damaged) {
+                quarantine(path, read.warnings);
+            }
+            result.append(read);
+        }
+        return result;
+    }
+    private void loadSnapshotAndJournal() {
+        boolean current = Files.exists(manifest(sharded));
+        boolean previous = !current && Files.exists(manifest(!sharded));
+        File file = snapshotFile();
+        File journalFile = journalPath.toFile();
+        File rotatedJournal = PersistenceScheduler.rotatedPath(journalPath).toFile();
+        changes.reset();
+        assets.clear();
+        employees.clear();
+        assetsById.clear();
+        employeesById.clear();
+        analytics.clear();
+        analyticsReady = !lazyHistory;
+        shards.values().forEach(shard -> shard.histories.clear());
+        shards.clear();
+        searchIndex.reset();
+        assetsByAssignee.clear();
+        maintenanceByAsset.clear();
+        maintenanceRecordCount.set(0);
+        employeeReports.clear();
+        historyReports.clear();
+        if (!current && !previous && !file.exists() && !journalFile.exists() && !rotatedJournal.exists()) {
+            System.out.println("[INFO] Data file not found. Starting with empty inventory.");
+            return;
+        }
+        if (current || previous || file.exists()) {
+            try {
+                InventoryLoader.Result loaded = current ? readLayout(sharded) : previous ? readLayout(!sharded) : readSnapshot(file.toPath());
+                if (loaded.damaged && !current && !previous) {
+                    quarantine(file.toPath(), loaded.warnings);
+                }
+                loaded.warnings.forEach(System.err::println);
+                SKIPPED_LINES.add(loaded.warnings.size());
+                loaded.employees.forEach(this::addEmployee);
+                loaded.assets.forEach(this::addAsset);
+                loaded.records.forEach(this::addMaintenanceRecord);
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to load data from file: " + e.getMessage());
+                return;
+            }
+        }
+        int replayed = replayJournal(rotatedJournal) + replayJournal(journalFile);
+        REPLAYED.add(replayed);
+        persistence.resume(replayed);
+        changes.reset();
+        System.out.println("[INFO] Data loaded successfully: " + assets.size() + " Assets, " + employees.size() + " Employees, " + maintenanceRecordCount + " Records."
+            + (replayed > 0 ? " (" + replayed + " journal entries replayed)" : ""));
+    }
+
+    // Managers report every change through these: the entity gets a new change version, its segment is marked dirty
+    // and the entry is queued for the journal. Asset states also go to the audit log, recorded before the entry is
+    // queued so the event is pending by the time the entry is written.
+    public void journalAsset(Asset asset) {
+        changes.assetChanged(asset);
+        markDirty(asset.getAssetId());
+        audit.record(asset.getAssetId(), asset.getStatus(), asset.getAssignedTo());
+        appendJournal(asset.toString());
+    }
+    public void journalEmployee(Employee employee) {
+        changes.employeeChanged(employee);
+        markDirty(employee.getEmployeeId());
+        appendJournal(employee.toString());
+    }
+    public void journalMaintenanceRecord(MaintenanceRecord record) {
+        markDirty(record.getAssetId());
+        appendJournal(record.toString());
+    }
+    public void journalAssetDeleted(String assetId) {
+        markDirty(assetId);
+        audit.record(assetId, AuditLog.DELETED, null);
+        appendJournal("DA," + assetId);
+    }
+    // The employee is kept until the deletion is written, in case it has to be undone (see resolve).
+    public void journalEmployeeDeleted(Employee employee) {
+        markDirty(employee.getEmployeeId());
+        if (!batchMode) {
+            uncommittedDeletes.put(key(employee.getEmployeeId()), employee);
+        }
+        appendJournal("DE," + employee.getEmployeeId());
+    }
+    // Run under the exclusive lock, so the delta and its version describe one consistent cut.
+    public ChangeTracker.Delta changesSince(String epoch, long since) {
+        return exclusive(() -> changes.since(epoch, since, this::findAsset, this::findEmployee));
+    }
+
+    // Entries are queued for the background writer, so a mutation returns without waiting for the disk.
+    private void appendJournal(String entry) {
+        if (!batchMode) {
+            persistence.append(entry);
+        }
+    }
+    // Journal lines reuse the snapshot formats as upserts, plus DA/DE tombstones. Replay is idempotent so a crash
+    // between the snapshot rename and the journal reset only re-applies entries already in the snapshot. Each batch is
+    // a checksummed block: a block that fails is skipped, and one cut short at the end - a write interrupted by a
+    // crash - is truncated away, so the journal is back at its last good state before anything is appended to it.
+    // Lines ahead of the first block are from a journal written before checksums and are replayed unchecked.
+    private int replayJournal(File journalFile) {
+        return replayJournal(journalFile, 0, null);
+    }
+    // Replays from the given offset, which must be at a block boundary: catching up with other processes continues
+    // where the last read ended. The keys of the assets and employees changed go into touched, if given. The journal is
+    // read a window at a time, so it may grow past 2 GB: a window is replayed up to the last block it holds whole, and
+    // one too small for even a single block is doubled.
+    private int replayJournal(File journalFile, long from, Set<String> touched) {
+        if (!journalFile.exists()) {
+            return 0;
+        }
+        int replayed = 0;
+        try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = from;
+            int window = REPLAY_WINDOW;
+            while (position < size) {
+                int length = (int) Math.min(size - position, window);
+                boolean last = position + length == size;
+                byte[] bytes = HistoryStore.readFully(channel, position, length).array();
+                BlockFormat.Scan scan = BlockFormat.scan(ByteBuffer.wrap(bytes));
+                int blocksEnd = scan.blocks.isEmpty() ? 0 : scan.blocks.get(scan.blocks.size() - 1)[1];
+                int end = length;
+                List<int[]> ranges = new ArrayList<>(scan.blocks);
+                for (int[] damaged : scan.damaged) {
+                    boolean trailing = damaged[1] == length && blocksEnd <= damaged[0];
+                    if (trailing && !last && (damaged[0] > 0 || window < MAX_REPLAY_WINDOW)) {
+                        end = damaged[0];
+                    } else if (damaged[0] == 0 && position == 0 && bytes[0] != '#') {
+                        ranges.add(0, damaged);
+                    } else if (trailing && last) {
+                        System.err.println("[WARNING] Journal " + journalFile + " ends in an incomplete write (" + (damaged[1] - damaged[0])
+                            + " bytes); truncated to the last complete batch.");
+                        try (FileChannel writable = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE)) {
+                            writable.truncate(position + damaged[0]);
+                            writable.force(false);
+                        }
+                    } else {
+                        System.err.println("[ERROR] Journal " + journalFile + ": bytes " + (position + damaged[0]) + "-" + (position + damaged[1])
+                            + " failed their checksum; the entries in them were skipped.");
+                        SKIPPED_LINES.increment();
+                    }
+                }
+                if (end == 0) {
+                    window = (int) Math.min(MAX_REPLAY_WINDOW, 2L * window);
+                    continue;
+                }
+                for (int[] range : ranges) {
+                    replayed += replayEntries(new BufferedReader(new InputStreamReader(
+                        new ByteArrayInputStream(bytes, range[0], range[1] - range[0]), StandardCharsets.UTF_8)), touched);
+                }
+                position += end;
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to replay journal: " + e.getMessage());
+        }
+        return replayed;
+    }
+    private int replayEntries(BufferedReader reader, Set<String> touched) throws IOException {
+        int replayed = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                if (line.startsWith("A,")) {
+                    Asset asset = Asset.fromString(line);
+                    addAsset(asset);
+                    changes.assetChanged(asset);
+                    markDirty(asset.getAssetId());
+                } else if (line.startsWith("E,")) {
+                    Employee employee = Employee.fromString(line);
+                    addEmployee(employee);
+                    changes.employeeChanged(employee);
+                    markDirty(employee.getEmployeeId());
+                } else if (line.startsWith("M,")) {
+                    MaintenanceRecord record = MaintenanceRecord.fromString(line);
+                    if (!hasMaintenanceRecord(record)) {
+                        addMaintenanceRecord(record);
+                        markDirty(record.getAssetId());
+                    }
+                } else if (line.startsWith("DA,")) {
+                    String assetId = line.substring(3);
+                    removeMaintenanceHistory(assetId);
+                    removeAsset(assetId);
+                    markDirty(assetId);
+                } else if (line.startsWith("DE,")) {
+                    String employeeId = line.substring(3);
+                    removeEmployee(employeeId);
+                    markDirty(employeeId);
+                } else {
+                    throw new IllegalArgumentException("Unknown journal entry type.");
+                }
+                String conflictKey = touched == null ? null : conflictKey(line);
+                if (conflictKey != null) {
+                    touched.add(conflictKey);
+                }
+                replayed++;
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                System.err.println("[WARNING] Skipping corrupted journal entry: " + line + " (" + e.getMessage() + ")");
+                SKIPPED_LINES.increment();
+            }
+        }
+        return replayed;
+    }
+    // Several processes may share the data directory (see StoreLock). Each keeps its own model and, under the store
+    // lock, catches up with what the others wrote before it writes anything itself: journal entries are read on from
+    // where it last stopped, and segments a save or checkpoint rewrote (a new generation) are reloaded, only those
+    // files and only the entities in them that differ. Its own writes are checked optimistically: an entry queued for
+    // an asset or employee that another process changed in the meantime was made without seeing that change, so it is
+    // dropped with a warning and theirs stands. Every process thus replays the same journal in the same order.
+    private String prepareJournalWrite(Supplier<String> take, boolean sync) throws IOException {
+        committing = new ArrayList<>();
+        if (!behind()) {
+            return sync ? null : resolve(take.get(), Collections.emptySet(), null);
+        }
+        long started = CATCH_UP.start();
+        try {
+            return exclusive(() -> {
+                try {
+                    Set<String> touched = new HashSet<>();
+                    Predicate<String> reloaded = catchUp(touched);
+                    persistence.reopenJournal();
+                    return resolve(take.get(), touched, reloaded);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            CATCH_UP.stop(started);
+        }
+    }
+    private boolean behind() throws IOException {
+        return store.generation() != storeGeneration
+            || !Objects.equals(StoreLock.identityAndSize(journalPath), journalIdentity == null ? null : journalIdentity + "/" + journalOffset);
+    }
+    // Returns which IDs' segments were reloaded, where changes not yet journaled may have been overwritten, or null. If
+    // the journal being read disappeared without a new generation, or the layout was rebuilt, everything is loaded again.
+    private Predicate<String> catchUp(Set<String> touched) throws IOException {
+        long generation = store.generation();
+        String journal = StoreLock.identity(journalPath);
+        Path rotated = PersistenceScheduler.rotatedPath(journalPath);
+        Predicate<String> reloaded = null;
+        long from = journalOffset;
+        int replayed = 0;
+        if (generation != storeGeneration) {
+            if (!Objects.equals(StoreLock.version(manifest(sharded)), manifestVersion)) {
+                return reloadAll(generation);
+            }
+            // The new segments hold everything journaled before them, and the journal now is newer than they are, unless
+            // it is the one being read, which a checkpoint keeps. The journals superseded since the last catch-up, the
+            // one being read among them, were kept under numbered names: reading them tells which entities the others
+            // changed, where the segments only tell which differ from this process's own changes. Too far behind, only
+            // the segments are left.
+            for (Path superseded : PersistenceScheduler.supersededPaths(journalPath)) {
+                if (PersistenceScheduler.supersededNumber(journalPath, superseded) > supersededSeen) {
+                    boolean reading = journalIdentity != null && journalIdentity.equals(StoreLock.identity(superseded));
+                    replayed += replayJournal(superseded.toFile(), reading ? journalOffset : 0, touched);
+                }
+            }
+            reloaded = reloadSegments();
+            from = journalIdentity != null && journalIdentity.equals(journal) ? journalOffset : 0;
+        } else if (journalIdentity != null && !journalIdentity.equals(journal)) {
+            // A checkpoint that did not finish rotated the journal being read.
+            if (!journalIdentity.equals(StoreLock.identity(rotated))) {
+                return reloadAll(generation);
+            }
+            replayed += replayJournal(rotated.toFile(), journalOffset, touched);
+            from = 0;
+        } else if (journal != null && Files.size(journalPath) < journalOffset) {
+            return reloadAll(generation);
+        }
+        if (journal != null) {
+            replayed += replayJournal(journalPath.toFile(), from, touched);
+        }
+        FOREIGN_ENTRIES.add(replayed);
+        storeGeneration = generation;
+        journalIdentity = StoreLock.identity(journalPath);
+        journalOffset = journalIdentity == null ? 0 : Files.size(journalPath);
+        supersededSeen = latestSuperseded();
+        return reloaded;
+    }
+    private Predicate<String> reloadAll(long generation) throws IOException {
+        FULL_RELOADS.increment();
+        loadSnapshotAndJournal();
+        remember(generation);
+        return id -> true;
+    }
+    // Records the store as read up to now, after a load; committed() after this process wrote segments itself.
+    private void remember(long generation) throws IOException {
+        storeGeneration = generation;
+        manifestVersion = StoreLock.version(manifest(sharded));
+        segmentVersions = segmentVersions();
+        journalIdentity = StoreLock.identity(journalPath);
+        journalOffset = journalIdentity == null ? 0 : Files.size(journalPath);
+        supersededSeen = latestSuperseded();
+    }
+    private long latestSuperseded() throws IOException {
+        List<Path> superseded = PersistenceScheduler.supersededPaths(journalPath);
+        return superseded.isEmpty() ? 0 : PersistenceScheduler.supersededNumber(journalPath, superseded.get(superseded.size() - 1));
+    }
+    private void committed() throws IOException {
+        remember(store.advance());
+    }
+    private Map<Path, String> segmentVersions() throws IOException {
+        List<Path> dirs = new ArrayList<>();
+        if (!sharded) {
+            dirs.add(segmentDir);
+        } else if (Files.isDirectory(shardDir)) {
+            try (java.util.stream.Stream<Path> listed = Files.list(shardDir)) {
+                listed.filter(Files::isDirectory).forEach(dirs::add);
+            }
+        }
+        Map<Path, String> versions = new HashMap<>();
+        for (Path dir : dirs) {
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            try (java.util.stream.Stream<Path> listed = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) listed::iterator) {
+                    String name = file.getFileName().toString();
+                    if (name.startsWith("inventory-") && !name.endsWith(".tmp")) {
+                        versions.put(file, StoreLock.version(file));
+                    }
+                }
+            }
+        }
+        return versions;
+    }
+    // Reloads the segment files whose version changed. The process that saved had replayed the whole journal, so it
+    // rewrote every segment the journal touched, or left it without a file when nothing remained in it, as when a
+    // journaled asset was deleted again; segments dirty here that have no file are therefore reloaded as empty. Every
+    // asset, employee and maintenance history belonging to those segments is compared with what the files hold and
+    // replaced, added or removed only where it differs.
+    private Predicate<String> reloadSegments() throws IOException {
+        Map<Path, String> current = segmentVersions();
+        Set<Path> files = new HashSet<>(current.keySet());
+        files.addAll(segmentVersions.keySet());
+        Set<String> cells = new HashSet<>();
+        for (Path file : files) {
+            if (!Objects.equals(current.get(file), segmentVersions.get(file))) {
+                cells.add((sharded ? file.getParent().getFileName().toString() : "") + "/" + Integer.parseInt(file.getFileName().toString().substring(10, 12)));
+            }
+        }
+        for (Shard shard : shards.values()) {
+            long mask = shard.dirty.get();
+            for (int i = 0; i < SEGMENTS; i++) {
+                if ((mask & 1L << i) != 0 && !current.containsKey(shard.segmentPath(i, true)) && !current.containsKey(shard.segmentPath(i, false))) {
+                    cells.add(shard.key + "/" + i);
+                }
+            }
+        }
+        segmentVersions = current;
+        if (cells.isEmpty()) {
+            return null;
+        }
+        SEGMENTS_RELOADED.add(cells.size());
+        InventoryLoader.Result loaded = new InventoryLoader.Result();
+        for (String cell : cells) {
+            String shardKey = cell.substring(0, cell.indexOf('/'));
+            Shard shard = shards.computeIfAbsent(shardKey, k -> new Shard(k, k.isEmpty() ? segmentDir : shardDir.resolve(k)));
+            int segment = Integer.parseInt(cell.substring(cell.indexOf('/') + 1));
+            Path path = shard.segmentPath(segment, BINARY_FORMAT);
+            if (!Files.exists(path)) {
+                path = shard.segmentPath(segment, !BINARY_FORMAT);
+            }
+            if (Files.exists(path)) {
+                InventoryLoader.Result read = readSnapshot(path);
+                read.warnings.forEach(System.err::println);
+                loaded.append(read);
+            }
+        }
+        Predicate<String> reloaded = id -> cells.contains(shardOf(id).key + "/" + segmentOf(id));
+        Map<String, Employee> employeesIn = new HashMap<>();
+        loaded.employees.forEach(employee -> employeesIn.put(key(employee.getEmployeeId()), employee));
+        Map<String, Asset> assetsIn = new HashMap<>();
+        loaded.assets.forEach(asset -> assetsIn.put(key(asset.getAssetId()), asset));
+        Map<String, List<MaintenanceRecord>> historiesIn = new HashMap<>();
+        loaded.records.forEach(record -> historiesIn.computeIfAbsent(key(record.getAssetId()), k -> new ArrayList<>()).add(record));
+        for (Employee employee : new ArrayList<>(employeesById.values())) {
+            if (reloaded.test(employee.getEmployeeId()) && !employeesIn.containsKey(key(employee.getEmployeeId()))) {
+                removeEmployee(employee.getEmployeeId());
+            }
+        }
+        for (Employee employee : employeesIn.values()) {
+            Employee present = findEmployee(employee.getEmployeeId());
+            if (present == null || !same(present, employee)) {
+                addEmployee(employee);
+                changes.employeeChanged(employee);
+            }
+        }
+        Set<String> histories = new HashSet<>(historiesIn.keySet());
+        for (Asset asset : new ArrayList<>(assetsById.values())) {
+            if (reloaded.test(asset.getAssetId()) && !assetsIn.containsKey(key(asset.getAssetId()))) {
+                removeMaintenanceHistory(asset.getAssetId());
+                removeAsset(asset.getAssetId());
+            }
+        }
+        for (Asset asset : assetsIn.values()) {
+            Asset present = findAsset(asset.getAssetId());
+            if (present == null || !same(present, asset)) {
+                addAsset(asset);
+                changes.assetChanged(asset);
+            }
+        }
+        maintenanceByAsset.keySet().stream().filter(reloaded).forEach(histories::add);
+        for (String cell : cells) {
+            Shard shard = shards.get(cell.substring(0, cell.indexOf('/')));
+            histories.addAll(shard.histories.keys(Integer.parseInt(cell.substring(cell.indexOf('/') + 1))));
+        }
+        for (String assetKey : histories) {
+            List<MaintenanceRecord> records = historiesIn.getOrDefault(assetKey, Collections.emptyList());
+            MaintenanceHistory history = maintenanceByAsset.get(assetKey);
+            if (history == null) {
+                history = storedHistory(assetKey, false);
+            }
+            // Records never change once added, so a history is the same if it holds the same record IDs.
+            boolean same = (history == null ? 0 : history.size()) == records.size();
+            for (int i = 0; same && i < records.size(); i++) {
+                same = history.contains(records.get(i).getRecordId());
+            }
+            if (!same) {
+                removeMaintenanceHistory(assetKey);
+                records.forEach(this::addMaintenanceRecord);
+            }
+        }
+        return reloaded;
+    }
+    private static boolean same(Asset a, Asset b) {
+        return a.getAssetId().equals(b.getAssetId()) && a.getName().equals(b.getName()) && a.getCategory().equals(b.getCategory())
+            && a.getSerialNumber().equals(b.getSerialNumber()) && a.getStatus().equals(b.getStatus()) && Objects.equals(a.getAssignedTo(), b.getAssignedTo());
+    }
+    private static boolean same(Employee a, Employee b) {
+        return a.getEmployeeId().equals(b.getEmployeeId()) && a.getName().equals(b.getName()) && a.getDepartment().equals(b.getDepartment())
+            && a.getEmail().equals(b.getEmail());
+    }
+    // The queued entries that still apply, checked against what other processes wrote meanwhile: touched holds the keys
+    // (see conflictKey) of the entries read from them, and reloaded which IDs' segments were read again, if any. One
+    // about an asset or employee another process changed meanwhile, or a maintenance record for an asset it deleted, is
+    // dropped: the model already shows that process's version. The rules this process enforced across entities are
+    // checked again on the merged model, since the entry was made without seeing those changes: an assignment to an
+    // employee deleted elsewhere is written with the asset left unassigned, an assignment of an asset retired elsewhere
+    // is dropped, and so is the deletion of an employee who was given an asset elsewhere. After segments were reloaded
+    // the model may have lost the queued changes, so those kept are applied again, each before the next is checked.
+    // The audit events of the entries written are collected for written(); those of dropped entries are discarded.
+    private String resolve(String batch, Set<String> touched, Predicate<String> reloaded) {
+        boolean merging = !touched.isEmpty() || reloaded != null;
+        Predicate<String> elsewhere = conflictKey -> touched.contains(conflictKey) || reloaded != null && reloaded.test(conflictKey.substring(1));
+        StringBuilder kept = new StringBuilder(batch.length());
+        Set<String> amended = new HashSet<>();
+        for (String entry : batch.split("\n")) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            String conflictKey = conflictKey(entry);
+            String event = conflictKey != null && conflictKey.charAt(0) == 'A' ? audit.takePending(conflictKey.substring(1)) : null;
+            String deletedId = entry.startsWith("DE,") ? entry.substring(3) : null;
+            Employee deleted = deletedId == null ? null : uncommittedDeletes.remove(key(deletedId));
+            String assetId = merging && entry.startsWith("M,") ? entry.split(",", 4)[2] : null;
+            String rejected = null;
+            if (conflictKey != null && touched.contains(conflictKey)) {
+                rejected = (conflictKey.charAt(0) == 'A' ? "Asset " : "Employee ") + conflictKey.substring(1)
+                    + " was changed by another process at the same time; the change made here was discarded.";
+            } else if (assetId != null && touched.contains("A" + key(assetId)) && findAsset(assetId) == null) {
+                rejected = "Asset " + assetId + " was deleted by another process; the maintenance record added here was discarded.";
+            } else if (merging && entry.startsWith("A,")) {
+                Asset asset = Asset.fromString(entry);
+                Asset present = findAsset(asset.getAssetId());
+                String holder = asset.getAssignedTo();
+                if (asset.getStatus().equals("Assigned") && present != null && present.getStatus().equals("Retired") && elsewhere.test(conflictKey)) {
+                    rejected = "Asset " + asset.getAssetId() + " was retired by another process; the assignment made here was discarded.";
+                } else if (holder != null && findEmployee(holder) == null && elsewhere.test("E" + key(holder))) {
+                    asset.setAssignedTo(null);
+                    if (asset.getStatus().equals("Assigned")) {
+                        asset.setStatus("Unassigned");
+                    }
+                    entry = asset.toString();
+                    event = event == null ? null : AuditLog.amend(event, asset.getStatus(), null);
+                    amended.add(conflictKey);
+                    CONFLICTS.increment();
+                    System.err.println("[WARNING] Employee " + holder + " was deleted by another process; asset " + asset.getAssetId()
+                        + ", assigned to them here, was left unassigned.");
+                }
+            } else if (merging && deletedId != null
+                    && getAssetsAssignedTo(deletedId).stream().anyMatch(asset -> elsewhere.test("A" + key(asset.getAssetId())))) {
+                rejected = "Employee " + deletedId + " was assigned an asset by another process; the deletion made here was discarded.";
+                if (findEmployee(deletedId) == null && deleted != null) {
+                    addEmployee(deleted);
+                    changes.employeeChanged(deleted);
+                    markDirty(deletedId);
+                }
+            }
+            if (rejected != null) {
+                CONFLICTS.increment();
+                System.err.println("[WARNING] " + rejected);
+                continue;
+            }
+            kept.append(entry).append('\n');
+            if (event != null) {
+                committing.add(event);
+            }
+            if (reloaded != null) {
+                reapply(entry);
+            }
+        }
+        // Without a reload the model holds this process's own version of each entity, so only amended ones are redone.
+        if (reloaded == null && !amended.isEmpty()) {
+            for (String entry : kept.toString().split("\n")) {
+                if (amended.contains(conflictKey(entry))) {
+                    reapply(entry);
+                }
+            }
+        }
+        return kept.toString();
+    }
+    private void reapply(String entry) {
+        try {
+            replayEntries(new BufferedReader(new StringReader(entry)), null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    // Entries about the same asset (A and DA lines) or employee (E and DE lines) share a key; maintenance records have none.
+    static String conflictKey(String entry) {
+        if (entry.startsWith("A,") || entry.startsWith("E,")) {
+            int comma = entry.indexOf(',', 2);
+            return comma < 0 ? null : entry.charAt(0) + key(entry.substring(2, comma));
+        }
+        if (entry.startsWith("DA,") || entry.startsWith("DE,")) {
+            return entry.charAt(1) + key(entry.substring(3));
+        }
+        return null;
+    }
+    // Picks up other processes' changes as they happen rather than at this process's next write. The data directory is
+    // watched for writes to the journal and to the lock file, whose generation every save and checkpoint advances; each
+    // burst of events (WATCH_SETTLE_MS) is followed by one catch-up, which reads only what is new.
+    void watch() {
+        Path dir = getDataDir();
+        Set<String> watched = Set.of(journalPath.getFileName().toString(), "inventory.lock");
+        Thread watcher = new Thread(() -> {
+            try (WatchService service = dir.getFileSystem().newWatchService()) {
+                Files.createDirectories(dir);
+                dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                while (true) {
+                    WatchKey key = service.take();
+                    boolean changed = false;
+                    do {
+                        for (WatchEvent<?> event : key.pollEvents()) {
+                            changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || watched.contains(String.valueOf(event.context()));
+                        }
+                        if (!key.reset()) {
+                            return;
+                        }
+                    } while ((key = service.poll(WATCH_SETTLE_MS, TimeUnit.MILLISECONDS)) != null);
+                    if (changed) {
+                        persistence.sync();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                System.err.println("[WARNING] Failed to watch " + dir + " for changes by other processes (" + e.getMessage()
+                    + "); they are picked up at the next write instead.");
+            }
+        }, "assettrack-store-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+    // Menu input is checked without a regex: a single digit from 1 to last.
+    public static boolean isMenuChoice(String value, int last) {
+        return value.length() == 1 && value.charAt(0) >= '1' && value.charAt(0) <= '0' + last;
+    }
+    public static String requireText(String value, String message) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException(message);
+        }
+        return value.trim();
+    }
+
+    // Batch mode: journal appends are suppressed and the whole batch is committed with a single snapshot write.
+    // Until then its changes are only in memory, where catching up could overwrite them, so a batch that other
+    // processes may share the data with runs through withStoreLocked: caught up first, and alone until it is saved.
+    public <T> T withStoreLocked(Supplier<T> work) {
+        List<T> result = new ArrayList<>(1);
+        try {
+            store.locked(() -> {
+                persistence.sync();
+                result.add(work.get());
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result.get(0);
+    }
+    public void beginBatch() {
+        batchMode = true;
+        audit.hold();
+    }
+    public void commitBatch() {
+        batchMode = false;
+        audit.release();
+        saveData();
+    }
+    // A batch that failed part way was never journaled, so its changes are dropped by loading the data again, and the
+    // audit events it held are dropped with them. Batch mode is not per thread: a change another thread makes during
+    // the batch is not journaled either, and an abort drops it too. Batches are therefore for a process making no
+    // other changes, as the import command is; nothing in the menus, scripts or the API server starts one.
+    public void abortBatch() {
+        batchMode = false;
+        audit.discard();
+        loadData();
+    }
+    public String getValidInput(Scanner scanner, String prompt, Predicate<String> validator, String errorMessage) {
+        String input;
+        while (true) {
+            System.out.print(prompt);
+            input = scanner.nextLine().trim();
+            if (validator.test(input) && !input.isEmpty()) {
+                return input;
+            } else if (input.isEmpty()) {
+                System.out.println("[VALIDATION ERROR] Input cannot be blank. Please try again.");
+            } else {
+                System.out.println("[VALIDATION ERROR] " + errorMessage);
+            }
+        }
+    }
+}
+
+// Change versions for downstream sync. Each journaled change gives the entity the next version number, and the
+// newest version of every changed entity and every deletion is indexed by version, so "what changed since N" is a
+// range scan over the changes rather than the inventory. Versions start again under a new epoch whenever the
+// inventory is loaded. A client holding another epoch, or a version older than the oldest deletion still retained
+// (MAX_TOMBSTONES are kept), gets a full-resync answer instead of a delta.
+class ChangeTracker {
+    static final int MAX_TOMBSTONES = 100_000;
+    private final AtomicLong version = new AtomicLong();
+    private final NavigableMap<Long, String> changed = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Long, String> deleted = new ConcurrentSkipListMap<>();
+    private final AtomicInteger tombstones = new AtomicInteger();
+    private volatile String epoch;
+    private volatile long horizon;
+
+    ChangeTracker() {
+        reset();
+    }
+    // Changes to one entity arrive under that entity's lock, so replacing its index entry does not race.
+    void assetChanged(Asset asset) {
+        asset.setVersion(replace(asset.getVersion(), "A" + DataManager.key(asset.getAssetId()), changed));
+    }
+    void employeeChanged(Employee employee) {
+        employee.setVersion(replace(employee.getVersion(), "E" + DataManager.key(employee.getEmployeeId()), changed));
+    }
+    void assetDeleted(Asset asset) {
+        replace(asset.getVersion(), "A" + DataManager.key(asset.getAssetId()), deleted);
+        trimTombstones();
+    }
+    void employeeDeleted(Employee employee) {
+        replace(employee.getVersion(), "E" + DataManager.key(employee.getEmployeeId()), deleted);
+        trimTombstones();
+    }
+    private long replace(long previous, String entry, NavigableMap<Long, String> into) {
+        if (previous != 0) {
+            changed.remove(previous);
+        }
+        long next = version.incrementAndGet();
+        into.put(next, entry);
+        return next;
+    }
+    private void trimTombstones() {
+        if (tombstones.incrementAndGet() > MAX_TOMBSTONES) {
+            Map.Entry<Long, String> oldest = deleted.pollFirstEntry();
+            if (oldest != null) {
+                tombstones.decrementAndGet();
+                horizon = Math.max(horizon, oldest.getKey());
+            }
+        }
+    }
+    synchronized void reset() {
+        changed.clear();
+        deleted.clear();
+        tombstones.set(0);
+        version.set(0);
+        horizon = 0;
+        epoch = UUID.randomUUID().toString();
+    }
+
+    static final class Delta {
+        final String epoch;
+        final long version;
+        final boolean full;
+        final List<Asset> assets = new ArrayList<>();
+        final List<Employee> employees = new ArrayList<>();
+        final List<String> deletedAssets = new ArrayList<>();
+        final List<String> deletedEmployees = new ArrayList<>();
+        Delta(String epoch, long version, boolean full) {
+            this.epoch = epoch;
+            this.version = version;
+            this.full = full;
+        }
+    }
+    // Deletions are listed oldest first and always predate the listed upserts of the same ID, so a client applies the
+    // deletions and then the upserts. Needs writers held off (DataManager.changesSince runs it under the exclusive lock).
+    Delta since(String clientEpoch, long since, Function<String, Asset> assets, Function<String, Employee> employees) {
+        String current = epoch;
+        if (!current.equals(clientEpoch) || since < horizon || since > version.get()) {
+            return new Delta(current, version.get(), true);
+        }
+        Delta delta = new Delta(current, version.get(), false);
+        for (String entry : deleted.tailMap(since, false).values()) {
+            (entry.charAt(0) == 'A' ? delta.deletedAssets : delta.deletedEmployees).add(entry.substring(1));
+        }
+        for (String entry : changed.tailMap(since, false).values()) {
+            if (entry.charAt(0) == 'A') {
+                Asset asset = assets.apply(entry.substring(1));
+                if (asset != null) {
+                    delta.assets.add(asset);
+                }
+            } else {
+                Employee employee = employees.apply(entry.substring(1));
+                if (employee != null) {
+                    delta.employees.add(employee);
+                }
+            }
+        }
+        return delta;
+    }
+}
+
+// Point-in-time history of every asset's status and holder, for questions such as "who held LAP-001 on March 3rd".
+// Each journaled asset change appends an event to data/audit.log - a sequence number, the time, the asset and its
+// status and holder after the change - and the file is only ever appended to. An event is recorded as the change is
+// made but stays pending until its journal entry is written (see DataManager.resolve, which may drop or amend the
+// entry when another process changed the same data), so the log only tells what every process sees. Since an event
+// carries the whole state, the state at time T is the asset's last event at or before T, a binary search with nothing
+// to replay. Holder changes also open and close custody intervals, indexed per employee.
+// The index is built on first query, from the newest checkpoint (audit.idx: the index plus the log offset and sequence
+// it covers) and the log lines after it. A new checkpoint is written in the background once CHECKPOINT_EVENTS events
+// have been appended past the last one, so opening the log never replays many more lines than that. Other processes
+// sharing the data directory append to the same log, under the store lock and numbering on from the last sequence in
+// the file, so the index is not updated as events are written: each query first reads on from where the index
+// stopped, which picks up everyone's events in the order they were written.
+class AuditLog {
+    static final int CHECKPOINT_EVENTS = 50_000;
+    static final String DELETED = "Deleted";
+    private static final String CHECKPOINT_HEADER = "AssetTrack audit index 1";
+    private static final Metrics.Counter EVENTS = Metrics.counter("audit.events");
+    private static final Metrics.Counter REPLAYED = Metrics.counter("audit.linesReplayed");
+    private static final Metrics.Timer QUERY = Metrics.timer("audit.query");
+    private static final Metrics.Timer CHECKPOINT = Metrics.timer("audit.checkpoint");
+    private static final StringPool.Codes STATUSES = new StringPool.Codes();
+    private final Path logPath;
+    private final Path checkpointPath;
+    private final StoreLock store;
+    private final Map<String, Timeline> timelines = new HashMap<>();
+    private final Map<String, List<Custody>> custody = new HashMap<>();
+    private final Object pendingLock = new Object();
+    private final Map<String, ArrayDeque<Pending>> pending = new HashMap<>();
+    private final Object writeLock = new Object();
+    private final AtomicBoolean checkpointRunning = new AtomicBoolean();
+    private boolean opened;
+    private boolean indexed;
+    private long indexedTo;
+    private FileChannel log;
+    private volatile long sequence;
+    private volatile long checkpointSequence;
+    private long writtenTo = -1;
+    private long recorded;
+    private int replayed;
+    private List<String> held;
+    private ExecutorService checkpointer;
+
+    AuditLog(Path logPath) {
+        this(logPath, StoreLock.of(logPath.resolveSibling("inventory.lock")));
+    }
+    AuditLog(Path logPath, StoreLock store) {
+        this.logPath = logPath;
+        this.checkpointPath = logPath.resolveSibling("audit.idx");
+        this.store = store;
+    }
+
+    static final class State {
+        final String assetId;
+        final long since;
+        final String status;
+        final String holder;
+        State(String assetId, long since, String status, String holder) {
+            this.assetId = assetId;
+            this.since = since;
+            this.status = status;
+            this.holder = holder;
+        }
+    }
+    // One asset in one employee's hands, from 'from' until just before 'until' (Long.MAX_VALUE while still held).
+    static final class Custody {
+        final String assetId;
+        final String employeeId;
+        final long from;
+        long until;
+        Custody(String assetId, String employeeId, long from, long until) {
+            this.assetId = assetId;
+            this.employeeId = employeeId;
+            this.from = from;
+            this.until = until;
+        }
+    }
+    private static final class Pending {
+        final long order;
+        final String event;
+        Pending(long order, String event) {
+            this.order = order;
+            this.event = event;
+        }
+    }
+    private static final class Timeline {
+        long[] times = new long[2];
+        byte[] statuses = new byte[2];
+        String[] holders = new String[2];
+        int size;
+        Custody held;
+        void add(long time, byte status, String holder) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                statuses = Arrays.copyOf(statuses, size * 2);
+                holders = Arrays.copyOf(holders, size * 2);
+            }
+            times[size] = time;
+            statuses[size] = status;
+            holders[size++] = holder;
+        }
+        // The last event at or before time, or -1.
+        int indexAt(long time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid] <= time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low - 1;
+        }
+        State state(String assetId, int index) {
+            return new State(assetId, times[index], STATUSES.decode(statuses[index]), holders[index]);
+        }
+    }
+
+    void record(String assetId, String status, String holder) {
+        record(System.currentTimeMillis(), assetId, status, holder);
+    }
+    void record(long time, String assetId, String status, String holder) {
+        String event = event(time, assetId, status, holder);
+        synchronized (pendingLock) {
+            if (held != null) {
+                held.add(event);
+            } else {
+                pend(event);
+            }
+        }
+    }
+    static String event(long time, String assetId, String status, String holder) {
+        return time + "," + assetId + "," + status + "," + (holder == null ? "" : holder);
+    }
+    // The event's time with another state, for a journal entry that was amended before it was written.
+    static String amend(String event, String status, String holder) {
+        String[] fields = event.split(",", 3);
+        return event(Long.parseLong(fields[0]), fields[1], status, holder);
+    }
+    private void pend(String event) {
+        String assetKey = DataManager.key(event.substring(event.indexOf(',') + 1, event.indexOf(',', event.indexOf(',') + 1)));
+        pending.computeIfAbsent(assetKey, k -> new ArrayDeque<>()).add(new Pending(recorded++, event));
+    }
+    // A batch import's events are held back until it commits, like its journal entries.
+    void hold() {
+        synchronized (pendingLock) {
+            if (held == null) {
+                held = new ArrayList<>();
+            }
+        }
+    }
+    void release() {
+        synchronized (pendingLock) {
+            if (held != null) {
+                held.forEach(this::pend);
+            }
+            held = null;
+        }
+    }
+    void discard() {
+        synchronized (pendingLock) {
+            held = null;
+        }
+    }
+    // The oldest pending event of the asset, taken for its oldest journal entry being written, or null if none.
+    String takePending(String assetKey) {
+        synchronized (pendingLock) {
+            ArrayDeque<Pending> events = pending.get(assetKey);
+            Pending oldest = events == null ? null : events.poll();
+            if (events != null && events.isEmpty()) {
+                pending.remove(assetKey);
+            }
+            return oldest == null ? null : oldest.event;
+        }
+    }
+    // Every pending event in the order recorded, for a save whose snapshot covers all the journal entries queued.
+    List<String> takePending() {
+        synchronized (pendingLock) {
+            List<Pending> all = new ArrayList<>();
+            pending.values().forEach(all::addAll);
+            pending.clear();
+            all.sort(Comparator.comparingLong(event -> event.order));
+            List<String> events = new ArrayList<>(all.size());
+            all.forEach(event -> events.add(event.event));
+            return events;
+        }
+    }
+    // Writes events whose changes are now durable. Under the store lock, the sequence is read again from the end of
+    // the log whenever it grew since this process last wrote, so processes sharing it never number two events alike.
+    void append(List<String> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            store.locked(() -> {
+                synchronized (writeLock) {
+                    Files.createDirectories(logPath.toAbsolutePath().getParent());
+                    try (FileChannel out = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                        StringBuilder lines = new StringBuilder();
+                        if (out.size() != writtenTo) {
+                            open();
+                            sequence = Math.max(sequence, Math.max(checkpointSequence, lastLoggedSequence(out)));
+                            ByteBuffer last = ByteBuffer.allocate(1);
+                            if (out.size() > 0 && out.read(last, out.size() - 1) == 1 && last.get(0) != '\n') {
+                                // a line torn by a crash is ended, so it spoils none of these
+                                lines.append('\n');
+                            }
+                        }
+                        for (String event : events) {
+                            lines.append(++sequence).append(',').append(event).append('\n');
+                        }
+                        // the store lock keeps everyone else from writing, so the end of the file stays put
+                        ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                        long position = out.size();
+                        while (bytes.hasRemaining()) {
+                            position += out.write(bytes, position);
+                        }
+                        out.force(false);
+                        writtenTo = out.size();
+                    }
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to write audit events: " + e.getMessage());
+            return;
+        }
+        EVENTS.add(events.size());
+        if (sequence - checkpointSequence >= CHECKPOINT_EVENTS && checkpointRunning.compareAndSet(false, true)) {
+            synchronized (writeLock) {
+                if (checkpointer == null) {
+                    checkpointer = Executors.newSingleThreadExecutor(task -> {
+                        Thread thread = new Thread(task, "assettrack-audit-checkpoint");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+            checkpointer.execute(() -> {
+                try {
+                    checkpointIfDue();
+                } finally {
+                    checkpointRunning.set(false);
+                }
+            });
+        }
+    }
+    // Writes what is pending, when nothing else will: a save's snapshot covering the queued journal, or a standalone log.
+    void commit() {
+        append(takePending());
+    }
+    int getReplayedLines() {
+        return replayed;
+    }
+
+    // The state of the asset at the given time, or null if it had no recorded state yet.
+    synchronized State stateAt(String assetId, long time) {
+        long start = QUERY.start();
+        try {
+            Timeline timeline = ensureIndexed().get(DataManager.key(assetId));
+            int at = timeline == null ? -1 : timeline.indexAt(time);
+            return at < 0 ? null : timeline.state(DataManager.key(assetId), at);
+        } finally {
+            QUERY.stop(start);
+        }
+    }
+    synchronized List<State> trail(String assetId) {
+        long start = QUERY.start();
+        try {
+            Timeline timeline = ensureIndexed().get(DataManager.key(assetId));
+            List<State> trail = new ArrayList<>(timeline == null ? 0 : timeline.size);
+            for (int i = 0; timeline != null && i < timeline.size; i++) {
+                trail.add(timeline.state(DataManager.key(assetId), i));
+            }
+            return trail;
+        } finally {
+            QUERY.stop(start);
+        }
+    }
+    // The employee's custody intervals overlapping [from, to], oldest first; from == to asks what was held at that time.
+    synchronized List<Custody> custodyOf(String employeeId, long from, long to) {
+        long start = QUERY.start();
+        try {
+            ensureIndexed();
+            List<Custody> found = new ArrayList<>();
+            for (Custody interval : custody.getOrDefault(DataManager.key(employeeId), Collections.emptyList())) {
+                if (interval.from <= to && interval.until > from) {
+                    found.add(new Custody(interval.assetId, interval.employeeId, interval.from, interval.until));
+                }
+            }
+            found.sort(Comparator.comparingLong((Custody interval) -> interval.from).thenComparing(interval -> interval.assetId));
+            return found;
+        } finally {
+            QUERY.stop(start);
+        }
+    }
+
+    // A date alone means the end of that day, so "on March 3rd" includes that day's changes.
+    static long parseTime(String text) {
+        String value = DataManager.requireText(text, "Time cannot be empty.");
+        try {
+            LocalDateTime time = value.length() == 10 ? LocalDate.parse(value).atTime(LocalTime.MAX) : LocalDateTime.parse(value, DataManager.DATE_FORMATTER);
+            return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time. Use yyyy-MM-dd or yyyy-MM-dd HH:mm:ss.");
+        }
+    }
+    static String formatTime(long millis) {
+        return DataManager.DATE_FORMATTER.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+    }
+
+    // Only the checkpoint's sequence is needed before the first query, to know when the next one is due.
+    private void open() {
+        if (opened) {
+            return;
+        }
+        opened = true;
+        try {
+            if (Files.exists(checkpointPath)) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointPath)))) {
+                    if (in.readUTF().equals(CHECKPOINT_HEADER)) {
+                        in.readLong();
+                        checkpointSequence = in.readLong();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[WARNING] Failed to read the audit log position: " + e.getMessage());
+        }
+    }
+    private static long lastLoggedSequence(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer tail = ByteBuffer.allocate((int) Math.min(size, 4096));
+        int read;
+        do {
+            read = channel.read(tail, size - tail.capacity() + tail.position());
+        } while (read > 0 && tail.hasRemaining());
+        String[] lines = new String(tail.array(), 0, tail.position(), StandardCharsets.UTF_8).split("\n");
+        for (int i = lines.length - 1; i >= (tail.capacity() < size ? 1 : 0); i--) {
+            int comma = lines[i].indexOf(',');
+            try {
+                return Long.parseLong(lines[i].substring(0, Math.max(comma, 0)));
+            } catch (NumberFormatException e) {
+                // a torn or corrupted line; try the one before
+            }
+        }
+        return 0;
+    }
+    // Built under this log's lock on the first query. Events are recorded and written meanwhile, under their own locks.
+    private Map<String, Timeline> ensureIndexed() {
+        open();
+        try {
+            if (indexed) {
+                REPLAYED.add(replay(indexedTo));
+                return timelines;
+            }
+            replayed = replay(readCheckpoint());
+            REPLAYED.add(replayed);
+        } catch (IOException e) {
+            indexed = false;
+            timelines.clear();
+            custody.clear();
+            throw new UncheckedIOException("Failed to read the audit log: " + e.getMessage(), e);
+        }
+        indexed = true;
+        if (replayed >= CHECKPOINT_EVENTS) {
+            writeCheckpoint();
+        }
+        return timelines;
+    }
+    // The log offset the checkpoint covers, or 0 when there is no usable checkpoint and the whole log must be replayed.
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointPath)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointPath), 1 << 16))) {
+            if (!in.readUTF().equals(CHECKPOINT_HEADER)) {
+                throw new IOException("Unknown checkpoint format.");
+            }
+            long offset = in.readLong();
+            in.readLong();
+            if (offset > (Files.exists(logPath) ? Files.size(logPath) : 0)) {
+                throw new IOException("The checkpoint is newer than the log.");
+            }
+            String[] statuses = new String[in.readInt()];
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] = in.readUTF();
+            }
+            for (int assets = in.readInt(); assets > 0; assets--) {
+                String assetId = in.readUTF();
+                for (int events = in.readInt(); events > 0; events--) {
+                    long time = in.readLong();
+                    String status = statuses[in.readUnsignedByte()];
+                    String holder = in.readUTF();
+                    index(time, assetId, status, holder.isEmpty() ? null : holder);
+                }
+            }
+            return offset;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[WARNING] Ignoring the audit checkpoint, replaying the whole log: " + e.getMessage());
+            timelines.clear();
+            custody.clear();
+            return 0;
+        }
+    }
+    // Indexes the complete lines from offset on; a line still being written by another process is left for next time.
+    // The log is only ever appended to, so the channel opened for the first replay is kept for the later ones.
+    private int replay(long offset) throws IOException {
+        indexedTo = offset;
+        if (log == null) {
+            if (!Files.exists(logPath)) {
+                return 0;
+            }
+            log = FileChannel.open(logPath, StandardOpenOption.READ);
+        }
+        if (log.size() <= offset) {
+            return 0;
+        }
+        int lines = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long position = offset;
+        while (log.read(buffer, position) > 0) {
+            buffer.flip();
+            position += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                indexedTo = position - buffer.remaining();
+                String text = new String(line.toByteArray(), StandardCharsets.UTF_8);
+                line.reset();
+                if (text.isEmpty()) {
+                    continue;
+                }
+                try {
+                    indexLine(text);
+                    lines++;
+                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                    System.err.println("[WARNING] Skipping corrupted audit entry: " + text + " (" + e.getMessage() + ")");
+                }
+            }
+            buffer.clear();
+        }
+        return lines;
+    }
+    private void indexLine(String line) {
+        String[] fields = line.split(",", 5);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Expected 5 fields.");
+        }
+        index(Long.parseLong(fields[1]), fields[2], fields[3], fields[4].isEmpty() ? null : fields[4]);
+    }
+    // Repeated states (a journaled change that moved neither status nor holder) are dropped, and a clock that went back
+    // cannot put an asset's events out of order.
+    private void index(long time, String assetId, String status, String holder) {
+        Timeline timeline = timelines.computeIfAbsent(assetId, k -> new Timeline());
+        byte code = STATUSES.encode(status);
+        int last = timeline.size - 1;
+        String previous = last < 0 ? null : timeline.holders[last];
+        if (last >= 0) {
+            if (timeline.statuses[last] == code && Objects.equals(previous, holder)) {
+                return;
+            }
+            time = Math.max(time, timeline.times[last]);
+        }
+        holder = StringPool.shared(holder);
+        timeline.add(time, code, holder);
+        if (!Objects.equals(previous, holder)) {
+            if (timeline.held != null) {
+                timeline.held.until = time;
+                timeline.held = null;
+            }
+            if (holder != null) {
+                timeline.held = new Custody(assetId, holder, time, Long.MAX_VALUE);
+                custody.computeIfAbsent(holder, k -> new ArrayList<>()).add(timeline.held);
+            }
+        }
+    }
+    private void checkpointIfDue() {
+        synchronized (this) {
+            if (sequence - checkpointSequence < CHECKPOINT_EVENTS) {
+                return;
+            }
+            try {
+                ensureIndexed();
+                if (sequence - checkpointSequence >= CHECKPOINT_EVENTS) {
+                    writeCheckpoint();
+                }
+            } catch (UncheckedIOException e) {
+                System.err.println("[ERROR] Failed to write the audit checkpoint: " + e.getMessage());
+            }
+        }
+    }
+    // Runs right after ensureIndexed, so the index covers the log up to indexedTo, the offset the checkpoint records.
+    private void writeCheckpoint() {
+        long start = CHECKPOINT.start();
+        try {
+            long offset = indexedTo;
+            DataManager.writeAtomically(checkpointPath, raw -> {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(raw, 1 << 16));
+                out.writeUTF(CHECKPOINT_HEADER);
+                out.writeLong(offset);
+                out.writeLong(sequence);
+                out.writeInt(STATUSES.size());
+                for (int i = 0; i < STATUSES.size(); i++) {
+                    out.writeUTF(STATUSES.decode((byte) i));
+                }
+                out.writeInt(timelines.size());
+                for (Map.Entry<String, Timeline> entry : timelines.entrySet()) {
+                    Timeline timeline = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(timeline.size);
+                    for (int i = 0; i < timeline.size; i++) {
+                        out.writeLong(timeline.times[i]);
+                        out.writeByte(timeline.statuses[i]);
+                        out.writeUTF(timeline.holders[i] == null ? "" : timeline.holders[i]);
+                    }
+                }
+                out.flush();
+            });
+            checkpointSequence = sequence;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to write the audit checkpoint: " + e.getMessage());
+        } finally {
+            CHECKPOINT.stop(start);
+        }
+    }
+}
+
+// Process-wide counters, gauges and latency histograms. Updates are lock-free (LongAdder, one AtomicLongArray bucket
+// per power of two of nanoseconds), so hot paths can record from any thread. With -Dassettrack.metrics=false every
+// recording call is a test of a static final flag that the JIT folds away. The report is shown by the Statistics menu
+// and, when the app runs, rewritten to data/metrics.txt every -Dassettrack.metricsIntervalMs (default 60000).
+class Metrics {
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("assettrack.metrics"));
+    static final long REPORT_INTERVAL_MS = Long.getLong("assettrack.metricsIntervalMs", 60_000);
+    private static final Map<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, Supplier<Long>> GAUGES = new ConcurrentSkipListMap<>();
+    private static final Map<String, Timer> TIMERS = new ConcurrentSkipListMap<>();
+    private static final LocalDateTime STARTED = LocalDateTime.now();
+
+    static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, k -> new Counter());
+    }
+    static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, k -> new Timer());
+    }
+    // Gauges are read when the report is made; registering a name again replaces the previous source.
+    static void gauge(String name, Supplier<Long> value) {
+        GAUGES.put(name, value);
+    }
+
+    static final class Counter {
+        private final LongAdder value = new LongAdder();
+        void increment() {
+            if (ENABLED) {
+                value.increment();
+            }
+        }
+        void add(long delta) {
+            if (ENABLED) {
+                value.add(delta);
+            }
+        }
+        long get() { return value.sum(); }
+    }
+
+    static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        long start() {
+            return ENABLED ? System.nanoTime() : 0;
+        }
+        void stop(long start) {
+            if (ENABLED) {
+                record(System.nanoTime() - start);
+            }
+        }
+        // Times the action; an exception (a rejected mutation, say) is counted as failed and rethrown.
+        <T> T time(Supplier<T> action) {
+            if (!ENABLED) {
+                return action.get();
+            }
+            long start = System.nanoTime();
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                failed.increment();
+                throw e;
+            } finally {
+                record(System.nanoTime() - start);
+            }
+        }
+        long count() { return count.sum(); }
+        long totalNanos() { return totalNanos.sum(); }
+        // Bucket i holds durations in [2^(i-1), 2^i) ns.
+        void record(long nanos) {
+            nanos = Math.max(0, nanos);
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            buckets.incrementAndGet(Math.min(63, 64 - Long.numberOfLeadingZeros(nanos)));
+        }
+        // The upper bound of the bucket holding the given fraction of samples.
+        long percentile(long total, double fraction) {
+            long seen = 0;
+            for (int i = 0; i < 64; i++) {
+                seen += buckets.get(i);
+                if (seen >= Math.ceil(total * fraction)) {
+                    return i == 0 ? 0 : 1L << Math.min(62, i);
+                }
+            }
+            return maxNanos.get();
+        }
+    }
+
+    static String report() {
+        if (!ENABLED) {
+            return "[INFO] Metrics are disabled (-Dassettrack.metrics=false).\n";
+        }
+        StringBuilder text = new StringBuilder();
+        Formatter out = new Formatter(text);
+        out.format("--- METRICS since %s (as of %s) ---%n", STARTED.format(DataManager.DATE_FORMATTER), LocalDateTime.now().format(DataManager.DATE_FORMATTER));
+        out.format("%nCounters and gauges:%n");
+        Map<String, Long> values = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> values.put(name, counter.get()));
+        GAUGES.forEach((name, gauge) -> values.put(name, gauge.get()));
+        values.forEach((name, value) -> out.format("  %-32s %,16d%n", name, value));
+        out.format("%nTimers:%n  %-32s %10s %8s %10s %10s %10s %10s %10s%n", "", "count", "failed", "mean", "p50", "p99", "max", "total");
+        TIMERS.forEach((name, timer) -> {
+            long count = timer.count.sum();
+            if (count == 0) {
+                return;
+            }
+            long total = timer.totalNanos.sum();
+            out.format("  %-32s %,10d %,8d %10s %10s %10s %10s %10s%n", name, count, timer.failed.sum(), duration(total / count),
+                "<" + duration(timer.percentile(count, 0.50)), "<" + duration(timer.percentile(count, 0.99)), duration(timer.maxNanos.get()), duration(total));
+        });
+        return text.toString();
+    }
+    static String duration(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + " ns";
+        } else if (nanos < 1_000_000) {
+            return String.format("%.1f us", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format("%.1f ms", nanos / 1e6);
+        }
+        return String.format("%.2f s", nanos / 1e9);
+    }
+    // Rewrites the report file on a daemon thread and once more at exit; each write is atomic, so readers never see
+    // half a report. The reporter returned stops both; with metrics off it does nothing.
+    static Reporter startReporter(Path file, long intervalMs) {
+        if (!ENABLED || intervalMs <= 0) {
+            return new Reporter(null, null);
+        }
+        Runnable write = () -> {
+            try {
+                DataManager.writeAtomically(file, out -> out.write(report().getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                System.err.println("[WARNING] Could not write metrics to " + file + ": " + e.getMessage());
+            }
+        };
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "assettrack-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(write, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        Thread hook = new Thread(write, "assettrack-metrics-final");
+        Runtime.getRuntime().addShutdownHook(hook);
+        return new Reporter(executor, hook);
+    }
+
+    static final class Reporter {
+        private final ScheduledExecutorService executor;
+        final Thread hook;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private Reporter(ScheduledExecutorService executor, Thread hook) {
+            this.executor = executor;
+            this.hook = hook;
+        }
+        // Lets a write under way finish, then stops the thread, drops the shutdown hook and writes the report a last
+        // time. During shutdown the hook is already running and makes that last write itself.
+        void close() {
+            if (executor == null || !closed.compareAndSet(false, true)) {
+                return;
+            }
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException shuttingDown) {
+                return;
+            }
+            hook.run();
+        }
+    }
+}
+
+// Group commit for the journal: mutations queue their entries and return at once. A daemon writer waits up to the
+// maximum delay (-Dassettrack.flushDelayMs, default 200) after the first queued entry so a burst can settle, then makes
+// everything queued durable with one write and one fsync. Compaction checkpoints run on their own daemon thread so a
+// long snapshot write never holds back journal flushes.
+class PersistenceScheduler {
+    static final long MAX_DELAY_MS = Long.getLong("assettrack.flushDelayMs", 200);
+    static final int KEPT_JOURNALS = 8;
+    private static final Metrics.Timer WRITE = Metrics.timer("journal.write");
+    private static final Metrics.Counter BYTES = Metrics.counter("journal.bytesWritten");
+    private static final Metrics.Counter ENTRIES = Metrics.counter("journal.entriesWritten");
+    private final Path journalPath;
+    private final long maxDelayMs;
+    private final Runnable checkpoint;
+    private final boolean checksummed;
+    private final StoreLock store;
+    private final Commit commit;
+    // The schedulers whose writer is running. One shutdown hook for the whole process flushes them at exit; close()
+    // takes a scheduler off the list, so one that is done with is not kept reachable until the JVM exits.
+    private static final Set<PersistenceScheduler> OPEN = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean HOOKED = new AtomicBoolean();
+    private final Object queueLock = new Object();
+    private final Object fileLock = new Object();
+    private final AtomicBoolean checkpointRunning = new AtomicBoolean();
+    private StringBuilder queued = new StringBuilder();
+    private int queuedEntries;
+    private FileOutputStream out;
+    private String outIdentity;
+    private int entriesSinceRotate;
+    private Thread writer;
+    private ExecutorService checkpointer;
+    private long writes;
+    private long absorbed;
+    private int lastBatch;
+    private int maxBatch;
+
+    PersistenceScheduler(Path journalPath, long maxDelayMs, Runnable checkpoint) {
+        this(journalPath, maxDelayMs, checkpoint, false, null, null);
+    }
+    // Checksummed, each batch is written as one block (see BlockFormat), so a write cut short by a crash is recognized
+    // as a whole and dropped on replay. With a store lock the journal is shared with other processes: every write is
+    // made under the lock, after the commit has caught up with what they appended, and the file is reopened whenever
+    // it was replaced.
+    PersistenceScheduler(Path journalPath, long maxDelayMs, Runnable checkpoint, boolean checksummed, StoreLock store, Commit commit) {
+        this.journalPath = journalPath;
+        this.maxDelayMs = maxDelayMs;
+        this.checkpoint = checkpoint;
+        this.checksummed = checksummed;
+        this.store = store;
+        this.commit = commit;
+    }
+    interface Commit {
+        // Runs under the store lock before a write. take drains the queue; the result is what gets written, or null
+        // for nothing. sync is set when the call only has to catch up, so the queue may be left for its regular write.
+        String prepare(Supplier<String> take, boolean sync) throws IOException;
+        // The journal (by StoreLock.identity) and its length after a write.
+        void written(String journal, long length);
+    }
+    static Path rotatedPath(Path journalPath) {
+        return journalPath.resolveSibling(journalPath.getFileName() + ".old");
+    }
+    // Journals a save or checkpoint made obsolete, oldest first. With a store lock they are kept under numbered names
+    // (the last KEPT_JOURNALS of them) rather than deleted, so a process sharing the directory that had not read one
+    // to the end can still learn from it what the others changed (see DataManager.catchUp).
+    static List<Path> supersededPaths(Path journalPath) throws IOException {
+        String prefix = journalPath.getFileName() + ".";
+        List<Path> found = new ArrayList<>();
+        Path dir = journalPath.toAbsolutePath().getParent();
+        if (Files.isDirectory(dir)) {
+            try (java.util.stream.Stream<Path> listed = Files.list(dir)) {
+                listed.filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(prefix) && name.length() > prefix.length() && name.substring(prefix.length()).chars().allMatch(Character::isDigit);
+                }).forEach(found::add);
+            }
+        }
+        found.sort(Comparator.comparingLong(path -> supersededNumber(journalPath, path)));
+        return found;
+    }
+    static long supersededNumber(Path journalPath, Path superseded) {
+        return Long.parseLong(superseded.getFileName().toString().substring(journalPath.getFileName().toString().length() + 1));
+    }
+    private void supersede(Path journal) throws IOException {
+        if (store == null || !Files.exists(journal)) {
+            Files.deleteIfExists(journal);
+            return;
+        }
+        List<Path> kept = supersededPaths(journalPath);
+        long next = kept.isEmpty() ? 1 : supersededNumber(journalPath, kept.get(kept.size() - 1)) + 1;
+        Files.move(journal, journalPath.resolveSibling(journalPath.getFileName() + "." + next));
+        for (int i = 0; i <= kept.size() - KEPT_JOURNALS; i++) {
+            Files.deleteIfExists(kept.get(i));
+        }
+    }
+    void append(String entry) {
+        synchronized (queueLock) {
+            if (writer == null) {
+                writer = new Thread(this::runWriter, "assettrack-journal-writer");
+                writer.setDaemon(true);
+                writer.start();
+                OPEN.add(this);
+                if (HOOKED.compareAndSet(false, true)) {
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> OPEN.forEach(PersistenceScheduler::flush), "assettrack-journal-final"));
+                }
+            }
+            queued.append(entry).append('\n');
+            if (queuedEntries++ == 0) {
+                queueLock.notifyAll();
+            }
+        }
+    }
+    // The delay is waited out on the queue lock, so close() can cut it short; the writer ends once it is no longer the
+    // scheduler's writer.
+    private void runWriter() {
+        Thread self = Thread.currentThread();
+        while (true) {
+            try {
+                synchronized (queueLock) {
+                    while (queuedEntries == 0 && writer == self) {
+                        queueLock.wait();
+                    }
+                    if (writer == self && maxDelayMs > 0) {
+                        queueLock.wait(maxDelayMs);
+                    }
+                    if (writer != self) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            flush();
+        }
+    }
+    // Writes whatever is queued and stops the writer and checkpoint threads; a later append starts them again.
+    void close() {
+        synchronized (queueLock) {
+            writer = null;
+            queueLock.notifyAll();
+        }
+        OPEN.remove(this);
+        flush();
+        synchronized (fileLock) {
+            if (checkpointer != null) {
+                checkpointer.shutdown();
+                checkpointer = null;
+            }
+            try {
+                closeJournal();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to close journal: " + e.getMessage());
+            }
+        }
+    }
+    // Writes whatever is queued in one write and one fsync. Runs on the writer thread, or on the caller for an explicit flush.
+    void flush() {
+        flush(false);
+    }
+    // Catches up with what other processes wrote to a shared journal, writing the queue too only if that needed it.
+    void sync() {
+        flush(true);
+    }
+    private void flush(boolean sync) {
+        if (idle(sync)) {
+            // The queue is only taken under fileLock, so a write that already took it is waited for here.
+            synchronized (fileLock) {
+                return;
+            }
+        }
+        try {
+            // Checked again under the store lock: if another flush took the queue meanwhile, its caller may already
+            // have returned and gone on to remove the directory, so this one must not open the lock file again.
+            StoreLock.Action action = () -> {
+                synchronized (fileLock) {
+                    write(sync);
+                }
+            };
+            if (store == null) {
+                action.run();
+            } else {
+                store.lockedUnless(() -> idle(sync), action);
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to write journal entries: " + e.getMessage());
+        }
+    }
+    private boolean idle(boolean sync) {
+        synchronized (queueLock) {
+            return queuedEntries == 0 && (!sync || commit == null);
+        }
+    }
+    private String take() {
+        synchronized (queueLock) {
+            String batch = queued.toString();
+            queued = new StringBuilder();
+            queuedEntries = 0;
+            return batch;
+        }
+    }
+    private void write(boolean sync) throws IOException {
+        String batch = commit == null ? take() : commit.prepare(this::take, sync);
+        int entries = 0;
+        for (int i = batch == null ? -1 : batch.indexOf('\n'); i >= 0; i = batch.indexOf('\n', i + 1)) {
+            entries++;
+        }
+        if (entries == 0) {
+            return;
+        }
+        if (out == null) {
+            Files.createDirectories(journalPath.getParent());
+            out = new FileOutputStream(journalPath.toFile(), true);
+            outIdentity = store == null ? null : StoreLock.identity(journalPath);
+        }
+        long start = WRITE.start();
+        byte[] bytes = batch.getBytes(StandardCharsets.UTF_8);
+        if (checksummed) {
+            bytes = BlockFormat.frame(bytes);
+        }
+        out.write(bytes);
+        out.getChannel().force(false);
+        WRITE.stop(start);
+        BYTES.add(bytes.length);
+        ENTRIES.add(entries);
+        if (commit != null) {
+            commit.written(outIdentity, out.getChannel().size());
+        }
+        writes++;
+        absorbed += entries;
+        lastBatch = entries;
+        maxBatch = Math.max(maxBatch, entries);
+        entriesSinceRotate += entries;
+        if (entriesSinceRotate >= DataManager.COMPACTION_THRESHOLD && checkpointRunning.compareAndSet(false, true)) {
+            if (checkpointer == null) {
+                checkpointer = Executors.newSingleThreadExecutor(task -> {
+                    Thread thread = new Thread(task, "assettrack-checkpoint");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            checkpointer.execute(() -> {
+                try {
+                    checkpoint.run();
+                } finally {
+                    checkpointRunning.set(false);
+                }
+            });
+        }
+    }
+    // The store lock, when there is one, is always taken before fileLock.
+    private void locked(StoreLock.Action action) throws IOException {
+        if (store == null) {
+            action.run();
+        } else {
+            store.locked(action);
+        }
+    }
+    // A full snapshot covers everything queued or written so far, so both are discarded.
+    void reset() throws IOException {
+        locked(() -> {
+            synchronized (fileLock) {
+                synchronized (queueLock) {
+                    queued = new StringBuilder();
+                    queuedEntries = 0;
+                }
+                closeJournal();
+                supersede(rotatedPath(journalPath));
+                supersede(journalPath);
+                entriesSinceRotate = 0;
+            }
+        });
+    }
+    // Moves the current journal aside for a checkpoint. If an earlier checkpoint never finished, its rotated journal
+    // is still needed, so the current one is appended to it instead.
+    void rotate() {
+        try {
+            locked(() -> {
+                synchronized (fileLock) {
+                    flush();
+                    closeJournal();
+                    Path rotated = rotatedPath(journalPath);
+                    if (Files.exists(journalPath)) {
+                        if (Files.exists(rotated)) {
+                            Files.write(rotated, Files.readAllBytes(journalPath), StandardOpenOption.APPEND);
+                            Files.delete(journalPath);
+                        } else {
+                            Files.move(journalPath, rotated);
+                        }
+                    }
+                    entriesSinceRotate = 0;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to rotate journal: " + e.getMessage());
+        }
+    }
+    void dropRotated() throws IOException {
+        locked(() -> supersede(rotatedPath(journalPath)));
+    }
+    void resume(int replayedEntries) {
+        synchronized (fileLock) {
+            entriesSinceRotate = replayedEntries;
+        }
+    }
+    // For a Commit that caught up with other processes, which may have replaced the journal: the next write opens it anew.
+    void reopenJournal() throws IOException {
+        synchronized (fileLock) {
+            closeJournal();
+        }
+    }
+    private void closeJournal() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+    String describe() {
+        synchronized (fileLock) {
+            return String.format("%,d journal write(s) absorbed %,d mutation(s) (%.1f per write, last %d, max %d)",
+                writes, absorbed, writes == 0 ? 0.0 : absorbed / (double) writes, lastBatch, maxBatch);
+        }
+    }
+}
+
+// Coordinates the processes sharing a data directory. data/inventory.lock is locked (FileChannel.lock) around every
+// journal write, save, checkpoint and load, and holds the store generation, which each save and checkpoint advances
+// once its segments are in place. A process that has read everything up to a generation and a journal length knows
+// from those two whether anyone wrote since, without reading further. The JVM holds file locks for the process as a
+// whole, so there is one StoreLock per directory, reentrant, that takes the file lock on its outermost acquisition.
+class StoreLock {
+    private static final Map<Path, StoreLock> LOCKS = new ConcurrentHashMap<>();
+    private static final Metrics.Timer WAIT = Metrics.timer("store.lockWait");
+    private final Path path;
+    private final ReentrantLock holder = new ReentrantLock();
+    private FileChannel channel;
+    private String channelIdentity;
+    private FileLock lock;
+    private boolean warned;
+
+    private StoreLock(Path path) {
+        this.path = path;
+    }
+    static StoreLock of(Path path) {
+        return LOCKS.computeIfAbsent(path.toAbsolutePath().normalize(), StoreLock::new);
+    }
+    interface Action {
+        void run() throws IOException;
+    }
+    // If the lock file cannot be opened (a read-only directory, say), the action runs without it after one warning.
+    void locked(Action action) throws IOException {
+        lockedUnless(() -> false, action);
+    }
+    // Like locked, but if 'unless' holds once no other thread of this process has the lock, the action is skipped
+    // without touching the lock file.
+    void lockedUnless(BooleanSupplier unless, Action action) throws IOException {
+        long start = WAIT.start();
+        holder.lock();
+        try {
+            if (unless.getAsBoolean()) {
+                return;
+            }
+            if (holder.getHoldCount() == 1) {
+                acquire();
+            }
+            WAIT.stop(start);
+            action.run();
+        } finally {
+            if (holder.getHoldCount() == 1) {
+                release();
+            }
+            holder.unlock();
+        }
+    }
+    // The channel stays open between acquisitions, as closing a channel drops every lock the process holds on the
+    // file; it is only reopened if the lock file was deleted or replaced (the data directory recreated, say).
+    private void acquire() {
+        try {
+            if (channel != null && !channelIdentity.equals(identity(path))) {
+                channel.close();
+                channel = null;
+            }
+            if (channel == null) {
+                Files.createDirectories(path.getParent());
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channelIdentity = identity(path);
+            }
+            lock = channel.lock();
+        } catch (IOException e) {
+            if (!warned) {
+                warned = true;
+                System.err.println("[WARNING] Failed to lock " + path + " (" + e.getMessage() + "); changes by other processes sharing this data may be lost.");
+            }
+        }
+    }
+    private void release() {
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+        } catch (IOException e) {
+            System.err.println("[WARNING] Failed to release " + path + ": " + e.getMessage());
+        }
+        lock = null;
+    }
+    // Both under the lock. Without a lock file the generation is always 0.
+    long generation() throws IOException {
+        if (lock == null) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+            // a short read; continue where it stopped
+        }
+        return buffer.hasRemaining() ? 0 : buffer.getLong(0);
+    }
+    long advance() throws IOException {
+        long next = generation() + 1;
+        if (lock != null) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, next), 0);
+        }
+        return next;
+    }
+    // Which file a path currently names, or null if none: the file key (device and inode) where the platform has one,
+    // else the creation time. A file replaced by a rename or recreated after a delete gets a new identity.
+    static String identity(Path file) throws IOException {
+        BasicFileAttributes attributes = attributes(file);
+        return attributes == null ? null : identity(attributes);
+    }
+    // The identity and the length, or null if there is no such file.
+    static String identityAndSize(Path file) throws IOException {
+        BasicFileAttributes attributes = attributes(file);
+        return attributes == null ? null : identity(attributes) + "/" + attributes.size();
+    }
+    // The identity plus the size and modification time, which also tell a file rewritten in place apart.
+    static String version(Path file) throws IOException {
+        BasicFileAttributes attributes = attributes(file);
+        return attributes == null ? null : identity(attributes) + "/" + attributes.size() + "/" + attributes.lastModifiedTime().toMillis();
+    }
+    private static String identity(BasicFileAttributes attributes) {
+        return attributes.fileKey() != null ? attributes.fileKey().toString() : attributes.creationTime().toString();
+    }
+    private static BasicFileAttributes attributes(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+}
+
+class AssetManager {
+    static final String[] STATUSES = {"Assigned", "Unassigned", "In Maintenance", "Retired"};
+    private static final Metrics.Timer ADD = Metrics.timer("asset.add");
+    private static final Metrics.Timer ASSIGN = Metrics.timer("asset.assign");
+    private static final Metrics.Timer DEASSIGN = Metrics.timer("asset.deassign");
+    private static final Metrics.Timer STATUS = Metrics.timer("asset.updateStatus");
+    private static final Metrics.Timer DELETE = Metrics.timer("asset.delete");
+    private static final Metrics.Timer FIND = Metrics.timer("lookup.asset");
+    private final DataManager dataManager;
+    public AssetManager(DataManager dataManager) {
+        this.dataManager = dataManager;
+    }
+    public void addAsset(Scanner scanner) {
+        System.out.println("\n--- ADD NEW ASSET ---");
+        String id = dataManager.getValidInput(scanner, "Enter unique Asset ID (e.g., LAP-001): ",s -> !dataManager.containsAsset(s),"Asset ID already exists. Try a different one.");
+        String name = dataManager.getValidInput(scanner, "Enter Asset Name (e.g., MacBook Pro 2023): ", s -> !s.isEmpty(), "Name cannot be empty.");String category = dataManager.getValidInput(scanner, "Enter Category (e.g., IT, Furniture, Tool): ", s -> !s.isEmpty(), "Category cannot be empty.");
+        String serial = dataManager.getValidInput(scanner, "Enter Serial Number (if none, enter NONE): ", s -> !s.isEmpty(), "Serial cannot be empty.");
+        addAsset(id, name, category, serial);
+        System.out.println("\n[SUCCESS] Asset " + id + " (" + name + ") added successfully.");
+    }
+    public Asset addAsset(String id, String name, String category, String serial) {
+        String assetId = DataManager.requireText(id, "Asset ID cannot be empty.").toUpperCase();
+        if (dataManager.containsAsset(assetId)) {
+            throw new IllegalArgumentException("Asset ID " + assetId + " already exists.");
+        }
+        Asset newAsset = new Asset(assetId, DataManager.requireText(name, "Name cannot be empty."),
+            DataManager.requireText(category, "Category cannot be empty."), DataManager.requireText(serial, "Serial cannot be empty."), "Unassigned", null);
+        return ADD.time(() -> dataManager.withAssetLock(assetId, () -> {
+            if (dataManager.containsAsset(assetId)) {
+                throw new IllegalArgumentException("Asset ID " + assetId + " already exists.");
+            }
+            dataManager.addAsset(newAsset);
+            dataManager.journalAsset(newAsset);
+            return newAsset;
+        }));
+    }
+    public void viewAllAssets(Scanner scanner) {
+        if (dataManager.getAssets().isEmpty()) {
+            System.out.println("\n[INFO] No assets found in the inventory.");
+            return;
+            //
+        }
+        System.out.println("\n--- ALL ASSETS ---");
+        System.out.print("Filter (e.g. category=IT, status=Retired, department=Eng; blank for all): ");
+        Predicate<Asset> filter = InventoryReports.assetFilter(scanner.nextLine(), dataManager);
+        InventoryReports.page(scanner, "No assets match the filter.", (after, limit) -> dataManager.assetPage(after, limit, filter),
+            Asset::getAssetId, out -> {
+                out.format("%-10s | %-25s | %-15s | %-15s | %-10s%n","ID", "Name", "Category", "Status", "Assigned To");
+                out.format("---------------------------------------------------------------------------------%n");
+            }, (out, asset) -> out.format("%-10s | %-25s | %-15s | %-15s | %-10s%n",
+        asset.getAssetId(),
+        asset.getName(),
+        asset.getCategory(),
+        asset.getStatus(),
+        asset.getAssignedTo() != null ? asset.getAssignedTo() : "N/A"));
+    }
+    public void assignAsset(Scanner scanner, EmployeeManager employeeManager) {
+        System.out.println("\n--- ASSIGN ASSET ---");
+        String assetId = dataManager.getValidInput(scanner, "Enter Asset ID to assign: ", s -> !s.isEmpty(), "Asset ID cannot be empty.").toUpperCase();Asset asset = findAssetById(assetId);
+        if (asset == null) {
+            throw new IllegalArgumentException("Asset ID " + assetId + " not found.");
+        }
+        String employeeId = dataManager.getValidInput(scanner, "Enter Employee ID to assign asset to: ", s -> !s.isEmpty(), "Employee ID cannot be empty.").toUpperCase();
+        assignAsset(assetId, employeeId, employeeManager);
+        System.out.println("\n[SUCCESS] Asset " + assetId + " assigned to Employee " + employeeId + ".");
+    }
+    // Holds both the asset and the employee lock, so a concurrent retire or employee delete cannot slip in between the checks.
+    public Asset assignAsset(String assetId, String employeeId, EmployeeManager employeeManager) {
+        String id = DataManager.requireText(assetId, "Asset ID cannot be empty.").toUpperCase();
+        String assignee = DataManager.requireText(employeeId, "Employee ID cannot be empty.").toUpperCase();
+        return ASSIGN.time(() -> dataManager.withAssetAndEmployeeLock(id, assignee, () -> {
+            Asset asset = requireAsset(id);
+            if (employeeManager.findEmployeeById(assignee) == null) {
+                throw new IllegalArgumentException("Employee ID " + assignee + " not found. Cannot assign asset.");
+            }
+            if (asset.getStatus().equals("Retired")) {
+                throw new IllegalArgumentException("Asset is Retired and cannot be reassigned.");
+            }
+            dataManager.setAssignee(asset, assignee);
+            asset.setStatus("Assigned");
+            dataManager.journalAsset(asset);
+            return asset;
+        }));
+    }
+    public void deassignAsset(Scanner scanner) {
+        System.out.println("\n--- DE-ASSIGN ASSET ---");
+        String assetId = dataManager.getValidInput(scanner, "Enter Asset ID to de-assign: ", s -> !s.isEmpty(), "Asset ID cannot be empty.").toUpperCase();
+        deassignAsset(assetId);
+        System.out.println("\n[SUCCESS] Asset " + assetId + " de-assigned and status set to Unassigned.");
+    }
+    public Asset deassignAsset(String assetId) {
+        String id = DataManager.requireText(assetId, "Asset ID cannot be empty.").toUpperCase();
+        return DEASSIGN.time(() -> dataManager.withAssetLock(id, () -> {
+            Asset asset = requireAsset(id);
+            if (asset.getAssignedTo() == null) {
+                throw new IllegalArgumentException("Asset " + asset.getAssetId() + " is already Unassigned.");
+            }
+            dataManager.setAssignee(asset, null);
+            asset.setStatus("Unassigned");
+            dataManager.journalAsset(asset);
+            return asset;
+        }));
+    }
+    public void updateAssetStatus(Scanner scanner) {
+        System.out.println("\n--- UPDATE ASSET STATUS ---");
+        String assetId = dataManager.getValidInput(scanner, "Enter Asset ID to update: ", s -> !s.isEmpty(), "Asset ID cannot be empty.").toUpperCase();
+        Asset asset = findAssetById(assetId);
+        if (asset == null) {
+            throw new IllegalArgumentException("Asset ID " + assetId + " not found.");
+        }
+        System.out.println("Current Status: " + asset.getStatus());
+        String newStatus = dataManager.getValidInput(scanner, "Enter NEW Status (e.g., In Maintenance, Retired, Unassigned): ",
+        s -> canonicalStatus(s) != null,"Invalid status. Must be one of: Assigned, Unassigned, In Maintenance, Retired.");
+        updateAssetStatus(assetId, newStatus);
+        System.out.println("\n[SUCCESS] Asset " + assetId + " status updated to " + asset.getStatus() + ".");
+    }
+    public Asset updateAssetStatus(String assetId, String newStatus) {
+        String id = DataManager.requireText(assetId, "Asset ID cannot be empty.").toUpperCase();
+        String status = canonicalStatus(DataManager.requireText(newStatus, "Status cannot be empty."));
+        if (status == null) {
+            throw new IllegalArgumentException("Invalid status. Must be one of: Assigned, Unassigned, In Maintenance, Retired.");
+        }
+        return STATUS.time(() -> dataManager.withAssetLock(id, () -> {
+            Asset asset = requireAsset(id);
+            if (status.equalsIgnoreCase("UNASSIGNED")) {
+                dataManager.setAssignee(asset, null);
+            } else if (status.equalsIgnoreCase("ASSIGNED") && asset.getAssignedTo() == null) {
+                throw new IllegalArgumentException("Cannot set status to Assigned without assigning an employee first (use the Assign option).");
+            }
+            asset.setStatus(status);
+            dataManager.journalAsset(asset);
+            return asset;
+        }));
+    }
+    // The status as spelled everywhere else ("in maintenance" becomes "In Maintenance"), or null if it is not one.
+    static String canonicalStatus(String status) {
+        for (String valid : STATUSES) {
+            if (valid.equalsIgnoreCase(status)) {
+                return valid;
+            }
+        }
+        return null;
+    }
+    public void deleteAsset(Scanner scanner) {
+        System.out.println("\n--- DELETE ASSET ---");
+        String assetId = dataManager.getValidInput(scanner, "Enter Asset ID to DELETE: ", s -> !s.isEmpty(), "Asset ID cannot be empty.").toUpperCase();
+        deleteAsset(assetId);
+        System.out.println("\n[SUCCESS] Asset " + assetId + " and all associated maintenance records deleted successfully.");
+    }
+    public Asset deleteAsset(String assetId) {
+        String id = DataManager.requireText(assetId, "Asset ID cannot be empty.").toUpperCase();
+        return DELETE.time(() -> dataManager.withAssetLock(id, () -> {
+            Asset assetToRemove = requireAsset(id);
+            dataManager.removeMaintenanceHistory(assetToRemove.getAssetId());
+            dataManager.removeAsset(assetToRemove.getAssetId());
+            dataManager.journalAssetDeleted(assetToRemove.getAssetId());
+            return assetToRemove;
+        }));
+    }
+    // Works for deleted assets too: the audit log keeps their history.
+    public void viewAuditTrail(Scanner scanner) {
+        System.out.println("\n--- ASSET AUDIT TRAIL ---");
+        String assetId = dataManager.getValidInput(scanner, "Enter Asset ID: ", s -> !s.isEmpty(), "Asset ID cannot be empty.").toUpperCase();
+        System.out.print("State at (yyyy-MM-dd or yyyy-MM-dd HH:mm:ss; blank for the full trail): ");
+        String at = scanner.nextLine().trim();
+        if (!at.isEmpty()) {
+            AuditLog.State state = dataManager.getAuditLog().stateAt(assetId, AuditLog.parseTime(at));
+            if (state == null) {
+                System.out.println("\n[INFO] No recorded state for asset " + assetId + " at " + at + ".");
+            } else {
+                System.out.println("\nAsset " + assetId + " at " + at + ": " + state.status + (state.holder != null ? ", held by " + state.holder : "")
+                    + " (since " + AuditLog.formatTime(state.since) + ")");
+            }
+            return;
+        }
+        List<AuditLog.State> trail = dataManager.getAuditLog().trail(assetId);
+        System.out.println("\nAudit Trail for Asset: " + assetId);
+        if (trail.isEmpty()) {
+            System.out.println("[INFO] No recorded changes for this asset.");
+            return;
+        }
+        System.out.printf("%-20s | %-15s | %-10s%n", "Since", "Status", "Held By");
+        System.out.println("---------------------------------------------------");
+        trail.forEach(state -> System.out.printf("%-20s | %-15s | %-10s%n", AuditLog.formatTime(state.since), state.status,
+            state.holder != null ? state.holder : "N/A"));
+    }
+    public Asset findAssetById(String id) {
+        long start = FIND.start();
+        Asset asset = dataManager.findAsset(id);
+        FIND.stop(start);
+        return asset;
+    }
+    private Asset requireAsset(String assetId) {
+        assetId = DataManager.requireText(assetId, "Asset ID cannot be empty.").toUpperCase();
+        Asset asset = findAssetById(assetId);
+        if (asset == null) {
+            throw new IllegalArgumentException("Asset ID " + assetId + " not found.");
+        }
+        return asset;
+    }
+}
+
+class EmployeeManager {
+    private static final Metrics.Timer ADD = Metrics.timer("employee.add");
+    private static final Metrics.Timer DELETE = Metrics.timer("employee.delete");
+    private static final Metrics.Timer FIND = Metrics.timer("lookup.employee");
+    private final DataManager dataManager;
+    public EmployeeManager(DataManager dataManager) {
+        this.dataManager = dataManager;
+    }
+    public void addEmployee(Scanner scanner) {
+        System.out.println("\n--- ADD NEW EMPLOYEE ---");
+        String id = dataManager.getValidInput(scanner, "Enter unique Employee ID (e.g., EMP-101): ",
+        s -> !dataManager.containsEmployee(s),"Employee ID already exists. Try a different one.");
+        String name = dataManager.getValidInput(scanner, "Enter Employee Name: ", s -> !s.isEmpty(), "Name cannot be empty.");
+        String dept = dataManager.getValidInput(scanner, "Enter Department: ", s -> !s.isEmpty(), "Department cannot be empty.");
+         String email = dataManager.getValidInput(scanner, "Enter Email: ",
+         EmployeeManager::isEmail,"Invalid email format.");
+        addEmployee(id, name, dept, email);
+        System.out.println("\n[SUCCESS] Employee " + id + " (" + name + ") added successfully.");
+    }
+    // Something@something.something, on one line: what the old ".*@.*\\..*" pattern accepted, without a Matcher per call.
+    static boolean isEmail(String value) {
+        int at = value.indexOf('@');
+        if (at < 0 || value.indexOf('.', at + 1) < 0) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+    public Employee addEmployee(String id, String name, String dept, String email) {
+        String employeeId = DataManager.requireText(id, "Employee ID cannot be empty.").toUpperCase();
+        if (dataManager.containsEmployee(employeeId)) {
+            throw new IllegalArgumentException("Employee ID " + employeeId + " already exists.");
+        }
+        email = DataManager.requireText(email, "Email cannot be empty.");
+        if (!isEmail(email)) {
+            throw new IllegalArgumentException("Invalid email format.");
+        }
+        Employee newEmployee = new Employee(employeeId, DataManager.requireText(name, "Name cannot be empty."),
+            DataManager.requireText(dept, "Department cannot be empty."), email);
+        return ADD.time(() -> dataManager.withEmployeeLock(employeeId, () -> {
+            if (dataManager.containsEmployee(employeeId)) {
+                throw new IllegalArgumentException("Employee ID " + employeeId + " already exists.");
+            }
+            dataManager.addEmployee(newEmployee);
+            dataManager.journalEmployee(newEmployee);
+            return newEmployee;
+        }));
+    }
+    public void viewAllEmployees(Scanner scanner) {
+        if (dataManager.getEmployees().isEmpty()) {
+            System.out.println("\n[INFO] No employees found in the system.");
+            return;
+        }
+    System.out.println("\n--- ALL EMPLOYEES ---");
+    System.out.print("Filter (e.g. department=Eng; blank for all): ");
+    Predicate<Employee> filter = InventoryReports.employeeFilter(scanner.nextLine());
+    InventoryReports.page(scanner, "No employees match the filter.", (after, limit) -> dataManager.employeePage(after, limit, filter),
+        Employee::getEmployeeId, out -> {
+            out.format("%-10s | %-20s | %-15s | %-30s%n", "ID", "Name", "Department", "Email");
+            out.format("----------------------------------------------------------------------%n");
+        }, (out, employee) -> out.format("%-10s | %-20s | %-15s | %-30s%n",employee.getEmployeeId(),employee.getName(),employee.getDepartment(),employee.getEmail()));
+}
+
+public void viewEmployeeAssets(Scanner scanner, AssetManager assetManager) {
+    System.out.println("\n--- EMPLOYEE ASSET REPORT ---");
+    String employeeId = dataManager.getValidInput(scanner, "Enter Employee ID for report: ", s -> !s.isEmpty(), "Employee ID cannot be empty.").toUpperCase();
+    if (findEmployeeById(employeeId) == null) {
+        throw new IllegalArgumentException("Employee ID " + employeeId + " not found.");
+    }
+    System.out.print(dataManager.getEmployeeReports().get(DataManager.key(employeeId), () -> renderEmployeeAssets(employeeId)));
+}
+// Rendered whole so the report cache can keep it; the employee is looked up again in case it changed since the check.
+String renderEmployeeAssets(String employeeId) {
+    Employee employee = findEmployeeById(employeeId);
+    if (employee == null) {
+        throw new IllegalArgumentException("Employee ID " + employeeId + " not found.");
+    }
+    Collection<Asset> assignedAssets = dataManager.getAssetsAssignedTo(employeeId);
+    Formatter out = new Formatter(new StringBuilder());
+    out.format("%nAssets assigned to %s (%s):%n", employee.getName(), employeeId);
+    if (assignedAssets.isEmpty()) {
+        out.format("[INFO] No assets currently assigned to this employee.%n");
+    } else {
+        out.format("%-10s | %-25s | %-15s%n", "Asset ID", "Name", "Category");
+        out.format("---------------------------------------------------%n");
+        assignedAssets.forEach(asset -> out.format("%-10s | %-25s | %-15s%n", asset.getAssetId(), asset.getName(), asset.getCategory()));
+    }
+    return out.toString();
+}
+
+public void viewCustodyTimeline(Scanner scanner) {
+    System.out.println("\n--- CUSTODY TIMELINE ---");
+    String employeeId = dataManager.getValidInput(scanner, "Enter Employee ID: ", s -> !s.isEmpty(), "Employee ID cannot be empty.").toUpperCase();
+    System.out.print("Held at (yyyy-MM-dd or yyyy-MM-dd HH:mm:ss; blank for the full timeline): ");
+    String at = scanner.nextLine().trim();
+    long from = at.isEmpty() ? Long.MIN_VALUE : AuditLog.parseTime(at);
+    List<AuditLog.Custody> timeline = dataManager.getAuditLog().custodyOf(employeeId, from, at.isEmpty() ? Long.MAX_VALUE : from);
+    System.out.println("\nCustody of Employee " + employeeId + (at.isEmpty() ? "" : " at " + at) + ":");
+    if (timeline.isEmpty()) {
+        System.out.println("[INFO] No assets held.");
+        return;
+    }
+    System.out.printf("%-10s | %-20s | %-20s%n", "Asset ID", "From", "Until");
+    System.out.println("------------------------------------------------------");
+    timeline.forEach(custody -> System.out.printf("%-10s | %-20s | %-20s%n", custody.assetId, AuditLog.formatTime(custody.from),
+        custody.until == Long.MAX_VALUE ? "(still held)" : AuditLog.formatTime(custody.until)));
+}
+
+public void deleteEmployee(Scanner scanner, AssetManager assetManager) {
+    System.out.println("\n--- DELETE EMPLOYEE ---");
+    String employeeId = dataManager.getValidInput(scanner, "Enter Employee ID to DELETE: ", s -> !s.isEmpty(), "Employee ID cannot be empty.").toUpperCase();
+    deleteEmployee(employeeId);
+    System.out.println("\n[SUCCESS] Employee " + employeeId + " deleted successfully.");
+}
+// Assignment holds this employee's lock too, so the assigned-assets check cannot race a concurrent assign.
+public Employee deleteEmployee(String employeeId) {
+    String id = DataManager.requireText(employeeId, "Employee ID cannot be empty.").toUpperCase();
+    return DELETE.time(() -> dataManager.withEmployeeLock(id, () -> {
+        Employee employeeToRemove = findEmployeeById(id);
+        if (employeeToRemove == null) {
+            throw new IllegalArgumentException("Employee ID " + id + " not found.");
+        }
+        int assignedCount = dataManager.getAssetsAssignedTo(id).size();
+        if (assignedCount > 0) {
+            throw new IllegalArgumentException("Cannot delete Employee " + id + ". They are still assigned " + assignedCount + " asset(s). De-assign all assets first.");
+        }
+        dataManager.removeEmployee(employeeToRemove.getEmployeeId());
+        dataManager.journalEmployeeDeleted(employeeToRemove);
+        return employeeToRemove;
+    }));
+}
+
+public Employee findEmployeeById(String id) {
+    long start = FIND.start();
+    Employee employee = dataManager.findEmployee(id);
+    FIND.stop(start);
+    return employee;
+}
+}
+
+class MaintenanceManager {
+    private static final Metrics.Timer RECORD = Metrics.timer("maintenance.record");
+    private static final Metrics.Timer ANALYTICS = Metrics.timer("report.costAnalytics");
+    private final DataManager dataManager;
+    public MaintenanceManager(DataManager dataManager) {
+        this.dataManager = dataManager;
+    }
+    public void recordMaintenance(Scanner scanner, AssetManager assetManager) {
+        System.out.println("\n--- RECORD MAINTENANCE ---");
+        String assetId = dataManager.getValidInput(scanner, "Enter Asset ID for maintenance record: ", s -> !s.isEmpty(), "Asset ID cannot be empty.").toUpperCase();
+        Asset asset = assetManager.findAssetById(assetId);
+        if (asset == null) {
+            throw new IllegalArgumentException("Asset ID " + assetId + " not found.");
+        }
+        String description = dataManager.getValidInput(scanner, "Enter description of maintenance work: ", s -> !s.isEmpty(), "Description cannot be empty.");
+        double cost = 0.0;
+        while (true) {
+            String costStr = dataManager.getValidInput(scanner, "Enter cost of maintenance (e.g., 50.75): ", s -> !s.isEmpty(), "Cost cannot be empty.");
+            try {
+                cost = Double.parseDouble(costStr);
+                if (cost < 0) {
+                    throw new NumberFormatException();
+                }
+                break;
+            } catch (NumberFormatException e) {
+                System.out.println("[VALIDATION ERROR] Please enter a valid non-negative number for the cost.");
+            }
+        }
+        if (!asset.getStatus().equalsIgnoreCase("In Maintenance")) {
+            System.out.println("[INFO] Setting Asset Status to 'In Maintenance'.");
+        }
+        recordMaintenance(assetId, description, cost, LocalDateTime.now(), assetManager);
+        System.out.println("\n[SUCCESS] Maintenance record added for Asset " + assetId + ". Current Status: " + asset.getStatus());
+    }
+    public MaintenanceRecord recordMaintenance(String assetId, String description, double cost, LocalDateTime date, AssetManager assetManager) {
+        String id = DataManager.requireText(assetId, "Asset ID cannot be empty.").toUpperCase();
+        if (assetManager.findAssetById(id) == null) {
+            throw new IllegalArgumentException("Asset ID " + id + " not found.");
+        }
+        if (cost < 0 || !Double.isFinite(cost)) {
+            throw new IllegalArgumentException("Cost must be a valid non-negative number.");
+        }
+        MaintenanceRecord newRecord = new MaintenanceRecord(id, date, DataManager.requireText(description, "Description cannot be empty."), cost);
+        return RECORD.time(() -> dataManager.withAssetLock(id, () -> {
+            Asset asset = assetManager.findAssetById(id);
+            if (asset == null) {
+                throw new IllegalArgumentException("Asset ID " + id + " not found.");
+            }
+            dataManager.addMaintenanceRecord(newRecord);
+            if (!asset.getStatus().equalsIgnoreCase("In Maintenance")) {
+                asset.setStatus("In Maintenance");
+            }
+            dataManager.journalMaintenanceRecord(newRecord);
+            dataManager.journalAsset(asset);
+            return newRecord;
+        }));
+    }
+    public void viewAssetHistory(Scanner scanner) {
+        System.out.println("\n--- ASSET MAINTENANCE HISTORY REPORT ---");
+        String assetId = dataManager.getValidInput(scanner, "Enter Asset ID to view history: ", s -> !s.isEmpty(), "Asset ID cannot be empty.").toUpperCase();
+        System.out.print(dataManager.getHistoryReports().get(DataManager.key(assetId), () -> renderAssetHistory(assetId)));
+    }
+    // Rendered whole, newest first, so the report cache can keep it.
+    String renderAssetHistory(String assetId) {
+        List<MaintenanceRecord> history = dataManager.getMaintenanceHistory(assetId);
+        Formatter out = new Formatter(new StringBuilder());
+        out.format("%nMaintenance History for Asset: %s%n", assetId);
+        if (history.isEmpty()) {
+            out.format("[INFO] No maintenance records found for this asset.%n");
+        } else {
+            out.format("%-20s | %-10s | %-40s%n", "Date", "Cost", "Description");
+            out.format("--------------------------------------------------------------------------------%n");
+            for (int i = history.size() - 1; i >= 0; i--) {
+                MaintenanceRecord record = history.get(i);
+                out.format("%-20s | $%-9.2f | %-40s%n",
+                record.getDateFormatted(),record.getCost(),record.getDescription());
+            }
+            // Summed from the records listed rather than taken from the aggregates, which lazy history builds only on demand.
+            MaintenanceAnalytics.Totals totals = new MaintenanceAnalytics.Totals();
+            history.forEach(record -> totals.add(MaintenanceAnalytics.toCents(record.getCost()), 1));
+            out.format("Total: $%.2f over %d record(s), average $%.2f%n", totals.total(), totals.count, totals.average());
+        }
+        return out.toString();
+    }
+    public void viewCostAnalytics(Scanner scanner) {
+        System.out.println("\n--- MAINTENANCE COST ANALYTICS ---");
+        System.out.print("Year for the top 20 ranking (blank for " + Year.now().getValue() + "): ");
+        String yearInput = scanner.nextLine().trim();
+        int year;
+        try {
+            year = yearInput.isEmpty() ? Year.now().getValue() : Integer.parseInt(yearInput);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid year: " + yearInput);
+        }
+        long start = ANALYTICS.start();
+        MaintenanceAnalytics analytics = dataManager.getAnalytics();
+        StringBuilder buffer = new StringBuilder();
+        Formatter out = new Formatter(buffer);
+        printTotals(out, "Category", analytics.byCategory());
+        printTotals(out, "Department", analytics.byDepartment());
+        YearMonth thisMonth = YearMonth.now();
+        printTotals(out, "Month", analytics.byMonth(thisMonth.minusMonths(11), thisMonth));
+        out.format("%nTop 20 Most Expensive Assets in %d:%n", year);
+        List<MaintenanceAnalytics.Ranked> top = analytics.topAssets(year, 20);
+        if (top.isEmpty()) {
+            out.format("[INFO] No maintenance records in %d.%n", year);
+        } else {
+            out.format("%-4s | %-12s | %-25s | %12s | %7s%n", "#", "Asset ID", "Name", "Total", "Records");
+            out.format("----------------------------------------------------------------------%n");
+            for (int i = 0; i < top.size(); i++) {
+                MaintenanceAnalytics.Ranked ranked = top.get(i);
+                Asset asset = dataManager.findAsset(ranked.assetId);
+                out.format("%-4d | %-12s | %-25s | $%11.2f | %7d%n", i + 1, ranked.assetId, asset == null ? "" : asset.getName(), ranked.total(), ranked.count);
+            }
+        }
+        ANALYTICS.stop(start);
+        System.out.print(buffer);
+    }
+    private static <K> void printTotals(Formatter out, String label, Map<K, MaintenanceAnalytics.Totals> totals) {
+        out.format("%nBy %s:%n", label);
+        if (totals.isEmpty()) {
+            out.format("[INFO] No maintenance records.%n");
+            return;
+        }
+        out.format("%-20s | %12s | %7s | %10s%n", label, "Total", "Records", "Average");
+        out.format("------------------------------------------------------------%n");
+        totals.forEach((key, t) -> out.format("%-20s | $%11.2f | %7d | $%9.2f%n", key, t.total(), t.count, t.average()));
+    }
+}
+
+// Maintenance cost aggregates kept current as records are added and histories removed: totals per asset, category,
+// department of the current holder, month, and asset per year, all in integer cents. The per-year ranking behind
+// topAssets is built on first use and then kept sorted, so a top-N query only reads the head of a sorted set.
+class MaintenanceAnalytics {
+    static final String UNASSIGNED = "(unassigned)";
+    static final String UNKNOWN = "(unknown)";
+    static class Totals {
+        long cents;
+        long count;
+        void add(long amount, long records) {
+            cents += amount;
+            count += records;
+        }
+        double total() { return cents / 100.0; }
+        double average() { return count == 0 ? 0.0 : cents / 100.0 / count; }
+        Totals copy() {
+            Totals copy = new Totals();
+            copy.add(cents, count);
+            return copy;
+        }
+        boolean sameAs(Totals other) { return other != null && cents == other.cents && count == other.count; }
+    }
+    // Per-asset totals also remember where they were attributed, so removals and reassignments can reverse them.
+    static final class AssetTotals extends Totals {
+        String category;
+        String department;
+    }
+    static final class Ranked {
+        final String assetId;
+        final long cents;
+        final long count;
+        Ranked(String assetId, long cents, long count) {
+            this.assetId = assetId;
+            this.cents = cents;
+            this.count = count;
+        }
+        double total() { return cents / 100.0; }
+    }
+    private static final Comparator<Ranked> MOST_EXPENSIVE = Comparator.comparingLong((Ranked r) -> -r.cents).thenComparing(r -> r.assetId);
+    private final Map<String, AssetTotals> byAsset = new HashMap<>();
+    private final Map<String, Totals> byCategory = new HashMap<>();
+    private final Map<String, Totals> byDepartment = new HashMap<>();
+    private final NavigableMap<YearMonth, Totals> byMonth = new TreeMap<>();
+    private final Map<Integer, Map<String, Totals>> byYear = new HashMap<>();
+    private final Map<Integer, NavigableSet<Ranked>> rankings = new HashMap<>();
+
+    static long toCents(double cost) {
+        return Math.round(cost * 100);
+    }
+    synchronized void recordAdded(String assetKey, MaintenanceRecord record, String category, String department) {
+        long cents = toCents(record.getCost());
+        AssetTotals asset = byAsset.computeIfAbsent(assetKey, k -> {
+            AssetTotals created = new AssetTotals();
+            created.category = category;
+            created.department = department;
+            return created;
+        });
+        asset.add(cents, 1);
+        apply(assetKey, asset.category, asset.department, record, cents, 1);
+    }
+    synchronized void historyRemoved(String assetKey, List<MaintenanceRecord> records) {
+        AssetTotals asset = byAsset.remove(assetKey);
+        if (asset == null) {
+            return;
+        }
+        for (MaintenanceRecord record : records) {
+            apply(assetKey, asset.category, asset.department, record, -toCents(record.getCost()), -1);
+        }
+    }
+    synchronized void departmentChanged(String assetKey, String department) {
+        AssetTotals asset = byAsset.get(assetKey);
+        if (asset == null || asset.department.equals(department)) {
+            return;
+        }
+        adjust(byDepartment, asset.department, -asset.cents, -asset.count);
+        adjust(byDepartment, department, asset.cents, asset.count);
+        asset.department = department;
+    }
+    synchronized void clear() {
+        byAsset.clear();
+        byCategory.clear();
+        byDepartment.clear();
+        byMonth.clear();
+        byYear.clear();
+        rankings.clear();
+    }
+    private void apply(String assetKey, String category, String department, MaintenanceRecord record, long cents, long count) {
+        adjust(byCategory, category, cents, count);
+        adjust(byDepartment, department, cents, count);
+        adjust(byMonth, YearMonth.from(record.getDate()), cents, count);
+        int year = record.getDate().getYear();
+        Map<String, Totals> yearTotals = byYear.computeIfAbsent(year, y -> new HashMap<>());
+        NavigableSet<Ranked> ranking = rankings.get(year);
+        Totals before = yearTotals.get(assetKey);
+        if (ranking != null && before != null) {
+            ranking.remove(new Ranked(assetKey, before.cents, before.count));
+        }
+        Totals after = adjust(yearTotals, assetKey, cents, count);
+        if (ranking != null && after != null) {
+            ranking.add(new Ranked(assetKey, after.cents, after.count));
+        }
+    }
+    // Entries that drop to zero records are removed, so the maps only hold keys that still have costs.
+    private static <K> Totals adjust(Map<K, Totals> totals, K key, long cents, long count) {
+        Totals entry = totals.computeIfAbsent(key, k -> new Totals());
+        entry.add(cents, count);
+        if (entry.count == 0) {
+            totals.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    synchronized List<Ranked> topAssets(int year, int limit) {
+        NavigableSet<Ranked> ranking = rankings.computeIfAbsent(year, y -> {
+            NavigableSet<Ranked> built = new TreeSet<>(MOST_EXPENSIVE);
+            byYear.getOrDefault(y, Collections.emptyMap()).forEach((id, t) -> built.add(new Ranked(id, t.cents, t.count)));
+            return built;
+        });
+        List<Ranked> top = new ArrayList<>(Math.min(limit, ranking.size()));
+        for (Ranked ranked : ranking) {
+            if (top.size() == limit) {
+                break;
+            }
+            top.add(ranked);
+        }
+        return top;
+    }
+    synchronized SortedMap<String, Totals> byCategory() { return copy(byCategory); }
+    synchronized SortedMap<String, Totals> byDepartment() { return copy(byDepartment); }
+    synchronized SortedMap<YearMonth, Totals> byMonth(YearMonth from, YearMonth to) { return copy(byMonth.subMap(from, true, to, true)); }
+    private static <K extends Comparable<K>> SortedMap<K, Totals> copy(Map<K, Totals> totals) {
+        SortedMap<K, Totals> copy = new TreeMap<>();
+        totals.forEach((key, value) -> copy.put(key, value.copy()));
+        return copy;
+    }
+
+    // Rebuilds every aggregate from the records in the store and reports where the incremental totals disagree.
+    // Needs a consistent cut, so the caller runs it under DataManager.exclusive.
+    List<String> verify(DataManager dataManager) {
+        MaintenanceAnalytics expected = new MaintenanceAnalytics();
+        for (Asset asset : dataManager.getAssets()) {
+            String department = dataManager.departmentOf(asset);
+            for (MaintenanceRecord record : dataManager.getMaintenanceHistory(asset.getAssetId())) {
+                expected.recordAdded(DataManager.key(asset.getAssetId()), record, asset.getCategory(), department);
+            }
+        }
+        List<String> mismatches = new ArrayList<>();
+        synchronized (this) {
+            compare("asset", expected.byAsset, byAsset, mismatches);
+            compare("category", expected.byCategory, byCategory, mismatches);
+            compare("department", expected.byDepartment, byDepartment, mismatches);
+            compare("month", expected.byMonth, byMonth, mismatches);
+            Set<Integer> years = new TreeSet<>(expected.byYear.keySet());
+            years.addAll(byYear.keySet());
+            for (int year : years) {
+                compare("asset in " + year, expected.byYear.getOrDefault(year, Collections.emptyMap()), byYear.getOrDefault(year, Collections.emptyMap()), mismatches);
+            }
+            rankings.forEach((year, ranking) -> {
+                if (ranking.size() != byYear.getOrDefault(year, Collections.emptyMap()).size()) {
+                    mismatches.add("ranking for " + year + " holds " + ranking.size() + " asset(s), totals hold " + byYear.getOrDefault(year, Collections.emptyMap()).size());
+                }
+            });
+        }
+        return mismatches;
+    }
+    private static <K> void compare(String label, Map<K, ? extends Totals> expected, Map<K, ? extends Totals> actual, List<String> mismatches) {
+        Set<K> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        for (K key : keys) {
+            Totals want = expected.get(key);
+            Totals have = actual.get(key);
+            if (want == null || !want.sameAs(have)) {
+                mismatches.add(label + " " + key + ": expected " + describe(want) + ", found " + describe(have));
+            }
+        }
+    }
+    private static String describe(Totals totals) {
+        return totals == null ? "none" : totals.cents + " cents over " + totals.count + " record(s)";
+    }
+}
+
+// In-memory search over assets and employees. Words from names, categories, departments and emails go into
+// inverted indexes on skip lists, so "word*" is a range scan over the sorted tokens; serial numbers have their own
+// sorted index and IDs use DataManager's. A query ANDs its terms: the smallest posting list drives, the others are
+// membership checks, and field predicates filter what is left. A query with no indexed term falls back to a
+// parallel (fork-join) scan. Updates are serialized; lookups never block.
+class SearchIndex {
+    static final int DEFAULT_LIMIT = 50;
+    private static final Metrics.Timer SEARCH = Metrics.timer("lookup.search");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private final NavigableMap<String, Set<String>> assetTokens = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Set<String>> employeeTokens = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Set<String>> serials = new ConcurrentSkipListMap<>();
+    private volatile boolean built;
+
+    boolean isBuilt() { return built; }
+    synchronized void build(Collection<Asset> assets, Collection<Employee> employees) {
+        clear();
+        assets.forEach(asset -> index(asset, true));
+        employees.forEach(employee -> index(employee, true));
+        built = true;
+    }
+    synchronized void reset() {
+        clear();
+        built = false;
+    }
+    private void clear() {
+        assetTokens.clear();
+        employeeTokens.clear();
+        serials.clear();
+    }
+    // Upserts that keep the indexed fields (status or assignee changes) leave the index untouched.
+    synchronized void assetChanged(Asset previous, Asset current) {
+        if (previous != null && current != null && previous.getName().equals(current.getName())
+                && previous.getCategory().equals(current.getCategory()) && previous.getSerialNumber().equals(current.getSerialNumber())) {
+            return;
+        }
+        if (previous != null) {
+            index(previous, false);
+        }
+        if (current != null) {
+            index(current, true);
+        }
+    }
+    synchronized void employeeChanged(Employee previous, Employee current) {
+        if (previous != null) {
+            index(previous, false);
+        }
+        if (current != null) {
+            index(current, true);
+        }
+    }
+    private void index(Asset asset, boolean add) {
+        String id = DataManager.key(asset.getAssetId());
+        for (String token : tokens(asset.getName(), asset.getCategory())) {
+            update(assetTokens, token, id, add);
+        }
+        update(serials, asset.getSerialNumber().toLowerCase(Locale.ROOT), id, add);
+    }
+    private void index(Employee employee, boolean add) {
+        String id = DataManager.key(employee.getEmployeeId());
+        for (String token : tokens(employee.getName(), employee.getDepartment(), employee.getEmail())) {
+            update(employeeTokens, token, id, add);
+        }
+    }
+    private static void update(NavigableMap<String, Set<String>> index, String token, String id, boolean add) {
+        if (add) {
+            index.computeIfAbsent(token, k -> ConcurrentHashMap.newKeySet()).add(id);
+        } else {
+            Set<String> ids = index.get(token);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                index.remove(token);
+            }
+        }
+    }
+    static Set<String> tokens(String... fields) {
+        Set<String> tokens = new HashSet<>();
+        for (String field : fields) {
+            words(field, tokens);
+        }
+        return tokens;
+    }
+    // Lowercased runs of letters and digits, in order.
+    static <C extends Collection<String>> C words(String text, C words) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    interface Postings {
+        long estimate();
+        Iterable<String> ids();
+        boolean contains(String id);
+    }
+    private static final int ESTIMATE_TOKENS = 256;
+    // One token, or every token in a prefix range. Prefix ranges are walked lazily: the estimate stops counting after
+    // ESTIMATE_TOKENS tokens (so it is a lower bound for wide prefixes like "7*"), and membership in a wide range is
+    // checked against the candidate's own words rather than set by set.
+    private static Postings tokenPostings(NavigableMap<String, Set<String>> index, String word, Function<String, Set<String>> tokensOf) {
+        if (!word.endsWith("*")) {
+            Set<String> ids = index.getOrDefault(word, Collections.emptySet());
+            return new Postings() {
+                public long estimate() { return ids.size(); }
+                public Iterable<String> ids() { return ids; }
+                public boolean contains(String id) { return ids.contains(id); }
+            };
+        }
+        String prefix = word.substring(0, word.length() - 1);
+        Collection<Set<String>> sets = index.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values();
+        long estimate = 0;
+        int tokens = 0;
+        for (Iterator<Set<String>> it = sets.iterator(); it.hasNext() && tokens < ESTIMATE_TOKENS; tokens++) {
+            estimate += it.next().size();
+        }
+        boolean narrow = tokens < ESTIMATE_TOKENS;
+        long size = estimate;
+        return new Postings() {
+            public long estimate() { return size; }
+            public Iterable<String> ids() { return () -> sets.stream().flatMap(Set::stream).iterator(); }
+            public boolean contains(String id) {
+                if (!narrow) {
+                    return tokensOf.apply(id).stream().anyMatch(token -> token.startsWith(prefix));
+                }
+                for (Set<String> ids : sets) {
+                    if (ids.contains(id)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+    private static Postings idPostings(NavigableMap<String, ?> range) {
+        long estimate = range.keySet().stream().limit(10_000).count();
+        return new Postings() {
+            public long estimate() { return estimate; }
+            public Iterable<String> ids() { return range.keySet(); }
+            public boolean contains(String id) { return range.containsKey(id); }
+        };
+    }
+
+    static final class Results {
+        final List<Asset> assets;
+        final List<Employee> employees;
+        final boolean moreAssets;
+        final boolean moreEmployees;
+        final boolean scanned;
+        Results(List<Asset> assets, boolean moreAssets, List<Employee> employees, boolean moreEmployees, boolean scanned) {
+            this.assets = assets;
+            this.moreAssets = moreAssets;
+            this.employees = employees;
+            this.moreEmployees = moreEmployees;
+            this.scanned = scanned;
+        }
+    }
+    // Bare words match indexed words ("mac*" for a prefix). field:value terms: serial and id (exact, or prefix with *)
+    // use indexes; status, category, assignee and department are exact predicates; name~text and email~text match
+    // substrings. A term that cannot apply to assets or to employees rules that side out.
+    Results search(DataManager dataManager, String query, int limit) {
+        return SEARCH.time(() -> evaluate(dataManager, query, limit));
+    }
+    private Results evaluate(DataManager dataManager, String query, int limit) {
+        List<Postings> assetPostings = new ArrayList<>();
+        List<Postings> employeePostings = new ArrayList<>();
+        List<Predicate<Asset>> assetFilters = new ArrayList<>();
+        List<Predicate<Employee>> employeeFilters = new ArrayList<>();
+        boolean assetsApply = true;
+        boolean employeesApply = true;
+        String[] terms = WHITESPACE.split(DataManager.requireText(query, "Enter at least one search term.").trim());
+        for (String term : terms) {
+            int colon = term.indexOf(':');
+            int tilde = term.indexOf('~');
+            int split = colon > 0 && (tilde < 0 || colon < tilde) ? colon : tilde;
+            if (split <= 0) {
+                boolean prefix = term.endsWith("*");
+                List<String> words = words(term, new ArrayList<>());
+                for (int i = 0; i < words.size(); i++) {
+                    String word = prefix && i == words.size() - 1 ? words.get(i) + "*" : words.get(i);
+                    assetPostings.add(tokenPostings(assetTokens, word, id -> {
+                        Asset asset = dataManager.findAsset(id);
+                        return asset == null ? Collections.emptySet() : tokens(asset.getName(), asset.getCategory());
+                    }));
+                    employeePostings.add(tokenPostings(employeeTokens, word, id -> {
+                        Employee employee = dataManager.findEmployee(id);
+                        return employee == null ? Collections.emptySet() : tokens(employee.getName(), employee.getDepartment(), employee.getEmail());
+                    }));
+                }
+                continue;
+            }
+            String field = term.substring(0, split).toLowerCase(Locale.ROOT) + term.charAt(split);
+            String value = term.substring(split + 1);
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("Missing value for '" + term + "'.");
+            }
+            String lower = value.toLowerCase(Locale.ROOT);
+            switch (field) {
+                case "serial:":
+                    assetPostings.add(tokenPostings(serials, lower, id -> {
+                        Asset asset = dataManager.findAsset(id);
+                        return asset == null ? Collections.emptySet() : Collections.singleton(asset.getSerialNumber().toLowerCase(Locale.ROOT));
+                    }));
+                    employeesApply = false;
+                    break;
+                case "id:":
+                    String id = value.endsWith("*") ? value.substring(0, value.length() - 1) : value;
+                    assetPostings.add(idPostings(value.endsWith("*") ? dataManager.assetsWithIdPrefix(id)
+                        : dataManager.assetsWithIdPrefix(id).headMap(DataManager.key(id), true)));
+                    employeePostings.add(idPostings(value.endsWith("*") ? dataManager.employeesWithIdPrefix(id)
+                        : dataManager.employeesWithIdPrefix(id).headMap(DataManager.key(id), true)));
+                    break;
+                case "status:":
+                    assetFilters.add(asset -> asset.getStatus().equalsIgnoreCase(value));
+                    employeesApply = false;
+                    break;
+                case "category:":
+                    assetFilters.add(asset -> asset.getCategory().equalsIgnoreCase(value));
+                    employeesApply = false;
+                    break;
+                case "assignee:":
+                    assetFilters.add(asset -> value.equalsIgnoreCase(asset.getAssignedTo()));
+                    employeesApply = false;
+                    break;
+                case "department:":
+                    assetFilters.add(asset -> dataManager.departmentOf(asset).equalsIgnoreCase(value));
+                    employeeFilters.add(employee -> employee.getDepartment().equalsIgnoreCase(value));
+                    break;
+                case "name~":
+                    assetFilters.add(asset -> asset.getName().toLowerCase(Locale.ROOT).contains(lower));
+                    employeeFilters.add(employee -> employee.getName().toLowerCase(Locale.ROOT).contains(lower));
+                    break;
+                case "email~":
+                    employeeFilters.add(employee -> employee.getEmail().toLowerCase(Locale.ROOT).contains(lower));
+                    assetsApply = false;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown search field '" + term.substring(0, split + 1) + "'. Use serial:, id:, status:, "
+                        + "category:, assignee:, department:, name~ or email~.");
+            }
+        }
+        List<Asset> assets = assetsApply ? evaluate(assetPostings, assetFilters, dataManager::findAsset, dataManager.getAssets(), limit) : new ArrayList<>();
+        List<Employee> employees = employeesApply ? evaluate(employeePostings, employeeFilters, dataManager::findEmployee, dataManager.getEmployees(), limit) : new ArrayList<>();
+        boolean moreAssets = assets.size() > limit;
+        boolean moreEmployees = employees.size() > limit;
+        assets = assets.subList(0, Math.min(limit, assets.size()));
+        employees = employees.subList(0, Math.min(limit, employees.size()));
+        assets.sort(Comparator.comparing(Asset::getAssetId));
+        employees.sort(Comparator.comparing(Employee::getEmployeeId));
+        boolean scanned = (assetsApply && assetPostings.isEmpty()) || (employeesApply && employeePostings.isEmpty());
+        return new Results(assets, moreAssets, employees, moreEmployees, scanned);
+    }
+    // Returns up to limit + 1 matches so the caller can tell whether there were more.
+    private static <T> List<T> evaluate(List<Postings> postings, List<Predicate<T>> filters, Function<String, T> lookup, Collection<T> all, int limit) {
+        Predicate<T> filter = filters.stream().reduce(item -> true, Predicate::and);
+        if (postings.isEmpty()) {
+            return all.parallelStream().unordered().filter(filter).limit(limit + 1L).collect(Collectors.toCollection(ArrayList::new));
+        }
+        postings.sort(Comparator.comparingLong(Postings::estimate));
+        List<Postings> others = postings.subList(1, postings.size());
+        if (postings.get(0).estimate() == 0) {
+            return new ArrayList<>();
+        }
+        Set<String> seen = new HashSet<>();
+        List<T> found = new ArrayList<>();
+        candidates:
+        for (String id : postings.get(0).ids()) {
+            if (!seen.add(id)) {
+                continue;
+            }
+            for (Postings other : others) {
+                if (!other.contains(id)) {
+                    continue candidates;
+                }
+            }
+            T item = lookup.apply(id);
+            if (item != null && filter.test(item)) {
+                found.add(item);
+                if (found.size() > limit) {
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+}
+
+// Report screens and exports over DataManager's ID-ordered keyset pages. A screen page is formatted into a buffer
+// and printed in one write; exports stream page by page into a temp file that is renamed into place, so memory stays
+// bounded by one page whatever the inventory size.
+class InventoryReports {
+    static final int PAGE_SIZE = 25;
+    private static final int EXPORT_PAGE_SIZE = 4096;
+    private static final Metrics.Timer EXPORT = Metrics.timer("report.export");
+    private static final Metrics.Counter EXPORTED_ROWS = Metrics.counter("report.exportedRows");
+    interface PageSource<T> {
+        List<T> page(String afterId, int limit);
+    }
+    interface RowFormatter<T> {
+        void format(Formatter out, T row);
+    }
+
+    static <T> void page(Scanner scanner, String emptyMessage, PageSource<T> source, Function<T, String> id,
+            Consumer<Formatter> header, RowFormatter<T> row) {
+        String after = null;
+        int shown = 0;
+        while (true) {
+            List<T> page = source.page(after, PAGE_SIZE + 1);
+            boolean more = page.size() > PAGE_SIZE;
+            if (more) {
+                page = page.subList(0, PAGE_SIZE);
+            }
+            if (shown == 0 && page.isEmpty()) {
+                System.out.println("[INFO] " + emptyMessage);
+                return;
+            }
+            StringBuilder buffer = new StringBuilder(PAGE_SIZE * 100);
+            Formatter out = new Formatter(buffer);
+            if (shown == 0) {
+                header.accept(out);
+            }
+            for (T item : page) {
+                row.format(out, item);
+            }
+            shown += page.size();
+            System.out.print(buffer);
+            if (!more) {
+                System.out.println("(" + shown + " row(s))");
+                return;
+            }
+            after = id.apply(page.get(page.size() - 1));
+            System.out.print("-- " + shown + " shown. Press Enter for the next page, or q to stop: ");
+            if (!scanner.hasNextLine() || scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                return;
+            }
+        }
+    }
+
+    // Filters are comma-separated field=value pairs matched case-insensitively; every pair must match.
+    static Predicate<Asset> assetFilter(String spec, DataManager dataManager) {
+        return assetFilter(parseFilter(spec), dataManager);
+    }
+    static Predicate<Asset> assetFilter(Map<String, String> terms, DataManager dataManager) {
+        Predicate<Asset> filter = asset -> true;
+        for (Map.Entry<String, String> term : terms.entrySet()) {
+            String value = term.getValue();
+            switch (term.getKey()) {
+                case "category":
+                    filter = filter.and(asset -> asset.getCategory().equalsIgnoreCase(value));
+                    break;
+                case "status":
+                    filter = filter.and(asset -> asset.getStatus().equalsIgnoreCase(value));
+                    break;
+                case "department":
+                    filter = filter.and(asset -> {
+                        Employee holder = dataManager.findEmployee(asset.getAssignedTo());
+                        return holder != null && holder.getDepartment().equalsIgnoreCase(value);
+                    });
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown asset filter '" + term.getKey() + "'. Use category, status or department.");
+            }
+        }
+        return filter;
+    }
+    static Predicate<Employee> employeeFilter(String spec) {
+        return employeeFilter(parseFilter(spec));
+    }
+    static Predicate<Employee> employeeFilter(Map<String, String> terms) {
+        Predicate<Employee> filter = employee -> true;
+        for (Map.Entry<String, String> term : terms.entrySet()) {
+            if (!term.getKey().equals("department")) {
+                throw new IllegalArgumentException("Unknown employee filter '" + term.getKey() + "'. Use department.");
+            }
+            String value = term.getValue();
+            filter = filter.and(employee -> employee.getDepartment().equalsIgnoreCase(value));
+        }
+        return filter;
+    }
+    private static Map<String, String> parseFilter(String spec) {
+        Map<String, String> terms = new LinkedHashMap<>();
+        if (spec == null || spec.trim().isEmpty()) {
+            return terms;
+        }
+        for (String term : spec.split(",")) {
+            int eq = term.indexOf('=');
+            if (eq <= 0 || term.substring(eq + 1).trim().isEmpty()) {
+                throw new IllegalArgumentException("Invalid filter '" + term.trim() + "'. Use field=value.");
+            }
+            terms.put(term.substring(0, eq).trim().toLowerCase(Locale.ROOT), term.substring(eq + 1).trim());
+        }
+        return terms;
+    }
+
+    static boolean isExportFile(String file) {
+        String name = file.toLowerCase(Locale.ROOT);
+        return name.endsWith(".csv") || name.endsWith(".json");
+    }
+    // CSV headers match the import format, so an exported file can be imported again.
+    static int export(DataManager dataManager, String kind, Path file, String filterSpec) throws IOException {
+        if (!isExportFile(file.toString())) {
+            throw new IllegalArgumentException("Export file must end in .csv or .json.");
+        }
+        boolean json = file.toString().toLowerCase(Locale.ROOT).endsWith(".json");
+        if (kind.equalsIgnoreCase("assets")) {
+            Predicate<Asset> filter = assetFilter(filterSpec, dataManager);
+            return stream(file, json, "assetId,name,category,serial,status,assignedTo", (after, limit) -> dataManager.assetPage(after, limit, filter),
+                Asset::getAssetId, asset -> json ? ApiServer.json(asset) : csv(asset.getAssetId(), asset.getName(), asset.getCategory(),
+                    asset.getSerialNumber(), asset.getStatus(), asset.getAssignedTo()));
+        }
+        if (kind.equalsIgnoreCase("employees")) {
+            Predicate<Employee> filter = employeeFilter(filterSpec);
+            return stream(file, json, "employeeId,name,department,email", (after, limit) -> dataManager.employeePage(after, limit, filter),
+                Employee::getEmployeeId, employee -> json ? ApiServer.json(employee) : csv(employee.getEmployeeId(), employee.getName(),
+                    employee.getDepartment(), employee.getEmail()));
+        }
+        throw new IllegalArgumentException("Unknown export '" + kind + "'. Use assets or employees.");
+    }
+    private static <T> int stream(Path file, boolean json, String csvHeader, PageSource<T> source, Function<T, String> id,
+            Function<T, String> render) throws IOException {
+        int[] rows = {0};
+        long start = EXPORT.start();
+        DataManager.writeAtomically(file, out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+            writer.write(json ? "[" : csvHeader + "\n");
+            String after = null;
+            List<T> page;
+            do {
+                page = source.page(after, EXPORT_PAGE_SIZE);
+                for (T row : page) {
+                    if (json && rows[0] > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(render.apply(row));
+                    writer.write('\n');
+                    rows[0]++;
+                }
+                after = page.isEmpty() ? after : id.apply(page.get(page.size() - 1));
+            } while (page.size() == EXPORT_PAGE_SIZE);
+            if (json) {
+                writer.write("]\n");
+            }
+            writer.flush();
+        });
+        EXPORT.stop(start);
+        EXPORTED_ROWS.add(rows[0]);
+        return rows[0];
+    }
+    static String csv(String... fields) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            String field = fields[i] == null ? "" : fields[i];
+            if (i > 0) {
+                line.append(',');
+            }
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0) {
+                line.append('"').append(field.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(field);
+            }
+        }
+        return line.toString();
+    }
+}
+
+class BatchImporter {
+    private final DataManager dataManager;
+    private final AssetManager assetManager;
+    private final EmployeeManager employeeManager;
+    private final MaintenanceManager maintenanceManager;
+    private int imported;
+    private int rejected;
+    public BatchImporter(DataManager dataManager, AssetManager assetManager, EmployeeManager employeeManager, MaintenanceManager maintenanceManager) {
+        this.dataManager = dataManager;
+        this.assetManager = assetManager;
+        this.employeeManager = employeeManager;
+        this.maintenanceManager = maintenanceManager;
+    }
+
+    // Each file is streamed row by row; its header decides whether rows are assets, employees or maintenance events.
+    // Rows go through the same manager methods as the interactive menus, and nothing is written until every file parsed.
+    public boolean importFiles(String... files) {
+        return dataManager.withStoreLocked(() -> importAll(files));
+    }
+    private boolean importAll(String... files) {
+        long start = System.nanoTime();
+        dataManager.beginBatch();
+        boolean committed = false;
+        try {
+            for (String file : files) {
+                try {
+                    importFile(Paths.get(file));
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("[ERROR] Import aborted, nothing was saved: " + file + " (" + e.getMessage() + ")");
+                    return false;
+                }
+            }
+            dataManager.commitBatch();
+            committed = true;
+        } finally {
+            if (!committed) {
+                dataManager.abortBatch();
+            }
+        }
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+        System.out.printf("[SUMMARY] %d row(s) imported, %d rejected in %.2f s (%.0f rows/sec).%n",
+            imported, rejected, seconds, (imported + rejected) / seconds);
+        return rejected == 0;
+    }
+    private void importFile(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("File is empty.");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            List<String> names = parseCsvLine(header);
+            for (int i = 0; i < names.size(); i++) {
+                columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            String kind = columns.containsKey("employeeid") ? "employees"
+                : columns.containsKey("description") ? "maintenance"
+                : columns.containsKey("category") ? "assets" : null;
+            if (kind == null) {
+                throw new IllegalArgumentException("Unrecognized header. Expected assetId,name,category,serial or "
+                    + "employeeId,name,department,email or assetId,description,cost[,date].");
+            }
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    List<String> row = parseCsvLine(line);
+                    switch (kind) {
+                        case "assets":
+                            assetManager.addAsset(field(row, columns, "assetid"), field(row, columns, "name"),
+                                field(row, columns, "category"), field(row, columns, "serial"));
+                            break;
+                        case "employees":
+                            employeeManager.addEmployee(field(row, columns, "employeeid"), field(row, columns, "name"),
+                                field(row, columns, "department"), field(row, columns, "email"));
+                            break;
+                        default:
+                            String date = columns.containsKey("date") ? field(row, columns, "date") : null;
+                            maintenanceManager.recordMaintenance(field(row, columns, "assetid"), field(row, columns, "description"),
+                                parseCost(field(row, columns, "cost")),
+                                date == null || date.isEmpty() ? LocalDateTime.now() : LocalDateTime.parse(date, DataManager.DATE_FORMATTER), assetManager);
+                    }
+                    imported++;
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    rejected++;
+                    System.err.println("[REJECTED] " + file.getFileName() + " line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+    private static String field(List<String> row, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Missing column '" + name + "' in header.");
+        }
+        String value = index < row.size() ? row.get(index).trim() : "";
+        if (value.indexOf(',') >= 0) {
+            throw new IllegalArgumentException("Column '" + name + "' contains a comma, which the inventory file cannot store.");
+        }
+        return value;
+    }
+    private static double parseCost(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cost '" + value + "'.");
+        }
+    }
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
+
+// Headless mode for scripted sessions: 'java -jar AssetTrack.jar script [file]' runs one command per line from the file or
+// stdin, such as "assign LAP-001 EMP-101", through the same manager methods as the menus. Arguments are separated by
+// spaces; one containing spaces goes in double quotes ("" for a quote inside). Blank lines and lines starting with #
+// are skipped. Each command prints one [SUCCESS] line (or its report) and a failing one prints [FAILURE] with its line
+// number without stopping the script. Changes are saved at the end, as on Exit & Save.
+class CommandScript {
+    private static final String[][] COMMANDS = {
+        {"add-asset", "add-asset <id> <name> <category> <serial>"},
+        {"add-employee", "add-employee <id> <name> <department> <email>"},
+        {"assign", "assign <assetId> <employeeId>"},
+        {"deassign", "deassign <assetId>"},
+        {"status", "status <assetId> <Assigned|Unassigned|In Maintenance|Retired>"},
+        {"maintenance", "maintenance <assetId> <cost> <description>"},
+        {"delete-asset", "delete-asset <assetId>"},
+        {"delete-employee", "delete-employee <employeeId>"},
+        {"asset", "asset <assetId>"},
+        {"employee", "employee <employeeId>"},
+        {"assets", "assets <employeeId>"},
+        {"history", "history <assetId>"},
+        {"audit", "audit <assetId> [time]"},
+        {"custody", "custody <employeeId> [time]"},
+        {"search", "search <query ...>"},
+        {"role", "role <Admin|Staff>"},
+        {"save", "save"},
+        {"help", "help"},
+    };
+    private final DataManager dataManager;
+    private final AssetManager assetManager;
+    private final EmployeeManager employeeManager;
+    private final MaintenanceManager maintenanceManager;
+    private final List<String> args = new ArrayList<>();
+    private final StringBuilder token = new StringBuilder();
+    private String role = "Admin";
+    public CommandScript(DataManager dataManager, AssetManager assetManager, EmployeeManager employeeManager, MaintenanceManager maintenanceManager) {
+        this.dataManager = dataManager;
+        this.assetManager = assetManager;
+        this.employeeManager = employeeManager;
+        this.maintenanceManager = maintenanceManager;
+    }
+
+    // A command that throws, whether rejected input or an unexpected error such as a failed history read, is reported
+    // with its line number and the script goes on. Output is flushed however the run ends.
+    public boolean run(BufferedReader in, PrintStream out) throws IOException {
+        long start = System.nanoTime();
+        int executed = 0;
+        int failed = 0;
+        int number = 0;
+        String line;
+        try {
+            while ((line = in.readLine()) != null) {
+                number++;
+                if (!isCommand(line)) {
+                    continue;
+                }
+                executed++;
+                try {
+                    tokenize(line);
+                    execute(out);
+                } catch (RuntimeException e) {
+                    failed++;
+                    out.println("[FAILURE] Line " + number + ": " + (e instanceof IllegalArgumentException ? e.getMessage() : "Unexpected error: " + e));
+                }
+            }
+            dataManager.flush();
+            dataManager.saveData();
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+            out.printf("[SUMMARY] %d command(s), %d failed in %.2f s (%.0f commands/sec).%n", executed, failed, seconds, executed / seconds);
+            return failed == 0;
+        } finally {
+            out.flush();
+        }
+    }
+    // False for a blank line or a comment.
+    private static boolean isCommand(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (!Character.isWhitespace(line.charAt(i))) {
+                return line.charAt(i) != '#';
+            }
+        }
+        return false;
+    }
+    private void tokenize(String line) {
+        args.clear();
+        int i = 0;
+        int length = line.length();
+        while (true) {
+            while (i < length && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                return;
+            }
+            if (line.charAt(i) != '"') {
+                int end = i;
+                while (end < length && !Character.isWhitespace(line.charAt(end))) {
+                    end++;
+                }
+                args.add(line.substring(i, end));
+                i = end;
+                continue;
+            }
+            token.setLength(0);
+            for (i++; ; i++) {
+                if (i == length) {
+                    throw new IllegalArgumentException("Unterminated quote.");
+                }
+                char c = line.charAt(i);
+                if (c == '"' && i + 1 < length && line.charAt(i + 1) == '"') {
+                    token.append('"');
+                    i++;
+                } else if (c == '"') {
+                    i++;
+                    break;
+                } else {
+                    token.append(c);
+                }
+            }
+            // "MacBook"Pro would otherwise quietly become two arguments.
+            if (i < length && !Character.isWhitespace(line.charAt(i))) {
+                throw new IllegalArgumentException("Expected a space after the closing quote.");
+            }
+            args.add(token.toString());
+        }
+    }
+    private void execute(PrintStream out) {
+        String command = args.get(0).toLowerCase(Locale.ROOT);
+        switch (command) {
+            case "add-asset":
+                Asset added = assetManager.addAsset(arg(command, 1), arg(command, 2), arg(command, 3), last(command, 4));
+                out.println("[SUCCESS] Asset " + added.getAssetId() + " (" + added.getName() + ") added.");
+                break;
+            case "add-employee":
+                Employee hired = employeeManager.addEmployee(arg(command, 1), arg(command, 2), arg(command, 3), last(command, 4));
+                out.println("[SUCCESS] Employee " + hired.getEmployeeId() + " (" + hired.getName() + ") added.");
+                break;
+            case "assign":
+                Asset assigned = assetManager.assignAsset(arg(command, 1), last(command, 2), employeeManager);
+                out.println("[SUCCESS] Asset " + assigned.getAssetId() + " assigned to Employee " + assigned.getAssignedTo() + ".");
+                break;
+            case "deassign":
+                out.println("[SUCCESS] Asset " + assetManager.deassignAsset(last(command, 1)).getAssetId() + " de-assigned.");
+                break;
+            case "status":
+                Asset updated = assetManager.updateAssetStatus(arg(command, 1), last(command, 2));
+                out.println("[SUCCESS] Asset " + updated.getAssetId() + " status updated to " + updated.getStatus() + ".");
+                break;
+            case "maintenance":
+                double cost;
+                try {
+                    cost = Double.parseDouble(arg(command, 2));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Cost must be a valid non-negative number.");
+                }
+                MaintenanceRecord record = maintenanceManager.recordMaintenance(arg(command, 1), last(command, 3), cost, LocalDateTime.now(), assetManager);
+                out.println("[SUCCESS] Maintenance record added for Asset " + record.getAssetId() + ".");
+                break;
+            case "delete-asset":
+                requireAdmin();
+                out.println("[SUCCESS] Asset " + assetManager.deleteAsset(last(command, 1)).getAssetId() + " deleted.");
+                break;
+            case "delete-employee":
+                requireAdmin();
+                out.println("[SUCCESS] Employee " + employeeManager.deleteEmployee(last(command, 1)).getEmployeeId() + " deleted.");
+                break;
+            case "asset":
+                Asset asset = assetManager.findAssetById(last(command, 1));
+                if (asset == null) {
+                    throw new IllegalArgumentException("Asset ID " + args.get(1).toUpperCase() + " not found.");
+                }
+                out.printf("%s | %s | %s | %s | %s | %s%n", asset.getAssetId(), asset.getName(), asset.getCategory(), asset.getSerialNumber(),
+                    asset.getStatus(), asset.getAssignedTo() != null ? asset.getAssignedTo() : "N/A");
+                break;
+            case "employee":
+                Employee employee = employeeManager.findEmployeeById(last(command, 1));
+                if (employee == null) {
+                    throw new IllegalArgumentException("Employee ID " + args.get(1).toUpperCase() + " not found.");
+                }
+                out.printf("%s | %s | %s | %s%n", employee.getEmployeeId(), employee.getName(), employee.getDepartment(), employee.getEmail());
+                break;
+            case "assets":
+                if (employeeManager.findEmployeeById(last(command, 1)) == null) {
+                    throw new IllegalArgumentException("Employee ID " + args.get(1).toUpperCase() + " not found.");
+                }
+                Collection<Asset> held = dataManager.getAssetsAssignedTo(args.get(1));
+                held.forEach(item -> out.printf("%s | %s | %s%n", item.getAssetId(), item.getName(), item.getCategory()));
+                out.println("[SUCCESS] " + held.size() + " asset(s) assigned to Employee " + args.get(1).toUpperCase() + ".");
+                break;
+            case "history":
+                List<MaintenanceRecord> history = dataManager.getMaintenanceHistory(last(command, 1));
+                for (int i = history.size() - 1; i >= 0; i--) {
+                    out.printf("%s | $%.2f | %s%n", history.get(i).getDateFormatted(), history.get(i).getCost(), history.get(i).getDescription());
+                }
+                out.println("[SUCCESS] " + history.size() + " maintenance record(s) for Asset " + args.get(1).toUpperCase() + ".");
+                break;
+            case "audit":
+                if (args.size() > 2) {
+                    AuditLog.State state = dataManager.getAuditLog().stateAt(arg(command, 1), AuditLog.parseTime(last(command, 2)));
+                    if (state == null) {
+                        throw new IllegalArgumentException("Asset ID " + args.get(1).toUpperCase() + " not found in the audit log at " + args.get(2) + ".");
+                    }
+                    out.printf("%s | %s | %s | since %s%n", state.assetId, state.status, state.holder != null ? state.holder : "N/A", AuditLog.formatTime(state.since));
+                } else {
+                    List<AuditLog.State> trail = dataManager.getAuditLog().trail(last(command, 1));
+                    trail.forEach(state -> out.printf("%s | %s | %s%n", AuditLog.formatTime(state.since), state.status, state.holder != null ? state.holder : "N/A"));
+                    out.println("[SUCCESS] " + trail.size() + " recorded state(s) for Asset " + args.get(1).toUpperCase() + ".");
+                }
+                break;
+            case "custody":
+                long from = args.size() > 2 ? AuditLog.parseTime(last(command, 2)) : Long.MIN_VALUE;
+                List<AuditLog.Custody> timeline = dataManager.getAuditLog().custodyOf(arg(command, 1), from, args.size() > 2 ? from : Long.MAX_VALUE);
+                timeline.forEach(custody -> out.printf("%s | %s | %s%n", custody.assetId, AuditLog.formatTime(custody.from),
+                    custody.until == Long.MAX_VALUE ? "(still held)" : AuditLog.formatTime(custody.until)));
+                out.println("[SUCCESS] " + timeline.size() + " custody interval(s) for Employee " + args.get(1).toUpperCase() + ".");
+                break;
+            case "search":
+                arg(command, 1);
+                SearchIndex.Results results = dataManager.getSearchIndex().search(dataManager, String.join(" ", args.subList(1, args.size())), SearchIndex.DEFAULT_LIMIT);
+                results.assets.forEach(item -> out.printf("asset | %s | %s | %s | %s%n", item.getAssetId(), item.getName(), item.getCategory(), item.getStatus()));
+                results.employees.forEach(item -> out.printf("employee | %s | %s | %s%n", item.getEmployeeId(), item.getName(), item.getDepartment()));
+                out.println("[SUCCESS] " + results.assets.size() + " asset(s), " + results.employees.size() + " employee(s) found.");
+                break;
+            case "role":
+                String requested = last(command, 1);
+                if (!requested.equalsIgnoreCase("Admin") && !requested.equalsIgnoreCase("Staff")) {
+                    throw new IllegalArgumentException("Role must be Admin or Staff.");
+                }
+                role = requested.equalsIgnoreCase("Admin") ? "Admin" : "Staff";
+                out.println("[SUCCESS] Role switched to: " + role);
+                break;
+            case "save":
+                last(command, 0);
+                dataManager.flush();
+                dataManager.saveData();
+                out.println("[SUCCESS] Data saved.");
+                break;
+            case "help":
+                for (String[] usage : COMMANDS) {
+                    out.println(usage[1]);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command '" + args.get(0) + "'. Try 'help'.");
+        }
+    }
+    private String arg(String command, int index) {
+        if (index >= args.size()) {
+            throw new IllegalArgumentException("Usage: " + usage(command));
+        }
+        return args.get(index);
+    }
+    // The last argument of a command that takes no more.
+    private String last(String command, int index) {
+        if (args.size() != index + 1) {
+            throw new IllegalArgumentException("Usage: " + usage(command));
+        }
+        return args.get(index);
+    }
+    private static String usage(String command) {
+        for (String[] usage : COMMANDS) {
+            if (usage[0].equals(command)) {
+                return usage[1];
+            }
+        }
+        return command;
+    }
+    private void requireAdmin() {
+        if (!role.equals("Admin")) {
+            throw new IllegalArgumentException("Only Admin can delete records (use 'role Admin').");
+        }
+    }
+}
+
+// Standard output is buffered and only flushed when the program is about to wait for input, so prompts still appear
+// in time in an interactive session while a piped one is written in large blocks instead of a write per line.
+class PromptFlushingInput extends FilterInputStream {
+    private final PrintStream out;
+    PromptFlushingInput(InputStream in, PrintStream out) {
+        super(in);
+        this.out = out;
+    }
+    @Override
+    public int read() throws IOException {
+        flushIfBlocking();
+        return super.read();
+    }
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        flushIfBlocking();
+        return super.read(buffer, offset, length);
+    }
+    private void flushIfBlocking() throws IOException {
+        if (in.available() == 0) {
+            out.flush();
+        }
+    }
+    static PrintStream bufferedStdout() {
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+        Runtime.getRuntime().addShutdownHook(new Thread(out::flush));
+        return out;
+    }
+}
+
+class InventoryLoader {
+    static final boolean PARALLEL = Boolean.getBoolean("assettrack.parallelLoad");
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final double[] POW10 = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000};
+    private static final byte[] EMPLOYEES_HEADER = "\n# Employees:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MAINTENANCE_HEADER = "\n# Maintenance Records:".getBytes(StandardCharsets.UTF_8);
+
+    static final class Result {
+        final List<Asset> assets = new ArrayList<>();
+        final List<Employee> employees = new ArrayList<>();
+        final List<MaintenanceRecord> records = new ArrayList<>();
+        final List<String> warnings = new ArrayList<>();
+        long lines;
+        // Verified: read from a checksummed file that passed. Damaged: some of the file failed and was left out.
+        boolean verified;
+        boolean damaged;
+        void append(Result other) {
+            assets.addAll(other.assets);
+            employees.addAll(other.employees);
+            records.addAll(other.records);
+            warnings.addAll(other.warnings);
+            lines += other.lines;
+            damaged |= other.damaged;
+        }
+        // Damage that left no checksum failure behind - a file cut short at a block boundary - shows in the counts.
+        void checkCounts(long[] expected, Path file) {
+            if (expected != null && (assets.size() != expected[0] || employees.size() != expected[1] || records.size() != expected[2])) {
+                damaged = true;
+                warnings.add(String.format("[ERROR] %s was written with %d assets, %d employees and %d records; %d, %d and %d were recovered.",
+                    file, expected[0], expected[1], expected[2], assets.size(), employees.size(), records.size()));
+            }
+            verified = !damaged;
+        }
+    }
+
+    // Reads inventory.txt through a read-only mapping as UTF-8. Lines are copied chunk-wise into a reusable buffer and
+    // fields are decoded straight from the bytes; with parallel set, the three sections are parsed on separate threads.
+    // A checksummed file is verified in one pass first. If any of it fails, only the intact blocks are parsed and the
+    // result is marked damaged. Files written before checksums are parsed as they are; any other file lost its start,
+    // such as one cut short inside its first header, and is damaged as a whole.
+    static Result load(Path file, boolean parallel) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Inventory file is larger than 2 GB: " + file);
+            }
+            ByteBuffer buffer = size == 0 ? ByteBuffer.allocate(0) : channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (BlockFormat.isLegacy(buffer)) {
+                return parse(buffer, (int) size, parallel);
+            }
+            if (!BlockFormat.isChecksummed(buffer)) {
+                Result result = new Result();
+                result.damaged = true;
+                result.warnings.add("[ERROR] " + file + " has no readable header (" + size + " bytes); none of it was loaded.");
+                return result;
+            }
+            BlockFormat.Scan scan = BlockFormat.scan(buffer);
+            long[] expected = scan.blocks.isEmpty() ? null : BlockFormat.counts(buffer, scan.blocks.get(0)[0]);
+            Result result;
+            if (scan.intact()) {
+                result = parse(buffer, (int) size, parallel);
+            } else {
+                Result recovered = new Result();
+                scan.blocks.forEach(block -> recovered.append(parseRange(buffer, block[0], block[1])));
+                for (int[] damaged : scan.damaged) {
+                    recovered.warnings.add("[ERROR] " + file + ": bytes " + damaged[0] + "-" + damaged[1] + " failed their checksum and were skipped.");
+                }
+                recovered.damaged = true;
+                result = recovered;
+            }
+            result.checkCounts(expected, file);
+            return result;
+        }
+    }
+    private static Result parse(ByteBuffer buffer, int size, boolean parallel) {
+        if (!parallel) {
+            return parseRange(buffer, 0, size);
+        }
+        int employeesAt = indexOf(buffer, EMPLOYEES_HEADER, 0);
+        int maintenanceAt = indexOf(buffer, MAINTENANCE_HEADER, Math.max(employeesAt, 0));
+        List<Integer> bounds = new ArrayList<>(List.of(0));
+        if (employeesAt > 0) {
+            bounds.add(employeesAt);
+        }
+        if (maintenanceAt > 0) {
+            bounds.add(maintenanceAt);
+        }
+        bounds.add(size);
+        List<CompletableFuture<Result>> parts = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.size(); i++) {
+            int from = bounds.get(i);
+            int to = bounds.get(i + 1);
+            parts.add(CompletableFuture.supplyAsync(() -> parseRange(buffer.duplicate(), from, to)));
+        }
+        Result result = new Result();
+        parts.forEach(part -> result.append(part.join()));
+        return result;
+    }
+
+    static Result parseRange(ByteBuffer buffer, int from, int to) {
+        Result result = new Result();
+        byte[] chunk = new byte[Math.min(CHUNK_SIZE, Math.max(to - from, 16))];
+        int start = 0;
+        int filled = 0;
+        int position = from;
+        while (true) {
+            int newline = start;
+            while (newline < filled && chunk[newline] != '\n') {
+                newline++;
+            }
+            if (newline == filled) {
+                if (position >= to) {
+                    if (start < filled) {
+                        parseLine(chunk, start, filled, result);
+                    }
+                    return result;
+                }
+                int remaining = filled - start;
+                if (remaining == chunk.length) {
+                    chunk = Arrays.copyOf(chunk, chunk.length * 2);
+                }
+                System.arraycopy(chunk, start, chunk, 0, remaining);
+                int read = Math.min(chunk.length - remaining, to - position);
+                buffer.get(position, chunk, remaining, read);
+                position += read;
+                start = 0;
+                filled = remaining + read;
+                continue;
+            }
+            parseLine(chunk, start, newline, result);
+            start = newline + 1;
+        }
+    }
+
+    private static void parseLine(byte[] line, int start, int end, Result result) {
+        while (start < end && (line[start] & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (line[end - 1] & 0xff) <= ' ') {
+            end--;
+        }
+        if (start == end || line[start] == '#') {
+            return;
+        }
+        result.lines++;
+        if (end - start < 2 || line[start + 1] != ',') {
+            return;
+        }
+        try {
+            switch (line[start]) {
+                case 'A': result.assets.add(parseAsset(line, start, end)); break;
+                case 'E': result.employees.add(parseEmployee(line, start, end)); break;
+                case 'M': result.records.add(parseRecord(line, start, end)); break;
+                default: break;
+            }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            result.warnings.add("[WARNING] Skipping corrupted data line: " + new String(line, start, end - start, StandardCharsets.UTF_8)
+                + " (" + e.getMessage() + ")");
+        }
+    }
+
+    // Field boundaries follow String.split(",", limit): the last field keeps any remaining commas.
+    private static int[] commas(byte[] line, int start, int end, int count, String error) {
+        int[] at = new int[count];
+        int found = 0;
+        for (int i = start; i < end && found < count; i++) {
+            if (line[i] == ',') {
+                at[found++] = i;
+            }
+        }
+        if (found < count) {
+            throw new IllegalArgumentException(error);
+        }
+        return at;
+    }
+    private static String text(byte[] line, int from, int to) {
+        return new String(line, from, to - from, StandardCharsets.UTF_8);
+    }
+    private static Asset parseAsset(byte[] line, int start, int end) {
+        int[] c = commas(line, start, end, 6, "Invalid Asset data format.");
+        String assignedTo = end - c[5] - 1 == 4 && line[c[5] + 1] == 'n' && line[c[5] + 2] == 'u' && line[c[5] + 3] == 'l' && line[c[5] + 4] == 'l'
+            ? null : text(line, c[5] + 1, end);
+        return new Asset(text(line, c[0] + 1, c[1]), text(line, c[1] + 1, c[2]), text(line, c[2] + 1, c[3]),
+            text(line, c[3] + 1, c[4]), text(line, c[4] + 1, c[5]), assignedTo);
+    }
+    private static Employee parseEmployee(byte[] line, int start, int end) {
+        int[] c = commas(line, start, end, 4, "Invalid Employee data format.");
+        return new Employee(text(line, c[0] + 1, c[1]), text(line, c[1] + 1, c[2]), text(line, c[2] + 1, c[3]), text(line, c[3] + 1, end));
+    }
+    // The cost is read before the date, as in MaintenanceRecord.fromString, so a line with both wrong gets the same warning.
+    private static MaintenanceRecord parseRecord(byte[] line, int start, int end) {
+        int[] c = commas(line, start, end, 5, "Invalid Maintenance data format.");
+        double cost = parseCost(line, c[4] + 1, end);
+        return new MaintenanceRecord(text(line, c[0] + 1, c[1]), text(line, c[1] + 1, c[2]), parseDate(line, c[2] + 1, c[3]),
+            text(line, c[3] + 1, c[4]), cost);
+    }
+
+    // Decodes the fixed "yyyy-MM-dd HH:mm:ss" layout by hand; anything else goes through DATE_FORMATTER for identical results.
+    static LocalDateTime parseDate(byte[] b, int from, int to) {
+        if (to - from == 19 && b[from + 4] == '-' && b[from + 7] == '-' && b[from + 10] == ' ' && b[from + 13] == ':' && b[from + 16] == ':') {
+            int year = digits(b, from, 4);
+            int month = digits(b, from + 5, 2);
+            int day = digits(b, from + 8, 2);
+            int hour = digits(b, from + 11, 2);
+            int minute = digits(b, from + 14, 2);
+            int second = digits(b, from + 17, 2);
+            if ((year | month | day | hour | minute | second) >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= 28
+                && hour <= 23 && minute <= 59 && second <= 59) {
+                return LocalDateTime.of(year, month, day, hour, minute, second);
+            }
+        }
+        return LocalDateTime.parse(text(b, from, to), DataManager.DATE_FORMATTER);
+    }
+    private static int digits(byte[] b, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    // Plain decimals are decoded as an exact long mantissa divided by a power of ten, which rounds the same way
+    // Double.parseDouble does; exponents and other forms fall back to it.
+    static double parseCost(byte[] b, int from, int to) {
+        int i = from;
+        boolean negative = i < to && b[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int digitCount = 0;
+        int fraction = -1;
+        for (; i < to; i++) {
+            byte c = b[i];
+            if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else if (c >= '0' && c <= '9' && digitCount < 15) {
+                mantissa = mantissa * 10 + (c - '0');
+                digitCount++;
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            } else {
+                break;
+            }
+        }
+        if (i != to || digitCount == 0 || fraction >= POW10.length) {
+            return Double.parseDouble(text(b, from, to));
+        }
+        double value = mantissa / POW10[Math.max(fraction, 0)];
+        return negative ? -value : value;
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte[] pattern, int from) {
+        int limit = buffer.limit() - pattern.length;
+        outer:
+        for (int i = from; i <= limit; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buffer.get(i + j) != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
+
+// Checksummed blocks for the segment files, binary snapshots and the journal. In text files a block is a header line
+// "# Block <content length, 10 digits> <CRC32C of the content, 8 hex digits>" followed by the content, which ends at a
+// line boundary, so the text loaders read headers as comments. Binary snapshots frame blocks with a length and a CRC
+// int. Verification is one sequential pass jumping from header to header, at about the speed the file can be read,
+// since CRC32C is a CPU instruction on current x86 and ARM. A header or block that fails is skipped by searching for the
+// next header, so damage costs only the blocks it touches.
+class BlockFormat {
+    static final int TARGET_SIZE = 1 << 16;
+    static final String PREFIX = "# Block ";
+    static final int HEADER_LENGTH = PREFIX.length() + 10 + 1 + 8 + 1;
+    // First line of a checksummed text file: format version and what it was written with.
+    static final String FILE_HEADER = "# AssetTrack ";
+    static final int TEXT_VERSION = 2;
+    private static final byte[] PREFIX_BYTES = PREFIX.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LEGACY_START = "# Assets:".getBytes(StandardCharsets.US_ASCII);
+    private static final Metrics.Timer VERIFY = Metrics.timer("integrity.verify");
+    private static final Metrics.Counter BYTES_VERIFIED = Metrics.counter("integrity.bytesVerified");
+    private static final Metrics.Counter DAMAGED = Metrics.counter("integrity.damagedRanges");
+
+    // Verified content ranges [from, to) in file order, and the ranges that failed in between or after them.
+    static final class Scan {
+        final List<int[]> blocks = new ArrayList<>();
+        final List<int[]> damaged = new ArrayList<>();
+        boolean intact() { return damaged.isEmpty(); }
+    }
+
+    static int crc(ByteBuffer buffer, int from, int to) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().limit(to).position(from));
+        return (int) crc.getValue();
+    }
+    static byte[] header(byte[] content, int from, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(content, from, length);
+        return String.format("%s%010d %08x\n", PREFIX, length, crc.getValue()).getBytes(StandardCharsets.US_ASCII);
+    }
+    // One block holding the whole of content, as the journal writes each batch.
+    static byte[] frame(byte[] content) {
+        byte[] header = header(content, 0, content.length);
+        byte[] framed = Arrays.copyOf(header, header.length + content.length);
+        System.arraycopy(content, 0, framed, header.length, content.length);
+        return framed;
+    }
+    static boolean isFramed(ByteBuffer buffer) {
+        return startsWith(buffer, 0, PREFIX_BYTES);
+    }
+    // Files written before checksums start with "# Assets:". Any other file with a header in it is checked, since one
+    // that does not start with a header had its start damaged.
+    static boolean isChecksummed(ByteBuffer buffer) {
+        return isFramed(buffer) || !isLegacy(buffer) && nextHeader(buffer, 0) < buffer.limit();
+    }
+    static boolean isLegacy(ByteBuffer buffer) {
+        return startsWith(buffer, 0, LEGACY_START);
+    }
+
+    static Scan scan(ByteBuffer buffer) {
+        long started = VERIFY.start();
+        Scan scan = new Scan();
+        int size = buffer.limit();
+        int position = 0;
+        int damagedFrom = -1;
+        while (position < size) {
+            long header = parseHeader(buffer, position);
+            if (header >= 0) {
+                int from = position + HEADER_LENGTH;
+                int to = from + (int) (header >>> 32);
+                if (crc(buffer, from, to) == (int) header) {
+                    if (damagedFrom >= 0) {
+                        scan.damaged.add(new int[] {damagedFrom, position});
+                        damagedFrom = -1;
+                    }
+                    scan.blocks.add(new int[] {from, to});
+                    position = to;
+                    continue;
+                }
+            }
+            if (damagedFrom < 0) {
+                damagedFrom = position;
+                DAMAGED.increment();
+            }
+            position = nextHeader(buffer, position + 1);
+        }
+        if (damagedFrom >= 0) {
+            scan.damaged.add(new int[] {damagedFrom, size});
+        }
+        BYTES_VERIFIED.add(size);
+        VERIFY.stop(started);
+        return scan;
+    }
+    // Length << 32 | CRC of a well-formed header whose block fits in the buffer, or -1.
+    private static long parseHeader(ByteBuffer buffer, int at) {
+        if (at + HEADER_LENGTH > buffer.limit() || !startsWith(buffer, at, PREFIX_BYTES) || buffer.get(at + HEADER_LENGTH - 10) != ' '
+            || buffer.get(at + HEADER_LENGTH - 1) != '\n') {
+            return -1;
+        }
+        long length = 0;
+        for (int i = at + PREFIX_BYTES.length; i < at + PREFIX_BYTES.length + 10; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            length = length * 10 + digit;
+        }
+        long crc = 0;
+        for (int i = at + HEADER_LENGTH - 9; i < at + HEADER_LENGTH - 1; i++) {
+            int digit = Character.digit(buffer.get(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            crc = crc << 4 | digit;
+        }
+        return at + HEADER_LENGTH + length > buffer.limit() ? -1 : length << 32 | crc;
+    }
+    private static int nextHeader(ByteBuffer buffer, int from) {
+        int last = buffer.limit() - PREFIX_BYTES.length;
+        for (int i = from; i <= last; i++) {
+            if (buffer.get(i) == '#' && (i == 0 || buffer.get(i - 1) == '\n') && startsWith(buffer, i, PREFIX_BYTES)) {
+                return i;
+            }
+        }
+        return buffer.limit();
+    }
+    private static boolean startsWith(ByteBuffer buffer, int at, byte[] prefix) {
+        if (at + prefix.length > buffer.limit()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(at + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String fileHeader(int assets, int employees, long records) {
+        return FILE_HEADER + TEXT_VERSION + " assets=" + assets + " employees=" + employees + " records=" + records;
+    }
+    // The counts from the file header at the start of content, or null when there is none.
+    static long[] counts(ByteBuffer buffer, int from) {
+        if (!startsWith(buffer, from, FILE_HEADER.getBytes(StandardCharsets.US_ASCII))) {
+            return null;
+        }
+        int end = from;
+        while (end < buffer.limit() && buffer.get(end) != '\n') {
+            end++;
+        }
+        byte[] line = new byte[end - from];
+        buffer.get(from, line);
+        long[] counts = new long[3];
+        String[] names = {"assets=", "employees=", "records="};
+        for (String field : new String(line, StandardCharsets.US_ASCII).trim().split(" ")) {
+            for (int i = 0; i < names.length; i++) {
+                if (field.startsWith(names[i])) {
+                    try {
+                        counts[i] = Long.parseLong(field.substring(names[i].length()));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    // Writes text as blocks. Callers mark record boundaries, and a block ends at the first boundary after TARGET_SIZE
+    // bytes, so no record - or maintenance history - is ever split between blocks.
+    static final class TextWriter {
+        private final OutputStream out;
+        private byte[] block = new byte[TARGET_SIZE + 8192];
+        private int filled;
+        private long written;
+        TextWriter(OutputStream out) {
+            this.out = out;
+        }
+        void write(byte[] bytes) {
+            if (filled + bytes.length > block.length) {
+                block = Arrays.copyOf(block, Math.max(block.length * 2, filled + bytes.length));
+            }
+            System.arraycopy(bytes, 0, block, filled, bytes.length);
+            filled += bytes.length;
+        }
+        // Where the next byte written lands in the file, provided no boundary comes first.
+        long position() {
+            return written + HEADER_LENGTH + filled;
+        }
+        void boundary() throws IOException {
+            if (filled >= TARGET_SIZE) {
+                endBlock();
+            }
+        }
+        void finish() throws IOException {
+            if (filled > 0) {
+                endBlock();
+            }
+            out.flush();
+        }
+        private void endBlock() throws IOException {
+            out.write(header(block, 0, filled));
+            out.write(block, 0, filled);
+            written += HEADER_LENGTH + filled;
+            filled = 0;
+        }
+    }
+
+    // Binary blocks: an int length, the CRC32C of the content as an int, then the content.
+    static final class BinaryWriter extends OutputStream {
+        private final OutputStream out;
+        private final byte[] block = new byte[TARGET_SIZE];
+        private int filled;
+        BinaryWriter(OutputStream out) {
+            this.out = out;
+        }
+        @Override
+        public void write(int b) throws IOException {
+            if (filled == block.length) {
+                endBlock();
+            }
+            block[filled++] = (byte) b;
+        }
+        @Override
+        public void write(byte[] bytes, int from, int length) throws IOException {
+            while (length > 0) {
+                if (filled == block.length) {
+                    endBlock();
+                }
+                int n = Math.min(length, block.length - filled);
+                System.arraycopy(bytes, from, block, filled, n);
+                filled += n;
+                from += n;
+                length -= n;
+            }
+        }
+        void finish() throws IOException {
+            if (filled > 0) {
+                endBlock();
+            }
+            out.flush();
+        }
+        private void endBlock() throws IOException {
+            CRC32C crc = new CRC32C();
+            crc.update(block, 0, filled);
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(filled);
+            header.writeInt((int) crc.getValue());
+            out.write(block, 0, filled);
+            filled = 0;
+        }
+    }
+    // The content of the binary blocks from position on, up to the first one that is cut short or fails its checksum.
+    // Returns the offset of that block in damagedAt[0], or -1 when every block is intact.
+    static ByteBuffer unframe(ByteBuffer in, int position, long[] damagedAt) {
+        long started = VERIFY.start();
+        int size = in.limit();
+        ByteBuffer content = ByteBuffer.allocate(size - position);
+        damagedAt[0] = -1;
+        while (position < size) {
+            if (position + 8 > size) {
+                damagedAt[0] = position;
+                break;
+            }
+            int length = in.getInt(position);
+            int from = position + 8;
+            if (length < 0 || length > size - from || crc(in, from, from + length) != in.getInt(position + 4)) {
+                damagedAt[0] = position;
+                break;
+            }
+            content.put(in.duplicate().limit(from + length).position(from));
+            position = from + length;
+        }
+        if (damagedAt[0] >= 0) {
+            DAMAGED.increment();
+        }
+        BYTES_VERIFIED.add(size);
+        VERIFY.stop(started);
+        return content.flip();
+    }
+}
+
+class BinarySnapshot {
+    private static final int MAGIC = 0x4154524B;
+    private static final int VERSION = 2;
+    static final int HEADER = 28;
+    private static final int RECORD = 1;
+    private static final int END = 0;
+
+    // Layout (big-endian): magic "ATRK", version, the asset, employee (ints) and record (long) counts and a CRC32C of
+    // the header so far, then the body in checksummed blocks (see BlockFormat). The body is a dictionary of
+    // category/status/department strings, then assets, employees and a tagged stream of maintenance records. Strings
+    // are varint length + UTF-8; dictionary entries and asset references are varint indexes; record IDs are two longs
+    // when they are canonical UUIDs; dates are varint UTC epoch seconds and costs are zigzag varint cents, rounded
+    // exactly as the text format's %.2f. Descriptions form a second dictionary built inline: reference 0 introduces a
+    // new string, n repeats the (n-1)th one. Version 1 files have the body straight after the version, unchecked.
+    static void write(Path path, Collection<Asset> assets, Collection<Employee> employees, Iterable<MaintenanceRecord> records,
+            long recordCount) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (Asset asset : assets) {
+            dictionary.putIfAbsent(asset.getCategory(), dictionary.size());
+            dictionary.putIfAbsent(asset.getStatus(), dictionary.size());
+        }
+        for (Employee employee : employees) {
+            dictionary.putIfAbsent(employee.getDepartment(), dictionary.size());
+        }
+        DataManager.writeAtomically(path, out -> {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION).putInt(assets.size()).putInt(employees.size())
+                .putLong(recordCount);
+            header.putInt(BlockFormat.crc(header, 0, HEADER - 4));
+            out.write(header.array());
+            BlockFormat.BinaryWriter blocks = new BlockFormat.BinaryWriter(out);
+            DataOutputStream data = new DataOutputStream(blocks);
+            writeVarInt(data, dictionary.size());
+            for (String entry : dictionary.keySet()) {
+                writeString(data, entry);
+            }
+            Map<String, Integer> assetOrdinals = new HashMap<>();
+            Map<String, Integer> descriptions = new HashMap<>();
+            writeVarInt(data, assets.size());
+            for (Asset asset : assets) {
+                assetOrdinals.put(asset.getAssetId(), assetOrdinals.size());
+                writeString(data, asset.getAssetId());
+                writeString(data, asset.getName());
+                writeVarInt(data, dictionary.get(asset.getCategory()));
+                writeString(data, asset.getSerialNumber());
+                writeVarInt(data, dictionary.get(asset.getStatus()));
+                writeString(data, asset.getAssignedTo());
+            }
+            writeVarInt(data, employees.size());
+            for (Employee employee : employees) {
+                writeString(data, employee.getEmployeeId());
+                writeString(data, employee.getName());
+                writeVarInt(data, dictionary.get(employee.getDepartment()));
+                writeString(data, employee.getEmail());
+            }
+            for (MaintenanceRecord record : records) {
+                data.writeByte(RECORD);
+                UUID uuid = MaintenanceRecord.canonicalUuid(record.getRecordId());
+                if (uuid != null) {
+                    data.writeByte(1);
+                    data.writeLong(uuid.getMostSignificantBits());
+                    data.writeLong(uuid.getLeastSignificantBits());
+                } else {
+                    data.writeByte(0);
+                    writeString(data, record.getRecordId());
+                }
+                Integer ordinal = assetOrdinals.get(record.getAssetId());
+                writeVarInt(data, ordinal == null ? 0 : ordinal + 1);
+                if (ordinal == null) {
+                    writeString(data, record.getAssetId());
+                }
+                writeVarLong(data, zigzag(record.getDate().toEpochSecond(ZoneOffset.UTC)));
+                writeVarLong(data, zigzag(BigDecimal.valueOf(record.getCost()).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact()));
+                Integer description = descriptions.get(record.getDescription());
+                writeVarInt(data, description == null ? 0 : description + 1);
+                if (description == null) {
+                    descriptions.put(record.getDescription(), descriptions.size());
+                    writeString(data, record.getDescription());
+                }
+            }
+            data.writeByte(END);
+            data.flush();
+            blocks.finish();
+        });
+    }
+
+    // A version 2 file is verified block by block as it is read. Its body is one varint stream, so when a block fails
+    // everything before it is recovered and everything from it on is lost; the result is then marked damaged.
+    static InventoryLoader.Result read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary snapshot is larger than 2 GB: " + path);
+            }
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            InventoryLoader.Result result = new InventoryLoader.Result();
+            int version = in.remaining() < 8 || in.getInt(0) != MAGIC ? -1 : in.getInt(4);
+            if (version == 1) {
+                try {
+                    readBody(in.position(8), result);
+                } catch (BufferUnderflowException | IndexOutOfBoundsException | DateTimeException e) {
+                    throw new IOException("Corrupted binary snapshot " + path + " (" + e + ")");
+                }
+                return result;
+            }
+            long[] expected = null;
+            if (in.limit() >= HEADER && version == VERSION && BlockFormat.crc(in, 0, HEADER - 4) == in.getInt(HEADER - 4)) {
+                expected = new long[] {in.getInt(8), in.getInt(12), in.getLong(16)};
+            } else {
+                result.damaged = true;
+                result.warnings.add("[ERROR] " + path + ": the binary snapshot header failed its checksum.");
+            }
+            long[] damagedAt = {-1};
+            ByteBuffer body = in.limit() > HEADER ? BlockFormat.unframe(in, HEADER, damagedAt) : ByteBuffer.allocate(0);
+            if (damagedAt[0] >= 0) {
+                result.damaged = true;
+                result.warnings.add("[ERROR] " + path + ": the block at byte " + damagedAt[0] + " is cut short or failed its checksum; "
+                    + "the snapshot from there on was skipped.");
+            }
+            try {
+                readBody(body, result);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | DateTimeException e) {
+                result.damaged = true;
+                result.lines = result.assets.size() + result.employees.size() + result.records.size();
+            }
+            result.checkCounts(expected, path);
+            return result;
+        }
+    }
+    private static void readBody(ByteBuffer in, InventoryLoader.Result result) {
+        byte[] scratch = new byte[256];
+        String[] dictionary = new String[readVarInt(in)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(in, scratch);
+        }
+        int assetCount = readVarInt(in);
+        String[] assetIds = new String[assetCount];
+        for (int i = 0; i < assetCount; i++) {
+            assetIds[i] = readString(in, scratch);
+            result.assets.add(new Asset(assetIds[i], readString(in, scratch), dictionary[readVarInt(in)], readString(in, scratch),
+                dictionary[readVarInt(in)], readString(in, scratch)));
+        }
+        int employeeCount = readVarInt(in);
+        for (int i = 0; i < employeeCount; i++) {
+            result.employees.add(new Employee(readString(in, scratch), readString(in, scratch), dictionary[readVarInt(in)], readString(in, scratch)));
+        }
+        List<String> descriptions = new ArrayList<>();
+        while (in.get() == RECORD) {
+            String recordId = in.get() == 1 ? new UUID(in.getLong(), in.getLong()).toString() : readString(in, scratch);
+            int ordinal = readVarInt(in);
+            String assetId = ordinal == 0 ? readString(in, scratch) : assetIds[ordinal - 1];
+            LocalDateTime date = LocalDateTime.ofEpochSecond(unzigzag(readVarLong(in)), 0, ZoneOffset.UTC);
+            double cost = unzigzag(readVarLong(in)) / 100.0;
+            int description = readVarInt(in);
+            if (description == 0) {
+                descriptions.add(readString(in, scratch));
+                description = descriptions.size();
+            }
+            result.records.add(new MaintenanceRecord(recordId, assetId, date, descriptions.get(description - 1), cost));
+        }
+        result.lines = result.assets.size() + result.employees.size() + result.records.size();
+    }
+
+    static void convert(Path from, Path to) throws IOException {
+        InventoryLoader.Result loaded = DataManager.readSnapshot(from);
+        loaded.warnings.forEach(System.err::println);
+        if (to.getFileName().toString().endsWith(".bin")) {
+            write(to, loaded.assets, loaded.employees, loaded.records, loaded.records.size());
+        } else {
+            DataManager.writeTextSnapshot(to, loaded.assets, loaded.employees, loaded.records);
+        }
+        System.out.println("[INFO] Converted " + from + " -> " + to + ": " + loaded.assets.size() + " Assets, "
+            + loaded.employees.size() + " Employees, " + loaded.records.size() + " Records.");
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IndexOutOfBoundsException("Malformed varint.");
+    }
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IndexOutOfBoundsException("Malformed varint.");
+    }
+    // Length is stored +1 so that 0 can mean null.
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+    private static String readString(ByteBuffer in, byte[] scratch) {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        in.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
+
+class ApiServer {
+    private static final int MAX_LIST = 1000;
+    // The address served on: loopback unless -Dassettrack.bind names another, such as 0.0.0.0 for every interface.
+    static final String BIND = System.getProperty("assettrack.bind", "");
+    private final DataManager dataManager;
+    private final AssetManager assetManager;
+    private final EmployeeManager employeeManager;
+    private final MaintenanceManager maintenanceManager;
+    private final byte[] token;
+    public ApiServer(DataManager dataManager, AssetManager assetManager, EmployeeManager employeeManager, MaintenanceManager maintenanceManager) {
+        this(dataManager, assetManager, employeeManager, maintenanceManager, System.getenv("ASSETTRACK_API_TOKEN"));
+    }
+    ApiServer(DataManager dataManager, AssetManager assetManager, EmployeeManager employeeManager, MaintenanceManager maintenanceManager,
+              String token) {
+        this.dataManager = dataManager;
+        this.assetManager = assetManager;
+        this.employeeManager = employeeManager;
+        this.maintenanceManager = maintenanceManager;
+        this.token = token == null || token.isEmpty() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Requests call the managers directly: lookups never block, and mutations only contend on the entity locks
+    // DataManager takes for them. Data is saved on shutdown. Changes are authenticated by the token in
+    // ASSETTRACK_API_TOKEN, sent as "Authorization: Bearer <token>". Without a token every caller is trusted, so the
+    // server then only listens on loopback and refuses deletes.
+    public void start(int port) throws IOException {
+        HttpServer server = listen(BIND, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stop(server);
+            dataManager.saveData();
+            System.out.println("[INFO] Data saved. AssetTrack API stopped.");
+        }));
+        String host = server.getAddress().getAddress().getHostAddress();
+        System.out.println("[INFO] AssetTrack API listening on http://" + (host.indexOf(':') >= 0 ? "[" + host + "]" : host) + ":"
+            + server.getAddress().getPort() + (token == null ? " (no API token: local callers are trusted, deletes are off)" : ""));
+    }
+    // Serves on the given address (loopback when empty) until stop(server).
+    HttpServer listen(String bind, int port) throws IOException {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        InetAddress address = bind.isEmpty() ? InetAddress.getLoopbackAddress() : InetAddress.getByName(bind);
+        if (!address.isLoopbackAddress() && token == null) {
+            throw new IllegalArgumentException("Serving on " + bind + " needs an API token; set ASSETTRACK_API_TOKEN.");
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        server.createContext("/assets", exchange -> handle(exchange, this::routeAssets));
+        server.createContext("/employees", exchange -> handle(exchange, this::routeEmployees));
+        server.createContext("/search", exchange -> handle(exchange, this::routeSearch));
+        server.createContext("/changes", exchange -> handle(exchange, this::routeChanges));
+        // Everything else gets the same JSON 404, on a connection kept open, rather than the server's own response.
+        server.createContext("/", exchange -> handle(exchange, (method, path, params) -> error(404, "Unknown route.")));
+        server.setExecutor(newRequestExecutor());
+        server.start();
+        return server;
+    }
+    static void stop(HttpServer server) {
+        server.stop(1);
+        ((ExecutorService) server.getExecutor()).shutdown();
+    }
+    // Virtual threads when the JDK has them (21+), otherwise a fixed pool of platform threads.
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(16, Runtime.getRuntime().availableProcessors() * 8));
+        }
+    }
+
+    static final class Response {
+        final int status;
+        final String body;
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+    interface Route {
+        Response handle(String method, String[] path, Map<String, String> params);
+    }
+    private void handle(HttpExchange exchange, Route route) throws IOException {
+        Response response;
+        try {
+            String[] path = path(exchange);
+            Map<String, String> params = parseParams(exchange.getRequestURI().getRawQuery());
+            params.putAll(parseParams(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+            String method = exchange.getRequestMethod();
+            response = path == null ? error(404, "Unknown route.")
+                : method.equals("GET") || authorized(exchange) ? route.handle(method, path, params)
+                : error(401, "Changes need the API token (Authorization: Bearer <token>).");
+        } catch (IllegalArgumentException e) {
+            String message = String.valueOf(e.getMessage());
+            response = error(message.contains("not found") ? 404 : 400, message);
+        } catch (RuntimeException e) {
+            response = error(500, "Unexpected error: " + e);
+        }
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // The segments of the request path after its context, or null if it is not one of the context's routes: contexts
+    // match any path starting with them, /assetsX included, and empty segments (/assets//X) name nothing either.
+    private static String[] path(HttpExchange exchange) {
+        String rest = exchange.getRequestURI().getPath().substring(exchange.getHttpContext().getPath().length());
+        if (rest.isEmpty()) {
+            return new String[0];
+        }
+        String[] path = rest.substring(1).split("/", -1);
+        return rest.charAt(0) != '/' || Arrays.asList(path).contains("") ? null : path;
+    }
+
+    private Response routeAssets(String method, String[] path, Map<String, String> params) {
+        if (path.length > 2) {
+            return error(404, "Unknown route.");
+        }
+        if (path.length == 0) {
+            if (method.equals("GET")) {
+                Predicate<Asset> filter = InventoryReports.assetFilter(filterTerms(params, "category", "status", "department"), dataManager);
+                return ok(jsonArray(dataManager.assetPage(params.get("after"), limit(params), filter).stream().map(ApiServer::json)));
+            }
+            if (method.equals("POST")) {
+                return new Response(201, json(assetManager.addAsset(params.get("id"), params.get("name"), params.get("category"), params.get("serial"))));
+            }
+            return error(405, "Method not allowed.");
+        }
+        String id = path[0];
+        String action = path.length > 1 ? path[1] : "";
+        switch (method + " " + action) {
+            case "GET ":
+                Asset asset = assetManager.findAssetById(id);
+                return asset == null ? error(404, "Asset ID " + id.toUpperCase() + " not found.") : ok(json(asset));
+            case "DELETE ":
+                return requireAdmin(() -> ok(json(assetManager.deleteAsset(id))));
+            case "GET history":
+                List<MaintenanceRecord> history = dataManager.getMaintenanceHistory(id);
+                StringBuilder out = new StringBuilder("[");
+                for (int i = history.size() - 1; i >= 0; i--) {
+                    out.append(i == history.size() - 1 ? "" : ",").append(json(history.get(i)));
+                }
+                return ok(out.append(']').toString());
+            case "GET audit":
+                if (params.containsKey("at")) {
+                    AuditLog.State state = dataManager.getAuditLog().stateAt(id, AuditLog.parseTime(params.get("at")));
+                    if (state == null) {
+                        throw new IllegalArgumentException("Asset ID " + id.toUpperCase() + " not found in the audit log at " + params.get("at") + ".");
+                    }
+                    return ok(json(state));
+                }
+                return ok(jsonArray(dataManager.getAuditLog().trail(id).stream().map(ApiServer::json)));
+            case "POST assign":
+                return ok(json(assetManager.assignAsset(id, params.get("employee"), employeeManager)));
+            case "POST deassign":
+                return ok(json(assetManager.deassignAsset(id)));
+            case "POST status":
+                return ok(json(assetManager.updateAssetStatus(id, params.get("status"))));
+            case "POST maintenance":
+                double cost = parseCost(params.get("cost"));
+                return new Response(201, json(maintenanceManager.recordMaintenance(id, params.get("description"), cost,
+                    LocalDateTime.now(), assetManager)));
+            default:
+                return error(404, "Unknown route.");
+        }
+    }
+
+    private Response routeEmployees(String method, String[] path, Map<String, String> params) {
+        if (path.length > 2) {
+            return error(404, "Unknown route.");
+        }
+        if (path.length == 0) {
+            if (method.equals("GET")) {
+                Predicate<Employee> filter = InventoryReports.employeeFilter(filterTerms(params, "department"));
+                return ok(jsonArray(dataManager.employeePage(params.get("after"), limit(params), filter).stream().map(ApiServer::json)));
+            }
+            if (method.equals("POST")) {
+                return new Response(201, json(employeeManager.addEmployee(params.get("id"), params.get("name"),
+                    params.get("department"), params.get("email"))));
+            }
+            return error(405, "Method not allowed.");
+        }
+        String id = path[0];
+        String action = path.length > 1 ? path[1] : "";
+        switch (method + " " + action) {
+            case "GET ":
+                Employee employee = employeeManager.findEmployeeById(id);
+                return employee == null ? error(404, "Employee ID " + id.toUpperCase() + " not found.") : ok(json(employee));
+            case "GET assets":
+                return employeeManager.findEmployeeById(id) == null ? error(404, "Employee ID " + id.toUpperCase() + " not found.")
+                    : ok(jsonArray(dataManager.getAssetsAssignedTo(id).stream().map(ApiServer::json)));
+            case "GET custody":
+                long from = params.containsKey("at") ? AuditLog.parseTime(params.get("at")) : params.containsKey("from") ? AuditLog.parseTime(params.get("from")) : Long.MIN_VALUE;
+                long to = params.containsKey("at") ? from : params.containsKey("to") ? AuditLog.parseTime(params.get("to")) : Long.MAX_VALUE;
+                return ok(jsonArray(dataManager.getAuditLog().custodyOf(id, from, to).stream().map(ApiServer::json)));
+            case "DELETE ":
+                return requireAdmin(() -> ok(json(employeeManager.deleteEmployee(id))));
+            default:
+                return error(404, "Unknown route.");
+        }
+    }
+
+    // GET /search?q=...&limit=n returns {"assets":[...],"employees":[...]}, using the CLI's search syntax.
+    private Response routeSearch(String method, String[] path, Map<String, String> params) {
+        if (path.length != 0) {
+            return error(404, "Unknown route.");
+        }
+        if (!method.equals("GET")) {
+            return error(405, "Method not allowed.");
+        }
+        SearchIndex.Results results = dataManager.getSearchIndex().search(dataManager, params.get("q"), Math.max(1, limit(params)));
+        return ok("{\"assets\":" + jsonArray(results.assets.stream().map(ApiServer::json))
+            + ",\"employees\":" + jsonArray(results.employees.stream().map(ApiServer::json))
+            + ",\"truncated\":" + (results.moreAssets || results.moreEmployees) + "}");
+    }
+
+    // GET /changes?epoch=...&since=n returns the assets and employees changed and the IDs deleted after version n. A
+    // client starts with no epoch, takes a full copy when "full" is true, and passes back the epoch and version it got.
+    private Response routeChanges(String method, String[] path, Map<String, String> params) {
+        if (path.length != 0) {
+            return error(404, "Unknown route.");
+        }
+        if (!method.equals("GET")) {
+            return error(405, "Method not allowed.");
+        }
+        long since;
+        try {
+            since = Long.parseLong(params.getOrDefault("since", "0"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid since version.");
+        }
+        ChangeTracker.Delta delta = dataManager.changesSince(params.getOrDefault("epoch", ""), since);
+        return ok("{\"epoch\":" + quote(delta.epoch) + ",\"version\":" + delta.version + ",\"full\":" + delta.full
+            + ",\"assets\":" + jsonArray(delta.assets.stream().map(ApiServer::json))
+            + ",\"employees\":" + jsonArray(delta.employees.stream().map(ApiServer::json))
+            + ",\"deletedAssets\":" + jsonArray(delta.deletedAssets.stream().map(ApiServer::quote))
+            + ",\"deletedEmployees\":" + jsonArray(delta.deletedEmployees.stream().map(ApiServer::quote)) + "}");
+    }
+
+    private boolean authorized(HttpExchange exchange) {
+        if (token == null) {
+            return true;
+        }
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && header.startsWith("Bearer ")
+            && MessageDigest.isEqual(token, header.substring(7).trim().getBytes(StandardCharsets.UTF_8));
+    }
+    // Deletes are Admin-only, as in the CLI. Holding the API token is what makes a caller Admin, so without one
+    // there is no Admin to allow them.
+    private Response requireAdmin(Supplier<Response> action) {
+        if (token == null) {
+            return error(403, "Deletes through the API need an API token; start the server with ASSETTRACK_API_TOKEN set.");
+        }
+        return action.get();
+    }
+    private static Map<String, String> filterTerms(Map<String, String> params, String... fields) {
+        Map<String, String> terms = new LinkedHashMap<>();
+        for (String field : fields) {
+            if (params.containsKey(field)) {
+                terms.put(field, params.get(field));
+            }
+        }
+        return terms;
+    }
+    private static int limit(Map<String, String> params) {
+        try {
+            return Math.max(0, Math.min(MAX_LIST, Integer.parseInt(params.getOrDefault("limit", "100"))));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid limit.");
+        }
+    }
+    private static double parseCost(String value) {
+        try {
+            return Double.parseDouble(DataManager.requireText(value, "Cost cannot be empty."));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cost must be a valid non-negative number.");
+        }
+    }
+    private static Map<String, String> parseParams(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static Response ok(String body) {
+        return new Response(200, body);
+    }
+    private static Response error(int status, String message) {
+        return new Response(status, "{\"error\":" + quote(message) + "}");
+    }
+    static String json(Asset asset) {
+        return "{\"id\":" + quote(asset.getAssetId()) + ",\"name\":" + quote(asset.getName()) + ",\"category\":" + quote(asset.getCategory())
+            + ",\"serialNumber\":" + quote(asset.getSerialNumber()) + ",\"status\":" + quote(asset.getStatus())
+            + ",\"assignedTo\":" + quote(asset.getAssignedTo()) + "}";
+    }
+    static String json(Employee employee) {
+        return "{\"id\":" + quote(employee.getEmployeeId()) + ",\"name\":" + quote(employee.getName()) + ",\"department\":"
+            + quote(employee.getDepartment()) + ",\"email\":" + quote(employee.getEmail()) + "}";
+    }
+    static String json(MaintenanceRecord record) {
+        return "{\"id\":" + quote(record.getRecordId()) + ",\"assetId\":" + quote(record.getAssetId()) + ",\"date\":"
+            + quote(record.getDateFormatted()) + ",\"description\":" + quote(record.getDescription()) + ",\"cost\":"
+            + String.format(Locale.ROOT, "%.2f", record.getCost()) + "}";
+    }
+    static String json(AuditLog.State state) {
+        return "{\"assetId\":" + quote(state.assetId) + ",\"since\":" + quote(AuditLog.formatTime(state.since)) + ",\"status\":"
+            + quote(state.status) + ",\"holder\":" + quote(state.holder) + "}";
+    }
+    static String json(AuditLog.Custody custody) {
+        return "{\"assetId\":" + quote(custody.assetId) + ",\"from\":" + quote(AuditLog.formatTime(custody.from)) + ",\"until\":"
+            + (custody.until == Long.MAX_VALUE ? "null" : quote(AuditLog.formatTime(custody.until))) + "}";
+    }
+    static String jsonArray(java.util.stream.Stream<String> items) {
+        return items.collect(Collectors.joining(",", "[", "]"));
+    }
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"').toString();
+    }
+}
+
+class LoadGenerator {
+    private static final Pattern ID_FIELD = Pattern.compile("\"id\":\"([^\"]+)\"");
+
+    // Hammers the read endpoints of a running "serve" instance from several threads and reports throughput and latency.
+    static void run(String baseUrl, int threads, int seconds) throws IOException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        List<String> assetIds = fetchIds(client, baseUrl + "/assets?limit=1000");
+        List<String> employeeIds = fetchIds(client, baseUrl + "/employees?limit=1000");
+        if (assetIds.isEmpty()) {
+            System.err.println("[ERROR] The server has no assets to query.");
+            return;
+        }
+        LongAdder requests = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long[][] latencies = new long[threads][];
+        int[] counts = new int[threads];
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            latencies[worker] = new long[1 << 18];
+            pool.execute(() -> {
+                Random random = new Random(worker);
+                while (System.nanoTime() < deadline) {
+                    String path;
+                    int kind = random.nextInt(3);
+                    if (kind == 2 && !employeeIds.isEmpty()) {
+                        path = "/employees/" + employeeIds.get(random.nextInt(employeeIds.size())) + "/assets";
+                    } else {
+                        path = "/assets/" + assetIds.get(random.nextInt(assetIds.size())) + (kind == 1 ? "/history" : "");
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(),
+                            HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 200) {
+                            errors.increment();
+                        }
+                    } catch (IOException | InterruptedException e) {
+                        errors.increment();
+                    }
+                    if (counts[worker] < latencies[worker].length) {
+                        latencies[worker][counts[worker]++] = System.nanoTime() - start;
+                    }
+                    requests.increment();
+                }
+            });
+        }
+        pool.shutdown();
+        try {
+            pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long[] all = new long[Arrays.stream(counts).sum()];
+        int offset = 0;
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(latencies[t], 0, all, offset, counts[t]);
+            offset += counts[t];
+        }
+        Arrays.sort(all);
+        System.out.printf("[LOADGEN] %d thread(s), %d s: %,d requests (%,.0f req/s), %,d errors, p50 %.2f ms, p99 %.2f ms%n",
+            threads, seconds, requests.sum(), requests.sum() / (double) seconds, errors.sum(),
+            percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6);
+    }
+    private static long percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+    private static List<String> fetchIds(HttpClient client, String url) throws IOException {
+        try {
+            String body = client.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString()).body();
+            List<String> ids = new ArrayList<>();
+            java.util.regex.Matcher matcher = ID_FIELD.matcher(body);
+            while (matcher.find()) {
+                ids.add(matcher.group(1));
+            }
+            return ids;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + url);
+        }
+    }
+}
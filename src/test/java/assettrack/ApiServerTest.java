@@ -0,0 +1,143 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The HTTP API on an ephemeral loopback port: only exact routes are served, changes need the bearer token when the
+// server has one, deletes are refused when it has none, and it will not bind beyond loopback without one.
+class ApiServerTest {
+    private static final String TOKEN = "s3cret-token";
+
+    @TempDir
+    Path dir;
+
+    private DataManager dataManager;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @BeforeEach
+    void populate() {
+        dataManager = new DataManager(dir, 0);
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            Inventories.populate(dataManager, 100);
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    @AfterEach
+    void stop() {
+        servers.forEach(ApiServer::stop);
+        dataManager.flush();
+    }
+
+    @Test
+    void onlyExactRoutesAreServed() throws Exception {
+        String base = serve(null);
+        String id = Inventories.assetId(1);
+        String status = dataManager.findAsset(id).getStatus();
+        assertEquals(200, get(base + "/assets/" + id).statusCode());
+        assertEquals(200, get(base + "/assets/" + id + "/history").statusCode());
+        assertEquals(200, get(base + "/assets").statusCode());
+        assertEquals(200, get(base + "/employees/" + Inventories.employeeId(1) + "/assets").statusCode());
+        assertEquals(200, get(base + "/changes").statusCode());
+
+        List<String> served = new ArrayList<>();
+        for (String path : List.of("/assets" + id, "/assetsX", "/assets/" + id + "/history/more", "/assets/" + id + "/nothing",
+                "/assets//" + id, "/assets/" + id + "/", "/employees" + Inventories.employeeId(1), "/employees/" + Inventories.employeeId(1) + "/assets/x",
+                "/searchX", "/search/x", "/changesX", "/changes/x", "/unknown")) {
+            HttpResponse<String> response = get(base + path);
+            if (response.statusCode() != 404) {
+                served.add(path + " -> " + response.statusCode() + " " + response.body());
+            }
+        }
+        assertEquals(List.of(), served);
+        HttpResponse<String> post = send(HttpRequest.newBuilder(URI.create(base + "/assets" + id + "/status"))
+            .POST(HttpRequest.BodyPublishers.ofString("status=Retired")));
+        assertEquals(404, post.statusCode());
+        assertEquals(status, dataManager.findAsset(id).getStatus());
+    }
+
+    @Test
+    void changesNeedTheBearerToken() throws Exception {
+        String base = serve(TOKEN);
+        String id = Inventories.assetId(2);
+        String status = dataManager.findAsset(id).getStatus();
+        assertEquals(401, post(base + "/assets/" + id + "/status", "status=Retired", null).statusCode());
+        assertEquals(401, post(base + "/assets/" + id + "/status", "status=Retired", "Bearer wrong-token").statusCode());
+        assertEquals(401, post(base + "/assets/" + id + "/status", "status=Retired", TOKEN).statusCode());
+        assertEquals(401, post(base + "/assets/" + id + "/status", "status=Retired", "Basic " + TOKEN).statusCode());
+        assertEquals(status, dataManager.findAsset(id).getStatus());
+        assertEquals(401, send(HttpRequest.newBuilder(URI.create(base + "/assets/" + id)).DELETE()).statusCode());
+        assertNotNull(dataManager.findAsset(id));
+
+        assertEquals(200, get(base + "/assets/" + id).statusCode(), "lookups need no token");
+        assertEquals(200, post(base + "/assets/" + id + "/status", "status=Retired", "Bearer " + TOKEN).statusCode());
+        assertEquals("Retired", dataManager.findAsset(id).getStatus());
+        HttpResponse<String> deleted = send(HttpRequest.newBuilder(URI.create(base + "/assets/" + id)).DELETE()
+            .header("Authorization", "Bearer " + TOKEN));
+        assertEquals(200, deleted.statusCode(), deleted.body());
+        assertNull(dataManager.findAsset(id));
+    }
+
+    @Test
+    void withoutATokenDeletesAreRefusedAndOnlyLoopbackIsServed() throws Exception {
+        String base = serve(null);
+        String id = Inventories.assetId(3);
+        HttpResponse<String> refused = send(HttpRequest.newBuilder(URI.create(base + "/assets/" + id)).DELETE());
+        assertEquals(403, refused.statusCode());
+        assertTrue(refused.body().contains("API token"), refused.body());
+        assertNotNull(dataManager.findAsset(id));
+        assertEquals(200, post(base + "/assets/" + id + "/status", "status=In Maintenance", null).statusCode(), "local callers are trusted");
+
+        assertTrue(servers.get(0).getAddress().getAddress().isLoopbackAddress());
+        ApiServer open = new ApiServer(dataManager, new AssetManager(dataManager), new EmployeeManager(dataManager),
+            new MaintenanceManager(dataManager), null);
+        assertThrows(IllegalArgumentException.class, () -> open.listen("0.0.0.0", 0));
+    }
+
+    private String serve(String token) throws IOException {
+        ApiServer api = new ApiServer(dataManager, new AssetManager(dataManager), new EmployeeManager(dataManager),
+            new MaintenanceManager(dataManager), token);
+        HttpServer server = api.listen(ApiServer.BIND, 0);
+        servers.add(server);
+        String host = server.getAddress().getAddress().getHostAddress();
+        return "http://" + (host.indexOf(':') >= 0 ? "[" + host + "]" : host) + ":" + server.getAddress().getPort();
+    }
+
+    private HttpResponse<String> get(String url) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(url)).GET());
+    }
+    private HttpResponse<String> post(String url, String form, String authorization) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form.replace(" ", "+")));
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        return send(request);
+    }
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
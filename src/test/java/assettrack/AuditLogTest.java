@@ -0,0 +1,106 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Years of generated assignment and status changes written to an audit log. The index must be rebuilt from the
+// checkpoint plus only the events after it, and point-in-time and custody answers must match a replay of the events.
+class AuditLogTest {
+    private static final int ASSETS = 2_000;
+    private static final int EMPLOYEES = ASSETS / 10;
+    private static final long END = LocalDateTime.of(2025, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+    private static final long BEGIN = END - 5 * 365L * 86_400_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void answersMatchReplayOfTheEvents() throws Exception {
+        Path log = dir.resolve("audit.log");
+        Inventories.writeAuditEvents(log, ASSETS, EMPLOYEES, BEGIN, END);
+        Files.deleteIfExists(dir.resolve("audit.idx"));
+        assertTrue(open(log).getReplayedLines() > AuditLog.CHECKPOINT_EVENTS, "the first query replays the whole log");
+        assertEquals(0, open(log).getReplayedLines(), "the next one starts from the checkpoint it wrote");
+        AuditLog appender = new AuditLog(log);
+        for (int i = 0; i < AuditLog.CHECKPOINT_EVENTS - 1; i++) {
+            appender.record(END + i, Inventories.assetId(i % ASSETS), i % 2 == 0 ? "Unassigned" : "In Maintenance", null);
+        }
+        appender.commit();
+        AuditLog tail = open(log);
+        assertEquals(AuditLog.CHECKPOINT_EVENTS - 1, tail.getReplayedLines(), "only the events past the checkpoint are replayed");
+
+        Random random = new Random(11);
+        List<String> wrong = new ArrayList<>();
+        Map<String, List<String>> expectedCustody = new HashMap<>();
+        for (int asset = 0; asset < ASSETS; asset++) {
+            String assetId = Inventories.assetId(asset);
+            List<Long> times = new ArrayList<>();
+            List<String[]> states = new ArrayList<>();
+            Inventories.auditEvents(asset, EMPLOYEES, BEGIN, END, (time, status, holder) -> {
+                times.add(time);
+                states.add(new String[] {status, holder});
+            });
+            String previousHolder = null;
+            long heldFrom = 0;
+            for (int i = 0; i < states.size(); i++) {
+                String holder = states.get(i)[1];
+                long time = times.get(i);
+                if (!Objects.equals(holder, previousHolder)) {
+                    if (previousHolder != null) {
+                        expectedCustody.computeIfAbsent(previousHolder, k -> new ArrayList<>()).add(assetId + "@" + heldFrom + "-" + time);
+                    }
+                    heldFrom = time;
+                    previousHolder = holder;
+                }
+            }
+            if (previousHolder != null) {
+                expectedCustody.computeIfAbsent(previousHolder, k -> new ArrayList<>()).add(assetId + "@" + heldFrom + "-open");
+            }
+            for (int q = 0; q < 10; q++) {
+                long at = BEGIN + (long) (random.nextDouble() * (END - BEGIN));
+                String[] expected = null;
+                for (int i = 0; i < times.size() && times.get(i) <= at; i++) {
+                    expected = states.get(i);
+                }
+                AuditLog.State state = tail.stateAt(assetId, at);
+                boolean same = expected == null ? state == null
+                    : state != null && state.status.equals(expected[0]) && Objects.equals(state.holder, expected[1]);
+                if (!same) {
+                    wrong.add(assetId + " at " + at);
+                }
+            }
+        }
+        assertEquals(List.of(), wrong, "point-in-time answers differing from the replay");
+
+        for (int employee = 0; employee < EMPLOYEES; employee++) {
+            String employeeId = Inventories.employeeId(employee);
+            List<String> found = tail.custodyOf(employeeId, Long.MIN_VALUE, END + 1).stream()
+                .map(custody -> custody.assetId + "@" + custody.from + "-" + (custody.until > END ? "open" : String.valueOf(custody.until)))
+                .sorted().collect(Collectors.toList());
+            List<String> wanted = expectedCustody.getOrDefault(employeeId, new ArrayList<>());
+            wanted.sort(null);
+            assertEquals(wanted, found, employeeId);
+        }
+    }
+
+    // Opens the log afresh and queries it once, which builds the index.
+    private static AuditLog open(Path log) {
+        AuditLog audit = new AuditLog(log);
+        audit.stateAt(Inventories.assetId(0), Long.MAX_VALUE);
+        return audit;
+    }
+}
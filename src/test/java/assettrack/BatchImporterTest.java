@@ -0,0 +1,162 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Bulk import: rejected rows are reported with their file and line number while the rest go in, the batch is saved
+// with one write and nothing journaled, and an import that fails part way leaves the inventory, in memory and on
+// disk, as it was before it started.
+class BatchImporterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void rejectedRowsAreReportedWithTheirLineNumbers() throws IOException {
+        DataManager dataManager = new DataManager(dir.resolve("data"), 0);
+        Path employees = csv("employees.csv",
+            "employeeId,name,department,email",
+            "EMP-000001,Ada Lovelace,Eng,ada@example.com",
+            "emp-000001,Ada Again,Eng,ada2@example.com",
+            "",
+            "EMP-000002,,Eng,nobody@example.com",
+            "EMP-000003,\"Grace \"\"Amazing\"\" Hopper\",Eng,grace@example.com");
+        Path assets = csv("assets.csv",
+            "name,assetId,serial,category",
+            "Laptop,lap-001,SN-1,IT",
+            "Desk,\"DSK-001\",NONE,\"Furniture, Oak\"",
+            "Chair,LAP-001,SN-2,Furniture",
+            "Monitor,MON-001,SN-3");
+        Path maintenance = csv("maintenance.csv",
+            "assetId,description,cost,date",
+            "LAP-001,Battery,120.50,2024-02-29 10:15:00",
+            "LAP-001,Screen,abc,",
+            "NOPE-001,Fan,10,",
+            "LAP-001,Keyboard,-5,",
+            "LAP-001,Hinge,15,29/02/2024",
+            "LAP-001,Cleaning,0,");
+
+        String[] report = new String[1];
+        BooleanSupplier importing = () -> importer(dataManager).importFiles(employees.toString(), assets.toString(), maintenance.toString());
+        assertFalse(run(importing, report), "an import with rejected rows reports failure");
+
+        assertEquals(List.of("employees.csv line 3", "employees.csv line 5", "assets.csv line 3", "assets.csv line 4",
+            "assets.csv line 5", "maintenance.csv line 3", "maintenance.csv line 4", "maintenance.csv line 5", "maintenance.csv line 6"),
+            report[0].lines().filter(line -> line.startsWith("[REJECTED] "))
+                .map(line -> line.substring("[REJECTED] ".length(), line.indexOf(':'))).collect(Collectors.toList()));
+        assertTrue(report[0].contains("assets.csv line 3: Column 'category' contains a comma"), report[0]);
+        assertEquals("Grace \"Amazing\" Hopper", dataManager.findEmployee("EMP-000003").getName());
+        assertEquals("Ada Lovelace", dataManager.findEmployee("EMP-000001").getName());
+        assertNull(dataManager.findAsset("DSK-001"));
+        assertEquals("In Maintenance", dataManager.findAsset("LAP-001").getStatus());
+        assertEquals(List.of("Battery", "Cleaning"), dataManager.getMaintenanceHistory("LAP-001").stream()
+            .map(MaintenanceRecord::getDescription).sorted().collect(Collectors.toList()));
+        assertEquals(Inventories.contents(dataManager), Inventories.contents(load(dir.resolve("data"))));
+    }
+
+    @Test
+    void theBatchIsSavedWithOneWrite() throws IOException {
+        Path data = dir.resolve("data");
+        DataManager dataManager = new DataManager(data, 0);
+        String[] rows = new String[1_001];
+        rows[0] = "assetId,name,category,serial";
+        for (int i = 1; i < rows.length; i++) {
+            rows[i] = Inventories.assetId(i) + ",Asset " + i + ",IT,SN-" + i;
+        }
+        Path assets = csv("assets.csv", rows);
+        long saves = Metrics.timer("data.save").count();
+
+        assertTrue(run(() -> importer(dataManager).importFiles(assets.toString()), new String[1]));
+        if (Metrics.ENABLED) {
+            assertEquals(saves + 1, Metrics.timer("data.save").count(), "one save for the whole batch");
+        }
+        Path journal = data.resolve("inventory.journal");
+        assertTrue(!Files.exists(journal) || Files.size(journal) == 0, "rows were journaled one by one");
+        assertEquals(rows.length - 1, load(data).getAssets().size());
+    }
+
+    @Test
+    void aFailedImportLeavesTheInventoryAsItWas() throws IOException {
+        Path data = dir.resolve("data");
+        DataManager dataManager = new DataManager(data, 0);
+        run(() -> {
+            Inventories.populate(dataManager, 200);
+            dataManager.saveData();
+            return true;
+        }, new String[1]);
+        // A change journaled but not saved yet must survive the reload too.
+        new AssetManager(dataManager).updateAssetStatus(Inventories.assetId(1), "Retired");
+        dataManager.flush();
+        Set<String> before = Inventories.contents(dataManager);
+        Path journal = data.resolve("inventory.journal");
+        byte[] journaled = Files.readAllBytes(journal);
+
+        Path assets = csv("assets.csv", "assetId,name,category,serial", "NEW-001,Laptop,IT,SN-1", "NEW-002,Laptop,IT,SN-2");
+        Path records = csv("maintenance.csv", "assetId,description,cost", Inventories.assetId(2) + ",Battery,10");
+        String[] report = new String[1];
+        assertFalse(run(() -> importer(dataManager).importFiles(assets.toString(), records.toString(), dir.resolve("missing.csv").toString()), report));
+
+        assertTrue(report[0].contains("[ERROR] Import aborted, nothing was saved"), report[0]);
+        assertEquals(before, Inventories.contents(dataManager));
+        assertNull(dataManager.findAsset("NEW-001"));
+        assertArrayEquals(journaled, Files.readAllBytes(journal));
+        assertEquals(before, Inventories.contents(load(data)));
+
+        // Batch mode ended with the abort, so changes are journaled again.
+        new AssetManager(dataManager).updateAssetStatus(Inventories.assetId(3), "Retired");
+        dataManager.flush();
+        assertTrue(Files.size(journal) > journaled.length);
+        assertEquals(Inventories.contents(dataManager), Inventories.contents(load(data)));
+    }
+
+    private Path csv(String name, String... lines) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static BatchImporter importer(DataManager dataManager) {
+        return new BatchImporter(dataManager, new AssetManager(dataManager), new EmployeeManager(dataManager), new MaintenanceManager(dataManager));
+    }
+
+    private static DataManager load(Path data) {
+        DataManager dataManager = new DataManager(data, 0);
+        run(() -> {
+            dataManager.loadData();
+            return true;
+        }, new String[1]);
+        return dataManager;
+    }
+
+    // Runs quietly; report gets what was printed to System.err.
+    private static boolean run(BooleanSupplier action, String[] report) {
+        PrintStream console = System.out;
+        PrintStream errors = System.err;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setErr(new PrintStream(captured, true, StandardCharsets.UTF_8));
+        try {
+            return action.getAsBoolean();
+        } finally {
+            System.setOut(console);
+            System.setErr(errors);
+            report[0] = captured.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
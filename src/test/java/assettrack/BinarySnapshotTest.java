@@ -0,0 +1,143 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The binary snapshot format against the text one: converting text to binary and back gives the same file, costs are
+// rounded to the cent alike in both, and a binary file cut short anywhere in its body is reported damaged, with only
+// what precedes the cut recovered.
+class BinarySnapshotTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void textSurvivesARoundTripThroughBinary() throws IOException {
+        List<Asset> assets = List.of(
+            new Asset("AST-0000001", "Café Ωmega laptop", "IT", "SN-ÄÖÜ-1", "Unassigned", null),
+            new Asset("AST-0000002", "東京 projector", "AV", "SN-2", "Assigned", "EMP-000001"),
+            new Asset("AST-0000003", "Chair", "Furniture", "SN-3", "Retired", null));
+        List<Employee> employees = List.of(
+            new Employee("EMP-000001", "Zoë Ångström", "Forschung & Entwicklung", "zoe@example.com"),
+            new Employee("EMP-000002", "Иван Петров", "Логистика", "ivan@example.com"));
+        List<MaintenanceRecord> records = List.of(
+            new MaintenanceRecord(new UUID(1, 2).toString(), "AST-0000001", LocalDateTime.of(2024, 2, 29, 23, 59, 59), "Écran remplacé — 🙂", 149.99),
+            new MaintenanceRecord("legacy-42", "AST-0000002", LocalDateTime.of(1969, 12, 31, 23, 59, 59), "Refund", -15.75),
+            new MaintenanceRecord(UUID.randomUUID().toString().toUpperCase(), "AST-GONE", LocalDateTime.of(2099, 1, 1, 0, 0), "ü".repeat(200), 0.0),
+            new MaintenanceRecord(new UUID(3, 4).toString(), "AST-0000001", LocalDateTime.of(2024, 3, 1, 8, 0), "Écran remplacé — 🙂", -0.01));
+        Path text = dir.resolve("inventory.txt");
+        Path binary = dir.resolve("inventory.bin");
+        Path back = dir.resolve("back.txt");
+        DataManager.writeTextSnapshot(text, assets, employees, records);
+        quietly(() -> {
+            BinarySnapshot.convert(text, binary);
+            BinarySnapshot.convert(binary, back);
+        });
+
+        assertEquals(Files.readAllLines(text, StandardCharsets.UTF_8), Files.readAllLines(back, StandardCharsets.UTF_8));
+        InventoryLoader.Result read = DataManager.readSnapshot(binary);
+        assertEquals(List.of(), read.warnings);
+        assertTrue(read.verified);
+        assertEquals(lines(assets, employees, records), lines(read.assets, read.employees, read.records));
+        assertNull(read.assets.get(0).getAssignedTo());
+        assertEquals("Zoë Ångström", read.employees.get(0).getName());
+        assertEquals(-15.75, read.records.get(1).getCost());
+    }
+
+    @Test
+    void costsAreRoundedToTheCentAlikeInBothFormats() throws IOException {
+        double[] costs = {1.005, 2.675, -3.335, 0.125, -0.125, 0.004, 1e-9, 99_999_999.995, -1234.5678, 0.1 + 0.2, -0.004};
+        List<MaintenanceRecord> records = new ArrayList<>();
+        for (int i = 0; i < costs.length; i++) {
+            records.add(new MaintenanceRecord(new UUID(0, i).toString(), "AST-0000001", LocalDateTime.of(2024, 1, 1, 8, 0).plusDays(i), "Cost " + i, costs[i]));
+        }
+        List<Asset> assets = List.of(new Asset("AST-0000001", "Laptop", "IT", "SN-1", "Unassigned", null));
+        Path text = dir.resolve("inventory.txt");
+        Path binary = dir.resolve("inventory.bin");
+        Path back = dir.resolve("back.txt");
+        DataManager.writeTextSnapshot(text, assets, List.of(), records);
+        BinarySnapshot.write(binary, assets, List.of(), records, records.size());
+        quietly(() -> BinarySnapshot.convert(binary, back));
+
+        assertEquals(Files.readAllLines(text, StandardCharsets.UTF_8), Files.readAllLines(back, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void aTruncatedBinarySnapshotIsReportedDamaged() throws IOException {
+        List<Asset> assets = new ArrayList<>();
+        List<Employee> employees = new ArrayList<>();
+        List<MaintenanceRecord> records = new ArrayList<>();
+        Random random = new Random(17);
+        for (int i = 0; i < 200; i++) {
+            employees.add(new Employee(Inventories.employeeId(i), "Employee " + i, "Dept " + i % 7, "e" + i + "@example.com"));
+        }
+        for (int i = 0; i < 2_000; i++) {
+            assets.add(new Asset(Inventories.assetId(i), "Asset " + i, "IT", "SN-" + i, "Unassigned", null));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            records.add(new MaintenanceRecord(new UUID(random.nextLong(), random.nextLong()).toString(), Inventories.assetId(random.nextInt(2_000)),
+                LocalDateTime.of(2020, 1, 1, 0, 0).plusMinutes(random.nextInt(1_000_000)), "Service " + random.nextInt(5_000), random.nextInt(100_000) / 100.0));
+        }
+        Path binary = dir.resolve("inventory.bin");
+        BinarySnapshot.write(binary, assets, employees, records, records.size());
+        byte[] content = Files.readAllBytes(binary);
+        Set<String> written = new HashSet<>(lines(assets, employees, records));
+        List<String> failures = new ArrayList<>();
+        for (int cut : new int[] {BinarySnapshot.HEADER + 1, BinarySnapshot.HEADER + 8, content.length / 3, content.length / 2, content.length - 1}) {
+            byte[] truncated = Arrays.copyOf(content, cut);
+            long[] damagedAt = {-1};
+            BlockFormat.unframe(ByteBuffer.wrap(truncated), BinarySnapshot.HEADER, damagedAt);
+            Path file = dir.resolve("cut-" + cut + ".bin");
+            Files.write(file, truncated);
+            InventoryLoader.Result read = DataManager.readSnapshot(file);
+            List<String> recovered = lines(read.assets, read.employees, read.records);
+            if (damagedAt[0] < BinarySnapshot.HEADER) {
+                failures.add("cut at " + cut + ": unframe found no damaged block");
+            } else if (!read.damaged || read.warnings.stream().noneMatch(warning -> warning.startsWith("[ERROR]"))) {
+                failures.add("cut at " + cut + ": the read was not reported damaged");
+            } else if (recovered.size() >= written.size() || !written.containsAll(recovered)) {
+                failures.add("cut at " + cut + ": recovered " + recovered.size() + " of " + written.size() + " items, not all of them written");
+            }
+        }
+        assertEquals(List.of(), failures);
+    }
+
+    private static List<String> lines(List<Asset> assets, List<Employee> employees, List<MaintenanceRecord> records) {
+        List<String> lines = new ArrayList<>();
+        assets.forEach(asset -> lines.add(asset.toString()));
+        employees.forEach(employee -> lines.add(employee.toString()));
+        records.forEach(record -> lines.add(record.toString()));
+        return lines;
+    }
+
+    private interface Action {
+        void run() throws IOException;
+    }
+    private static void quietly(Action action) throws IOException {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(console);
+        }
+    }
+}
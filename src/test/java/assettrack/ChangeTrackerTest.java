@@ -0,0 +1,146 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Incremental saves and deltas: a change marks only its own segment for the next save, changesSince lists what was
+// upserted and deleted after a version, and a client whose version the tracker can no longer answer for - older than
+// the oldest tombstone kept, or from before a reload - is told to fetch everything.
+class ChangeTrackerTest {
+    private static final int ASSETS = 2_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void aChangeRewritesOnlyItsSegment() throws IOException {
+        DataManager dataManager = new DataManager(dir, 0);
+        quietly(() -> {
+            Inventories.populate(dataManager, ASSETS);
+            dataManager.saveData();
+        });
+        Map<Path, byte[]> before = segments();
+        assertTrue(before.size() > DataManager.SEGMENTS / 2, before.size() + " segment files");
+        String assetId = Inventories.assetId(17);
+        new AssetManager(dataManager).updateAssetStatus(assetId, "Retired");
+        quietly(dataManager::saveData);
+
+        Map<Path, byte[]> after = segments();
+        Set<String> rewritten = new TreeSet<>();
+        after.forEach((path, content) -> {
+            if (!Arrays.equals(content, before.get(path))) {
+                rewritten.add(path.getFileName().toString());
+            }
+        });
+        assertEquals(Set.of(String.format("inventory-%02d.%s", DataManager.segmentOf(assetId), DataManager.BINARY_FORMAT ? "bin" : "txt")), rewritten);
+        assertEquals(before.keySet(), after.keySet());
+    }
+
+    @Test
+    void changesSinceListsUpsertsAndTombstonesAfterAVersion() {
+        DataManager dataManager = new DataManager(dir, 0);
+        quietly(() -> {
+            Inventories.populate(dataManager, ASSETS);
+            dataManager.saveData();
+        });
+        AssetManager assetManager = new AssetManager(dataManager);
+        EmployeeManager employeeManager = new EmployeeManager(dataManager);
+        assetManager.updateAssetStatus(Inventories.assetId(1), "In Maintenance");
+        ChangeTracker.Delta start = dataManager.changesSince("", 0);
+        assertTrue(start.full, "an unknown epoch gets everything");
+
+        assetManager.updateAssetStatus(Inventories.assetId(2), "In Maintenance");
+        assetManager.updateAssetStatus(Inventories.assetId(2), "Retired");
+        assetManager.deleteAsset(Inventories.assetId(3));
+        assetManager.deleteAsset(Inventories.assetId(4));
+        assetManager.addAsset(Inventories.assetId(4), "Replacement", "IT", "SN-R4");
+        employeeManager.addEmployee("EMP-900000", "New Hire", "Ops", "new@example.com");
+        employeeManager.addEmployee("EMP-900001", "Temp", "Ops", "temp@example.com");
+        employeeManager.deleteEmployee("EMP-900001");
+        ChangeTracker.Delta delta = dataManager.changesSince(start.epoch, start.version);
+
+        assertFalse(delta.full);
+        assertEquals(start.epoch, delta.epoch);
+        assertTrue(delta.version > start.version);
+        assertEquals(List.of(Inventories.assetId(2) + " Retired", Inventories.assetId(4) + " Unassigned"),
+            delta.assets.stream().map(asset -> asset.getAssetId() + " " + asset.getStatus()).sorted().collect(Collectors.toList()));
+        assertEquals(List.of(Inventories.assetId(3), Inventories.assetId(4)), delta.deletedAssets);
+        assertEquals(List.of("EMP-900000"), delta.employees.stream().map(Employee::getEmployeeId).collect(Collectors.toList()));
+        assertEquals(List.of("EMP-900001"), delta.deletedEmployees);
+
+        // Nothing since the delta's own version; a later deletion replaces the upsert it follows.
+        ChangeTracker.Delta none = dataManager.changesSince(delta.epoch, delta.version);
+        assertFalse(none.full);
+        assertTrue(none.assets.isEmpty() && none.employees.isEmpty() && none.deletedAssets.isEmpty() && none.deletedEmployees.isEmpty());
+        assetManager.deleteAsset(Inventories.assetId(2));
+        ChangeTracker.Delta again = dataManager.changesSince(start.epoch, start.version);
+        assertEquals(List.of(Inventories.assetId(4)), again.assets.stream().map(Asset::getAssetId).collect(Collectors.toList()));
+        assertEquals(List.of(Inventories.assetId(3), Inventories.assetId(4), Inventories.assetId(2)), again.deletedAssets);
+
+        // A version ahead of the tracker's, or any from before a reload, which starts a new epoch, gets everything.
+        assertTrue(dataManager.changesSince(again.epoch, again.version + 1).full);
+        quietly(dataManager::loadData);
+        ChangeTracker.Delta reloaded = dataManager.changesSince(again.epoch, again.version);
+        assertTrue(reloaded.full);
+        assertNotEquals(again.epoch, reloaded.epoch);
+        dataManager.flush();
+    }
+
+    @Test
+    void aVersionOlderThanTheOldestTombstoneKeptGetsEverything() {
+        ChangeTracker tracker = new ChangeTracker();
+        Map<String, Asset> assets = new HashMap<>();
+        ChangeTracker.Delta start = tracker.since("", 0, assets::get, id -> null);
+        for (int i = 0; i <= ChangeTracker.MAX_TOMBSTONES; i++) {
+            Asset asset = new Asset(Inventories.assetId(i), "Asset", "IT", "SN", "Unassigned", null);
+            tracker.assetChanged(asset);
+            tracker.assetDeleted(asset);
+        }
+        ChangeTracker.Delta capped = tracker.since(start.epoch, start.version, assets::get, id -> null);
+        assertTrue(capped.full, "the first tombstone was dropped, so a delta from before it would miss that deletion");
+
+        // From just after the dropped tombstone on, deltas are complete again.
+        ChangeTracker.Delta after = tracker.since(start.epoch, 2, assets::get, id -> null);
+        assertFalse(after.full);
+        assertEquals(ChangeTracker.MAX_TOMBSTONES, after.deletedAssets.size());
+        assertEquals(Inventories.assetId(1), after.deletedAssets.get(0));
+    }
+
+    private Map<Path, byte[]> segments() throws IOException {
+        Map<Path, byte[]> contents = new HashMap<>();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.filter(file -> file.getFileName().toString().startsWith("inventory-"))::iterator) {
+                contents.put(file, Files.readAllBytes(file));
+            }
+        }
+        return contents;
+    }
+
+    private static void quietly(Runnable action) {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(console);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The script grammar: arguments split on whitespace, double quotes group them ("" is a quote), blank lines and lines
+// starting with # are skipped. A line that does not parse, names no command or has the wrong number of arguments
+// fails with a [FAILURE] giving its line number, as does one the managers reject; either way the script goes on with
+// the next line, the failed line changes nothing, and the run as a whole reports failure.
+class CommandScriptTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void quotedArgumentsKeepTheirSpacesAndQuotes() throws IOException {
+        DataManager dataManager = new DataManager(dir, 0);
+        List<String> output = run(dataManager, String.join("\n",
+            "# Comments and blank lines are skipped, wherever the # is indented to.",
+            "",
+            "   \t# indented comment",
+            "add-asset LAP-001 \"MacBook Pro \"\"16\"\"\" IT SN-1",
+            "ADD-ASSET\tlap-002   Chair  Furniture\tSN-#2",
+            "add-employee EMP-001 \"Ada  Lovelace\" \"R&D\" ada@example.com",
+            "assign lap-001 emp-001",
+            "maintenance LAP-001 12.50 \"Screen replaced, \"\"again\"\"\"",
+            "maintenance LAP-002 0 Wobbly",
+            "add-asset LAP-003 \"\" IT SN-3"));
+
+        assertEquals("MacBook Pro \"16\"", dataManager.findAsset("LAP-001").getName());
+        assertEquals("SN-#2", dataManager.findAsset("LAP-002").getSerialNumber());
+        assertEquals("Ada  Lovelace", dataManager.findEmployee("EMP-001").getName());
+        assertEquals("R&D", dataManager.findEmployee("EMP-001").getDepartment());
+        assertEquals("EMP-001", dataManager.findAsset("LAP-001").getAssignedTo());
+        assertEquals("Screen replaced, \"again\"", dataManager.getMaintenanceHistory("LAP-001").get(0).getDescription());
+        assertNull(dataManager.findAsset("LAP-003"), "an empty quoted name is still empty");
+        assertEquals(List.of("[FAILURE] Line 10: Name cannot be empty."), failures(output));
+        assertTrue(output.get(output.size() - 1).startsWith("[SUMMARY] 7 command(s), 1 failed"), output.toString());
+    }
+
+    @Test
+    void parseErrorsAndUsageErrorsNameTheirLine() throws IOException {
+        DataManager dataManager = new DataManager(dir, 0);
+        List<String> output = run(dataManager, String.join("\n",
+            "add-asset LAP-001 \"MacBook Pro IT SN-1",
+            "add-asset LAP-002 \"MacBook\"Pro IT SN-2",
+            "add-asset LAP-003 Laptop IT",
+            "add-asset LAP-004 Laptop IT SN-4 extra",
+            "deassign",
+            "launch LAP-001",
+            "status LAP-005 Broken",
+            "maintenance LAP-005 ten Service",
+            "save now",
+            "role Root",
+            "add-asset LAP-005 Laptop IT SN-5"));
+
+        assertEquals(List.of(
+            "[FAILURE] Line 1: Unterminated quote.",
+            "[FAILURE] Line 2: Expected a space after the closing quote.",
+            "[FAILURE] Line 3: Usage: add-asset <id> <name> <category> <serial>",
+            "[FAILURE] Line 4: Usage: add-asset <id> <name> <category> <serial>",
+            "[FAILURE] Line 5: Usage: deassign <assetId>",
+            "[FAILURE] Line 6: Unknown command 'launch'. Try 'help'.",
+            "[FAILURE] Line 7: Invalid status. Must be one of: Assigned, Unassigned, In Maintenance, Retired.",
+            "[FAILURE] Line 8: Cost must be a valid non-negative number.",
+            "[FAILURE] Line 9: Usage: save",
+            "[FAILURE] Line 10: Role must be Admin or Staff."), failures(output));
+        assertEquals(List.of("LAP-005"), dataManager.getAssets().stream().map(Asset::getAssetId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void aFailingCommandChangesNothingAndTheScriptGoesOn() throws IOException {
+        DataManager dataManager = new DataManager(dir, 0);
+        List<String> output = run(dataManager, String.join("\r\n",
+            "add-asset LAP-001 Laptop IT SN-1",
+            "add-employee EMP-001 Ada Eng ada@example.com",
+            "assign LAP-001 EMP-404",
+            "role Staff",
+            "delete-asset LAP-001",
+            "role Admin",
+            "status LAP-001 Retired",
+            "assign LAP-001 EMP-001",
+            "maintenance LAP-404 10 Service",
+            "delete-employee EMP-001",
+            "asset LAP-001"));
+
+        assertEquals(List.of(
+            "[FAILURE] Line 3: Employee ID EMP-404 not found. Cannot assign asset.",
+            "[FAILURE] Line 5: Only Admin can delete records (use 'role Admin').",
+            "[FAILURE] Line 8: Asset is Retired and cannot be reassigned.",
+            "[FAILURE] Line 9: Asset ID LAP-404 not found."), failures(output));
+        assertTrue(output.contains("LAP-001 | Laptop | IT | SN-1 | Retired | N/A"), output.toString());
+        assertNull(dataManager.findEmployee("EMP-001"), "the line after the failures still ran");
+        assertNotNull(dataManager.findAsset("LAP-001"));
+        assertEquals(List.of(), dataManager.getMaintenanceHistory("LAP-001"));
+        assertTrue(output.get(output.size() - 1).startsWith("[SUMMARY] 11 command(s), 4 failed"), output.toString());
+
+        // Everything that succeeded was saved at the end.
+        DataManager loaded = new DataManager(dir, 0);
+        quietly(loaded::loadData);
+        assertEquals(Inventories.contents(dataManager), Inventories.contents(loaded));
+    }
+
+    @Test
+    void aScriptWithoutFailuresSucceeds() throws IOException {
+        DataManager dataManager = new DataManager(dir, 0);
+        CommandScript script = script(dataManager);
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(captured, true, StandardCharsets.UTF_8);
+        boolean[] ok = new boolean[1];
+        quietly(() -> {
+            try {
+                ok[0] = script.run(new BufferedReader(new StringReader("help\nadd-asset LAP-001 Laptop IT SN-1\n# done\n")), out);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(ok[0], captured.toString(StandardCharsets.UTF_8));
+        assertFalse(captured.toString(StandardCharsets.UTF_8).contains("[FAILURE]"));
+        assertTrue(captured.toString(StandardCharsets.UTF_8).contains("assign <assetId> <employeeId>"));
+    }
+
+    // Runs the script, which must report failure, and returns what it printed.
+    private static List<String> run(DataManager dataManager, String script) throws IOException {
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(captured, true, StandardCharsets.UTF_8);
+        boolean[] ok = new boolean[1];
+        quietly(() -> {
+            try {
+                ok[0] = script(dataManager).run(new BufferedReader(new StringReader(script)), out);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        List<String> output = captured.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+        assertFalse(ok[0], "a script with a failed command reported success");
+        return output;
+    }
+
+    private static CommandScript script(DataManager dataManager) {
+        return new CommandScript(dataManager, new AssetManager(dataManager), new EmployeeManager(dataManager), new MaintenanceManager(dataManager));
+    }
+
+    private static List<String> failures(List<String> output) {
+        return output.stream().filter(line -> line.startsWith("[FAILURE]")).collect(Collectors.toList());
+    }
+
+    private static void quietly(Runnable action) {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(console);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Heap per entity, measured as the retained heap after loading a synthetic inventory, once into the original object
+// layout (one String per field, a UUID string and LocalDateTime per record, records in ArrayLists) and once into the
+// current one. The compact layout must at least halve the heap per maintenance record and grow nothing else.
+class CompactLayoutTest {
+    private static final int LINES = 200_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compactLayoutRetainsLessHeap() throws IOException {
+        Path file = dir.resolve("inventory.txt");
+        Inventories.writeSyntheticInventory(file, LINES);
+        double[] original = measureLayout(file, true);
+        double[] compact = measureLayout(file, false);
+        String figures = String.format("B/asset %.1f -> %.1f, B/employee %.1f -> %.1f, B/record %.1f -> %.1f",
+            original[0], compact[0], original[1], compact[1], original[2], compact[2]);
+        System.out.println("[INFO] " + figures);
+        assertTrue(compact[0] <= original[0] && compact[1] <= original[1] && compact[2] <= original[2] / 2, figures);
+    }
+
+    // Bytes per asset, employee and record. A method of its own so nothing from the previous layout is still
+    // reachable from a stack slot.
+    private static double[] measureLayout(Path file, boolean legacy) throws IOException {
+        long base = retainedHeap();
+        Map<String, Object> assets = new HashMap<>();
+        forEachLine(file, "A,", line -> {
+            Object asset = legacy ? LegacyAsset.parse(line) : Asset.fromString(line);
+            assets.put(line.substring(2, line.indexOf(',', 2)), asset);
+        });
+        long afterAssets = retainedHeap();
+        Map<String, Object> employees = new HashMap<>();
+        forEachLine(file, "E,", line -> employees.put(line.substring(2, line.indexOf(',', 2)),
+            legacy ? LegacyEmployee.parse(line) : Employee.fromString(line)));
+        long afterEmployees = retainedHeap();
+        Map<String, Object> histories = new HashMap<>();
+        int[] records = new int[1];
+        forEachLine(file, "M,", line -> {
+            MaintenanceRecord record = MaintenanceRecord.fromString(line);
+            if (legacy) {
+                @SuppressWarnings("unchecked")
+                List<LegacyRecord> history = (List<LegacyRecord>) histories.computeIfAbsent(record.getAssetId(), k -> new ArrayList<LegacyRecord>());
+                history.add(LegacyRecord.parse(line));
+            } else {
+                ((MaintenanceHistory) histories.computeIfAbsent(record.getAssetId(), MaintenanceHistory::new)).add(record);
+            }
+            records[0]++;
+        });
+        long afterRecords = retainedHeap();
+        double[] perEntity = {(afterAssets - base) / (double) assets.size(), (afterEmployees - afterAssets) / (double) employees.size(),
+            (afterRecords - afterEmployees) / (double) records[0]};
+        // Keeps all three maps reachable until the last measurement.
+        assertTrue(assets.size() + employees.size() + histories.size() > 0);
+        return perEntity;
+    }
+
+    // Several full collections in a row, so no dead objects are left behind even where one does not fully compact.
+    private static long retainedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void forEachLine(Path file, String prefix, Consumer<String> action) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.startsWith(prefix)) {
+                    action.accept(line);
+                }
+            }
+        }
+    }
+
+    // The entity layouts before the compact representation, kept only to compare with.
+    private static final class LegacyAsset {
+        String assetId, name, category, serialNumber, status, assignedTo;
+        static LegacyAsset parse(String line) {
+            String[] parts = line.split(",", 7);
+            LegacyAsset asset = new LegacyAsset();
+            asset.assetId = parts[1];
+            asset.name = parts[2];
+            asset.category = parts[3];
+            asset.serialNumber = parts[4];
+            asset.status = parts[5];
+            asset.assignedTo = parts[6].equals("null") ? null : parts[6];
+            return asset;
+        }
+    }
+
+    private static final class LegacyEmployee {
+        String employeeId, name, department, email;
+        static LegacyEmployee parse(String line) {
+            String[] parts = line.split(",", 5);
+            LegacyEmployee employee = new LegacyEmployee();
+            employee.employeeId = parts[1];
+            employee.name = parts[2];
+            employee.department = parts[3];
+            employee.email = parts[4];
+            return employee;
+        }
+    }
+
+    private static final class LegacyRecord {
+        String recordId, assetId, description;
+        LocalDateTime date;
+        double cost;
+        static LegacyRecord parse(String line) {
+            String[] parts = line.split(",", 6);
+            LegacyRecord record = new LegacyRecord();
+            record.recordId = parts[1];
+            record.assetId = parts[2];
+            record.date = LocalDateTime.parse(parts[3], DataManager.DATE_FORMATTER);
+            record.description = parts[4];
+            record.cost = Double.parseDouble(parts[5]);
+            return record;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Hammers the managers from many threads on a small hot set of assets and employees while a checker verifies the
+// cross-entity invariants on consistent cuts. The first quarter of the assets only ever see assign and retire, so
+// once retired they must stay Retired.
+class DataManagerConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int SECONDS = 3;
+    private static final int ASSETS = 200;
+    private static final int EMPLOYEES = ASSETS / 10;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void invariantsHoldUnderConcurrentMutations() throws InterruptedException {
+        DataManager dataManager = new DataManager(dir);
+        Inventories.populate(dataManager, ASSETS);
+        dataManager.beginBatch();
+        AssetManager assetManager = new AssetManager(dataManager);
+        EmployeeManager employeeManager = new EmployeeManager(dataManager);
+        MaintenanceManager maintenanceManager = new MaintenanceManager(dataManager);
+        Set<String> retired = ConcurrentHashMap.newKeySet();
+        LongAdder applied = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = 42 + t;
+            workers.add(CompletableFuture.runAsync(() -> {
+                Random random = new Random(seed);
+                while (System.nanoTime() < deadline) {
+                    int asset = random.nextInt(ASSETS);
+                    String assetId = Inventories.assetId(asset);
+                    String employeeId = Inventories.employeeId(random.nextInt(EMPLOYEES));
+                    int op = asset < ASSETS / 4 ? random.nextInt(4) : random.nextInt(9);
+                    try {
+                        switch (op) {
+                            case 0: case 1: case 2:
+                                assetManager.assignAsset(assetId, employeeId, employeeManager);
+                                break;
+                            case 3:
+                                assetManager.updateAssetStatus(assetId, "Retired");
+                                if (asset < ASSETS / 4) {
+                                    retired.add(assetId);
+                                }
+                                break;
+                            case 4:
+                                assetManager.deassignAsset(assetId);
+                                break;
+                            case 5:
+                                assetManager.updateAssetStatus(assetId, "Unassigned");
+                                break;
+                            case 6:
+                                maintenanceManager.recordMaintenance(assetId, "Stress test", 1.0, LocalDateTime.now(), assetManager);
+                                break;
+                            case 7:
+                                employeeManager.deleteEmployee(employeeId);
+                                break;
+                            default:
+                                employeeManager.addEmployee(employeeId, "Stress Employee", "QA", "stress@example.com");
+                        }
+                        applied.increment();
+                    } catch (IllegalArgumentException e) {
+                        // Rejected by a business rule, which is part of the mix.
+                    }
+                }
+            }, pool));
+        }
+        Set<String> violations = new LinkedHashSet<>();
+        int cuts = 0;
+        while (System.nanoTime() < deadline) {
+            violations.addAll(dataManager.exclusive(() -> checkInvariants(dataManager, retired)));
+            cuts++;
+            Thread.sleep(10);
+        }
+        CompletableFuture.allOf(workers.toArray(CompletableFuture<?>[]::new)).join();
+        pool.shutdown();
+        violations.addAll(checkInvariants(dataManager, retired));
+        assertEquals(List.of(), new ArrayList<>(violations));
+        assertTrue(applied.sum() > 0 && cuts > 0, "no mutations were applied or no cuts checked");
+    }
+
+    private static List<String> checkInvariants(DataManager dataManager, Set<String> retired) {
+        List<String> violations = new ArrayList<>();
+        long indexed = 0;
+        for (Asset asset : dataManager.getAssets()) {
+            String assignee = asset.getAssignedTo();
+            if (assignee != null && !dataManager.containsEmployee(assignee)) {
+                violations.add(asset.getAssetId() + " is held by deleted employee " + assignee);
+            }
+            if (assignee != null && !dataManager.getAssetsAssignedTo(assignee).contains(asset)) {
+                violations.add(asset.getAssetId() + " is missing from the index of " + assignee);
+            }
+            if (asset.getStatus().equals("Assigned") && assignee == null) {
+                violations.add(asset.getAssetId() + " is Assigned without an employee");
+            }
+            if (retired.contains(asset.getAssetId()) && !asset.getStatus().equals("Retired")) {
+                violations.add(asset.getAssetId() + " was assigned after being retired (" + asset.getStatus() + ")");
+            }
+            indexed += assignee == null ? 0 : 1;
+        }
+        for (int i = 0; i < EMPLOYEES; i++) {
+            String employeeId = Inventories.employeeId(i);
+            for (Asset asset : dataManager.getAssetsAssignedTo(employeeId)) {
+                if (!employeeId.equals(asset.getAssignedTo())) {
+                    violations.add(asset.getAssetId() + " is indexed under " + employeeId + " but held by " + asset.getAssignedTo());
+                }
+                indexed--;
+            }
+        }
+        if (indexed != 0) {
+            violations.add("assignee index is off by " + indexed + " asset(s)");
+        }
+        return violations;
+    }
+}
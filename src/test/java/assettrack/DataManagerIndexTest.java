@@ -0,0 +1,167 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The case-normalized ID indexes against the linear equalsIgnoreCase scans they replaced.
+class DataManagerIndexTest {
+    private static final String[] ASSET_IDS = {"lap-001", "Lap-002", "LAP-003", "nyc-Mon-7", "x"};
+    private static final String[] EMPLOYEE_IDS = {"emp-101", "Emp-102", "EMP-103", "e"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void mixedCaseIdsMatchLinearScan() {
+        DataManager dataManager = new DataManager(dir, 0);
+        populate(dataManager);
+        assertMatchesLinearScan(dataManager);
+        assertDuplicatesMatchLinearScan(dataManager);
+    }
+
+    @Test
+    void lookupsAfterDelete() {
+        DataManager dataManager = new DataManager(dir, 0);
+        populate(dataManager);
+        AssetManager assetManager = new AssetManager(dataManager);
+        EmployeeManager employeeManager = new EmployeeManager(dataManager);
+        assetManager.deleteAsset("LAP-002");
+        assetManager.deleteAsset("Nyc-mon-7");
+        employeeManager.deleteEmployee("emp-102");
+        assertMatchesLinearScan(dataManager);
+        assertDuplicatesMatchLinearScan(dataManager);
+
+        // A deleted ID is free again, in any case.
+        assetManager.addAsset("lap-002", "Monitor", "IT", "SN2");
+        employeeManager.addEmployee("EMP-102", "Rae", "Ops", "rae@example.com");
+        assertMatchesLinearScan(dataManager);
+        assertDuplicatesMatchLinearScan(dataManager);
+    }
+
+    @Test
+    void lookupsAfterJournalReplay() {
+        DataManager dataManager = new DataManager(dir, 0);
+        populate(dataManager);
+        dataManager.saveData();
+        AssetManager assetManager = new AssetManager(dataManager);
+        EmployeeManager employeeManager = new EmployeeManager(dataManager);
+        assetManager.deleteAsset("lap-001");
+        employeeManager.deleteEmployee("E");
+        Asset added = new Asset("sfo-Desk-9", "Desk", "Furniture", "NONE", "Unassigned", null);
+        dataManager.addAsset(added);
+        dataManager.journalAsset(added);
+        Employee hired = new Employee("emp-104", "Kai", "Eng", "kai@example.com");
+        dataManager.addEmployee(hired);
+        dataManager.journalEmployee(hired);
+        dataManager.flush();
+
+        // Loaded without a save in between, so the changes above come back from the journal.
+        DataManager replayed = new DataManager(dir, 0);
+        replayed.loadData();
+        assertEquals(ids(dataManager.getAssets()), ids(replayed.getAssets()));
+        assertEquals(employeeIds(dataManager.getEmployees()), employeeIds(replayed.getEmployees()));
+        assertMatchesLinearScan(replayed);
+        assertDuplicatesMatchLinearScan(replayed);
+    }
+
+    private static void populate(DataManager dataManager) {
+        for (String id : EMPLOYEE_IDS) {
+            dataManager.addEmployee(new Employee(id, "Employee " + id, "Eng", id + "@example.com"));
+        }
+        for (String id : ASSET_IDS) {
+            dataManager.addAsset(new Asset(id, "Asset " + id, "IT", "SN-" + id, "Unassigned", null));
+        }
+    }
+
+    // Every known ID in its stored, upper, lower and swapped case, plus IDs that were never there.
+    private static List<String> probes(String[] ids) {
+        List<String> probes = new ArrayList<>(List.of("", "missing", "LAP-00", "LAP-0011"));
+        for (String id : ids) {
+            probes.add(id);
+            probes.add(id.toUpperCase(Locale.ROOT));
+            probes.add(id.toLowerCase(Locale.ROOT));
+            StringBuilder swapped = new StringBuilder();
+            id.chars().forEach(c -> swapped.append((char) (Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c))));
+            probes.add(swapped.toString());
+        }
+        probes.add("sfo-desk-9");
+        probes.add("EMP-104");
+        return probes;
+    }
+
+    private static Asset scanAssets(DataManager dataManager, String id) {
+        return dataManager.getAssets().stream().filter(a -> a.getAssetId().equalsIgnoreCase(id)).findFirst().orElse(null);
+    }
+
+    private static Employee scanEmployees(DataManager dataManager, String id) {
+        return dataManager.getEmployees().stream().filter(e -> e.getEmployeeId().equalsIgnoreCase(id)).findFirst().orElse(null);
+    }
+
+    private static void assertMatchesLinearScan(DataManager dataManager) {
+        AssetManager assetManager = new AssetManager(dataManager);
+        EmployeeManager employeeManager = new EmployeeManager(dataManager);
+        for (String id : probes(ASSET_IDS)) {
+            Asset expected = scanAssets(dataManager, id);
+            assertSame(expected, dataManager.findAsset(id), id);
+            assertSame(expected, assetManager.findAssetById(id), id);
+            assertEquals(expected != null, dataManager.containsAsset(id), id);
+        }
+        for (String id : probes(EMPLOYEE_IDS)) {
+            Employee expected = scanEmployees(dataManager, id);
+            assertSame(expected, dataManager.findEmployee(id), id);
+            assertSame(expected, employeeManager.findEmployeeById(id), id);
+            assertEquals(expected != null, dataManager.containsEmployee(id), id);
+        }
+    }
+
+    // The managers refuse an ID exactly when the linear scan finds one differing only in case. Accepted probes are
+    // deleted again, so each probe sees the same inventory.
+    private static void assertDuplicatesMatchLinearScan(DataManager dataManager) {
+        AssetManager assetManager = new AssetManager(dataManager);
+        EmployeeManager employeeManager = new EmployeeManager(dataManager);
+        for (String id : probes(ASSET_IDS)) {
+            if (id.isBlank()) {
+                continue;
+            }
+            if (scanAssets(dataManager, id) != null) {
+                assertThrows(IllegalArgumentException.class, () -> assetManager.addAsset(id, "Duplicate", "IT", "SN"), id);
+            } else {
+                assetManager.addAsset(id, "Probe", "IT", "SN");
+                assetManager.deleteAsset(id);
+            }
+        }
+        for (String id : probes(EMPLOYEE_IDS)) {
+            if (id.isBlank()) {
+                continue;
+            }
+            if (scanEmployees(dataManager, id) != null) {
+                assertThrows(IllegalArgumentException.class, () -> employeeManager.addEmployee(id, "Duplicate", "Eng", "d@example.com"), id);
+            } else {
+                employeeManager.addEmployee(id, "Probe", "Eng", "p@example.com");
+                employeeManager.deleteEmployee(id);
+            }
+        }
+        // Written before the temporary directory is removed.
+        dataManager.flush();
+    }
+
+    private static List<String> ids(Iterable<Asset> assets) {
+        List<String> ids = new ArrayList<>();
+        assets.forEach(asset -> ids.add(asset.getAssetId()));
+        return ids;
+    }
+
+    private static List<String> employeeIds(Iterable<Employee> employees) {
+        List<String> ids = new ArrayList<>();
+        employees.forEach(employee -> ids.add(employee.getEmployeeId()));
+        return ids;
+    }
+}
@@ -0,0 +1,136 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+// An inventory is saved and a few hundred changes journaled after it; then copies of that storage are damaged at
+// random and loaded. Every load must report any loss (a journal cut at a batch boundary is a crash before that write,
+// and loses nothing that was acknowledged), accept no state the inventory never had, and leave storage that loads
+// cleanly once saved.
+class FaultInjectionTest {
+    private static final int ASSETS = 5_000;
+    private static final int TRIALS = 25;
+
+    enum Damage { SEGMENT_CUT_SHORT, BYTES_FLIPPED, PAGE_ZEROED, JOURNAL_CUT_OFF }
+
+    @TempDir
+    Path dir;
+
+    private Path original;
+    private List<Path> segments;
+    private Set<String> written;
+    private Set<String> journaled;
+    private final Set<Integer> batchEnds = new HashSet<>(List.of(0));
+
+    @BeforeEach
+    void saveAndJournal() throws IOException {
+        original = dir.resolve("original");
+        DataManager dataManager = new DataManager(original, 0);
+        Inventories.populate(dataManager, ASSETS);
+        dataManager.saveData();
+        written = Inventories.contents(dataManager);
+        try (Stream<Path> files = Files.walk(original)) {
+            segments = files.filter(file -> file.getFileName().toString().startsWith("inventory-")).sorted().collect(Collectors.toList());
+        }
+        AssetManager assetManager = new AssetManager(dataManager);
+        EmployeeManager employeeManager = new EmployeeManager(dataManager);
+        Random random = new Random(13);
+        for (int i = 0; i < 500; i++) {
+            String id = Inventories.assetId(random.nextInt(ASSETS));
+            assetManager.assignAsset(id, Inventories.employeeId(random.nextInt(ASSETS / 10)), employeeManager);
+            written.add(assetManager.findAssetById(id).toString());
+        }
+        dataManager.flush();
+        journaled = Inventories.contents(dataManager);
+        BlockFormat.scan(ByteBuffer.wrap(Files.readAllBytes(original.resolve("inventory.journal")))).blocks.forEach(block -> batchEnds.add(block[1]));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Damage.class)
+    void damagedCopiesReportLossesAndRecover(Damage damage) throws IOException {
+        Random random = new Random(damage.ordinal());
+        List<String> failures = new ArrayList<>();
+        for (int t = 0; t < TRIALS; t++) {
+            Path trial = dir.resolve("trial-" + t);
+            Inventories.copyTree(original, trial);
+            Path target = damage == Damage.JOURNAL_CUT_OFF ? trial.resolve("inventory.journal")
+                : trial.resolve(original.relativize(segments.get(random.nextInt(segments.size()))));
+            byte[] content = Files.readAllBytes(target);
+            int offset = random.nextInt(Math.max(1, content.length));
+            boolean reportExpected = true;
+            switch (damage) {
+                case SEGMENT_CUT_SHORT:
+                    content = Arrays.copyOf(content, offset);
+                    break;
+                case JOURNAL_CUT_OFF:
+                    content = Arrays.copyOf(content, offset);
+                    reportExpected = !batchEnds.contains(offset);
+                    break;
+                case BYTES_FLIPPED:
+                    for (int i = 0; i < 1 + random.nextInt(3); i++) {
+                        content[random.nextInt(content.length)] ^= 1 << random.nextInt(8);
+                    }
+                    break;
+                default:
+                    Arrays.fill(content, offset & ~4095, Math.min(content.length, (offset & ~4095) + 4096), (byte) 0);
+            }
+            Files.write(target, content);
+
+            PrintStream console = System.out;
+            PrintStream errors = System.err;
+            ByteArrayOutputStream report = new ByteArrayOutputStream();
+            System.setErr(new PrintStream(report, true));
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            Set<String> recovered;
+            Set<String> reloaded;
+            String firstLoad;
+            String afterSave;
+            try {
+                DataManager loaded = new DataManager(trial, 0);
+                loaded.loadData();
+                recovered = Inventories.contents(loaded);
+                firstLoad = report.toString(StandardCharsets.UTF_8);
+                report.reset();
+                loaded.saveData();
+                DataManager again = new DataManager(trial, 0);
+                again.loadData();
+                reloaded = Inventories.contents(again);
+                afterSave = report.toString(StandardCharsets.UTF_8);
+            } finally {
+                System.setErr(errors);
+                System.setOut(console);
+            }
+            boolean reported = firstLoad.contains("[ERROR]") || firstLoad.contains("[WARNING]");
+            long missing = journaled.stream().filter(item -> !recovered.contains(item)).count();
+            List<String> invented = recovered.stream().filter(item -> !written.contains(item)).limit(3).collect(Collectors.toList());
+            String problem = !invented.isEmpty() ? "loaded data that was never written: " + invented
+                : missing > 0 && !reported && reportExpected ? missing + " item(s) lost without a report"
+                : afterSave.contains("[ERROR]") || afterSave.contains("[WARNING]") ? "still damaged after a save: " + afterSave.trim()
+                : !reloaded.equals(recovered) ? "a save and reload changed the recovered data" : null;
+            if (problem != null) {
+                failures.add("trial " + (t + 1) + " at byte " + offset + " of " + target.getFileName() + ": " + problem);
+            }
+        }
+        assertEquals(List.of(), failures);
+    }
+}
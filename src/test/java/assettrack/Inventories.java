@@ -0,0 +1,180 @@
+package assettrack;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Seeded synthetic inventories and audit histories, shared by the tests and the JMH benchmarks.
+final class Inventories {
+    private Inventories() {
+    }
+
+    static String assetId(int i) {
+        return String.format("AST-%07d", i);
+    }
+    static String employeeId(int i) {
+        return String.format("EMP-%06d", i);
+    }
+    // The given number of assets, a tenth as many employees, four assets in ten assigned, and one maintenance record
+    // per asset on a random asset.
+    static void populate(DataManager dataManager, int assetCount) {
+        Random random = new Random(42);
+        int employeeCount = Math.max(1, assetCount / 10);
+        String[] categories = {"IT", "Furniture", "Tool", "Vehicle", "AV"};
+        for (int i = 0; i < employeeCount; i++) {
+            dataManager.addEmployee(new Employee(employeeId(i), "Employee " + i, "Dept " + (i % 40), "employee" + i + "@example.com"));
+        }
+        for (int i = 0; i < assetCount; i++) {
+            boolean assigned = random.nextInt(10) < 4;
+            dataManager.addAsset(new Asset(assetId(i), "Asset model " + random.nextInt(500), categories[i % categories.length],
+                "SN" + Long.toHexString(random.nextLong()), assigned ? "Assigned" : "Unassigned",
+                assigned ? employeeId(random.nextInt(employeeCount)) : null));
+        }
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 8, 0);
+        for (int i = 0; i < assetCount; i++) {
+            dataManager.addMaintenanceRecord(new MaintenanceRecord(new UUID(random.nextLong(), random.nextLong()).toString(),
+                assetId(random.nextInt(assetCount)), base.plusMinutes(random.nextInt(3_000_000)),
+                "Routine service " + random.nextInt(100), random.nextInt(100_000) / 100.0));
+        }
+    }
+
+    static String siteId(int site, String kind, int digits, int number) {
+        return String.format("S%02d-%s-%0" + digits + "d", site, kind, number);
+    }
+    // Like populate, with every ID prefixed by its site; one assignment in ten goes to an employee at another site.
+    static void populateSites(DataManager dataManager, int assetCount, int sites) {
+        Random random = new Random(42);
+        int employeesPerSite = Math.max(1, assetCount / 10 / sites);
+        String[] categories = {"IT", "Furniture", "Tool", "Vehicle", "AV"};
+        for (int site = 0; site < sites; site++) {
+            for (int i = 0; i < employeesPerSite; i++) {
+                dataManager.addEmployee(new Employee(siteId(site, "EMP", 6, i), "Employee " + i, "Dept " + (i % 40), "employee" + site + "." + i + "@example.com"));
+            }
+        }
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 8, 0);
+        for (int i = 0; i < assetCount; i++) {
+            int site = i % sites;
+            String assetId = siteId(site, "AST", 7, i / sites);
+            boolean assigned = random.nextInt(10) < 4;
+            int holderSite = random.nextInt(10) == 0 ? random.nextInt(sites) : site;
+            dataManager.addAsset(new Asset(assetId, "Asset model " + random.nextInt(500), categories[i % categories.length],
+                "SN" + Long.toHexString(random.nextLong()), assigned ? "Assigned" : "Unassigned",
+                assigned ? siteId(holderSite, "EMP", 6, random.nextInt(employeesPerSite)) : null));
+            dataManager.addMaintenanceRecord(new MaintenanceRecord(new UUID(random.nextLong(), random.nextLong()).toString(), assetId,
+                base.plusMinutes(random.nextInt(3_000_000)), "Routine service " + random.nextInt(100), random.nextInt(100_000) / 100.0));
+        }
+    }
+
+    // A legacy inventory.txt of about the given number of lines: one asset in twenty lines, one employee in two
+    // hundred, and maintenance records for the rest.
+    static void writeSyntheticInventory(Path file, int lines) throws IOException {
+        int assetCount = Math.max(1, lines / 20);
+        int employeeCount = Math.max(1, lines / 200);
+        int recordCount = Math.max(0, lines - assetCount - employeeCount);
+        Random random = new Random(42);
+        String[] categories = {"IT", "Furniture", "Tool", "Vehicle", "AV"};
+        String[] statuses = {"Assigned", "Unassigned", "In Maintenance", "Retired"};
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 8, 0);
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            writer.println("# Assets:");
+            for (int i = 0; i < assetCount; i++) {
+                String status = statuses[random.nextInt(statuses.length)];
+                writer.println(new Asset(assetId(i), "Asset model " + random.nextInt(500), categories[i % categories.length],
+                    "SN" + Long.toHexString(random.nextLong()), status,
+                    status.equals("Assigned") ? employeeId(random.nextInt(employeeCount)) : null));
+            }
+            writer.println("\n# Employees:");
+            for (int i = 0; i < employeeCount; i++) {
+                writer.println(new Employee(employeeId(i), "Employee " + i, "Dept " + (i % 40), "employee" + i + "@example.com"));
+            }
+            writer.println("\n# Maintenance Records:");
+            for (int i = 0; i < recordCount; i++) {
+                writer.println(new MaintenanceRecord(new UUID(random.nextLong(), random.nextLong()).toString(),
+                    assetId(random.nextInt(assetCount)), base.plusMinutes(random.nextInt(3_000_000)),
+                    "Routine service " + random.nextInt(100), random.nextInt(100_000) / 100.0));
+            }
+        }
+    }
+
+    // Writes the auditEvents of the given number of assets to an audit log; returns the number of events.
+    static long writeAuditEvents(Path log, int size, int employees, long begin, long end) {
+        AuditLog writer = new AuditLog(log);
+        long[] events = new long[1];
+        for (int asset = 0; asset < size; asset++) {
+            String assetId = assetId(asset);
+            auditEvents(asset, employees, begin, end, (time, status, holder) -> {
+                writer.record(time, assetId, status, holder);
+                events[0]++;
+            });
+            if (asset % 1000 == 999) {
+                writer.commit();
+            }
+        }
+        writer.commit();
+        return events[0];
+    }
+    interface AuditEvent {
+        void accept(long time, String status, String holder);
+    }
+    // One asset's changes, every few hours to few weeks: assignments and returns, repairs and the odd retirement.
+    static void auditEvents(int asset, int employees, long begin, long end, AuditEvent event) {
+        Random random = new Random(asset * 7919L + 13);
+        long time = begin + random.nextInt(30 * 86_400) * 1000L;
+        String status = "Unassigned";
+        String holder = null;
+        event.accept(time, status, null);
+        while (!status.equals("Retired")) {
+            time += 3_600_000L + (long) (random.nextDouble() * 27 * 86_400_000L);
+            if (time >= end) {
+                return;
+            }
+            int roll = random.nextInt(100);
+            if (roll == 0) {
+                status = "Retired";
+                holder = null;
+            } else if (status.equals("In Maintenance")) {
+                status = holder != null ? "Assigned" : "Unassigned";
+            } else if (roll < 20) {
+                status = "In Maintenance";
+            } else if (holder == null || roll < 40) {
+                holder = employeeId(random.nextInt(employees));
+                status = "Assigned";
+            } else {
+                holder = null;
+                status = "Unassigned";
+            }
+            event.accept(time, status, holder);
+        }
+    }
+
+    // Every asset, maintenance record and employee, as their text lines.
+    static Set<String> contents(DataManager dataManager) {
+        Set<String> items = new HashSet<>();
+        for (Asset asset : dataManager.getAssets()) {
+            items.add(asset.toString());
+            dataManager.getMaintenanceHistory(asset.getAssetId()).forEach(record -> items.add(record.toString()));
+        }
+        dataManager.getEmployees().forEach(employee -> items.add(employee.toString()));
+        return items;
+    }
+    static void copyTree(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.walk(from)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Path copy = to.resolve(from.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(copy);
+                } else {
+                    Files.copy(file, copy);
+                }
+            }
+        }
+    }
+}
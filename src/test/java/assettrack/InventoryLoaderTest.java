@@ -0,0 +1,189 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The byte-level loader against the line-by-line parsing it replaced (trim, skip comments, Asset/Employee/
+// MaintenanceRecord.fromString, a warning per line that throws): on the same file, serially and in parallel, it must
+// keep the same entities with the same fields and skip the same lines with the same "Skipping corrupted data line"
+// warnings. The one intended difference: a bad date used to escape as a DateTimeParseException and end the load; it is
+// now skipped like any other corrupted line, so the reference catches it too.
+class InventoryLoaderTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void awkwardLinesParseAsFromStringDoes() throws IOException {
+        List<String> lines = new ArrayList<>(List.of(
+            "# Assets:",
+            "A,LAP-001,MacBook Pro,IT,SN-1,Assigned,EMP-001",
+            "A,LAP-002,Dell, XPS,IT,SN-2,Unassigned,null",
+            "A,LAP-003,Chair,Furniture,SN-3,Unassigned,null,",
+            "A,LAP-004,Chair,Furniture,SN-4,Unassigned,nul",
+            "A,LAP-005,Chair,Furniture,SN-5,Unassigned",
+            "   A,LAP-006,Café Ωmega,IT,SN-6,Retired,null   ",
+            "A,,,,,,",
+            "A,LAP-007",
+            "X,unknown,kind",
+            "A",
+            "# Employees:",
+            "E,EMP-001,Ada Lovelace,Eng,ada@example.com",
+            "E,EMP-002,Grace,Eng,grace@example.com,",
+            "E,EMP-003,Linus,Ops",
+            "E,EMP-004,Zoë,Forschung & Entwicklung,zoe@example.com,,",
+            "# Maintenance Records:",
+            "M,r1,LAP-001,2024-02-29 10:15:00,Battery,120.50",
+            "M,r2,LAP-001,2023-02-29 10:15:00,Leap day that is not,1.00",
+            "M,r3,LAP-001,2024-04-31 23:59:59,April 31st,2.00",
+            "M,r4,LAP-001,2024-01-30 00:00:00,Thirtieth,3.00",
+            "M,r5,LAP-001,2024-12-31 23:59:59,New Year's Eve,4.00",
+            "M,r6,LAP-001,2024-02-30 08:00:00,February 30th,5.00",
+            "M,r7,LAP-001,2024-06-32 08:00:00,Day 32,6.00",
+            "M,r8,LAP-001,2024-13-01 08:00:00,Month 13,7.00",
+            "M,r9,LAP-001,2024-01-01 24:00:00,Hour 24,8.00",
+            "M,r10,LAP-001,2024-1-01 08:00:00,Short month,9.00",
+            "M,r11,LAP-001,2024-01-01T08:00:00,ISO,10.00",
+            "M,r12,LAP-001,2024-01-01 08:00:00,Many digits,1234567890.123456789",
+            "M,r13,LAP-001,2024-01-01 08:00:00,Sixteen digits,1234567890123456",
+            "M,r14,LAP-001,2024-01-01 08:00:00,Long fraction,0.1234567890123456789",
+            "M,r15,LAP-001,2024-01-01 08:00:00,Exponent,1.5e3",
+            "M,r16,LAP-001,2024-01-01 08:00:00,Suffix,2.5d",
+            "M,r17,LAP-001,2024-01-01 08:00:00,Negative,-0.005",
+            "M,r18,LAP-001,2024-01-01 08:00:00,No cost,",
+            "M,r19,LAP-001,2024-01-01 08:00:00,Bad cost,12.5.1",
+            "M,r20,LAP-001,2024-01-01 08:00:00,Trailing comma,12.50,",
+            "M,r21,LAP-001,2024-01-01 08:00:00,Comma, in description,12.50",
+            "M,r22,LAP-001,not a date,Both bad,abc",
+            "M,r23,LAP-001,2024-01-01 08:00:00,Spaced cost, 7.25",
+            "M,r24,LAP-001,2024-01-01 08:00:00,Huge,99999999999999999999999",
+            "M,r25,LAP-001,2024-01-01 08:00:00",
+            "M,r26,LAP-001,2024-01-01 08:00:00,Dot,.5",
+            "M,r27,LAP-001,2024-01-01 08:00:00,Minus only,-",
+            "M,r28,LAP-001,2024-01-01 08:00:00,NaN,NaN"));
+        assertParity(lines);
+    }
+
+    @Test
+    void mangledLinesParseAsFromStringDoes() throws IOException {
+        Random random = new Random(11);
+        List<String> lines = new ArrayList<>();
+        lines.add("# Assets:");
+        for (int i = 0; i < 2_000; i++) {
+            lines.add(mangle(String.format("A,AST-%07d,Asset %d,IT,SN-%d,%s,%s", i, i, i, i % 2 == 0 ? "Assigned" : "Unassigned",
+                i % 2 == 0 ? String.format("EMP-%06d", i % 50) : "null"), random));
+        }
+        lines.add("# Employees:");
+        for (int i = 0; i < 500; i++) {
+            lines.add(mangle(String.format("E,EMP-%06d,Employee %d,Dept %d,e%d@example.com", i, i, i % 7, i), random));
+        }
+        lines.add("# Maintenance Records:");
+        for (int i = 0; i < 5_000; i++) {
+            lines.add(mangle(String.format("M,%s,AST-%07d,%04d-%02d-%02d %02d:%02d:%02d,Service %d,%d.%02d", new UUID(random.nextLong(), i),
+                random.nextInt(2_000), 1990 + random.nextInt(60), 1 + random.nextInt(12), 1 + random.nextInt(31), random.nextInt(24),
+                random.nextInt(60), random.nextInt(60), i, random.nextInt(100_000), random.nextInt(100)), random));
+        }
+        assertParity(lines);
+    }
+
+    // Written with LF and with CRLF line ends, each loaded serially and in parallel, against the reference.
+    private void assertParity(List<String> lines) throws IOException {
+        for (String newline : new String[] {"\n", "\r\n"}) {
+            String content = String.join(newline, lines) + newline;
+            Path file = dir.resolve(newline.length() == 1 ? "lf.txt" : "crlf.txt");
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+            List<String> expected = describe(reference(content));
+            for (boolean parallel : new boolean[] {false, true}) {
+                List<String> loaded = describe(InventoryLoader.load(file, parallel));
+                String run = (parallel ? "parallel, " : "serial, ") + file.getFileName();
+                List<String> missing = new ArrayList<>(expected);
+                loaded.forEach(missing::remove);
+                List<String> extra = new ArrayList<>(loaded);
+                expected.forEach(extra::remove);
+                assertEquals(List.of(), missing, run + ": not loaded as fromString does");
+                assertEquals(List.of(), extra, run + ": loaded otherwise than fromString");
+                assertEquals(expected, loaded, run);
+            }
+        }
+    }
+
+    private static InventoryLoader.Result reference(String content) throws IOException {
+        InventoryLoader.Result result = new InventoryLoader.Result();
+        BufferedReader reader = new BufferedReader(new StringReader(content));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                if (line.startsWith("A,")) {
+                    result.assets.add(Asset.fromString(line));
+                } else if (line.startsWith("E,")) {
+                    result.employees.add(Employee.fromString(line));
+                } else if (line.startsWith("M,")) {
+                    result.records.add(MaintenanceRecord.fromString(line));
+                }
+            } catch (IllegalArgumentException | DateTimeException e) {
+                result.warnings.add("[WARNING] Skipping corrupted data line: " + line + " (" + e.getMessage() + ")");
+            }
+        }
+        return result;
+    }
+
+    // Every field as it was parsed, costs to the bit, plus the warnings in order.
+    private static List<String> describe(InventoryLoader.Result result) {
+        List<String> items = new ArrayList<>();
+        result.assets.forEach(asset -> items.add(String.join("|", "A", asset.getAssetId(), asset.getName(), asset.getCategory(),
+            asset.getSerialNumber(), asset.getStatus(), String.valueOf(asset.getAssignedTo()))));
+        result.employees.forEach(employee -> items.add(String.join("|", "E", employee.getEmployeeId(), employee.getName(),
+            employee.getDepartment(), employee.getEmail())));
+        result.records.forEach(record -> items.add(String.join("|", "M", record.getRecordId(), record.getAssetId(), record.getDate().toString(),
+            record.getDescription(), Long.toHexString(Double.doubleToRawLongBits(record.getCost())))));
+        items.addAll(result.warnings);
+        return items;
+    }
+
+    // Half the lines are left alone; the rest lose or gain a comma, get a letter or a digit in place of a character,
+    // a 29th to 31st, a cost with more digits than a long can hold exactly, or spaces and a trailing comma at the end.
+    private static String mangle(String line, Random random) {
+        if (random.nextBoolean()) {
+            return line;
+        }
+        StringBuilder mangled = new StringBuilder(line);
+        int at = 2 + random.nextInt(line.length() - 2);
+        switch (random.nextInt(8)) {
+            case 0 -> {
+                int comma = mangled.indexOf(",", at);
+                if (comma >= 0) {
+                    mangled.deleteCharAt(comma);
+                }
+            }
+            case 1 -> mangled.insert(at, ',');
+            case 2 -> mangled.setCharAt(at, (char) ('a' + random.nextInt(26)));
+            case 3 -> mangled.setCharAt(at, (char) ('0' + random.nextInt(10)));
+            case 4 -> {
+                int date = mangled.indexOf(",", mangled.indexOf(",", mangled.indexOf(",") + 1) + 1) + 1;
+                if (line.startsWith("M,")) {
+                    mangled.replace(date + 8, date + 10, String.valueOf(29 + random.nextInt(3)));
+                }
+            }
+            case 5 -> mangled.append(random.nextInt(10)).append(String.valueOf(random.nextLong()).replace("-", ""));
+            case 6 -> mangled.append(',');
+            default -> mangled.insert(0, "  ").append(" \t");
+        }
+        return mangled.toString();
+    }
+}
@@ -0,0 +1,253 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Changes are journaled after a save and the process stops without saving again, as if it crashed; the journal, cut
+// short or damaged in its last or an earlier batch, must replay to the last state it fully holds. Replaying entries
+// already applied changes nothing, and a checkpoint moves exactly the entries it covered to the kept journal.
+class JournalReplayTest {
+    private static final int ASSETS = 2_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void journaledChangesSurviveAStopWithoutSaving() throws IOException {
+        DataManager dataManager = saved(0);
+        AssetManager assetManager = new AssetManager(dataManager);
+        for (int i = 0; i < 50; i++) {
+            assetManager.updateAssetStatus(Inventories.assetId(i), "In Maintenance");
+        }
+        dataManager.flush();
+        assertEquals(Inventories.contents(dataManager), Inventories.contents(load()));
+
+        // A checkpoint that stopped between rotating the journal and writing its segments leaves the rotated journal,
+        // which replays ahead of the one written after it.
+        Path journal = dir.resolve("inventory.journal");
+        Files.move(journal, PersistenceScheduler.rotatedPath(journal));
+        DataManager restarted = load();
+        new AssetManager(restarted).updateAssetStatus(Inventories.assetId(0), "Retired");
+        restarted.flush();
+        DataManager loaded = load();
+        assertEquals(Inventories.contents(restarted), Inventories.contents(loaded));
+        assertEquals("Retired", loaded.findAsset(Inventories.assetId(0)).getStatus());
+        assertEquals("In Maintenance", loaded.findAsset(Inventories.assetId(49)).getStatus());
+    }
+
+    @Test
+    void aBatchCutShortAtTheEndIsTruncatedAway() throws IOException {
+        DataManager dataManager = journaled(20);
+        Path journal = dir.resolve("inventory.journal");
+        long length = Files.size(journal);
+        byte[] torn = BlockFormat.frame((new Asset("AST-9999999", "Torn", "IT", "SN-T", "Unassigned", null) + "\n").getBytes(StandardCharsets.UTF_8));
+        Files.write(journal, Arrays.copyOf(torn, torn.length - 5), StandardOpenOption.APPEND);
+
+        String[] report = new String[1];
+        DataManager loaded = load(report);
+        assertTrue(report[0].contains("ends in an incomplete write"), report[0]);
+        assertEquals(Inventories.contents(dataManager), Inventories.contents(loaded));
+        assertEquals(length, Files.size(journal));
+
+        // The journal is back at a block boundary, so what is written after the truncation replays too.
+        new AssetManager(loaded).updateAssetStatus(Inventories.assetId(ASSETS - 1), "Retired");
+        loaded.flush();
+        String[] again = new String[1];
+        assertEquals(Inventories.contents(loaded), Inventories.contents(load(again)));
+        assertFalse(again[0].contains("[WARNING]") || again[0].contains("[ERROR]"), again[0]);
+    }
+
+    @Test
+    void aLastBatchFailingItsChecksumIsDropped() throws IOException {
+        List<Set<String>> states = new ArrayList<>();
+        journaled(20, states);
+        Path journal = dir.resolve("inventory.journal");
+        byte[] content = Files.readAllBytes(journal);
+        List<int[]> blocks = BlockFormat.scan(ByteBuffer.wrap(content)).blocks;
+        int[] last = blocks.get(blocks.size() - 1);
+        content[last[0] + 2] ^= 0x20;
+        Files.write(journal, content);
+
+        String[] report = new String[1];
+        DataManager loaded = load(report);
+        assertTrue(report[0].contains("[WARNING]"), report[0]);
+        assertEquals(states.get(states.size() - 2), Inventories.contents(loaded));
+        assertEquals(blocks.get(blocks.size() - 2)[1], Files.size(journal));
+    }
+
+    @Test
+    void anEarlierBatchFailingItsChecksumIsSkippedAndTheRestReplayed() throws IOException {
+        List<Set<String>> states = new ArrayList<>();
+        journaled(20, states);
+        Path journal = dir.resolve("inventory.journal");
+        byte[] content = Files.readAllBytes(journal);
+        List<int[]> blocks = BlockFormat.scan(ByteBuffer.wrap(content)).blocks;
+        assertEquals(20, blocks.size());
+        int[] damaged = blocks.get(7);
+        String lost = new String(content, damaged[0], damaged[1] - damaged[0], StandardCharsets.UTF_8).trim();
+        content[damaged[0] + 2] ^= 0x20;
+        Files.write(journal, content);
+
+        String[] report = new String[1];
+        DataManager loaded = load(report);
+        assertTrue(report[0].contains("failed their checksum"), report[0]);
+        // Each batch changed a different asset, so only the damaged one's change is missing.
+        Set<String> expected = new HashSet<>(states.get(states.size() - 1));
+        expected.remove(lost);
+        expected.addAll(states.get(0).stream().filter(item -> item.startsWith("A," + Inventories.assetId(7) + ",")).toList());
+        assertEquals(expected, Inventories.contents(loaded));
+    }
+
+    @Test
+    void replayingEntriesTwiceChangesNothing() throws IOException {
+        DataManager dataManager = saved(0);
+        AssetManager assetManager = new AssetManager(dataManager);
+        EmployeeManager employeeManager = new EmployeeManager(dataManager);
+        MaintenanceManager maintenanceManager = new MaintenanceManager(dataManager);
+        for (int i = 0; i < 30; i++) {
+            String assetId = Inventories.assetId(i);
+            maintenanceManager.recordMaintenance(assetId, "Service " + i, 25.5, LocalDateTime.of(2024, 5, 1, 8, 0).plusHours(i), assetManager);
+            assetManager.updateAssetStatus(assetId, i % 3 == 0 ? "Retired" : "In Maintenance");
+        }
+        assetManager.addAsset("AST-TEMP", "Temporary", "IT", "SN-TEMP");
+        maintenanceManager.recordMaintenance("AST-TEMP", "Checked", 5.0, LocalDateTime.of(2024, 6, 1, 8, 0), assetManager);
+        assetManager.deleteAsset("AST-TEMP");
+        employeeManager.addEmployee("EMP-TEMP", "Temporary", "Ops", "temp@example.com");
+        employeeManager.deleteEmployee("EMP-TEMP");
+        dataManager.flush();
+        Set<String> expected = Inventories.contents(dataManager);
+        int records = dataManager.getMaintenanceRecordCount();
+
+        // The whole journal twice over.
+        Path journal = dir.resolve("inventory.journal");
+        byte[] entries = Files.readAllBytes(journal);
+        Files.write(journal, entries, StandardOpenOption.APPEND);
+        DataManager twice = load();
+        assertEquals(expected, Inventories.contents(twice));
+        assertEquals(records, twice.getMaintenanceRecordCount());
+
+        // A crash after a save put its segments in place but before it reset the journal replays the journal over
+        // segments that already hold it.
+        Files.write(journal, entries);
+        dataManager.saveData();
+        Files.write(journal, entries);
+        DataManager stale = load();
+        assertEquals(expected, Inventories.contents(stale));
+        assertEquals(records, stale.getMaintenanceRecordCount());
+    }
+
+    @Test
+    void aCheckpointKeepsTheEntriesItCoveredInTheSupersededJournal() throws Exception {
+        DataManager dataManager = saved(60_000);
+        Path journal = dir.resolve("inventory.journal");
+        List<Path> before = PersistenceScheduler.supersededPaths(journal);
+        AssetManager assetManager = new AssetManager(dataManager);
+        List<String> covered = new ArrayList<>();
+        for (int i = 0; i < DataManager.COMPACTION_THRESHOLD; i++) {
+            covered.add(assetManager.updateAssetStatus(Inventories.assetId(i % ASSETS), i % 2 == 0 ? "In Maintenance" : "Unassigned").toString());
+        }
+        dataManager.flush();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (PersistenceScheduler.supersededPaths(journal).size() == before.size() || Files.exists(PersistenceScheduler.rotatedPath(journal))) {
+            assertTrue(System.nanoTime() < deadline, "no checkpoint after " + DataManager.COMPACTION_THRESHOLD + " entries");
+            Thread.sleep(10);
+        }
+        dataManager.refresh();
+        List<Path> after = PersistenceScheduler.supersededPaths(journal);
+        assertEquals(covered, entries(after.get(after.size() - 1)));
+        assertFalse(Files.exists(journal));
+        assertEquals(Inventories.contents(dataManager), Inventories.contents(load()));
+
+        // Changes after the checkpoint start a new journal, which replays over the checkpoint's segments.
+        List<String> later = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            later.add(assetManager.updateAssetStatus(Inventories.assetId(i), "Retired").toString());
+        }
+        dataManager.flush();
+        assertEquals(later, entries(journal));
+        assertEquals(covered, entries(after.get(after.size() - 1)));
+        assertEquals(Inventories.contents(dataManager), Inventories.contents(load()));
+    }
+
+    private DataManager saved(long flushDelayMs) {
+        DataManager dataManager = new DataManager(dir, flushDelayMs);
+        quietly(() -> {
+            Inventories.populate(dataManager, ASSETS);
+            dataManager.saveData();
+        });
+        return dataManager;
+    }
+
+    private DataManager journaled(int batches) {
+        return journaled(batches, new ArrayList<>());
+    }
+    // One batch per change, each to a different asset; states gets the inventory before and after each.
+    private DataManager journaled(int batches, List<Set<String>> states) {
+        DataManager dataManager = saved(0);
+        AssetManager assetManager = new AssetManager(dataManager);
+        states.add(Inventories.contents(dataManager));
+        for (int i = 0; i < batches; i++) {
+            assetManager.updateAssetStatus(Inventories.assetId(i), "In Maintenance");
+            dataManager.flush();
+            states.add(Inventories.contents(dataManager));
+        }
+        return dataManager;
+    }
+
+    private DataManager load() {
+        return load(new String[1]);
+    }
+    // Loads the directory afresh; report gets what the load printed to System.err.
+    private DataManager load(String[] report) {
+        DataManager dataManager = new DataManager(dir, 0);
+        PrintStream errors = System.err;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(captured, true, StandardCharsets.UTF_8));
+        try {
+            quietly(dataManager::loadData);
+        } finally {
+            System.setErr(errors);
+        }
+        report[0] = captured.toString(StandardCharsets.UTF_8);
+        return dataManager;
+    }
+
+    private static List<String> entries(Path journal) throws IOException {
+        byte[] content = Files.readAllBytes(journal);
+        List<String> entries = new ArrayList<>();
+        for (int[] block : BlockFormat.scan(ByteBuffer.wrap(content)).blocks) {
+            new String(content, block[0], block[1] - block[0], StandardCharsets.UTF_8).lines().forEach(entries::add);
+        }
+        return entries;
+    }
+
+    private static void quietly(Runnable action) {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(console);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Keyset pagination: walking the pages with each one starting after the last ID of the one before, while rows are
+// added and deleted between pages - the last row shown among them - returns every row that was there throughout,
+// and every row added ahead of the walk, exactly once and in ID order, and never a row already deleted.
+class KeysetPaginationTest {
+    private static final int ASSETS = 1_000;
+    private static final int PAGE = 37;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void assetPagesHaveNoGapsOrDuplicatesUnderChanges() {
+        DataManager dataManager = populated();
+        AssetManager assetManager = new AssetManager(dataManager);
+        Walk walk = new Walk(dataManager.getAssets().stream().map(Asset::getAssetId).collect(Collectors.toList()));
+        walk.run(PAGE, (after, limit) -> ids(dataManager.assetPage(after, limit, asset -> true), Asset::getAssetId),
+            id -> assetManager.addAsset(id, "Added", "IT", "SN-ADDED"), assetManager::deleteAsset);
+        dataManager.flush();
+    }
+
+    @Test
+    void employeePagesHaveNoGapsOrDuplicatesUnderChanges() {
+        DataManager dataManager = populated();
+        EmployeeManager employeeManager = new EmployeeManager(dataManager);
+        // Only employees holding nothing can be deleted. There are a tenth as many as assets, so the pages are smaller.
+        dataManager.getAssets().forEach(asset -> dataManager.setAssignee(asset, null));
+        Walk walk = new Walk(dataManager.getEmployees().stream().map(Employee::getEmployeeId).collect(Collectors.toList()));
+        walk.run(PAGE / 5, (after, limit) -> ids(dataManager.employeePage(after, limit, employee -> true), Employee::getEmployeeId),
+            id -> employeeManager.addEmployee(id, "Added", "Ops", "added@example.com"), employeeManager::deleteEmployee);
+        dataManager.flush();
+    }
+
+    @Test
+    void filteredPagesSkipRowsThatStopMatching() {
+        DataManager dataManager = populated();
+        AssetManager assetManager = new AssetManager(dataManager);
+        for (int i = 0; i < ASSETS; i += 7) {
+            assetManager.updateAssetStatus(Inventories.assetId(i), "Retired");
+        }
+        Random random = new Random(3);
+        List<String> seen = new ArrayList<>();
+        Set<String> retiredBehind = new HashSet<>();
+        String after = null;
+        while (true) {
+            List<String> page = ids(dataManager.assetPage(after, 10, asset -> asset.getStatus().equals("Retired")), Asset::getAssetId);
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(id -> assertEquals("Retired", dataManager.findAsset(id).getStatus(), id));
+            seen.addAll(page);
+            after = page.get(page.size() - 1);
+            for (int i = 0; i < 5; i++) {
+                String id = Inventories.assetId(random.nextInt(ASSETS));
+                assetManager.updateAssetStatus(id, random.nextBoolean() ? "Retired" : "In Maintenance");
+                if (id.compareTo(after) <= 0) {
+                    retiredBehind.add(id);
+                }
+            }
+        }
+        assertEquals(new ArrayList<>(new TreeSet<>(seen)), seen, "out of order or repeated");
+        // Ahead of the cursor, the walk saw exactly what is Retired now.
+        Set<String> expected = dataManager.getAssets().stream().filter(asset -> asset.getStatus().equals("Retired"))
+            .map(Asset::getAssetId).filter(id -> !retiredBehind.contains(id)).collect(Collectors.toSet());
+        Set<String> walked = new HashSet<>(seen);
+        walked.removeAll(retiredBehind);
+        assertEquals(expected, walked);
+        assertTrue(seen.size() > 10, seen.size() + " rows");
+        dataManager.flush();
+    }
+
+    // One walk over the pages with changes in between. Added IDs fall between existing ones (AST-0000100 < AST-0000100X).
+    private static final class Walk {
+        private final Set<String> present;
+        private final Set<String> deleted = new HashSet<>();
+        private final Set<String> mustSee;
+        private final Random random = new Random(5);
+        Walk(List<String> ids) {
+            present = new TreeSet<>(ids);
+            mustSee = new HashSet<>(ids);
+        }
+        void run(int limit, BiFunction<String, Integer, List<String>> pages, Consumer<String> add, Consumer<String> delete) {
+            List<String> seen = new ArrayList<>();
+            String after = null;
+            int added = 0;
+            while (true) {
+                List<String> page = pages.apply(after, limit);
+                if (page.isEmpty()) {
+                    break;
+                }
+                for (String id : page) {
+                    assertTrue(!deleted.contains(id), id + " was shown after it was deleted");
+                }
+                seen.addAll(page);
+                String last = page.get(page.size() - 1);
+                // The cursor is matched case-insensitively, like every other ID lookup.
+                after = random.nextBoolean() ? last : last.toLowerCase(Locale.ROOT);
+                List<String> candidates = new ArrayList<>(present);
+                for (int i = 0; i < 3; i++) {
+                    String victim = i == 0 && random.nextInt(4) == 0 ? last : candidates.get(random.nextInt(candidates.size()));
+                    if (present.remove(victim)) {
+                        delete.accept(victim);
+                        deleted.add(victim);
+                    }
+                    String fresh = candidates.get(random.nextInt(candidates.size())) + (char) ('A' + added++ % 26) + added;
+                    add.accept(fresh);
+                    present.add(fresh);
+                    if (fresh.compareTo(last) > 0) {
+                        mustSee.add(fresh);
+                    }
+                }
+            }
+            assertEquals(new ArrayList<>(new TreeSet<>(seen)), seen, "out of order or repeated");
+            Set<String> missed = new TreeSet<>(mustSee);
+            missed.removeAll(deleted);
+            seen.forEach(missed::remove);
+            assertEquals(Set.of(), missed, "rows the walk skipped");
+            assertTrue(added > 30, added + " rows added during the walk");
+        }
+    }
+
+    private DataManager populated() {
+        DataManager dataManager = new DataManager(dir, 0);
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            Inventories.populate(dataManager, ASSETS);
+        } finally {
+            System.setOut(console);
+        }
+        return dataManager;
+    }
+
+    private static <T> List<String> ids(List<T> rows, Function<T, String> id) {
+        return rows.stream().map(id).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,101 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// A synthetic inventory saved as segments and loaded with full and with lazy history. Both modes must return the same
+// histories and cost totals, also after changes made in lazy mode are saved and loaded again either way.
+class LazyHistoryTest {
+    private static final int LINES = 200_000;
+
+    @TempDir
+    Path dir;
+
+    private int assetCount;
+
+    @BeforeEach
+    void saveSegments() throws Exception {
+        Inventories.writeSyntheticInventory(dir.resolve("inventory.txt"), LINES);
+        DataManager seed = new DataManager(dir);
+        seed.loadData();
+        seed.saveData();
+        assetCount = seed.getAssetCount();
+    }
+
+    @Test
+    void lazyLoadReturnsTheSameHistoriesWithLessHeap() {
+        long base = retainedHeap();
+        DataManager full = load(false);
+        long fullHeap = retainedHeap() - base;
+        String fullDigest = historyDigest(full);
+        full = null;
+        base = retainedHeap();
+        DataManager lazy = load(true);
+        long lazyHeap = retainedHeap() - base;
+        assertEquals(fullDigest, historyDigest(lazy));
+        assertTrue(lazyHeap < fullHeap / 2, "lazy load retains " + (lazyHeap >> 10) + " KB, full load " + (fullHeap >> 10) + " KB");
+    }
+
+    @Test
+    void changesMadeLazilyReloadIdentically() {
+        DataManager dataManager = load(true);
+        MaintenanceAnalytics analytics = dataManager.getAnalytics();
+        AssetManager assetManager = new AssetManager(dataManager);
+        MaintenanceManager maintenanceManager = new MaintenanceManager(dataManager);
+        Random random = new Random(5);
+        for (int i = 0; i < 2_000; i++) {
+            String assetId = Inventories.assetId(random.nextInt(assetCount));
+            try {
+                if (i % 10 == 0) {
+                    assetManager.deleteAsset(assetId);
+                } else {
+                    maintenanceManager.recordMaintenance(assetId, "Repair", random.nextInt(50_000) / 100.0,
+                        LocalDateTime.of(2024, 1 + random.nextInt(12), 1, 9, 0), assetManager);
+                }
+            } catch (IllegalArgumentException e) {
+                // Already deleted.
+            }
+        }
+        assertEquals(List.of(), dataManager.exclusive(() -> analytics.verify(dataManager)));
+        dataManager.flush();
+        dataManager.saveData();
+        String expected = historyDigest(dataManager);
+        assertEquals(expected, historyDigest(load(true)), "lazy reload");
+        assertEquals(expected, historyDigest(load(false)), "full reload");
+    }
+
+    private DataManager load(boolean lazy) {
+        DataManager dataManager = new DataManager(dir);
+        dataManager.setLazyHistory(lazy);
+        dataManager.loadData();
+        return dataManager;
+    }
+
+    // Record count, cost totals per category, and every asset's records.
+    private static String historyDigest(DataManager dataManager) {
+        long hash = 0;
+        for (String id : dataManager.getAssets().stream().map(Asset::getAssetId).collect(Collectors.toList())) {
+            hash = hash * 31 + dataManager.getMaintenanceHistory(id).toString().hashCode();
+        }
+        StringBuilder totals = new StringBuilder();
+        dataManager.getAnalytics().byCategory().forEach((category, t) -> totals.append(category).append('=').append(t.cents).append('/').append(t.count).append(' '));
+        return dataManager.getMaintenanceRecordCount() + " records, histories " + Long.toHexString(hash) + ", " + totals.toString().trim();
+    }
+
+    private static long retainedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,54 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Applies a seeded mix of assignments, maintenance and deletes through the managers and checks the incremental cost
+// aggregates against a full recomputation.
+class MaintenanceAnalyticsTest {
+    private static final int ASSETS = 10_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void incrementalAggregatesMatchRecomputation() {
+        DataManager dataManager = new DataManager(dir);
+        Inventories.populate(dataManager, ASSETS);
+        dataManager.beginBatch();
+        AssetManager assetManager = new AssetManager(dataManager);
+        EmployeeManager employeeManager = new EmployeeManager(dataManager);
+        MaintenanceManager maintenanceManager = new MaintenanceManager(dataManager);
+        Random random = new Random(11);
+        int employees = ASSETS / 10;
+        for (int i = 0; i < 20_000; i++) {
+            String assetId = Inventories.assetId(random.nextInt(ASSETS));
+            try {
+                switch (random.nextInt(10)) {
+                    case 0: case 1: case 2:
+                        assetManager.assignAsset(assetId, Inventories.employeeId(random.nextInt(employees)), employeeManager);
+                        break;
+                    case 3: case 4:
+                        assetManager.deassignAsset(assetId);
+                        break;
+                    case 5:
+                        assetManager.deleteAsset(assetId);
+                        break;
+                    default:
+                        maintenanceManager.recordMaintenance(assetId, "Repair", random.nextInt(50_000) / 100.0,
+                            LocalDateTime.of(2020 + random.nextInt(6), 1 + random.nextInt(12), 1, 9, 0), assetManager);
+                }
+            } catch (IllegalArgumentException e) {
+                // Deleted or already in that state; the mix goes on.
+            }
+        }
+        MaintenanceAnalytics analytics = dataManager.getAnalytics();
+        assertEquals(List.of(), dataManager.exclusive(() -> analytics.verify(dataManager)));
+    }
+}
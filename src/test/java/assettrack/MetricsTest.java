@@ -0,0 +1,135 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Metrics: each duration lands in the power-of-two bucket its doc comment names and percentiles report that bucket's
+// upper bound; with -Dassettrack.metrics=false (checked in a JVM of its own, as the flag is read once) nothing is
+// recorded or written; and a reporter rewrites its file until closed, then writes it once more and lets go of its
+// thread and shutdown hook.
+class MetricsTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void durationsLandInTheirPowerOfTwoBucket() {
+        long[][] cases = {{0, 0}, {-5, 0}, {1, 2}, {2, 4}, {3, 4}, {1_023, 1_024}, {1_024, 2_048}, {1_000_000, 1 << 20},
+            {Long.MAX_VALUE, 1L << 62}};
+        List<String> failures = new ArrayList<>();
+        for (long[] c : cases) {
+            Metrics.Timer timer = new Metrics.Timer();
+            timer.record(c[0]);
+            if (timer.percentile(1, 1.0) != c[1]) {
+                failures.add(c[0] + " ns reported as < " + timer.percentile(1, 1.0) + ", expected < " + c[1]);
+            }
+        }
+        assertEquals(List.of(), failures);
+
+        // 98 fast samples and 2 slow ones: the median and p98 are in the fast bucket, p99 in the slow one.
+        Metrics.Timer timer = new Metrics.Timer();
+        for (int i = 0; i < 98; i++) {
+            timer.record(100);
+        }
+        timer.record(1_000_000);
+        timer.record(900_000);
+        assertEquals(100, timer.count());
+        assertEquals(98 * 100 + 1_900_000, timer.totalNanos());
+        assertEquals(128, timer.percentile(100, 0.50));
+        assertEquals(128, timer.percentile(100, 0.98));
+        assertEquals(1 << 20, timer.percentile(100, 0.99));
+    }
+
+    @Test
+    void timersCountFailuresAndRethrow() {
+        assumeTrue(Metrics.ENABLED, "run with -Dassettrack.metrics=false");
+        Metrics.Timer timer = new Metrics.Timer();
+        assertEquals(7, timer.time(() -> 7));
+        assertThrows(IllegalArgumentException.class, () -> timer.time(() -> {
+            throw new IllegalArgumentException("rejected");
+        }));
+        assertEquals(2, timer.count());
+        Metrics.timer("test.timer").time(() -> 1);
+        Metrics.counter("test.counter").add(5);
+        String report = Metrics.report();
+        assertTrue(report.contains("test.timer") && report.contains("test.counter"), report);
+    }
+
+    @Test
+    void disabledMetricsRecordAndWriteNothing() throws Exception {
+        Path file = dir.resolve("metrics.txt");
+        List<String> command = List.of(Paths.get(System.getProperty("java.home"), "bin", "java").toString(), "-cp",
+            System.getProperty("java.class.path"), "-Dassettrack.metrics=false", Disabled.class.getName(), file.toString());
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS), "the disabled run did not finish");
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.exitValue(), output);
+        assertEquals(List.of("enabled false", "counter 0", "timer 0 7", "[INFO] Metrics are disabled (-Dassettrack.metrics=false)."),
+            output.lines().toList());
+        assertFalse(Files.exists(file), "a disabled reporter wrote the file");
+    }
+
+    @Test
+    void aClosedReporterStopsAndWritesOnceMore() throws Exception {
+        assumeTrue(Metrics.ENABLED, "run with -Dassettrack.metrics=false");
+        Path file = dir.resolve("metrics.txt");
+        Metrics.Reporter reporter = Metrics.startReporter(file, 20);
+        // It rewrites the file for as long as it runs.
+        for (int i = 0; i < 2; i++) {
+            awaitFile(file);
+            assertTrue(Files.readString(file).startsWith("--- METRICS"));
+            Files.delete(file);
+        }
+        reporter.close();
+        assertTrue(Files.exists(file), "close wrote no final report");
+        assertFalse(Runtime.getRuntime().removeShutdownHook(reporter.hook), "the shutdown hook is still registered");
+        assertFalse(Thread.getAllStackTraces().keySet().stream().anyMatch(thread -> thread.getName().equals("assettrack-metrics")),
+            "the reporter thread is still running");
+
+        Files.delete(file);
+        reporter.close();
+        Thread.sleep(100);
+        assertFalse(Files.exists(file), "a closed reporter wrote again");
+        Metrics.startReporter(file, 0).close();
+        assertFalse(Files.exists(file), "a reporter with no interval wrote");
+    }
+
+    private static void awaitFile(Path file) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!Files.exists(file)) {
+            assertTrue(System.nanoTime() < deadline, "no report written to " + file);
+            Thread.sleep(5);
+        }
+    }
+
+    // Run with -Dassettrack.metrics=false: records through every kind of metric and starts a reporter on the file given.
+    static final class Disabled {
+        public static void main(String[] args) throws IOException, InterruptedException {
+            Metrics.Counter counter = Metrics.counter("test.disabled");
+            counter.increment();
+            counter.add(5);
+            Metrics.Timer timer = Metrics.timer("test.disabled");
+            timer.stop(timer.start());
+            int value = timer.time(() -> 7);
+            Metrics.startReporter(Paths.get(args[0]), 10);
+            Thread.sleep(100);
+            System.out.println("enabled " + Metrics.ENABLED);
+            System.out.println("counter " + counter.get());
+            System.out.println("timer " + timer.count() + " " + value);
+            System.out.print(Metrics.report());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Several JVMs running ProcessWorker share one data directory, changing the same hot assets at once while some delete
+// employees that others assign assets to. Afterwards each one catches up and reports its inventory, which must equal a
+// fresh load of the directory: no process may have lost another's changes, every asset and record a process added
+// must be there, no asset may be held by a missing employee, and nothing may have logged an error. The audit log must
+// number its events uniquely, never show a contested asset leave retirement, and end on each asset's stored state.
+class MultiProcessTest {
+    private static final int PROCESSES = 4;
+    private static final int SECONDS = 3;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void processesSharingDataEndWithTheStoredInventory() throws Exception {
+        Path data = dir.resolve("data");
+        DataManager before = new DataManager(data, 0);
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            Inventories.populate(before, ProcessWorker.ASSETS);
+            before.saveData();
+        } finally {
+            System.setOut(console);
+        }
+        List<String> command = new ArrayList<>(List.of(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", System.getProperty("java.class.path")));
+        System.getProperties().stringPropertyNames().stream().filter(name -> name.startsWith("assettrack.")).sorted()
+            .forEach(name -> command.add("-D" + name + "=" + System.getProperty(name)));
+        command.addAll(List.of(ProcessWorker.class.getName(), data.toString()));
+        List<Process> workers = new ArrayList<>();
+        List<BufferedReader> outputs = new ArrayList<>();
+        try {
+            for (int i = 0; i < PROCESSES; i++) {
+                List<String> worker = new ArrayList<>(command);
+                worker.addAll(List.of(String.valueOf(i), String.valueOf(SECONDS)));
+                Process process = new ProcessBuilder(worker).redirectError(dir.resolve("worker-" + i + ".err").toFile()).start();
+                workers.add(process);
+                outputs.add(new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)));
+            }
+            List<String> failures = new ArrayList<>();
+            for (int i = 0; i < PROCESSES; i++) {
+                String line;
+                while ((line = outputs.get(i).readLine()) != null && !line.equals("done")) {
+                    // the worker's own messages
+                }
+                if (line == null) {
+                    failures.add("worker " + i + " exited early");
+                }
+            }
+            Set<String> added = new HashSet<>();
+            List<String> digests = new ArrayList<>();
+            long changes = 0;
+            for (int i = 0; i < PROCESSES; i++) {
+                Process process = workers.get(i);
+                if (!process.isAlive()) {
+                    continue;
+                }
+                process.getOutputStream().write("digest\n".getBytes(StandardCharsets.UTF_8));
+                process.getOutputStream().flush();
+                String line;
+                while ((line = outputs.get(i).readLine()) != null) {
+                    if (line.startsWith("added ")) {
+                        added.add(line.substring(6));
+                    } else if (line.startsWith("digest ")) {
+                        digests.add(line.substring(7));
+                    } else if (line.startsWith("changes ")) {
+                        changes += Long.parseLong(line.substring(8));
+                    }
+                }
+                if (!process.waitFor(30, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                    failures.add("worker " + i + " did not exit cleanly");
+                }
+            }
+            for (int i = 0; i < PROCESSES; i++) {
+                for (String line : Files.readAllLines(dir.resolve("worker-" + i + ".err"), StandardCharsets.UTF_8)) {
+                    if (line.startsWith("[ERROR]") || line.startsWith("[WARNING]") && !line.contains("by another process")) {
+                        failures.add("worker " + i + ": " + line);
+                    }
+                }
+            }
+            assertTrue(changes > 0, "the workers made no changes");
+
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            DataManager loaded = new DataManager(data, 0);
+            try {
+                before.refresh();
+                loaded.loadData();
+            } finally {
+                System.setOut(console);
+            }
+            Set<String> stored = Inventories.contents(loaded);
+            String expected = stored.hashCode() + "/" + stored.size();
+            Set<String> caughtUp = Inventories.contents(before);
+            digests.add(caughtUp.hashCode() + "/" + caughtUp.size());
+            for (String digest : digests) {
+                if (!digest.equals(expected)) {
+                    failures.add("an inventory (" + digest + ") differs from the stored one (" + expected + ")");
+                }
+            }
+            Predicate<String> present = item -> {
+                String[] fields = item.split(" ");
+                return fields[0].equals("A") ? loaded.findAsset(fields[1]) != null
+                    : loaded.getMaintenanceHistory(fields[1]).stream().anyMatch(record -> record.getRecordId().equals(fields[2]));
+            };
+            List<String> missing = added.stream().filter(present.negate()).sorted().collect(Collectors.toList());
+            if (!missing.isEmpty()) {
+                failures.add(missing.size() + " added item(s) missing, such as " + missing.subList(0, Math.min(3, missing.size())));
+            }
+            for (Asset asset : loaded.getAssets()) {
+                if (asset.getAssignedTo() != null && loaded.findEmployee(asset.getAssignedTo()) == null) {
+                    failures.add("asset " + asset.getAssetId() + " is held by " + asset.getAssignedTo() + ", who does not exist");
+                }
+            }
+            Set<String> contested = new HashSet<>();
+            for (int i = 0; i < ProcessWorker.CONTESTED_ASSETS; i++) {
+                contested.add(Inventories.assetId(ProcessWorker.HOT_ASSETS + i));
+            }
+            failures.addAll(checkAuditLog(loaded, data.resolve("audit.log"), contested));
+            assertEquals(List.of(), failures);
+        } finally {
+            workers.forEach(Process::destroyForcibly);
+            for (Process process : workers) {
+                process.waitFor();
+            }
+        }
+    }
+
+    private static List<String> checkAuditLog(DataManager stored, Path log, Set<String> neverUnretired) throws IOException {
+        List<String> failures = new ArrayList<>();
+        long previous = 0;
+        for (String line : Files.readAllLines(log, StandardCharsets.UTF_8)) {
+            long sequence = Long.parseLong(line.substring(0, line.indexOf(',')));
+            if (sequence <= previous) {
+                failures.add("audit event " + sequence + " follows event " + previous);
+            }
+            previous = sequence;
+        }
+        AuditLog audit = new AuditLog(log);
+        for (Asset asset : stored.getAssets()) {
+            List<AuditLog.State> trail = audit.trail(asset.getAssetId());
+            for (int i = 1; i < trail.size() && neverUnretired.contains(asset.getAssetId()); i++) {
+                if (trail.get(i - 1).status.equals("Retired") && !trail.get(i).status.equals("Retired")) {
+                    failures.add("the audit log shows asset " + asset.getAssetId() + " going from Retired to " + trail.get(i).status);
+                }
+            }
+            AuditLog.State last = trail.isEmpty() ? null : trail.get(trail.size() - 1);
+            if (last != null && (!last.status.equals(asset.getStatus()) || !Objects.equals(last.holder, asset.getAssignedTo()))) {
+                failures.add("the audit log leaves asset " + asset.getAssetId() + " " + last.status + " with " + last.holder
+                    + ", but it is stored " + asset.getStatus() + " with " + asset.getAssignedTo());
+            }
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,137 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The journal's group commit: entries appended by many threads within the delay share one write and fsync, flush()
+// returns only once a write already under way is durable, and a closed scheduler writes what it had and lets go.
+class PersistenceSchedulerTest {
+    private static final int THREADS = 8;
+    private static final int ENTRIES = 100;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void concurrentAppendsShareAWrite() throws Exception {
+        Path journal = dir.resolve("inventory.journal");
+        PersistenceScheduler scheduler = new PersistenceScheduler(journal, 200, () -> { }, true, null, null);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            threads.add(CompletableFuture.runAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                for (int i = 0; i < ENTRIES; i++) {
+                    scheduler.append("T" + thread + "," + i);
+                }
+            }));
+        }
+        start.countDown();
+        threads.forEach(CompletableFuture::join);
+        scheduler.flush();
+
+        List<List<String>> blocks = blocks(journal);
+        List<String> written = new ArrayList<>();
+        blocks.forEach(written::addAll);
+        assertEquals(THREADS * ENTRIES, written.size());
+        assertEquals(THREADS * ENTRIES, new HashSet<>(written).size());
+        assertTrue(blocks.size() < THREADS, blocks.size() + " writes for " + THREADS + " threads");
+        Set<String> sharing = new HashSet<>();
+        blocks.get(0).forEach(entry -> sharing.add(entry.substring(0, entry.indexOf(','))));
+        assertTrue(sharing.size() > 1, "the first write held only " + sharing);
+        scheduler.close();
+    }
+
+    @Test
+    void flushWaitsForAWriteUnderWay() throws Exception {
+        Path journal = dir.resolve("inventory.journal");
+        CountDownLatch taken = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PersistenceScheduler scheduler = new PersistenceScheduler(journal, 0, () -> { }, true, null, new PersistenceScheduler.Commit() {
+            @Override
+            public String prepare(Supplier<String> take, boolean sync) {
+                String batch = take.get();
+                taken.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return batch;
+            }
+            @Override
+            public void written(String journalIdentity, long length) {
+            }
+        });
+        scheduler.append("A,AST-0000001");
+        assertTrue(taken.await(10, TimeUnit.SECONDS), "the writer never took the queue");
+        // The queue is empty now, but its entry is not written yet: flush must wait for it.
+        CompletableFuture<Void> flushed = CompletableFuture.runAsync(scheduler::flush);
+        Thread.sleep(200);
+        assertFalse(flushed.isDone(), "flush returned while the write was under way");
+        release.countDown();
+        flushed.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of(List.of("A,AST-0000001")), blocks(journal));
+        scheduler.close();
+    }
+
+    @Test
+    void closeWritesWhatIsQueuedAndReleasesTheScheduler() throws Exception {
+        Path journal = dir.resolve("inventory.journal");
+        PersistenceScheduler scheduler = new PersistenceScheduler(journal, 60_000, () -> { }, true, null, null);
+        scheduler.append("A,AST-0000001");
+        scheduler.append("A,AST-0000002");
+        scheduler.close();
+        assertEquals(List.of(List.of("A,AST-0000001", "A,AST-0000002")), blocks(journal));
+
+        // Appending after close starts the writer again.
+        scheduler.append("A,AST-0000003");
+        scheduler.flush();
+        assertEquals(List.of(List.of("A,AST-0000001", "A,AST-0000002"), List.of("A,AST-0000003")), blocks(journal));
+        scheduler.close();
+
+        // Neither a shutdown hook nor the stopped writer holds on to it.
+        WeakReference<PersistenceScheduler> reference = new WeakReference<>(scheduler);
+        scheduler = null;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (reference.get() != null && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get(), "a closed scheduler is still reachable");
+    }
+
+    // The entries of each write, in order.
+    private static List<List<String>> blocks(Path journal) throws IOException {
+        byte[] content = Files.readAllBytes(journal);
+        List<List<String>> blocks = new ArrayList<>();
+        for (int[] block : BlockFormat.scan(ByteBuffer.wrap(content)).blocks) {
+            blocks.add(new String(content, block[0], block[1] - block[0], StandardCharsets.UTF_8).lines().toList());
+        }
+        return blocks;
+    }
+}
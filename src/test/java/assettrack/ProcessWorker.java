@@ -0,0 +1,129 @@
+package assettrack;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// One of the processes MultiProcessTest starts on a shared data directory: java assettrack.ProcessWorker <data dir>
+// <worker number> <seconds>. It reports "done" when its time is up, then waits to be asked for its inventory, so that
+// every process is finished writing before any of them catches up for the last time.
+final class ProcessWorker {
+    static final int ASSETS = 2_000;
+    static final int HOT_ASSETS = 40;
+    static final int CONTESTED_ASSETS = 40;
+    static final int CONTESTED_EMPLOYEES = 5;
+
+    private ProcessWorker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        run(Paths.get(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+    }
+
+    // Changes a shared set of hot assets (so the workers' changes collide), adds assets and maintenance records of its
+    // own, and saves now and then. Odd workers assign contested assets to a few contested employees, which even workers
+    // add and delete, and the contested assets are retired one by one as the run goes on.
+    private static void run(Path data, int worker, int seconds) throws IOException {
+        DataManager dataManager = new DataManager(data);
+        dataManager.loadData();
+        dataManager.watch();
+        AssetManager assetManager = new AssetManager(dataManager);
+        EmployeeManager employeeManager = new EmployeeManager(dataManager);
+        MaintenanceManager maintenanceManager = new MaintenanceManager(dataManager);
+        Random random = new Random(31 + worker);
+        List<String> added = new ArrayList<>();
+        List<String> own = new ArrayList<>();
+        long changes = 0;
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < deadline) {
+            String hot = Inventories.assetId(random.nextInt(HOT_ASSETS));
+            int contested = random.nextInt(CONTESTED_ASSETS);
+            String contestedAsset = Inventories.assetId(HOT_ASSETS + contested);
+            String contestedEmployee = "CE-" + random.nextInt(CONTESTED_EMPLOYEES);
+            try {
+                switch (random.nextInt(10)) {
+                    case 0: case 1:
+                        assetManager.assignAsset(hot, Inventories.employeeId(random.nextInt(ASSETS / 10)), employeeManager);
+                        break;
+                    case 2:
+                        assetManager.deassignAsset(hot);
+                        break;
+                    case 3:
+                        assetManager.updateAssetStatus(hot, AssetManager.STATUSES[random.nextInt(AssetManager.STATUSES.length)]);
+                        break;
+                    case 4:
+                        String id = "W" + worker + "-" + own.size();
+                        assetManager.addAsset(id, "Worker asset", "IT", "SN-" + id);
+                        own.add(id);
+                        added.add("A " + id);
+                        break;
+                    case 5:
+                        if (worker % 2 == 1) {
+                            assetManager.assignAsset(contestedAsset, contestedEmployee, employeeManager);
+                        } else if (dataManager.findEmployee(contestedEmployee) == null) {
+                            employeeManager.addEmployee(contestedEmployee, "Contested " + contestedEmployee, "Ops", contestedEmployee.toLowerCase() + "@example.com");
+                        } else {
+                            for (Asset asset : new ArrayList<>(dataManager.getAssetsAssignedTo(contestedEmployee))) {
+                                assetManager.deassignAsset(asset.getAssetId());
+                            }
+                            employeeManager.deleteEmployee(contestedEmployee);
+                        }
+                        break;
+                    case 6:
+                        // the contested assets retire in turn over the run, handed back first, and are never brought back
+                        boolean due = System.nanoTime() - started > (deadline - started) * (contested + 1) / (CONTESTED_ASSETS + 1);
+                        Asset current = dataManager.findAsset(contestedAsset);
+                        if (current == null || current.getStatus().equals("Retired")) {
+                            break;
+                        }
+                        if (current.getAssignedTo() != null) {
+                            assetManager.deassignAsset(contestedAsset);
+                        }
+                        if (due) {
+                            assetManager.updateAssetStatus(contestedAsset, "Retired");
+                        }
+                        break;
+                    default:
+                        String target = own.isEmpty() || random.nextBoolean() ? hot : own.get(random.nextInt(own.size()));
+                        MaintenanceRecord record = maintenanceManager.recordMaintenance(target, "Checked by worker " + worker,
+                            random.nextInt(10_000) / 100.0, LocalDateTime.now().withNano(0), assetManager);
+                        added.add("M " + target + " " + record.getRecordId());
+                }
+                changes++;
+            } catch (IllegalArgumentException e) {
+                // an assignment the hot asset's current state does not allow
+            }
+            if (changes % 500 == 499) {
+                dataManager.saveData();
+            }
+            if (random.nextInt(4) == 0) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        dataManager.flush();
+        System.out.println("done");
+        System.out.flush();
+        new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)).readLine();
+        dataManager.refresh();
+        added.forEach(item -> System.out.println("added " + item));
+        Set<String> items = Inventories.contents(dataManager);
+        System.out.println("digest " + items.hashCode() + "/" + items.size());
+        System.out.println("changes " + changes);
+        System.out.flush();
+    }
+}
@@ -0,0 +1,101 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Help-desk traffic: views of a hot set of employees and assets, with an assignment, a status change or a maintenance
+// record on a hot employee or asset between views. Every hot report the cache keeps must match a fresh render.
+class ReportCacheTest {
+    private static final int ASSETS = 10_000;
+    private static final int EMPLOYEES = ASSETS / 10;
+    private static final int HOT = 200;
+    private static final int VIEWS = 10_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cachedReportsMatchFreshRenders() {
+        DataManager dataManager = new DataManager(dir);
+        Inventories.populate(dataManager, ASSETS);
+        dataManager.beginBatch();
+        AssetManager assetManager = new AssetManager(dataManager);
+        EmployeeManager employeeManager = new EmployeeManager(dataManager);
+        MaintenanceManager maintenanceManager = new MaintenanceManager(dataManager);
+        String[] hotEmployees = new String[HOT];
+        String[] hotAssets = new String[HOT];
+        for (int i = 0; i < HOT; i++) {
+            hotEmployees[i] = Inventories.employeeId(i * (EMPLOYEES / HOT));
+            hotAssets[i] = Inventories.assetId(i * (ASSETS / HOT));
+        }
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (String asset : hotAssets) {
+            for (int j = 0; j < 10; j++) {
+                maintenanceManager.recordMaintenance(asset, "Intermittent fault " + j, 25 + j, base.plusDays(j), assetManager);
+            }
+        }
+        ReportCache employeeReports = dataManager.getEmployeeReports();
+        ReportCache historyReports = dataManager.getHistoryReports();
+        long hits = employeeReports.hits() + historyReports.hits();
+
+        Random random = new Random(11);
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < VIEWS; i++) {
+            lines.append(i % 2 == 0 ? hotEmployees[random.nextInt(HOT)] : hotAssets[random.nextInt(HOT)]).append('\n');
+        }
+        Scanner input = new Scanner(lines.toString());
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int i = 0; i < VIEWS; i++) {
+                if (i % 2 == 0) {
+                    employeeManager.viewEmployeeAssets(input, assetManager);
+                } else {
+                    maintenanceManager.viewAssetHistory(input);
+                }
+                if (i % 30 == 9) {
+                    assetManager.assignAsset(Inventories.assetId(random.nextInt(ASSETS)), hotEmployees[random.nextInt(HOT)], employeeManager);
+                } else if (i % 30 == 19) {
+                    maintenanceManager.recordMaintenance(hotAssets[random.nextInt(HOT)], "Reported again", 19.99, LocalDateTime.now(), assetManager);
+                } else if (i % 30 == 29) {
+                    assetManager.updateAssetStatus(hotAssets[random.nextInt(HOT)], i % 60 == 29 ? "In Maintenance" : "Unassigned");
+                }
+            }
+        } finally {
+            System.setOut(console);
+        }
+        assertTrue(employeeReports.hits() + historyReports.hits() - hits > VIEWS / 2, "the hot set is mostly served from the cache");
+
+        List<String> stale = new ArrayList<>();
+        int checked = 0;
+        for (int i = 0; i < HOT; i++) {
+            String employeeReport = employeeReports.peek(DataManager.key(hotEmployees[i]));
+            if (employeeReport != null) {
+                checked++;
+                if (!employeeReport.equals(employeeManager.renderEmployeeAssets(hotEmployees[i]))) {
+                    stale.add(hotEmployees[i]);
+                }
+            }
+            String historyReport = historyReports.peek(DataManager.key(hotAssets[i]));
+            if (historyReport != null) {
+                checked++;
+                if (!historyReport.equals(maintenanceManager.renderAssetHistory(hotAssets[i]))) {
+                    stale.add(hotAssets[i]);
+                }
+            }
+        }
+        assertTrue(checked > HOT, "only " + checked + " hot reports cached");
+        assertEquals(List.of(), stale, "cached reports differing from a fresh render");
+    }
+}
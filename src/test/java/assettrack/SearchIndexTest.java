@@ -0,0 +1,80 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Indexed and scanned queries against a brute-force evaluation of the same query, and the index following changes.
+class SearchIndexTest {
+    private static final int ASSETS = 20_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void queriesMatchFullScan() {
+        DataManager dataManager = new DataManager(dir);
+        Inventories.populate(dataManager, ASSETS);
+        SearchIndex index = dataManager.getSearchIndex();
+        Asset sample = dataManager.findAsset(Inventories.assetId(ASSETS / 2));
+        String[] queries = {"model 42", "model 4*", "serial:" + sample.getSerialNumber(), "serial:" + sample.getSerialNumber().substring(0, 6) + "*",
+            "id:" + Inventories.assetId(ASSETS / 3), "id:AST-00012*", "employee 7*", "model 42 status:assigned", "category:av name~model", "name~zzz"};
+        List<String> failures = new ArrayList<>();
+        for (String query : queries) {
+            int found = index.search(dataManager, query, Integer.MAX_VALUE - 1).assets.size();
+            long expected = dataManager.getAssets().parallelStream().filter(bruteForce(query)).count();
+            if (expected != found) {
+                failures.add("'" + query + "': index found " + found + " asset(s), scan found " + expected);
+            }
+        }
+        assertEquals(List.of(), failures);
+    }
+
+    @Test
+    void indexFollowsAddRenameAndDelete() {
+        DataManager dataManager = new DataManager(dir);
+        Inventories.populate(dataManager, 1_000);
+        SearchIndex index = dataManager.getSearchIndex();
+        dataManager.addAsset(new Asset("AST-X1", "Quokka scanner", "AV", "QX-1", "Unassigned", null));
+        assertEquals(1, index.search(dataManager, "quokka", 10).assets.size());
+        dataManager.addAsset(new Asset("AST-X1", "Wombat scanner", "AV", "QX-1", "Unassigned", null));
+        assertTrue(index.search(dataManager, "quokka", 10).assets.isEmpty());
+        assertEquals(1, index.search(dataManager, "wombat", 10).assets.size());
+        dataManager.removeAsset("AST-X1");
+        assertTrue(index.search(dataManager, "wombat", 10).assets.isEmpty());
+        assertTrue(index.search(dataManager, "serial:qx-1", 10).assets.isEmpty());
+    }
+
+    // The reference answer, computed without the index.
+    private static Predicate<Asset> bruteForce(String query) {
+        Predicate<Asset> result = asset -> true;
+        for (String term : query.split(" ")) {
+            String value = term.substring(term.indexOf(term.contains("~") ? '~' : ':') + 1).toLowerCase(Locale.ROOT);
+            String prefix = value.endsWith("*") ? value.substring(0, value.length() - 1) : null;
+            Predicate<String> matches = v -> prefix != null ? v.startsWith(prefix) : v.equals(value);
+            Predicate<Asset> next;
+            if (term.startsWith("serial:")) {
+                next = asset -> matches.test(asset.getSerialNumber().toLowerCase(Locale.ROOT));
+            } else if (term.startsWith("id:")) {
+                next = asset -> matches.test(asset.getAssetId().toLowerCase(Locale.ROOT));
+            } else if (term.startsWith("status:")) {
+                next = asset -> asset.getStatus().equalsIgnoreCase(value);
+            } else if (term.startsWith("category:")) {
+                next = asset -> asset.getCategory().equalsIgnoreCase(value);
+            } else if (term.startsWith("name~")) {
+                next = asset -> asset.getName().toLowerCase(Locale.ROOT).contains(value);
+            } else {
+                next = asset -> SearchIndex.tokens(asset.getName(), asset.getCategory()).stream().anyMatch(matches);
+            }
+            result = result.and(next);
+        }
+        return result;
+    }
+}
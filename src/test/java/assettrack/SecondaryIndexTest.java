@@ -0,0 +1,99 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The assignee and per-asset maintenance indexes against full scans: after any mix of assigns, de-assigns, status
+// changes, maintenance records, deletes and re-adds, the assets listed for an employee are exactly those the asset
+// list says they hold, and an asset's history is exactly its records from a flat list, oldest first with equal dates
+// in the order recorded. The same holds after a save and reload rebuilds the indexes.
+class SecondaryIndexTest {
+    private static final int ASSETS = 200;
+    private static final int EMPLOYEES = 20;
+    private static final int OPERATIONS = 5_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void indexesMatchAFullScanThroughRandomChanges() {
+        DataManager dataManager = new DataManager(dir, 0);
+        AssetManager assetManager = new AssetManager(dataManager);
+        EmployeeManager employeeManager = new EmployeeManager(dataManager);
+        MaintenanceManager maintenanceManager = new MaintenanceManager(dataManager);
+        for (int i = 0; i < EMPLOYEES; i++) {
+            employeeManager.addEmployee(Inventories.employeeId(i), "Employee " + i, "Dept " + i % 3, "e" + i + "@example.com");
+        }
+        for (int i = 0; i < ASSETS; i++) {
+            assetManager.addAsset(Inventories.assetId(i), "Asset " + i, "IT", "SN-" + i);
+        }
+
+        // Every record ever kept, in the order recorded, as the inventory held them before the index.
+        List<MaintenanceRecord> records = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < OPERATIONS; i++) {
+            String assetId = Inventories.assetId(random.nextInt(ASSETS));
+            String employeeId = Inventories.employeeId(random.nextInt(EMPLOYEES + 2));
+            try {
+                switch (random.nextInt(10)) {
+                    case 0, 1, 2 -> assetManager.assignAsset(assetId, employeeId, employeeManager);
+                    case 3 -> assetManager.deassignAsset(assetId);
+                    case 4, 5 -> assetManager.updateAssetStatus(assetId, AssetManager.STATUSES[random.nextInt(AssetManager.STATUSES.length)]);
+                    case 6, 7 -> records.add(maintenanceManager.recordMaintenance(assetId, "Service " + i, random.nextInt(10_000) / 100.0,
+                        LocalDateTime.of(2024, 1, 1, 8, 0).plusHours(random.nextInt(48)), assetManager));
+                    case 8 -> {
+                        assetManager.deleteAsset(assetId);
+                        records.removeIf(record -> record.getAssetId().equals(assetId));
+                    }
+                    default -> {
+                        if (dataManager.containsAsset(assetId)) {
+                            employeeManager.deleteEmployee(employeeId);
+                        } else {
+                            assetManager.addAsset(assetId, "Replacement", "IT", "SN-R");
+                        }
+                    }
+                }
+            } catch (IllegalArgumentException rejected) {
+                // Retired, not found, already unassigned, still holding assets: the indexes must not have moved.
+            }
+            if (i % 500 == 0) {
+                assertIndexesMatch(dataManager, records);
+            }
+        }
+        assertIndexesMatch(dataManager, records);
+
+        dataManager.saveData();
+        DataManager reloaded = new DataManager(dir, 0);
+        reloaded.loadData();
+        assertIndexesMatch(reloaded, records);
+        dataManager.flush();
+    }
+
+    private static void assertIndexesMatch(DataManager dataManager, List<MaintenanceRecord> records) {
+        for (int i = 0; i < EMPLOYEES + 2; i++) {
+            String employeeId = Inventories.employeeId(i);
+            List<String> scanned = dataManager.getAssets().stream().filter(asset -> employeeId.equalsIgnoreCase(asset.getAssignedTo()))
+                .map(Asset::getAssetId).sorted().collect(Collectors.toList());
+            List<String> indexed = dataManager.getAssetsAssignedTo(employeeId).stream().map(Asset::getAssetId).sorted().collect(Collectors.toList());
+            assertEquals(scanned, indexed, employeeId);
+            assertEquals(scanned, dataManager.getAssetsAssignedTo(employeeId.toLowerCase()).stream().map(Asset::getAssetId).sorted()
+                .collect(Collectors.toList()), employeeId.toLowerCase());
+        }
+        for (int i = 0; i < ASSETS; i++) {
+            String assetId = Inventories.assetId(i);
+            List<String> scanned = records.stream().filter(record -> record.getAssetId().equals(assetId))
+                .sorted(Comparator.comparing(MaintenanceRecord::getDate)).map(MaintenanceRecord::toString).collect(Collectors.toList());
+            assertEquals(scanned, dataManager.getMaintenanceHistory(assetId).stream().map(MaintenanceRecord::toString).collect(Collectors.toList()), assetId);
+        }
+        assertEquals(records.size(), dataManager.getMaintenanceRecordCount());
+    }
+}
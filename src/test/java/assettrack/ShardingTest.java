@@ -0,0 +1,113 @@
+package assettrack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// A synthetic inventory spread over sites (IDs S00-..., S01-...), saved sharded by site and unsharded.
+class ShardingTest {
+    private static final int ASSETS = 20_000;
+    private static final int SITES = 8;
+
+    @TempDir
+    Path shardedDir;
+
+    @TempDir
+    Path unshardedDir;
+
+    @BeforeEach
+    void saveBothLayouts() {
+        for (boolean sharded : new boolean[] {true, false}) {
+            DataManager dataManager = new DataManager(sharded ? shardedDir : unshardedDir);
+            dataManager.setSharded(sharded);
+            Inventories.populateSites(dataManager, ASSETS, SITES);
+            dataManager.saveData();
+        }
+    }
+
+    @Test
+    void bothLayoutsLoadTheSameInventory() {
+        DataManager sharded = load(shardedDir, true);
+        DataManager unsharded = load(unshardedDir, false);
+        assertEquals(ASSETS, sharded.getAssetCount());
+        assertEquals(digest(unsharded), digest(sharded));
+    }
+
+    @Test
+    void changeAtOneSiteRewritesOnlyItsShard() throws IOException {
+        DataManager dataManager = load(shardedDir, true);
+        Map<Path, Object> before = versions(shardedDir.resolve("shards"));
+        new AssetManager(dataManager).updateAssetStatus(Inventories.siteId(0, "AST", 7, 0), "Retired");
+        dataManager.flush();
+        dataManager.saveData();
+        Map<Path, Object> after = versions(shardedDir.resolve("shards"));
+        Set<Path> touched = new TreeSet<>(after.keySet());
+        touched.removeIf(path -> after.get(path).equals(before.get(path)));
+        assertFalse(touched.isEmpty());
+        assertTrue(touched.stream().allMatch(path -> path.startsWith(shardedDir.resolve("shards").resolve("S00"))), "rewritten: " + touched);
+    }
+
+    @Test
+    void employeesAssetsAreFoundAcrossSites() {
+        DataManager dataManager = load(shardedDir, true);
+        Map<String, List<String>> expected = new HashMap<>();
+        for (Asset asset : dataManager.getAssets()) {
+            if (asset.getAssignedTo() != null) {
+                expected.computeIfAbsent(DataManager.key(asset.getAssignedTo()), k -> new ArrayList<>()).add(asset.getAssetId());
+            }
+        }
+        int crossSite = 0;
+        for (Employee employee : dataManager.getEmployees()) {
+            List<String> found = dataManager.getAssetsAssignedTo(employee.getEmployeeId()).stream().map(Asset::getAssetId).sorted().collect(Collectors.toList());
+            List<String> wanted = expected.getOrDefault(DataManager.key(employee.getEmployeeId()), Collections.emptyList());
+            wanted.sort(null);
+            assertEquals(wanted, found, employee.getEmployeeId());
+            crossSite += found.stream().anyMatch(id -> !DataManager.shardKey(id).equals(DataManager.shardKey(employee.getEmployeeId()))) ? 1 : 0;
+        }
+        assertTrue(crossSite > 0, "no employee holds assets at another site");
+    }
+
+    private static DataManager load(Path dir, boolean sharded) {
+        DataManager dataManager = new DataManager(dir);
+        dataManager.setSharded(sharded);
+        dataManager.loadData();
+        return dataManager;
+    }
+
+    private static String digest(DataManager dataManager) {
+        return dataManager.getAssets().stream().map(Asset::toString).collect(Collectors.joining("\n")) + "\n"
+            + dataManager.getEmployees().stream().map(Employee::toString).collect(Collectors.joining("\n")) + "\n"
+            + dataManager.getMaintenanceRecordCount();
+    }
+
+    // A file's identity and modification time: saves replace files by renaming a new one over them.
+    private static Map<Path, Object> versions(Path dir) throws IOException {
+        Map<Path, Object> versions = new HashMap<>();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    versions.put(file, List.of(String.valueOf(attributes.fileKey()), attributes.lastModifiedTime()));
+                }
+            }
+        }
+        return versions;
+    }
+}